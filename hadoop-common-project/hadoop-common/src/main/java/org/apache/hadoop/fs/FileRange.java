@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.fs;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.impl.FileRangeImpl;
+
+/**
+ * A byte range of a file, to be read by
+ * {@link PositionedReadable#readVectored(java.util.List,
+ * java.util.function.IntFunction)}, together with the future of its data.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public interface FileRange {
+
+  /**
+   * @return the offset of the range in the file
+   */
+  long getOffset();
+
+  /**
+   * @return the number of bytes of the range
+   */
+  int getLength();
+
+  /**
+   * Get the future of the data of the range, which completes with a buffer
+   * positioned at the first byte of the range, whose remaining bytes are the
+   * data of the range.
+   * @return the future, null if the range has not been read
+   */
+  CompletableFuture<ByteBuffer> getData();
+
+  /**
+   * Set the future of the data of the range.
+   * @param data the future
+   */
+  void setData(CompletableFuture<ByteBuffer> data);
+
+  /**
+   * Create a range.
+   * @param offset the offset of the range in the file
+   * @param length the number of bytes of the range
+   * @return a new range
+   */
+  static FileRange createFileRange(long offset, int length) {
+    return new FileRangeImpl(offset, length);
+  }
+}
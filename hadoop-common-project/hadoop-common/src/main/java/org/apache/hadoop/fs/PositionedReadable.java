@@ -18,6 +18,9 @@
 package org.apache.hadoop.fs;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.IntFunction;
 
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
@@ -85,4 +88,43 @@ void readFully(long position, byte[] buffer, int offset, int length)
    * the read operation completed
    */
   void readFully(long position, byte[] buffer) throws IOException;
+
+  /**
+   * The largest gap between two ranges of a vectored read which an
+   * implementation reads through, rather than reading the ranges with
+   * separate requests.
+   * @return the gap in bytes
+   */
+  default int minSeekForVectorReads() {
+    return 4 * 1024;
+  }
+
+  /**
+   * The largest number of bytes an implementation reads with a single
+   * request when it combines the ranges of a vectored read.
+   * @return the size in bytes
+   */
+  default int maxReadSizeForVectorReads() {
+    return 1024 * 1024;
+  }
+
+  /**
+   * Read several ranges of the file. The data of each range is set as a
+   * future on the range, which may complete after this method returns, so
+   * that implementations can combine nearby ranges and read the ranges
+   * concurrently. The ranges may be read in any order.
+   * <p>
+   * The default implementation reads the ranges one after the other with
+   * {@link #readFully(long, byte[], int, int)}.
+   *
+   * <i>Warning: Not all filesystems satisfy the thread-safety requirement.</i>
+   * @param ranges the byte ranges to read
+   * @param allocate the function allocating the buffers for the data
+   * @throws IOException if a range is not valid, or the read could not be
+   * started; the failures of reading a range complete its future
+   */
+  default void readVectored(List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate) throws IOException {
+    VectoredReadUtils.readVectored(this, ranges, allocate);
+  }
 }
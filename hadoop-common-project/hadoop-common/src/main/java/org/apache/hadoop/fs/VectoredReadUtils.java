@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.fs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+import com.google.common.base.Preconditions;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.impl.CombinedFileRange;
+
+/**
+ * Utility methods for implementing
+ * {@link PositionedReadable#readVectored(List, IntFunction)}.
+ */
+@InterfaceAudience.LimitedPrivate({"Filesystems"})
+@InterfaceStability.Unstable
+public final class VectoredReadUtils {
+
+  private VectoredReadUtils() {
+  }
+
+  /**
+   * Check that a range is valid.
+   * @param range the range
+   * @throws EOFException if the offset of the range is negative
+   * @throws IllegalArgumentException if the length of the range is negative
+   */
+  public static void validateRangeRequest(FileRange range)
+      throws EOFException {
+    Preconditions.checkArgument(range.getLength() >= 0,
+        "length is negative in %s", range);
+    if (range.getOffset() < 0) {
+      throw new EOFException("position is negative in " + range);
+    }
+  }
+
+  /**
+   * Read the ranges one after the other with
+   * {@link PositionedReadable#readFully(long, byte[], int, int)}. This is
+   * the default implementation of the vectored read; the futures of the
+   * ranges are complete when it returns.
+   * @param stream the stream to read
+   * @param ranges the ranges to read
+   * @param allocate the function allocating the buffers of the ranges
+   * @throws IOException if a range is not valid
+   */
+  public static void readVectored(PositionedReadable stream,
+      List<? extends FileRange> ranges, IntFunction<ByteBuffer> allocate)
+      throws IOException {
+    for (FileRange range : ranges) {
+      validateRangeRequest(range);
+    }
+    for (FileRange range : ranges) {
+      range.setData(readRangeFrom(stream, range, allocate));
+    }
+  }
+
+  /**
+   * Read a range with
+   * {@link PositionedReadable#readFully(long, byte[], int, int)}.
+   * @param stream the stream to read
+   * @param range the range to read
+   * @param allocate the function allocating the buffer of the range
+   * @return the completed future of the data of the range
+   */
+  public static CompletableFuture<ByteBuffer> readRangeFrom(
+      PositionedReadable stream, FileRange range,
+      IntFunction<ByteBuffer> allocate) {
+    CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+    try {
+      ByteBuffer buffer = allocate.apply(range.getLength());
+      if (buffer.hasArray()) {
+        stream.readFully(range.getOffset(), buffer.array(),
+            buffer.arrayOffset() + buffer.position(), range.getLength());
+        buffer.limit(buffer.position() + range.getLength());
+      } else {
+        byte[] tmp = new byte[range.getLength()];
+        stream.readFully(range.getOffset(), tmp, 0, tmp.length);
+        int position = buffer.position();
+        buffer.put(tmp);
+        buffer.limit(buffer.position());
+        buffer.position(position);
+      }
+      result.complete(buffer);
+    } catch (IOException | RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Check the ranges and sort them by their offsets.
+   * @param ranges the ranges
+   * @return the sorted ranges
+   * @throws EOFException if a range has a negative offset
+   */
+  public static List<FileRange> sortRanges(List<? extends FileRange> ranges)
+      throws EOFException {
+    List<FileRange> sorted = new ArrayList<>(ranges.size());
+    for (FileRange range : ranges) {
+      validateRangeRequest(range);
+      sorted.add(range);
+    }
+    sorted.sort(Comparator.comparingLong(FileRange::getOffset));
+    return sorted;
+  }
+
+  /**
+   * Combine sorted ranges which are close to each other. A range is added
+   * to the previous combined range if the gap between them is at most
+   * minSeek bytes and the combined range stays at most maxSize bytes long.
+   * @param sortedRanges the ranges, sorted by their offsets
+   * @param minSeek the largest gap between ranges which are combined
+   * @param maxSize the largest size of a combined range
+   * @return the combined ranges
+   */
+  public static List<CombinedFileRange> mergeSortedRanges(
+      List<? extends FileRange> sortedRanges, int minSeek, int maxSize) {
+    List<CombinedFileRange> result = new ArrayList<>();
+    CombinedFileRange current = null;
+    for (FileRange range : sortedRanges) {
+      if (current == null || !current.merge(range, minSeek, maxSize)) {
+        current = new CombinedFileRange(range);
+        result.add(current);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get the part of the data read for a combined range which belongs to one
+   * of its ranges.
+   * @param readData the data of the combined range
+   * @param readOffset the offset of the combined range in the file
+   * @param request the range
+   * @return a view of the data of the range
+   */
+  public static ByteBuffer sliceTo(ByteBuffer readData, long readOffset,
+      FileRange request) {
+    int offsetInBuffer = (int) (request.getOffset() - readOffset);
+    ByteBuffer slice = readData.duplicate();
+    slice.position(readData.position() + offsetInBuffer);
+    slice.limit(slice.position() + request.getLength());
+    return slice.slice();
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.fs.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.fs.FileRange;
+
+/**
+ * A range which covers several ranges of a vectored read which are close
+ * to each other, so that they can be read with a single request.
+ */
+@InterfaceAudience.Private
+public class CombinedFileRange extends FileRangeImpl {
+  private final List<FileRange> underlying = new ArrayList<>();
+
+  public CombinedFileRange(FileRange original) {
+    super(original.getOffset(), original.getLength());
+    underlying.add(original);
+  }
+
+  /**
+   * @return the ranges this range covers
+   */
+  public List<FileRange> getUnderlying() {
+    return underlying;
+  }
+
+  /**
+   * Add a range to this range if it starts at most minSeek bytes after this
+   * range ends, and the combined range is at most maxSize bytes long. The
+   * ranges must be added in the order of their offsets.
+   * @param other the range to add
+   * @param minSeek the largest gap between the ranges
+   * @param maxSize the largest size of the combined range
+   * @return true if the range was added
+   */
+  public boolean merge(FileRange other, int minSeek, int maxSize) {
+    long end = getOffset() + getLength();
+    long newEnd = Math.max(end, other.getOffset() + other.getLength());
+    if (other.getOffset() - end > minSeek ||
+        newEnd - getOffset() > maxSize) {
+      return false;
+    }
+    setLength((int) (newEnd - getOffset()));
+    underlying.add(other);
+    return true;
+  }
+}
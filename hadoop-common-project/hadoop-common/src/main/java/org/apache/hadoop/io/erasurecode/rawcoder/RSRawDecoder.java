@@ -72,22 +72,19 @@ public RSRawDecoder(ErasureCoderOptions coderOptions) {
 
   @Override
   protected void doDecode(ByteBufferDecodingState decodingState) {
-    CoderUtil.resetOutputBuffers(decodingState.outputs,
-        decodingState.decodeLength);
     prepareDecoding(decodingState.inputs, decodingState.erasedIndexes);
 
     ByteBuffer[] realInputs = new ByteBuffer[getNumDataUnits()];
     for (int i = 0; i < getNumDataUnits(); i++) {
       realInputs[i] = decodingState.inputs[validIndexes[i]];
     }
-    RSUtil.encodeData(gfTables, realInputs, decodingState.outputs);
+    encodeData(gfTables, decodingState.decodeLength, realInputs,
+        decodingState.outputs);
   }
 
   @Override
   protected void doDecode(ByteArrayDecodingState decodingState) {
     int dataLen = decodingState.decodeLength;
-    CoderUtil.resetOutputBuffers(decodingState.outputs,
-        decodingState.outputOffsets, dataLen);
     prepareDecoding(decodingState.inputs, decodingState.erasedIndexes);
 
     byte[][] realInputs = new byte[getNumDataUnits()][];
@@ -96,10 +93,30 @@ protected void doDecode(ByteArrayDecodingState decodingState) {
       realInputs[i] = decodingState.inputs[validIndexes[i]];
       realInputOffsets[i] = decodingState.inputOffsets[validIndexes[i]];
     }
-    RSUtil.encodeData(gfTables, dataLen, realInputs, realInputOffsets,
+    encodeData(gfTables, dataLen, realInputs, realInputOffsets,
         decodingState.outputs, decodingState.outputOffsets);
   }
 
+  /**
+   * Multiply the inputs by the coding coefficients of the tables into the
+   * outputs, replacing what the outputs held.
+   */
+  protected void encodeData(byte[] tables, int dataLen, ByteBuffer[] inputs,
+      ByteBuffer[] outputs) {
+    CoderUtil.resetOutputBuffers(outputs, dataLen);
+    RSUtil.encodeData(tables, inputs, outputs);
+  }
+
+  /**
+   * See above.
+   */
+  protected void encodeData(byte[] tables, int dataLen, byte[][] inputs,
+      int[] inputOffsets, byte[][] outputs, int[] outputOffsets) {
+    CoderUtil.resetOutputBuffers(outputs, outputOffsets, dataLen);
+    RSUtil.encodeData(tables, dataLen, inputs, inputOffsets, outputs,
+        outputOffsets);
+  }
+
   private <T> void prepareDecoding(T[] inputs, int[] erasedIndexes) {
     int[] tmpValidIndexes = CoderUtil.getValidIndexes(inputs);
     if (Arrays.equals(this.cachedErasedIndexes, erasedIndexes) &&
@@ -23,6 +23,8 @@
 import org.apache.hadoop.io.erasurecode.rawcoder.util.DumpUtil;
 import org.apache.hadoop.io.erasurecode.rawcoder.util.RSUtil;
 
+import java.nio.ByteBuffer;
+
 /**
  * A raw erasure encoder in RS code scheme in pure Java in case native one
  * isn't available in some environment. Please always use native implementations
@@ -62,19 +64,34 @@ public RSRawEncoder(ErasureCoderOptions coderOptions) {
 
   @Override
   protected void doEncode(ByteBufferEncodingState encodingState) {
-    CoderUtil.resetOutputBuffers(encodingState.outputs,
-        encodingState.encodeLength);
-    RSUtil.encodeData(gfTables, encodingState.inputs, encodingState.outputs);
+    encodeData(gfTables, encodingState.encodeLength, encodingState.inputs,
+        encodingState.outputs);
   }
 
   @Override
   protected void doEncode(ByteArrayEncodingState encodingState) {
-    CoderUtil.resetOutputBuffers(encodingState.outputs,
-        encodingState.outputOffsets,
-        encodingState.encodeLength);
-    RSUtil.encodeData(gfTables, encodingState.encodeLength,
-        encodingState.inputs,
+    encodeData(gfTables, encodingState.encodeLength, encodingState.inputs,
         encodingState.inputOffsets, encodingState.outputs,
         encodingState.outputOffsets);
   }
+
+  /**
+   * Multiply the inputs by the coding coefficients of the tables into the
+   * outputs, replacing what the outputs held.
+   */
+  protected void encodeData(byte[] tables, int dataLen, ByteBuffer[] inputs,
+      ByteBuffer[] outputs) {
+    CoderUtil.resetOutputBuffers(outputs, dataLen);
+    RSUtil.encodeData(tables, inputs, outputs);
+  }
+
+  /**
+   * See above.
+   */
+  protected void encodeData(byte[] tables, int dataLen, byte[][] inputs,
+      int[] inputOffsets, byte[][] outputs, int[] outputOffsets) {
+    CoderUtil.resetOutputBuffers(outputs, outputOffsets, dataLen);
+    RSUtil.encodeData(tables, dataLen, inputs, inputOffsets, outputs,
+        outputOffsets);
+  }
 }
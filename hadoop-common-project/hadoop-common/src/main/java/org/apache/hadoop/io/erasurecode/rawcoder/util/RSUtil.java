@@ -20,6 +20,7 @@
 import org.apache.hadoop.classification.InterfaceAudience;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Utilities for implementing Reed-Solomon code, used by RS coder. Some of the
@@ -35,6 +36,13 @@ private RSUtil(){}
   public static GaloisField GF = GaloisField.getInstance();
   public static final int PRIMITIVE_ROOT = 2;
 
+  /**
+   * Number of bytes of every buffer coded at a time by the bulk encodeData,
+   * so the part of the outputs being coded stays in the CPU caches while all
+   * the inputs are multiplied into it.
+   */
+  public static final int BULK_BLOCK_SIZE = 4096;
+
   public static int[] getPrimitivePower(int numDataUnits, int numParityUnits) {
     int[] primitivePower = new int[numDataUnits + numParityUnits];
     // compute powers of the primitive root
@@ -184,4 +192,147 @@ public static void encodeData(byte[] gfTables, ByteBuffer[] inputs,
     }
   }
 
+  /**
+   * Get the multiplication table lines of the coding coefficients of the
+   * given tables, line [l * numInputs + j] multiplying input j into output l.
+   */
+  private static byte[][] getTableLines(byte[] gfTables, int numInputs,
+      int numOutputs) {
+    byte[][] tableLines = new byte[numInputs * numOutputs][];
+    for (int i = 0; i < tableLines.length; i++) {
+      tableLines[i] = GF256.gfMulTab()[gfTables[i * 32 + 1] & 0xff];
+    }
+    return tableLines;
+  }
+
+  /**
+   * Like encodeData, but overwrites the outputs instead of adding to them,
+   * so they need not be reset first, and codes the buffers a block at a time,
+   * reading every block of the inputs and writing every block of the outputs
+   * once from memory.
+   */
+  public static void bulkEncodeData(byte[] gfTables, int dataLen,
+      byte[][] inputs, int[] inputOffsets, byte[][] outputs,
+      int[] outputOffsets) {
+    int numInputs = inputs.length;
+    int numOutputs = outputs.length;
+    byte[][] tableLines = getTableLines(gfTables, numInputs, numOutputs);
+
+    for (int start = 0; start < dataLen; start += BULK_BLOCK_SIZE) {
+      int len = Math.min(BULK_BLOCK_SIZE, dataLen - start);
+      for (int j = 0; j < numInputs; j++) {
+        for (int l = 0; l < numOutputs; l++) {
+          mulBlock(tableLines[l * numInputs + j], inputs[j],
+              inputOffsets[j] + start, outputs[l], outputOffsets[l] + start,
+              len, j > 0);
+        }
+      }
+    }
+  }
+
+  private static void mulBlock(byte[] tableLine, byte[] input, int iPos,
+      byte[] output, int oPos, int len, boolean add) {
+    final int end = iPos + len;
+    final int wordEnd = iPos + len - len % 8;
+    if (add) {
+      for (; iPos < wordEnd; iPos += 8, oPos += 8) {
+        output[oPos + 0] ^= tableLine[0xff & input[iPos + 0]];
+        output[oPos + 1] ^= tableLine[0xff & input[iPos + 1]];
+        output[oPos + 2] ^= tableLine[0xff & input[iPos + 2]];
+        output[oPos + 3] ^= tableLine[0xff & input[iPos + 3]];
+        output[oPos + 4] ^= tableLine[0xff & input[iPos + 4]];
+        output[oPos + 5] ^= tableLine[0xff & input[iPos + 5]];
+        output[oPos + 6] ^= tableLine[0xff & input[iPos + 6]];
+        output[oPos + 7] ^= tableLine[0xff & input[iPos + 7]];
+      }
+      for (; iPos < end; iPos++, oPos++) {
+        output[oPos] ^= tableLine[0xff & input[iPos]];
+      }
+    } else {
+      for (; iPos < wordEnd; iPos += 8, oPos += 8) {
+        output[oPos + 0] = tableLine[0xff & input[iPos + 0]];
+        output[oPos + 1] = tableLine[0xff & input[iPos + 1]];
+        output[oPos + 2] = tableLine[0xff & input[iPos + 2]];
+        output[oPos + 3] = tableLine[0xff & input[iPos + 3]];
+        output[oPos + 4] = tableLine[0xff & input[iPos + 4]];
+        output[oPos + 5] = tableLine[0xff & input[iPos + 5]];
+        output[oPos + 6] = tableLine[0xff & input[iPos + 6]];
+        output[oPos + 7] = tableLine[0xff & input[iPos + 7]];
+      }
+      for (; iPos < end; iPos++, oPos++) {
+        output[oPos] = tableLine[0xff & input[iPos]];
+      }
+    }
+  }
+
+  /**
+   * See above. The buffers are read and written a long word at a time, which
+   * saves most of the bounds checks of direct buffers.
+   */
+  public static void bulkEncodeData(byte[] gfTables, ByteBuffer[] inputs,
+      ByteBuffer[] outputs) {
+    int numInputs = inputs.length;
+    int numOutputs = outputs.length;
+    int dataLen = inputs[0].remaining();
+    byte[][] tableLines = getTableLines(gfTables, numInputs, numOutputs);
+
+    // the bytes of a word must be in the same order in all the buffers
+    ByteBuffer[] ins = new ByteBuffer[numInputs];
+    for (int j = 0; j < numInputs; j++) {
+      ins[j] = inputs[j].duplicate().order(ByteOrder.nativeOrder());
+    }
+    ByteBuffer[] outs = new ByteBuffer[numOutputs];
+    for (int l = 0; l < numOutputs; l++) {
+      outs[l] = outputs[l].duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    for (int start = 0; start < dataLen; start += BULK_BLOCK_SIZE) {
+      int len = Math.min(BULK_BLOCK_SIZE, dataLen - start);
+      for (int j = 0; j < numInputs; j++) {
+        for (int l = 0; l < numOutputs; l++) {
+          mulBlock(tableLines[l * numInputs + j], ins[j],
+              ins[j].position() + start, outs[l], outs[l].position() + start,
+              len, j > 0);
+        }
+      }
+    }
+  }
+
+  private static void mulBlock(byte[] tableLine, ByteBuffer input, int iPos,
+      ByteBuffer output, int oPos, int len, boolean add) {
+    final int end = iPos + len;
+    final int wordEnd = iPos + len - len % 8;
+    if (add) {
+      for (; iPos < wordEnd; iPos += 8, oPos += 8) {
+        output.putLong(oPos,
+            output.getLong(oPos) ^ mulWord(tableLine, input.getLong(iPos)));
+      }
+      for (; iPos < end; iPos++, oPos++) {
+        output.put(oPos, (byte) (output.get(oPos) ^
+            tableLine[0xff & input.get(iPos)]));
+      }
+    } else {
+      for (; iPos < wordEnd; iPos += 8, oPos += 8) {
+        output.putLong(oPos, mulWord(tableLine, input.getLong(iPos)));
+      }
+      for (; iPos < end; iPos++, oPos++) {
+        output.put(oPos, tableLine[0xff & input.get(iPos)]);
+      }
+    }
+  }
+
+  /**
+   * Multiply each of the 8 bytes of a word by the coefficient of the table
+   * line.
+   */
+  private static long mulWord(byte[] tableLine, long word) {
+    return (tableLine[(int) word & 0xff] & 0xffL)
+        | (tableLine[(int) (word >>> 8) & 0xff] & 0xffL) << 8
+        | (tableLine[(int) (word >>> 16) & 0xff] & 0xffL) << 16
+        | (tableLine[(int) (word >>> 24) & 0xff] & 0xffL) << 24
+        | (tableLine[(int) (word >>> 32) & 0xff] & 0xffL) << 32
+        | (tableLine[(int) (word >>> 40) & 0xff] & 0xffL) << 40
+        | (tableLine[(int) (word >>> 48) & 0xff] & 0xffL) << 48
+        | (tableLine[(int) (word >>> 56)] & 0xffL) << 56;
+  }
 }
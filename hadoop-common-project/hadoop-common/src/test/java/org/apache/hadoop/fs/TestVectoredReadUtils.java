@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.fs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+
+import org.junit.Test;
+
+import org.apache.hadoop.fs.impl.CombinedFileRange;
+import org.apache.hadoop.test.HadoopTestBase;
+
+/**
+ * Test the range merging and the default vectored read of
+ * {@link VectoredReadUtils}.
+ */
+public class TestVectoredReadUtils extends HadoopTestBase {
+
+  private static final byte[] DATA = new byte[1000];
+  static {
+    for (int i = 0; i < DATA.length; i++) {
+      DATA[i] = (byte) i;
+    }
+  }
+
+  /** A PositionedReadable over {@link #DATA}. */
+  private static final PositionedReadable STREAM = new PositionedReadable() {
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) {
+      if (position >= DATA.length) {
+        return -1;
+      }
+      int n = Math.min(length, DATA.length - (int) position);
+      System.arraycopy(DATA, (int) position, buffer, offset, n);
+      return n;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset,
+        int length) throws IOException {
+      if (position + length > DATA.length) {
+        throw new EOFException("past the end: " + position);
+      }
+      read(position, buffer, offset, length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer) throws IOException {
+      readFully(position, buffer, 0, buffer.length);
+    }
+  };
+
+  private static void assertData(FileRange range) throws Exception {
+    ByteBuffer data = range.getData().get();
+    assertEquals("Length of " + range, range.getLength(), data.remaining());
+    for (int i = 0; i < range.getLength(); i++) {
+      assertEquals("Byte " + i + " of " + range,
+          DATA[(int) range.getOffset() + i], data.get(data.position() + i));
+    }
+  }
+
+  @Test
+  public void testMergeSortedRanges() throws Exception {
+    List<FileRange> sorted = VectoredReadUtils.sortRanges(Arrays.asList(
+        FileRange.createFileRange(500, 100),
+        FileRange.createFileRange(0, 100),
+        FileRange.createFileRange(110, 50),
+        FileRange.createFileRange(120, 10)));
+    assertEquals(0, sorted.get(0).getOffset());
+    assertEquals(500, sorted.get(3).getOffset());
+
+    List<CombinedFileRange> merged =
+        VectoredReadUtils.mergeSortedRanges(sorted, 10, 1000);
+    assertEquals(2, merged.size());
+    assertEquals(0, merged.get(0).getOffset());
+    assertEquals(160, merged.get(0).getLength());
+    assertEquals(3, merged.get(0).getUnderlying().size());
+    assertEquals(500, merged.get(1).getOffset());
+
+    // too far apart
+    assertEquals(3,
+        VectoredReadUtils.mergeSortedRanges(sorted, 9, 1000).size());
+    // too large once combined
+    assertEquals(3,
+        VectoredReadUtils.mergeSortedRanges(sorted, 10, 150).size());
+  }
+
+  @Test
+  public void testSliceTo() throws Exception {
+    ByteBuffer read = ByteBuffer.wrap(DATA, 100, 200).slice();
+    FileRange range = FileRange.createFileRange(150, 20);
+    ByteBuffer slice = VectoredReadUtils.sliceTo(read, 100, range);
+    assertEquals(20, slice.remaining());
+    assertEquals(DATA[150], slice.get(0));
+    assertEquals(0, read.position());
+  }
+
+  @Test
+  public void testDefaultReadVectored() throws Exception {
+    List<FileRange> ranges = Arrays.asList(
+        FileRange.createFileRange(900, 100),
+        FileRange.createFileRange(0, 10),
+        FileRange.createFileRange(5, 10),
+        FileRange.createFileRange(0, 0));
+    List<IntFunction<ByteBuffer>> allocators =
+        Arrays.asList(ByteBuffer::allocate, ByteBuffer::allocateDirect);
+    for (IntFunction<ByteBuffer> allocate : allocators) {
+      STREAM.readVectored(ranges, allocate);
+      for (FileRange range : ranges) {
+        assertData(range);
+      }
+    }
+  }
+
+  @Test
+  public void testReadVectoredPastEof() throws Exception {
+    FileRange range = FileRange.createFileRange(990, 20);
+    STREAM.readVectored(Collections.singletonList(range),
+        ByteBuffer::allocate);
+    try {
+      range.getData().get();
+      fail("Expected an EOFException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof EOFException);
+    }
+  }
+
+  @Test
+  public void testNegativeOffset() throws Exception {
+    try {
+      STREAM.readVectored(
+          Collections.singletonList(FileRange.createFileRange(-1, 10)),
+          ByteBuffer::allocate);
+      fail("Expected an EOFException");
+    } catch (EOFException expected) {
+      // expected
+    }
+  }
+}
@@ -44,7 +44,8 @@
  * User can specify the data size each thread processes, as well as the chunk
  * size to use for the coder.
  * Different coders are supported. User can specify the coder by a coder index.
- * The coder is shared among all the threads.
+ * The coder is shared among all the threads. User can also specify the
+ * schema to code with, RS-6-3 by default.
  */
 public final class RawErasureCoderBenchmark {
 
@@ -55,26 +56,75 @@ private RawErasureCoderBenchmark() {
   // target size of input data buffer
   private static final int TARGET_BUFFER_SIZE_MB = 126;
 
-  private static final int MAX_CHUNK_SIZE =
-      TARGET_BUFFER_SIZE_MB / BenchData.NUM_DATA_UNITS * 1024;
-
   private static final List<RawErasureCoderFactory> CODER_MAKERS =
       Collections.unmodifiableList(
           Arrays.asList(new DummyRawErasureCoderFactory(),
               new RSLegacyRawErasureCoderFactory(),
               new RSRawErasureCoderFactory(),
-              new NativeRSRawErasureCoderFactory()));
+              new NativeRSRawErasureCoderFactory(),
+              new RSBulkRawErasureCoderFactory(),
+              new XORRawErasureCoderFactory(),
+              new NativeXORRawErasureCoderFactory()));
 
   enum CODER {
     DUMMY_CODER("Dummy coder"),
     LEGACY_RS_CODER("Legacy Reed-Solomon Java coder"),
     RS_CODER("Reed-Solomon Java coder"),
-    ISAL_CODER("ISA-L coder");
+    ISAL_CODER("ISA-L coder"),
+    RS_BULK_CODER("Reed-Solomon bulk Java coder"),
+    XOR_CODER("XOR Java coder", true),
+    ISAL_XOR_CODER("ISA-L XOR coder", true);
 
     private final String name;
+    private final boolean xor;
 
     CODER(String name) {
+      this(name, false);
+    }
+
+    CODER(String name, boolean xor) {
       this.name = name;
+      this.xor = xor;
+    }
+
+    boolean isXOR() {
+      return xor;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  enum SCHEMA {
+    RS_6_3("RS-6-3", 6, 3),
+    RS_10_4("RS-10-4", 10, 4),
+    XOR_2_1("XOR-2-1", 2, 1);
+
+    private final String name;
+    private final ErasureCoderOptions options;
+
+    SCHEMA(String name, int numDataUnits, int numParityUnits) {
+      this.name = name;
+      this.options = new ErasureCoderOptions(numDataUnits, numParityUnits);
+    }
+
+    ErasureCoderOptions getOptions() {
+      return options;
+    }
+
+    int getMaxChunkSizeKB() {
+      return TARGET_BUFFER_SIZE_MB / options.getNumDataUnits() * 1024;
+    }
+
+    static SCHEMA fromName(String name) {
+      for (SCHEMA schema : values()) {
+        if (schema.name.equalsIgnoreCase(name)) {
+          return schema;
+        }
+      }
+      return null;
     }
 
     @Override
@@ -93,6 +143,10 @@ private static void printAvailableCoders() {
     for (CODER coder : CODER.values()) {
       sb.append(coder.ordinal()).append(":").append(coder).append("\n");
     }
+    sb.append("Available schemas: ");
+    for (SCHEMA schema : SCHEMA.values()) {
+      sb.append(schema).append(" ");
+    }
     System.out.println(sb.toString());
   }
 
@@ -102,7 +156,7 @@ private static void usage(String message) {
     }
     System.out.println(
         "Usage: RawErasureCoderBenchmark <encode/decode> <coderIndex> " +
-            "[numThreads] [dataSize-in-MB] [chunkSize-in-KB]");
+            "[numThreads] [dataSize-in-MB] [chunkSize-in-KB] [schema]");
     printAvailableCoders();
     System.exit(1);
   }
@@ -114,6 +168,7 @@ public static void main(String[] args) throws Exception {
     int dataSizeMB = 10240;
     int chunkSizeKB = 1024;
     int numThreads = 1;
+    SCHEMA schema = SCHEMA.RS_6_3;
 
     if (args.length > 1) {
       opType = args[0];
@@ -156,22 +211,42 @@ public static void main(String[] args) throws Exception {
       }
     }
 
+    if (args.length > 5) {
+      schema = SCHEMA.fromName(args[5]);
+      if (schema == null) {
+        usage("Invalid schema " + args[5]);
+      }
+    }
+    CODER coder = CODER.values()[coderIndex];
+    if (coder.isXOR() && schema.getOptions().getNumParityUnits() != 1) {
+      usage("XOR coders can only code with one parity unit");
+    }
+
     if (args.length > 4) {
       try {
         chunkSizeKB = Integer.parseInt(args[4]);
         if (chunkSizeKB <= 0) {
           usage("Chunk size should be positive.");
         }
-        if (chunkSizeKB > MAX_CHUNK_SIZE) {
-          usage("Chunk size should be no larger than " + MAX_CHUNK_SIZE);
+        if (chunkSizeKB > schema.getMaxChunkSizeKB()) {
+          usage("Chunk size should be no larger than " +
+              schema.getMaxChunkSizeKB());
         }
       } catch (NumberFormatException e) {
         usage("Malformed chunk size, " + e.getMessage());
       }
     }
 
-    performBench(opType, CODER.values()[coderIndex],
-        numThreads, dataSizeMB, chunkSizeKB);
+    performBench(opType, coder, schema, numThreads, dataSizeMB, chunkSizeKB);
+  }
+
+  /**
+   * Performs benchmark with the RS-6-3 schema.
+   */
+  public static void performBench(String opType, CODER coder,
+      int numThreads, int dataSizeMB, int chunkSizeKB) throws Exception {
+    performBench(opType, coder, SCHEMA.RS_6_3, numThreads, dataSizeMB,
+        chunkSizeKB);
   }
 
   /**
@@ -179,13 +254,16 @@ public static void main(String[] args) throws Exception {
    *
    * @param opType      The operation to perform. Can be encode or decode
    * @param coder       The coder to use
+   * @param schema      The schema to code with
    * @param numThreads  Number of threads to launch concurrently
    * @param dataSizeMB  Total test data size in MB
    * @param chunkSizeKB Chunk size in KB
    */
-  public static void performBench(String opType, CODER coder,
+  public static void performBench(String opType, CODER coder, SCHEMA schema,
       int numThreads, int dataSizeMB, int chunkSizeKB) throws Exception {
-    BenchData.configure(dataSizeMB, chunkSizeKB);
+    Preconditions.checkArgument(!coder.isXOR() ||
+        schema.getOptions().getNumParityUnits() == 1);
+    BenchData.configure(schema, dataSizeMB, chunkSizeKB);
 
     RawErasureEncoder encoder = null;
     RawErasureDecoder decoder = null;
@@ -218,7 +296,8 @@ public static void performBench(String opType, CODER coder,
       double totalDataSize = BenchData.totalDataSizeKB * numThreads / 1024.0;
       DecimalFormat df = new DecimalFormat("#.##");
       System.out.println(coder + " " + opType + " " +
-          df.format(totalDataSize) + "MB data, with chunk size " +
+          df.format(totalDataSize) + "MB data, with schema " + schema +
+          " and chunk size " +
           BenchData.chunkSize / 1024 + "KB");
       System.out.println("Total time: " + df.format(duration / 1000.0) + " s.");
       System.out.println("Total throughput: " + df.format(
@@ -241,25 +320,25 @@ public static void performBench(String opType, CODER coder,
 
   private static RawErasureEncoder getRawEncoder(int index) throws IOException {
     RawErasureEncoder encoder =
-        CODER_MAKERS.get(index).createEncoder(BenchData.OPTIONS);
+        CODER_MAKERS.get(index).createEncoder(BenchData.options);
     final boolean isDirect = encoder.preferDirectBuffer();
     encoder.encode(
-        getBufferForInit(BenchData.NUM_DATA_UNITS, 1, isDirect),
-        getBufferForInit(BenchData.NUM_PARITY_UNITS, 1, isDirect));
+        getBufferForInit(BenchData.numDataUnits, 1, isDirect),
+        getBufferForInit(BenchData.numParityUnits, 1, isDirect));
     return encoder;
   }
 
   private static RawErasureDecoder getRawDecoder(int index) throws IOException {
     RawErasureDecoder decoder =
-        CODER_MAKERS.get(index).createDecoder(BenchData.OPTIONS);
+        CODER_MAKERS.get(index).createDecoder(BenchData.options);
     final boolean isDirect = decoder.preferDirectBuffer();
     ByteBuffer[] inputs = getBufferForInit(
-        BenchData.NUM_ALL_UNITS, 1, isDirect);
-    for (int erasedIndex : BenchData.ERASED_INDEXES) {
+        BenchData.numAllUnits, 1, isDirect);
+    for (int erasedIndex : BenchData.erasedIndexes) {
       inputs[erasedIndex] = null;
     }
-    decoder.decode(inputs, BenchData.ERASED_INDEXES,
-        getBufferForInit(BenchData.ERASED_INDEXES.length, 1, isDirect));
+    decoder.decode(inputs, BenchData.erasedIndexes,
+        getBufferForInit(BenchData.erasedIndexes.length, 1, isDirect));
     return decoder;
   }
 
@@ -306,27 +385,36 @@ private static ByteBuffer genTestData(boolean useDirectBuffer, int sizeKB) {
   }
 
   private static class BenchData {
-    public static final ErasureCoderOptions OPTIONS =
-        new ErasureCoderOptions(6, 3);
-    public static final int NUM_DATA_UNITS = OPTIONS.getNumDataUnits();
-    public static final int NUM_PARITY_UNITS = OPTIONS.getNumParityUnits();
-    public static final int NUM_ALL_UNITS = OPTIONS.getNumAllUnits();
+    private static ErasureCoderOptions options;
+    private static int numDataUnits;
+    private static int numParityUnits;
+    private static int numAllUnits;
     private static int chunkSize;
     private static long totalDataSizeKB;
     private static int bufferSizeKB;
 
-    private static final int[] ERASED_INDEXES = new int[]{6, 7, 8};
-    private final ByteBuffer[] inputs = new ByteBuffer[NUM_DATA_UNITS];
-    private ByteBuffer[] outputs = new ByteBuffer[NUM_PARITY_UNITS];
-    private ByteBuffer[] decodeInputs = new ByteBuffer[NUM_ALL_UNITS];
-
-    public static void configure(int dataSizeMB, int chunkSizeKB) {
+    // the parity units are erased for decoding
+    private static int[] erasedIndexes;
+    private final ByteBuffer[] inputs = new ByteBuffer[numDataUnits];
+    private ByteBuffer[] outputs = new ByteBuffer[numParityUnits];
+    private ByteBuffer[] decodeInputs = new ByteBuffer[numAllUnits];
+
+    public static void configure(SCHEMA schema, int dataSizeMB,
+        int chunkSizeKB) {
+      options = schema.getOptions();
+      numDataUnits = options.getNumDataUnits();
+      numParityUnits = options.getNumParityUnits();
+      numAllUnits = options.getNumAllUnits();
+      erasedIndexes = new int[numParityUnits];
+      for (int i = 0; i < numParityUnits; i++) {
+        erasedIndexes[i] = numDataUnits + i;
+      }
       chunkSize = chunkSizeKB * 1024;
       // buffer size needs to be a multiple of (numDataUnits * chunkSize)
       int round = (int) Math.round(
-          TARGET_BUFFER_SIZE_MB * 1024.0 / NUM_DATA_UNITS / chunkSizeKB);
+          TARGET_BUFFER_SIZE_MB * 1024.0 / numDataUnits / chunkSizeKB);
       Preconditions.checkArgument(round > 0);
-      bufferSizeKB = NUM_DATA_UNITS * chunkSizeKB * round;
+      bufferSizeKB = numDataUnits * chunkSizeKB * round;
       System.out.println("Using " + bufferSizeKB / 1024 + "MB buffer.");
 
       round = (int) Math.round(
@@ -345,7 +433,7 @@ public BenchData(boolean useDirectBuffer) {
     }
 
     public void prepareDecInput() {
-      System.arraycopy(inputs, 0, decodeInputs, 0, NUM_DATA_UNITS);
+      System.arraycopy(inputs, 0, decodeInputs, 0, numDataUnits);
     }
 
     public void encode(RawErasureEncoder encoder) throws IOException {
@@ -353,7 +441,7 @@ public void encode(RawErasureEncoder encoder) throws IOException {
     }
 
     public void decode(RawErasureDecoder decoder) throws IOException {
-      decoder.decode(decodeInputs, ERASED_INDEXES, outputs);
+      decoder.decode(decodeInputs, erasedIndexes, outputs);
     }
   }
 
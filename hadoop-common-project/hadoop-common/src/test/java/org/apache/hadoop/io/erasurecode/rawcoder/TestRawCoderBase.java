@@ -292,7 +292,7 @@ protected RawErasureDecoder createDecoder() {
         new ErasureCoderOptions(numDataUnits, numParityUnits,
             allowChangeInputs, allowDump);
     try {
-      RawErasureCoderFactory factory = encoderFactoryClass.newInstance();
+      RawErasureCoderFactory factory = decoderFactoryClass.newInstance();
       return factory.createDecoder(coderConf);
     } catch (Exception e) {
       throw new RuntimeException("Failed to create decoder", e);
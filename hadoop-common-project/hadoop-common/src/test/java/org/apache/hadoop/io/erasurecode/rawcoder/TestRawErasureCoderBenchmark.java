@@ -53,6 +53,27 @@ public void testRSCoder() throws Exception {
         RawErasureCoderBenchmark.CODER.RS_CODER, 4, 135, 20);
   }
 
+  @Test
+  public void testRSBulkCoder() throws Exception {
+    // RS bulk Java coder
+    RawErasureCoderBenchmark.performBench("encode",
+        RawErasureCoderBenchmark.CODER.RS_BULK_CODER, 3, 200, 200);
+    RawErasureCoderBenchmark.performBench("decode",
+        RawErasureCoderBenchmark.CODER.RS_BULK_CODER,
+        RawErasureCoderBenchmark.SCHEMA.RS_10_4, 4, 135, 20);
+  }
+
+  @Test
+  public void testXORCoder() throws Exception {
+    // XOR Java coder
+    RawErasureCoderBenchmark.performBench("encode",
+        RawErasureCoderBenchmark.CODER.XOR_CODER,
+        RawErasureCoderBenchmark.SCHEMA.XOR_2_1, 2, 100, 64);
+    RawErasureCoderBenchmark.performBench("decode",
+        RawErasureCoderBenchmark.CODER.XOR_CODER,
+        RawErasureCoderBenchmark.SCHEMA.XOR_2_1, 3, 100, 128);
+  }
+
   @Test
   public void testISALCoder() throws Exception {
     Assume.assumeTrue(ErasureCodeNative.isNativeCodeLoaded());
@@ -62,4 +83,16 @@ public void testISALCoder() throws Exception {
     RawErasureCoderBenchmark.performBench("decode",
         RawErasureCoderBenchmark.CODER.ISAL_CODER, 6, 200, 128);
   }
+
+  @Test
+  public void testISALXORCoder() throws Exception {
+    Assume.assumeTrue(ErasureCodeNative.isNativeCodeLoaded());
+    // ISA-L XOR coder
+    RawErasureCoderBenchmark.performBench("encode",
+        RawErasureCoderBenchmark.CODER.ISAL_XOR_CODER,
+        RawErasureCoderBenchmark.SCHEMA.XOR_2_1, 2, 100, 64);
+    RawErasureCoderBenchmark.performBench("decode",
+        RawErasureCoderBenchmark.CODER.ISAL_XOR_CODER,
+        RawErasureCoderBenchmark.SCHEMA.XOR_2_1, 3, 100, 128);
+  }
 }
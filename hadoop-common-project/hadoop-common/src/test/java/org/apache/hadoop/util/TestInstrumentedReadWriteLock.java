@@ -232,4 +232,44 @@ protected void logWarning(long lockHeldTime, long suppressed) {
     assertEquals(2, wlogged.get());
     assertEquals(1, wsuppresed.get());
   }
+
+  /**
+   * Tests the warning when the write lock is held for too long across
+   * reentrant acquires: only the outermost hold is reported, and it is
+   * timed from the first acquire.
+   */
+  @Test(timeout=10000)
+  public void testReentrantWriteLockLongHoldingReport() throws Exception {
+    String testname = name.getMethodName();
+    final AtomicLong time = new AtomicLong(0);
+    Timer mclock = new Timer() {
+      @Override
+      public long monotonicNow() {
+        return time.get();
+      }
+    };
+
+    final AtomicLong wlogged = new AtomicLong(0);
+    final AtomicLong wheld = new AtomicLong(0);
+    ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
+    InstrumentedWriteLock writeLock = new InstrumentedWriteLock(testname, LOG,
+        readWriteLock, 2000, 300, mclock) {
+      @Override
+      protected void logWarning(long lockHeldTime, long suppressed) {
+        wlogged.incrementAndGet();
+        wheld.set(lockHeldTime);
+      }
+    };
+
+    writeLock.lock();   // t = 0
+    time.set(200);
+    writeLock.lock();   // t = 200
+    time.set(400);
+    writeLock.unlock(); // t = 400, still held
+    assertEquals(0, wlogged.get());
+    time.set(500);
+    writeLock.unlock(); // t = 500
+    assertEquals(1, wlogged.get());
+    assertEquals(500, wheld.get());
+  }
 }
@@ -0,0 +1,312 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hdfs;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.io.retry.AsyncCallHandler;
+import org.apache.hadoop.ipc.Client;
+import org.apache.hadoop.ipc.RemoteException;
+import org.apache.hadoop.util.Daemon;
+import org.apache.hadoop.util.concurrent.AsyncGet;
+
+/**
+ * AsyncDistributedFileSystem runs the metadata operations of a
+ * {@link DistributedFileSystem} without blocking the calling thread. The
+ * calls are sent to the NameNode in the asynchronous mode of the IPC
+ * {@link Client}, and return a {@link CompletableFuture} of their result, so
+ * a few threads can keep many calls in flight.
+ * <p>
+ * At most ipc.client.async.calls.max calls are in flight; a call beyond the
+ * limit waits until an earlier call completes. The futures are completed by
+ * a single thread, so the actions which depend on them should either be
+ * short or run on an executor of their own.
+ * <p>
+ * The calls do not use the client's metadata cache. A call which changes the
+ * namespace invalidates the cached metadata of its paths once it completes,
+ * before its future does.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class AsyncDistributedFileSystem {
+  /** The longest time the completer waits between polls of the calls. */
+  private static final long MAX_POLL_INTERVAL_MS = 10;
+
+  private final DistributedFileSystem dfs;
+  private final Semaphore inFlight;
+  private final Queue<PendingCall<?>> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean completerRunning = new AtomicBoolean();
+
+  AsyncDistributedFileSystem(DistributedFileSystem dfs) {
+    this.dfs = dfs;
+    this.inFlight = new Semaphore(dfs.getConf().getInt(
+        CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_KEY,
+        CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_DEFAULT));
+  }
+
+  /**
+   * Get the status of a file or directory.
+   * @see DistributedFileSystem#getFileStatus(Path)
+   * @param f the path
+   * @return the future of the status, which fails with a
+   *         FileNotFoundException if the path does not exist
+   * @throws IOException if the call could not be sent
+   */
+  public CompletableFuture<FileStatus> getFileStatus(final Path f)
+      throws IOException {
+    dfs.getFsStatistics().incrementReadOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.GET_FILE_STATUS);
+    final Path absF = dfs.makeQualified(f);
+    final String src = dfs.getPathName(absF);
+    CompletableFuture<HdfsFileStatus> status =
+        call(() -> dfs.getClient().getFileInfo(src));
+    return status.thenApply(fi -> {
+      if (fi == null) {
+        throw new CompletionException(
+            new FileNotFoundException("File does not exist: " + f));
+      }
+      return fi.makeQualified(dfs.getUri(), absF);
+    });
+  }
+
+  /**
+   * Create a directory and its missing parents.
+   * @see DistributedFileSystem#mkdirs(Path, FsPermission)
+   * @param f the directory
+   * @param permission the permission of the new directories, before the
+   *        umask is applied; null for the default
+   * @return the future of whether the directory was created
+   * @throws IOException if the call could not be sent
+   */
+  public CompletableFuture<Boolean> mkdirs(Path f,
+      final FsPermission permission) throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.MKDIRS);
+    final String src = dfs.getPathName(dfs.makeQualified(f));
+    return call(() -> dfs.getClient().mkdirs(src, permission, true),
+        () -> dfs.getClient().invalidateCachedMetadataWithParent(src));
+  }
+
+  /**
+   * Rename a file or directory.
+   * @see DistributedFileSystem#rename(Path, Path, Options.Rename...)
+   * @param src the path to rename
+   * @param dst the new path
+   * @param options the rename options
+   * @return the future of the completion of the rename
+   * @throws IOException if the call could not be sent
+   */
+  public CompletableFuture<Void> rename(Path src, Path dst,
+      final Options.Rename... options) throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.RENAME);
+    final String srcName = dfs.getPathName(dfs.makeQualified(src));
+    final String dstName = dfs.getPathName(dfs.makeQualified(dst));
+    return call(() -> dfs.getClient().rename(srcName, dstName, options),
+        () -> {
+          dfs.getClient().invalidateCachedMetadataWithParent(srcName);
+          dfs.getClient().invalidateCachedMetadataWithParent(dstName);
+        });
+  }
+
+  /**
+   * Delete a file or directory.
+   * @see DistributedFileSystem#delete(Path, boolean)
+   * @param f the path to delete
+   * @param recursive whether to delete a non-empty directory
+   * @return the future of whether the path was deleted
+   * @throws IOException if the call could not be sent
+   */
+  public CompletableFuture<Boolean> delete(Path f, final boolean recursive)
+      throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.DELETE);
+    final String src = dfs.getPathName(dfs.makeQualified(f));
+    return call(() -> dfs.getClient().delete(src, recursive),
+        () -> dfs.getClient().invalidateCachedMetadataWithParent(src));
+  }
+
+  /**
+   * Set the permission of a file or directory.
+   * @see DistributedFileSystem#setPermission(Path, FsPermission)
+   * @param f the path
+   * @param permission the permission
+   * @return the future of the completion of the call
+   * @throws IOException if the call could not be sent
+   */
+  public CompletableFuture<Void> setPermission(Path f,
+      final FsPermission permission) throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.SET_PERMISSION);
+    final String src = dfs.getPathName(dfs.makeQualified(f));
+    return call(() -> dfs.getClient().setPermission(src, permission),
+        () -> dfs.getClient().invalidateCachedMetadataRecursively(src));
+  }
+
+  /**
+   * Set the owner of a file or directory.
+   * @see DistributedFileSystem#setOwner(Path, String, String)
+   * @param f the path
+   * @param username the new owner, null to keep the owner
+   * @param groupname the new group, null to keep the group
+   * @return the future of the completion of the call
+   * @throws IOException if the call could not be sent
+   */
+  public CompletableFuture<Void> setOwner(Path f, final String username,
+      final String groupname) throws IOException {
+    if (username == null && groupname == null) {
+      throw new IOException("username == null && groupname == null");
+    }
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.SET_OWNER);
+    final String src = dfs.getPathName(dfs.makeQualified(f));
+    return call(() -> dfs.getClient().setOwner(src, username, groupname),
+        () -> dfs.getClient().invalidateCachedMetadataRecursively(src));
+  }
+
+  /** A call of a blocking DFSClient method, made in the asynchronous mode. */
+  private interface AsyncCall {
+    void send() throws IOException;
+  }
+
+  /**
+   * Send a call in the asynchronous mode, waiting for a permit if the
+   * maximum number of calls is in flight.
+   */
+  private <T> CompletableFuture<T> call(AsyncCall asyncCall)
+      throws IOException {
+    return call(asyncCall, null);
+  }
+
+  /**
+   * Send a call in the asynchronous mode, and run the given action when it
+   * completes, successfully or not, before its future is completed.
+   */
+  private <T> CompletableFuture<T> call(AsyncCall asyncCall,
+      Runnable onCompletion) throws IOException {
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          "Interrupted while waiting to send an asynchronous call");
+    }
+    final AsyncGet<T, Throwable> asyncGet;
+    final boolean isAsync = Client.isAsynchronousMode();
+    Client.setAsynchronousMode(true);
+    try {
+      asyncCall.send();
+      asyncGet = AsyncCallHandler.getAsyncReturn();
+    } catch (IOException | RuntimeException e) {
+      inFlight.release();
+      throw e;
+    } finally {
+      Client.setAsynchronousMode(isAsync);
+    }
+    PendingCall<T> call = new PendingCall<>(asyncGet, onCompletion);
+    pending.add(call);
+    if (completerRunning.compareAndSet(false, true)) {
+      Daemon completer = new Daemon(this::completeCalls);
+      completer.setName("AsyncDistributedFileSystem-completer");
+      completer.start();
+    }
+    return call.future;
+  }
+
+  /**
+   * Complete the futures of the calls as their results arrive, until no
+   * call is in flight.
+   */
+  private void completeCalls() {
+    long pollIntervalMs = 0;
+    while (true) {
+      boolean completed = false;
+      for (Iterator<PendingCall<?>> i = pending.iterator(); i.hasNext();) {
+        PendingCall<?> call = i.next();
+        if (call.asyncGet.isDone()) {
+          i.remove();
+          inFlight.release();
+          call.complete();
+          completed = true;
+        }
+      }
+      if (pending.isEmpty()) {
+        completerRunning.set(false);
+        // a call may have been added after the check, without a completer
+        if (pending.isEmpty() ||
+            !completerRunning.compareAndSet(false, true)) {
+          return;
+        }
+        continue;
+      }
+      pollIntervalMs = completed ? 0 :
+          Math.min(MAX_POLL_INTERVAL_MS, pollIntervalMs + 1);
+      try {
+        Thread.sleep(pollIntervalMs);
+      } catch (InterruptedException e) {
+        // keep completing the calls in flight
+      }
+    }
+  }
+
+  /** A call in flight and its future. */
+  private static final class PendingCall<T> {
+    private final AsyncGet<T, Throwable> asyncGet;
+    private final Runnable onCompletion;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private PendingCall(AsyncGet<T, Throwable> asyncGet,
+        Runnable onCompletion) {
+      this.asyncGet = asyncGet;
+      this.onCompletion = onCompletion;
+    }
+
+    private void complete() {
+      if (onCompletion != null) {
+        onCompletion.run();
+      }
+      try {
+        future.complete(asyncGet.get(0, TimeUnit.MILLISECONDS));
+      } catch (RemoteException e) {
+        future.completeExceptionally(e.unwrapRemoteException());
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }
+  }
+}
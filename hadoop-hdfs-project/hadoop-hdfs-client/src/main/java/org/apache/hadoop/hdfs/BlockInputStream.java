@@ -34,7 +34,7 @@ public int read() throws IOException {
     byte[] b = new byte[1];
     int c = blockReader.read(b, 0, b.length);
     if (c > 0) {
-      return b[0];
+      return b[0] & 0xff;
     } else {
       return -1;
     }
@@ -49,4 +49,9 @@ public int read(byte b[], int off, int len) throws IOException {
   public long skip(long n) throws IOException {
     return blockReader.skip(n);
   }
+
+  @Override
+  public void close() throws IOException {
+    blockReader.close();
+  }
 }
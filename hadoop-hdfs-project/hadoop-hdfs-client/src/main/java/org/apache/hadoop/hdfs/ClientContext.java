@@ -93,6 +93,12 @@ public class ClientContext {
    * Caches key Providers for the DFSClient
    */
   private final KeyProviderCache keyProviderCache;
+
+  /**
+   * Caches the file status and block locations of files.
+   */
+  private final MetadataCache metadataCache;
+
   /**
    * True if we should use the legacy BlockReaderLocal.
    */
@@ -143,6 +149,8 @@ private ClientContext(String name, DfsClientConf conf,
         scConf.getSocketCacheExpiry());
     this.keyProviderCache = new KeyProviderCache(
         scConf.getKeyProviderCacheExpiryMs());
+    this.metadataCache = new MetadataCache(conf.getMetadataCacheMaxEntries(),
+        conf.getMetadataCacheTtlMs());
     this.useLegacyBlockReaderLocal = scConf.isUseLegacyBlockReaderLocal();
     this.domainSocketFactory = new DomainSocketFactory(scConf);
 
@@ -239,6 +247,10 @@ public KeyProviderCache getKeyProviderCache() {
     return keyProviderCache;
   }
 
+  public MetadataCache getMetadataCache() {
+    return metadataCache;
+  }
+
   public boolean getUseLegacyBlockReaderLocal() {
     return useLegacyBlockReaderLocal;
   }
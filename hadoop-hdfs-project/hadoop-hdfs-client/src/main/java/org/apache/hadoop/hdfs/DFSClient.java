@@ -31,6 +31,7 @@
 import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -46,6 +47,8 @@
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -96,6 +99,7 @@
 import org.apache.hadoop.fs.permission.FsCreateModes;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.ha.HAServiceProtocol;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
 import org.apache.hadoop.hdfs.NameNodeProxiesClient.ProxyAndInfo;
 import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
 import org.apache.hadoop.hdfs.client.HdfsDataInputStream;
@@ -169,6 +173,7 @@
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.retry.LossyRetryInvocationHandler;
+import org.apache.hadoop.ipc.Client;
 import org.apache.hadoop.ipc.RPC;
 import org.apache.hadoop.ipc.RemoteException;
 import org.apache.hadoop.ipc.RetriableException;
@@ -237,11 +242,18 @@ public class DFSClient implements java.io.Closeable, RemotePeerFactory,
   private final CachingStrategy defaultReadCachingStrategy;
   private final CachingStrategy defaultWriteCachingStrategy;
   private final ClientContext clientContext;
+  private final MetadataCache metadataCache;
+  private final String metadataCacheNamespace;
+  private volatile DFSOpsCountStatistics opsCountStatistics;
+  private final Daemon metadataCacheInvalidatorThread;
 
   private static final DFSHedgedReadMetrics HEDGED_READ_METRIC =
       new DFSHedgedReadMetrics();
   private static ThreadPoolExecutor HEDGED_READ_THREAD_POOL;
   private static volatile ThreadPoolExecutor STRIPED_READ_THREAD_POOL;
+  private static volatile ThreadPoolExecutor LISTING_PREFETCH_THREAD_POOL;
+  private static volatile ThreadPoolExecutor VECTORED_READ_THREAD_POOL;
+  private static volatile ThreadPoolExecutor BLOCK_CHECKSUM_THREAD_POOL;
   private final int smallBufferSize;
   private final long serverDefaultsValidityPeriod;
 
@@ -388,6 +400,9 @@ public DFSClient(URI nameNodeUri, ClientProtocol rpcNamenode,
     this.clientContext = ClientContext.get(
         conf.get(DFS_CLIENT_CONTEXT, DFS_CLIENT_CONTEXT_DEFAULT),
         dfsClientConf, conf);
+    this.metadataCache = dfsClientConf.isMetadataCacheEnabled() ?
+        clientContext.getMetadataCache() : null;
+    this.metadataCacheNamespace = String.valueOf(namenodeUri);
 
     if (dfsClientConf.getHedgedReadThreadpoolSize() > 0) {
       this.initThreadsNumForHedgedReads(dfsClientConf.
@@ -396,9 +411,31 @@ public DFSClient(URI nameNodeUri, ClientProtocol rpcNamenode,
 
     this.initThreadsNumForStripedReads(dfsClientConf.
         getStripedReadThreadpoolSize());
+    if (dfsClientConf.getListingPrefetchThreadpoolSize() > 0) {
+      this.initThreadsNumForListingPrefetch(dfsClientConf.
+          getListingPrefetchThreadpoolSize());
+    }
+    if (dfsClientConf.getVectoredReadThreadpoolSize() > 0) {
+      this.initThreadsNumForVectoredReads(dfsClientConf.
+          getVectoredReadThreadpoolSize());
+    }
+    if (dfsClientConf.getBlockChecksumThreadpoolSize() > 0) {
+      this.initThreadsNumForBlockChecksum(dfsClientConf.
+          getBlockChecksumThreadpoolSize());
+    }
     this.saslClient = new SaslDataTransferClient(
         conf, DataTransferSaslUtil.getSaslPropertiesResolver(conf),
         TrustedChannelResolver.getInstance(conf), nnFallbackToSimpleAuth);
+    if (metadataCache != null &&
+        dfsClientConf.isMetadataCacheInotifyEnabled()) {
+      metadataCacheInvalidatorThread = new Daemon(new MetadataCacheInvalidator(
+          this, metadataCache, metadataCacheNamespace));
+      metadataCacheInvalidatorThread.setName(
+          "MetadataCacheInvalidator-" + metadataCacheNamespace);
+      metadataCacheInvalidatorThread.start();
+    } else {
+      metadataCacheInvalidatorThread = null;
+    }
   }
 
   /**
@@ -635,6 +672,9 @@ public synchronized void close() throws IOException {
       clientRunning = false;
       // close dead node detector thread
       clientContext.stopDeadNodeDetectorThread();
+      if (metadataCacheInvalidatorThread != null) {
+        metadataCacheInvalidatorThread.interrupt();
+      }
       // close connections to the namenode
       closeConnectionToNamenode();
     }
@@ -853,8 +893,25 @@ public LocatedBlocks getLocatedBlocks(String src, long start)
   @VisibleForTesting
   public LocatedBlocks getLocatedBlocks(String src, long start, long length)
       throws IOException {
+    final MetadataCache cache = getMetadataCache();
+    long generation = 0;
+    if (cache != null) {
+      generation = cache.getGeneration(metadataCacheNamespace);
+      LocatedBlocks blocks = cache.getLocatedBlocks(
+          metadataCacheNamespace, ugi.getUserName(), src, start, length);
+      incrementMetadataCacheCounter(blocks != null);
+      if (blocks != null) {
+        return blocks;
+      }
+    }
     try (TraceScope ignored = newPathTraceScope("getBlockLocations", src)) {
-      return callGetBlockLocations(namenode, src, start, length);
+      LocatedBlocks blocks =
+          callGetBlockLocations(namenode, src, start, length);
+      if (cache != null && blocks != null) {
+        cache.putLocatedBlocks(metadataCacheNamespace,
+            ugi.getUserName(), src, start, length, blocks, generation);
+      }
+      return blocks;
     }
   }
 
@@ -1240,6 +1297,7 @@ public DFSOutputStream create(String src, FsPermission permission,
         src, masked, flag, createParent, replication, blockSize, progress,
         dfsClientConf.createChecksum(checksumOpt),
         getFavoredNodesStr(favoredNodes), ecPolicyName, storagePolicy);
+    invalidateCachedMetadataFileWithParent(src);
     beginFileLease(result.getFileId(), result);
     return result;
   }
@@ -1295,6 +1353,7 @@ public DFSOutputStream primitiveCreate(String src, FsPermission absPermission,
           flag, createParent, replication, blockSize, progress, checksum,
           null, null, null);
     }
+    invalidateCachedMetadataFileWithParent(src);
     beginFileLease(result.getFileId(), result);
     return result;
   }
@@ -1320,6 +1379,8 @@ public void createSymlink(String target, String link, boolean createParent)
           QuotaByStorageTypeExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataFileWithParent(link);
     }
   }
 
@@ -1389,6 +1450,8 @@ private DFSOutputStream callAppend(String src, EnumSet<CreateFlag> flag,
           UnsupportedOperationException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadata(src);
     }
   }
 
@@ -1464,6 +1527,8 @@ public boolean setReplication(String src, short replication)
           QuotaByStorageTypeExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadata(src);
     }
   }
 
@@ -1484,6 +1549,8 @@ public void setStoragePolicy(String src, String policyName)
           NSQuotaExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -1502,6 +1569,8 @@ public void unsetStoragePolicy(String src) throws IOException {
           NSQuotaExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -1548,6 +1617,9 @@ public boolean rename(String src, String dst) throws IOException {
           QuotaByStorageTypeExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataWithParent(src);
+      invalidateCachedMetadataWithParent(dst);
     }
   }
 
@@ -1563,6 +1635,11 @@ public void concat(String trg, String [] srcs) throws IOException {
       throw re.unwrapRemoteException(AccessControlException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadata(trg);
+      for (String concatSrc : srcs) {
+        invalidateCachedMetadataWithParent(concatSrc);
+      }
     }
   }
   /**
@@ -1585,6 +1662,9 @@ public void rename(String src, String dst, Options.Rename... options)
           NSQuotaExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataWithParent(src);
+      invalidateCachedMetadataWithParent(dst);
     }
   }
 
@@ -1603,6 +1683,8 @@ public boolean truncate(String src, long newLength) throws IOException {
     } catch (RemoteException re) {
       throw re.unwrapRemoteException(AccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateCachedMetadata(src);
     }
   }
 
@@ -1634,6 +1716,8 @@ public boolean delete(String src, boolean recursive) throws IOException {
           UnresolvedPathException.class,
           SnapshotAccessControlException.class,
           PathIsNotEmptyDirectoryException.class);
+    } finally {
+      invalidateCachedMetadataWithParent(src);
     }
   }
 
@@ -1674,6 +1758,49 @@ public DirectoryListing listPaths(String src,  byte[] startAfter,
     }
   }
 
+  /**
+   * Start fetching a partial listing of the indicated directory in the
+   * background, so that it is ready by the time the caller has consumed the
+   * previous batch.
+   *
+   * @return the pending listing, or null if listing prefetch is disabled
+   * @see #listPaths(String, byte[], boolean)
+   */
+  Future<DirectoryListing> prefetchListing(final String src,
+      final byte[] startAfter, final boolean needLocation) {
+    final ThreadPoolExecutor threadPool = LISTING_PREFETCH_THREAD_POOL;
+    if (threadPool == null
+        || dfsClientConf.getListingPrefetchThreadpoolSize() <= 0) {
+      return null;
+    }
+    return threadPool.submit(() -> listPaths(src, startAfter, needLocation));
+  }
+
+  /**
+   * Wait for a listing started by
+   * {@link #prefetchListing(String, byte[], boolean)}.
+   */
+  static DirectoryListing getPrefetchedListing(
+      Future<DirectoryListing> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw (InterruptedIOException) new InterruptedIOException(
+          "Interrupted while waiting for the directory listing").initCause(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
   /**
    * Get the file info for a specific file or directory.
    * @param src The string representation of the path to the file
@@ -1684,8 +1811,24 @@ public DirectoryListing listPaths(String src,  byte[] startAfter,
    */
   public HdfsFileStatus getFileInfo(String src) throws IOException {
     checkOpen();
+    final MetadataCache cache = getMetadataCache();
+    long generation = 0;
+    if (cache != null) {
+      generation = cache.getGeneration(metadataCacheNamespace);
+      HdfsFileStatus status = cache.getFileStatus(
+          metadataCacheNamespace, ugi.getUserName(), src);
+      incrementMetadataCacheCounter(status != null);
+      if (status != null) {
+        return status;
+      }
+    }
     try (TraceScope ignored = newPathTraceScope("getFileInfo", src)) {
-      return namenode.getFileInfo(src);
+      HdfsFileStatus status = namenode.getFileInfo(src);
+      if (cache != null && status != null) {
+        cache.putFileStatus(metadataCacheNamespace, ugi.getUserName(),
+            src, status, generation);
+      }
+      return status;
     } catch (RemoteException re) {
       throw re.unwrapRemoteException(AccessControlException.class,
           FileNotFoundException.class,
@@ -1924,6 +2067,8 @@ public void setPermission(String src, FsPermission permission)
           SafeModeException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -1946,6 +2091,8 @@ public void setOwner(String src, String username, String groupname)
           SafeModeException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2457,6 +2604,8 @@ public boolean primitiveMkdir(String src, FsPermission absPermission,
           QuotaByStorageTypeExceededException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadataWithParent(src);
     }
   }
 
@@ -2578,6 +2727,8 @@ public void setTimes(String src, long mtime, long atime) throws IOException {
           FileNotFoundException.class,
           UnresolvedPathException.class,
           SnapshotAccessControlException.class);
+    } finally {
+      invalidateCachedMetadata(src);
     }
   }
 
@@ -2626,6 +2777,64 @@ public ClientContext getClientContext() {
     return clientContext;
   }
 
+  /**
+   * Set the statistics which count the hits and misses of the metadata cache.
+   */
+  void setOpsCountStatistics(DFSOpsCountStatistics statistics) {
+    this.opsCountStatistics = statistics;
+  }
+
+  private void incrementMetadataCacheCounter(boolean hit) {
+    DFSOpsCountStatistics statistics = opsCountStatistics;
+    if (statistics != null) {
+      statistics.incrementOpCounter(hit ? OpType.METADATA_CACHE_HIT :
+          OpType.METADATA_CACHE_MISS);
+    }
+  }
+
+  /**
+   * Remove the cached metadata of a file which this client changed, so the
+   * next lookup gets it from the namenode.
+   */
+  void invalidateCachedMetadata(String src) {
+    final MetadataCache cache = getMetadataCache();
+    if (cache != null) {
+      cache.invalidate(metadataCacheNamespace, src);
+    }
+  }
+
+  void invalidateCachedMetadataRecursively(String src) {
+    final MetadataCache cache = getMetadataCache();
+    if (cache != null) {
+      cache.invalidateRecursively(metadataCacheNamespace, src);
+    }
+  }
+
+  private void invalidateCachedMetadataFileWithParent(String src) {
+    final MetadataCache cache = getMetadataCache();
+    if (cache != null) {
+      cache.invalidateFileWithParent(metadataCacheNamespace, src);
+    }
+  }
+
+  void invalidateCachedMetadataWithParent(String src) {
+    final MetadataCache cache = getMetadataCache();
+    if (cache != null) {
+      cache.invalidateWithParent(metadataCacheNamespace, src);
+    }
+  }
+
+  /**
+   * Get the metadata cache for a call of this thread. Calls made in the
+   * asynchronous mode of the IPC client do not use it: they return before the
+   * namenode answers, so they have no metadata to cache, and the changes they
+   * make are applied only when they complete, when the caller invalidates
+   * the cached metadata of the paths.
+   */
+  private MetadataCache getMetadataCache() {
+    return Client.isAsynchronousMode() ? null : metadataCache;
+  }
+
   public void modifyAclEntries(String src, List<AclEntry> aclSpec)
       throws IOException {
     checkOpen();
@@ -2639,6 +2848,8 @@ public void modifyAclEntries(String src, List<AclEntry> aclSpec)
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2655,6 +2866,8 @@ public void removeAclEntries(String src, List<AclEntry> aclSpec)
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2670,6 +2883,8 @@ public void removeDefaultAcl(String src) throws IOException {
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2685,6 +2900,8 @@ public void removeAcl(String src) throws IOException {
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2700,6 +2917,8 @@ public void setAcl(String src, List<AclEntry> aclSpec) throws IOException {
           SafeModeException.class,
           SnapshotAccessControlException.class,
           UnresolvedPathException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2772,6 +2991,8 @@ public void setErasureCodingPolicy(String src, String ecPolicyName)
           SafeModeException.class,
           UnresolvedPathException.class,
           FileNotFoundException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -2785,6 +3006,8 @@ public void unsetErasureCodingPolicy(String src) throws IOException {
           SafeModeException.class,
           UnresolvedPathException.class,
           FileNotFoundException.class, NoECPolicySetException.class);
+    } finally {
+      invalidateCachedMetadataRecursively(src);
     }
   }
 
@@ -3041,6 +3264,66 @@ private void initThreadsNumForStripedReads(int numThreads) {
     }
   }
 
+  /**
+   * Create thread pool for fetching directory listings in the background,
+   * LISTING_PREFETCH_THREAD_POOL, if it does not already exist.
+   * @param numThreads Number of threads for listing prefetch thread pool.
+   */
+  private void initThreadsNumForListingPrefetch(int numThreads) {
+    assert numThreads > 0;
+    if (LISTING_PREFETCH_THREAD_POOL != null) {
+      return;
+    }
+    synchronized (DFSClient.class) {
+      if (LISTING_PREFETCH_THREAD_POOL == null) {
+        ThreadPoolExecutor threadPool = DFSUtilClient.getThreadPoolExecutor(1,
+            numThreads, 60, "ListingPrefetch-", true);
+        threadPool.allowCoreThreadTimeOut(true);
+        LISTING_PREFETCH_THREAD_POOL = threadPool;
+      }
+    }
+  }
+
+  /**
+   * Create thread pool for reading the ranges of vectored reads
+   * concurrently, VECTORED_READ_THREAD_POOL, if it does not already exist.
+   * @param numThreads Number of threads for vectored reads thread pool.
+   */
+  private void initThreadsNumForVectoredReads(int numThreads) {
+    assert numThreads > 0;
+    if (VECTORED_READ_THREAD_POOL != null) {
+      return;
+    }
+    synchronized (DFSClient.class) {
+      if (VECTORED_READ_THREAD_POOL == null) {
+        ThreadPoolExecutor threadPool = DFSUtilClient.getThreadPoolExecutor(1,
+            numThreads, 60, "VectoredRead-", true);
+        threadPool.allowCoreThreadTimeOut(true);
+        VECTORED_READ_THREAD_POOL = threadPool;
+      }
+    }
+  }
+
+  /**
+   * Create thread pool for requesting the block checksums of a file
+   * concurrently, BLOCK_CHECKSUM_THREAD_POOL, if it does not already exist.
+   * @param numThreads Number of threads for block checksum thread pool.
+   */
+  private void initThreadsNumForBlockChecksum(int numThreads) {
+    assert numThreads > 0;
+    if (BLOCK_CHECKSUM_THREAD_POOL != null) {
+      return;
+    }
+    synchronized (DFSClient.class) {
+      if (BLOCK_CHECKSUM_THREAD_POOL == null) {
+        ThreadPoolExecutor threadPool = DFSUtilClient.getThreadPoolExecutor(1,
+            numThreads, 60, "BlockChecksum-", true);
+        threadPool.allowCoreThreadTimeOut(true);
+        BLOCK_CHECKSUM_THREAD_POOL = threadPool;
+      }
+    }
+  }
+
   ThreadPoolExecutor getHedgedReadsThreadPool() {
     return HEDGED_READ_THREAD_POOL;
   }
@@ -3049,6 +3332,24 @@ ThreadPoolExecutor getStripedReadsThreadPool() {
     return STRIPED_READ_THREAD_POOL;
   }
 
+  /**
+   * @return the thread pool for vectored reads, null if the ranges of
+   *         vectored reads are read in the calling thread
+   */
+  ThreadPoolExecutor getVectoredReadsThreadPool() {
+    return dfsClientConf.getVectoredReadThreadpoolSize() > 0 ?
+        VECTORED_READ_THREAD_POOL : null;
+  }
+
+  /**
+   * @return the thread pool for requesting block checksums, null if the
+   *         block checksums of a file are requested in the calling thread
+   */
+  ThreadPoolExecutor getBlockChecksumThreadPool() {
+    return dfsClientConf.getBlockChecksumThreadpoolSize() > 0 ?
+        BLOCK_CHECKSUM_THREAD_POOL : null;
+  }
+
   boolean isHedgedReadsEnabled() {
     return (HEDGED_READ_THREAD_POOL != null) &&
         HEDGED_READ_THREAD_POOL.getMaximumPoolSize() > 0;
@@ -34,6 +34,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,8 +42,10 @@
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -56,10 +59,13 @@
 import org.apache.hadoop.fs.FSExceptionMessages;
 import org.apache.hadoop.fs.FSInputStream;
 import org.apache.hadoop.fs.FileEncryptionInfo;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.HasEnhancedByteBufferAccess;
 import org.apache.hadoop.fs.ReadOption;
 import org.apache.hadoop.fs.StorageType;
 import org.apache.hadoop.fs.StreamCapabilities;
+import org.apache.hadoop.fs.VectoredReadUtils;
+import org.apache.hadoop.fs.impl.CombinedFileRange;
 import org.apache.hadoop.hdfs.DFSUtilClient.CorruptedBlocks;
 import org.apache.hadoop.hdfs.client.impl.BlockReaderFactory;
 import org.apache.hadoop.hdfs.client.impl.DfsClientConf;
@@ -256,6 +262,9 @@ private long fetchLocatedBlocksAndGetLastBlockLength(boolean refresh)
       throws IOException {
     LocatedBlocks newInfo = locatedBlocks;
     if (locatedBlocks == null || refresh) {
+      if (refresh) {
+        dfsClient.invalidateCachedMetadata(src);
+      }
       newInfo = dfsClient.getLocatedBlocks(src, 0);
     }
     DFSClient.LOG.debug("newInfo = {}", newInfo);
@@ -461,6 +470,7 @@ else if (offset >= locatedBlocks.getFileLength()) {
 
   /** Fetch a block from namenode and cache it */
   protected LocatedBlock fetchBlockAt(long offset) throws IOException {
+    dfsClient.invalidateCachedMetadata(src);
     return fetchBlockAt(offset, 0, false); // don't use cache
   }
 
@@ -1628,6 +1638,59 @@ public void readFully(long position, final ByteBuffer buf)
     }
   }
 
+  @Override
+  public int minSeekForVectorReads() {
+    return dfsClient.getConf().getVectoredReadMinSeekSize();
+  }
+
+  @Override
+  public int maxReadSizeForVectorReads() {
+    return dfsClient.getConf().getVectoredReadMaxMergedSize();
+  }
+
+  /**
+   * Combine the ranges which are close to each other, and read the combined
+   * ranges concurrently with positional reads, which may go to different
+   * blocks and DataNodes. The future of a range completes when its combined
+   * range is read.
+   */
+  @Override
+  public void readVectored(List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate) throws IOException {
+    dfsClient.checkOpen();
+    final ThreadPoolExecutor pool = dfsClient.getVectoredReadsThreadPool();
+    if (pool == null) {
+      VectoredReadUtils.readVectored(this, ranges, allocate);
+      return;
+    }
+    List<CombinedFileRange> combinedRanges =
+        VectoredReadUtils.mergeSortedRanges(
+            VectoredReadUtils.sortRanges(ranges), minSeekForVectorReads(),
+            maxReadSizeForVectorReads());
+    for (CombinedFileRange combined : combinedRanges) {
+      final CompletableFuture<ByteBuffer> data = new CompletableFuture<>();
+      for (FileRange range : combined.getUnderlying()) {
+        range.setData(data.thenApply(buffer ->
+            VectoredReadUtils.sliceTo(buffer, combined.getOffset(), range)));
+      }
+      pool.execute(() -> readCombinedRange(combined, allocate, data));
+    }
+  }
+
+  private void readCombinedRange(FileRange combined,
+      IntFunction<ByteBuffer> allocate, CompletableFuture<ByteBuffer> data) {
+    try {
+      ByteBuffer buffer = allocate.apply(combined.getLength());
+      ByteBuffer target = buffer.duplicate();
+      target.limit(target.position() + combined.getLength());
+      readFully(combined.getOffset(), target);
+      buffer.limit(target.limit());
+      data.complete(buffer);
+    } catch (IOException | RuntimeException e) {
+      data.completeExceptionally(e);
+    }
+  }
+
   /** Utility class to encapsulate data node info and its address. */
   static final class DNAddrPair {
     final DatanodeInfo info;
@@ -979,6 +979,7 @@ protected void completeFile(ExtendedBlock last) throws IOException {
         }
       }
     }
+    dfsClient.invalidateCachedMetadata(src);
   }
 
   @VisibleForTesting
@@ -121,6 +121,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Future;
 
 import static org.apache.hadoop.fs.impl.PathCapabilitiesSupport.validatePathCapabilityArgs;
 
@@ -141,6 +142,7 @@ public class DistributedFileSystem extends FileSystem
   private boolean verifyChecksum = true;
 
   private DFSOpsCountStatistics storageStatistics;
+  private AsyncDistributedFileSystem adfs;
 
   static{
     HdfsConfiguration.init();
@@ -184,6 +186,7 @@ public StorageStatistics provide() {
               return new DFSOpsCountStatistics();
             }
           });
+    dfs.setOpsCountStatistics(storageStatistics);
   }
 
   @Override
@@ -1092,13 +1095,23 @@ private FileStatus[] listStatusInternal(Path p) throws IOException {
     statistics.incrementLargeReadOps(1);
     storageStatistics.incrementOpCounter(OpType.LIST_STATUS);
 
-    // now fetch more entries
+    // now fetch more entries, the next batch is requested in the background
+    // (if enabled) while the current one is being qualified
+    Future<DirectoryListing> nextListing =
+        dfs.prefetchListing(src, thisListing.getLastName(), false);
     do {
-      thisListing = dfs.listPaths(src, thisListing.getLastName());
+      if (nextListing != null) {
+        thisListing = DFSClient.getPrefetchedListing(nextListing);
+      } else {
+        thisListing = dfs.listPaths(src, thisListing.getLastName());
+      }
 
       if (thisListing == null) { // the directory is deleted
         throw new FileNotFoundException("File " + p + " does not exist.");
       }
+      nextListing = thisListing.hasMore()
+          ? dfs.prefetchListing(src, thisListing.getLastName(), false)
+          : null;
 
       partialListing = thisListing.getPartialListing();
       for (HdfsFileStatus fileStatus : partialListing) {
@@ -1209,6 +1222,8 @@ public RemoteIterator<FileStatus> next(final FileSystem fs, final Path p)
   private class  DirListingIterator<T extends FileStatus>
       implements RemoteIterator<T> {
     private DirectoryListing thisListing;
+    /** The next batch being fetched in the background, if any. */
+    private Future<DirectoryListing> nextListing;
     private int i;
     private Path p;
     private String src;
@@ -1235,6 +1250,7 @@ private DirListingIterator(Path p, PathFilter filter,
         throw new FileNotFoundException("File " + p + " does not exist.");
       }
       i = 0;
+      prefetchNextListing();
     }
 
     private DirListingIterator(Path p, boolean needLocation)
@@ -1270,17 +1286,31 @@ private boolean hasNextNoFilter() throws IOException {
       if (i >= thisListing.getPartialListing().length
           && thisListing.hasMore()) {
         // current listing is exhausted & fetch a new listing
-        thisListing = dfs.listPaths(src, thisListing.getLastName(),
-            needLocation);
+        if (nextListing != null) {
+          thisListing = DFSClient.getPrefetchedListing(nextListing);
+          nextListing = null;
+        } else {
+          thisListing = dfs.listPaths(src, thisListing.getLastName(),
+              needLocation);
+        }
         statistics.incrementReadOps(1);
         if (thisListing == null) {
           throw new FileNotFoundException("File " + p + " does not exist.");
         }
         i = 0;
+        prefetchNextListing();
       }
       return (i < thisListing.getPartialListing().length);
     }
 
+    /** Start fetching the batch after the current one, if enabled. */
+    private void prefetchNextListing() {
+      if (thisListing.hasMore()) {
+        nextListing = dfs.prefetchListing(src, thisListing.getLastName(),
+            needLocation);
+      }
+    }
+
     @Override
     public T next() throws IOException {
       if (hasNext()) {
@@ -1379,6 +1409,21 @@ public DFSClient getClient() {
     return dfs;
   }
 
+  /**
+   * Get the interface which runs the metadata operations of this file
+   * system asynchronously.
+   *
+   * @return the AsyncDistributedFileSystem of this file system
+   */
+  @InterfaceStability.Unstable
+  public synchronized AsyncDistributedFileSystem
+      getAsyncDistributedFileSystem() {
+    if (adfs == null) {
+      adfs = new AsyncDistributedFileSystem(this);
+    }
+    return adfs;
+  }
+
   @Override
   public FsStatus getStatus(Path p) throws IOException {
     statistics.incrementReadOps(1);
@@ -54,7 +54,12 @@
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Utility classes to compute file checksum for both replicated and striped
@@ -249,7 +254,12 @@ void compute() throws IOException {
         MD5Hash fileMD5 = MD5Hash.digest(emptyBlockMd5);
         fileChecksum =  new MD5MD5CRC32GzipFileChecksum(0, 0, fileMD5);
       } else {
-        checksumBlocks();
+        ExecutorService pool = client.getBlockChecksumThreadPool();
+        if (pool != null && locatedBlocks.size() > 1) {
+          checksumBlocksInParallel(pool);
+        } else {
+          checksumBlocks();
+        }
         fileChecksum = makeFinalResult();
       }
     }
@@ -262,6 +272,155 @@ void compute() throws IOException {
      */
     abstract void checksumBlocks() throws IOException;
 
+    /**
+     * Send the checksum request of a block or block group to a datanode and
+     * return its response.
+     *
+     * @param locatedBlock the block or block group
+     * @param datanode the datanode to request the checksum from
+     * @param requestedNumBytes the number of bytes of the block or block
+     *                          group to compute the checksum of
+     * @param socketTimeout the timeout of the connection to the datanode
+     */
+    abstract OpBlockChecksumResponseProto requestBlockChecksum(
+        LocatedBlock locatedBlock, DatanodeInfo datanode,
+        long requestedNumBytes, int socketTimeout) throws IOException;
+
+    /**
+     * @return the timeout of the connection used to request the checksum of
+     *         the given block or block group
+     */
+    abstract int getChecksumTimeout(LocatedBlock locatedBlock);
+
+    /**
+     * Compute the block checksums like {@link #checksumBlocks()} does, but
+     * request them from the datanodes concurrently on the given pool. The
+     * responses are still processed and appended to getBlockChecksumBuf() in
+     * block order, so the file checksum is the same.
+     */
+    void checksumBlocksInParallel(ExecutorService pool) throws IOException {
+      final int numBlocks = locatedBlocks.size();
+      final long[] requestedNumBytes = new long[numBlocks];
+      for (int i = 0; i < numBlocks; i++) {
+        requestedNumBytes[i] = Math.min(remaining,
+            locatedBlocks.get(i).getBlock().getNumBytes());
+        remaining -= requestedNumBytes[i];
+      }
+
+      final BlockChecksumReply[] replies = new BlockChecksumReply[numBlocks];
+      List<Integer> pending = new ArrayList<>(numBlocks);
+      for (int i = 0; i < numBlocks; i++) {
+        pending.add(i);
+      }
+      boolean retryOnTokenError = true;
+      while (!pending.isEmpty()) {
+        final boolean throwTokenError = retryOnTokenError;
+        final List<LocatedBlock> blocks = locatedBlocks;
+        final List<Future<BlockChecksumReply>> futures =
+            new ArrayList<>(pending.size());
+        for (final int i : pending) {
+          futures.add(pool.submit(() -> fetchBlockChecksum(blocks.get(i),
+              requestedNumBytes[i], throwTokenError)));
+        }
+
+        final List<Integer> retries = new ArrayList<>();
+        boolean refetch = false;
+        boolean clearKey = false;
+        try {
+          for (int k = 0; k < futures.size(); k++) {
+            final int i = pending.get(k);
+            try {
+              replies[i] = futures.get(k).get();
+            } catch (ExecutionException e) {
+              if (e.getCause() instanceof InvalidBlockTokenException) {
+                refetch = true;
+              } else if (e.getCause() instanceof
+                  InvalidEncryptionKeyException) {
+                clearKey = true;
+              } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+              } else {
+                throw new IOException(e.getCause());
+              }
+              retries.add(i);
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException(
+              "Interrupted while computing the checksum of " + src);
+        } finally {
+          for (Future<BlockChecksumReply> future : futures) {
+            future.cancel(true);
+          }
+        }
+
+        // like checksumBlocks(), retry each block at most once after a
+        // token or encryption key error
+        if (refetch) {
+          refetchBlocks();
+        }
+        if (clearKey) {
+          client.clearDataEncryptionKey();
+        }
+        pending = retries;
+        retryOnTokenError = false;
+      }
+
+      for (int i = 0; i < numBlocks; i++) {
+        processBlockChecksum(replies[i].checksumData, locatedBlocks.get(i),
+            replies[i].datanode, i);
+      }
+    }
+
+    /**
+     * Request the checksum of a block or block group from each of its
+     * datanodes in turn until one of them returns it.
+     *
+     * @param throwTokenError whether to throw a token or encryption key error
+     *                        so the block can be retried with a fresh token
+     *                        or key, instead of trying the next datanode
+     */
+    private BlockChecksumReply fetchBlockChecksum(LocatedBlock locatedBlock,
+        long requestedNumBytes, boolean throwTokenError) throws IOException {
+      final DatanodeInfo[] datanodes = locatedBlock.getLocations();
+      final int socketTimeout = getChecksumTimeout(locatedBlock);
+      for (int j = 0; j < datanodes.length; j++) {
+        try {
+          return new BlockChecksumReply(requestBlockChecksum(locatedBlock,
+              datanodes[j], requestedNumBytes, socketTimeout), datanodes[j]);
+        } catch (InvalidBlockTokenException |
+            InvalidEncryptionKeyException e) {
+          if (throwTokenError) {
+            LOG.debug("Got {} in response to OP_BLOCK_CHECKSUM for file {} "
+                    + "for block {} from datanode {}. Will retry the block "
+                    + "once.", e.getClass().getSimpleName(), src,
+                locatedBlock.getBlock(), datanodes[j]);
+            throw e;
+          }
+          LOG.warn("src={}" + ", datanodes[{}]={}", src, j, datanodes[j], e);
+        } catch (IOException ie) {
+          LOG.warn("src={}" + ", datanodes[{}]={}", src, j, datanodes[j], ie);
+        }
+      }
+      throw new PathIOException(
+          src, "Fail to get block checksum for " + locatedBlock);
+    }
+
+    /**
+     * Extract the checksum properties from the checksum response of a block
+     * or block group and append its checksum into getBlockChecksumBuf().
+     */
+    void processBlockChecksum(OpBlockChecksumResponseProto checksumData,
+        LocatedBlock locatedBlock, DatanodeInfo datanode, int blockIdx)
+        throws IOException {
+      extractChecksumProperties(checksumData, locatedBlock, datanode,
+          blockIdx);
+      String blockChecksumForDebug = populateBlockChecksumBuf(checksumData);
+      LOG.debug("got reply from {}: blockChecksum={}, blockChecksumType={}",
+          datanode, blockChecksumForDebug, getBlockChecksumType());
+    }
+
     /**
      * Make final file checksum result given the per-block or per-block-group
      * checksums collected into getBlockChecksumBuf().
@@ -475,6 +634,21 @@ String populateBlockChecksumBuf(OpBlockChecksumResponseProto checksumData)
     }
   }
 
+  /**
+   * The checksum response of a block or block group and the datanode which
+   * computed it.
+   */
+  private static final class BlockChecksumReply {
+    private final OpBlockChecksumResponseProto checksumData;
+    private final DatanodeInfo datanode;
+
+    private BlockChecksumReply(OpBlockChecksumResponseProto checksumData,
+        DatanodeInfo datanode) {
+      this.checksumData = checksumData;
+      this.datanode = datanode;
+    }
+  }
+
   /**
    * Replicated file checksum computer.
    */
@@ -522,9 +696,7 @@ private boolean checksumBlock(LocatedBlock locatedBlock) {
 
       DatanodeInfo[] datanodes = locatedBlock.getLocations();
 
-      int tmpTimeout = 3000 * datanodes.length +
-          getClient().getConf().getSocketTimeout();
-      setTimeout(tmpTimeout);
+      setTimeout(getChecksumTimeout(locatedBlock));
 
       //try each datanode location of the block
       boolean done = false;
@@ -568,10 +740,26 @@ private boolean checksumBlock(LocatedBlock locatedBlock) {
      */
     private void tryDatanode(LocatedBlock locatedBlock,
                              DatanodeInfo datanode) throws IOException {
+      OpBlockChecksumResponseProto checksumData = requestBlockChecksum(
+          locatedBlock, datanode, locatedBlock.getBlock().getNumBytes(),
+          getTimeout());
+      processBlockChecksum(checksumData, locatedBlock, datanode, blockIdx);
+    }
 
-      ExtendedBlock block = locatedBlock.getBlock();
+    @Override
+    int getChecksumTimeout(LocatedBlock locatedBlock) {
+      return 3000 * locatedBlock.getLocations().length +
+          getClient().getConf().getSocketTimeout();
+    }
+
+    @Override
+    OpBlockChecksumResponseProto requestBlockChecksum(
+        LocatedBlock locatedBlock, DatanodeInfo datanode,
+        long requestedNumBytes, int socketTimeout) throws IOException {
+      ExtendedBlock block = new ExtendedBlock(locatedBlock.getBlock());
+      block.setNumBytes(requestedNumBytes);
 
-      try (IOStreamPair pair = getClient().connectToDN(datanode, getTimeout(),
+      try (IOStreamPair pair = getClient().connectToDN(datanode, socketTimeout,
           locatedBlock.getBlockToken())) {
 
         LOG.debug("write to {}: {}, block={}", datanode,
@@ -590,13 +778,7 @@ private void tryDatanode(LocatedBlock locatedBlock,
             datanode;
         DataTransferProtoUtil.checkBlockOpStatus(reply, logInfo);
 
-        OpBlockChecksumResponseProto checksumData =
-            reply.getChecksumResponse();
-        extractChecksumProperties(
-            checksumData, locatedBlock, datanode, blockIdx);
-        String blockChecksumForDebug = populateBlockChecksumBuf(checksumData);
-        LOG.debug("got reply from {}: blockChecksum={}, blockChecksumType={}",
-            datanode, blockChecksumForDebug, getBlockChecksumType());
+        return reply.getChecksumResponse();
       }
     }
   }
@@ -692,8 +874,36 @@ private void tryDatanode(LocatedStripedBlock blockGroup,
                              StripedBlockInfo stripedBlockInfo,
                              DatanodeInfo datanode,
                              long requestedNumBytes) throws IOException {
+      OpBlockChecksumResponseProto checksumData = requestBlockGroupChecksum(
+          blockGroup, stripedBlockInfo, datanode, requestedNumBytes,
+          getTimeout());
+      processBlockChecksum(checksumData, blockGroup, datanode, bgIdx);
+    }
+
+    @Override
+    int getChecksumTimeout(LocatedBlock locatedBlock) {
+      // the datanode computes the checksum of the whole block group
+      return 3000 * 1 + getClient().getConf().getSocketTimeout();
+    }
+
+    @Override
+    OpBlockChecksumResponseProto requestBlockChecksum(
+        LocatedBlock locatedBlock, DatanodeInfo datanode,
+        long requestedNumBytes, int socketTimeout) throws IOException {
+      LocatedStripedBlock blockGroup = (LocatedStripedBlock) locatedBlock;
+      StripedBlockInfo stripedBlockInfo = new StripedBlockInfo(
+          blockGroup.getBlock(), blockGroup.getLocations(),
+          blockGroup.getBlockTokens(), blockGroup.getBlockIndices(), ecPolicy);
+      return requestBlockGroupChecksum(blockGroup, stripedBlockInfo, datanode,
+          requestedNumBytes, socketTimeout);
+    }
+
+    private OpBlockChecksumResponseProto requestBlockGroupChecksum(
+        LocatedStripedBlock blockGroup, StripedBlockInfo stripedBlockInfo,
+        DatanodeInfo datanode, long requestedNumBytes, int socketTimeout)
+        throws IOException {
       try (IOStreamPair pair = getClient().connectToDN(datanode,
-          getTimeout(), blockGroup.getBlockToken())) {
+          socketTimeout, blockGroup.getBlockToken())) {
 
         LOG.debug("write to {}: {}, blockGroup={}",
             datanode, Op.BLOCK_GROUP_CHECKSUM, blockGroup);
@@ -712,11 +922,7 @@ private void tryDatanode(LocatedStripedBlock blockGroup,
             " from datanode " + datanode;
         DataTransferProtoUtil.checkBlockOpStatus(reply, logInfo);
 
-        OpBlockChecksumResponseProto checksumData = reply.getChecksumResponse();
-        extractChecksumProperties(checksumData, blockGroup, datanode, bgIdx);
-        String blockChecksumForDebug = populateBlockChecksumBuf(checksumData);
-        LOG.debug("got reply from {}: blockChecksum={}, blockChecksumType={}",
-            datanode, blockChecksumForDebug, getBlockChecksumType());
+        return reply.getChecksumResponse();
       }
     }
   }
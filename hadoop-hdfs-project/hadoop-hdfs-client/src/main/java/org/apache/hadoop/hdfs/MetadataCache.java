@@ -0,0 +1,329 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.protocol.LocatedBlocks;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.HdfsFileStatusProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.LocatedBlocksProto;
+import org.apache.hadoop.hdfs.protocolPB.PBHelperClient;
+import org.apache.hadoop.util.Timer;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * MetadataCache caches the file status and the block locations which the
+ * DFSClients of a {@link ClientContext} got from the namenodes, so repeated
+ * lookups of the same files do not go to the namenode.
+ * <p>
+ * The metadata of a path is cached per namespace and per user, because the
+ * namenode checks the permissions of the user and issues block tokens for
+ * the user. The cache holds at most a given number of paths, evicting the
+ * least recently used one, and an entry expires after a given time.
+ * <p>
+ * Only the block locations of files whose last block is complete are cached.
+ * The cache returns a copy of the cached metadata on every lookup, since the
+ * callers modify the objects they get.
+ * <p>
+ * The paths of every namespace are also kept sorted, so the metadata below a
+ * path is invalidated without looking at the other cached paths.
+ * <p>
+ * Every invalidation bumps the generation of the namespace. A caller gets
+ * the generation before it asks the namenode and passes it when it caches
+ * the answer, which is dropped if the namespace was invalidated meanwhile,
+ * as the answer may predate the change which caused the invalidation.
+ */
+@InterfaceAudience.Private
+public class MetadataCache {
+  /** The cached metadata of a path, per user. */
+  private static class PathEntry {
+    private final String namespace;
+    private final String path;
+    private final Map<String, StatusEntry> statuses = new HashMap<>(2);
+    private final Map<String, BlocksEntry> blocks = new HashMap<>(2);
+
+    PathEntry(String namespace, String path) {
+      this.namespace = namespace;
+      this.path = path;
+    }
+  }
+
+  private static class StatusEntry {
+    private final HdfsFileStatusProto status;
+    private final long cachedMs;
+
+    StatusEntry(HdfsFileStatusProto status, long cachedMs) {
+      this.status = status;
+      this.cachedMs = cachedMs;
+    }
+  }
+
+  private static class BlocksEntry {
+    private final long start;
+    private final long length;
+    private final LocatedBlocksProto blocks;
+    private final long cachedMs;
+
+    BlocksEntry(long start, long length, LocatedBlocksProto blocks,
+        long cachedMs) {
+      this.start = start;
+      this.length = length;
+      this.blocks = blocks;
+      this.cachedMs = cachedMs;
+    }
+  }
+
+  private final long ttlMs;
+  private final Timer timer;
+  private final LinkedHashMap<String, PathEntry> entries;
+  /** The cached paths of every namespace, in order. */
+  private final Map<String, TreeMap<String, PathEntry>> namespaces =
+      new HashMap<>();
+  /** The number of invalidations of every namespace. */
+  private final Map<String, Long> generations = new HashMap<>();
+
+  public MetadataCache(int maxEntries, long ttlMs) {
+    this(maxEntries, ttlMs, new Timer());
+  }
+
+  @VisibleForTesting
+  MetadataCache(final int maxEntries, long ttlMs, Timer timer) {
+    this.ttlMs = ttlMs;
+    this.timer = timer;
+    this.entries = new LinkedHashMap<String, PathEntry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, PathEntry> eldest) {
+        if (size() <= maxEntries) {
+          return false;
+        }
+        removeFromNamespace(eldest.getValue());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Get the cached file status of a path.
+   *
+   * @param namespace the namespace of the path
+   * @param user the user who looks the path up
+   * @param path the absolute path
+   * @return a copy of the cached file status, or null if none is cached
+   */
+  public synchronized HdfsFileStatus getFileStatus(String namespace,
+      String user, String path) {
+    PathEntry entry = entries.get(key(namespace, path));
+    if (entry == null) {
+      return null;
+    }
+    StatusEntry status = entry.statuses.get(user);
+    if (status == null) {
+      return null;
+    }
+    if (isExpired(status.cachedMs)) {
+      entry.statuses.remove(user);
+      return null;
+    }
+    return PBHelperClient.convert(status.status);
+  }
+
+  /**
+   * Get the generation of a namespace, which changes whenever any of its
+   * paths is invalidated.
+   *
+   * @param namespace the namespace
+   * @return the generation to pass to the put methods
+   */
+  public synchronized long getGeneration(String namespace) {
+    Long generation = generations.get(namespace);
+    return generation == null ? 0 : generation;
+  }
+
+  /**
+   * Cache the file status of a path, unless the namespace was invalidated
+   * since the given generation.
+   */
+  public synchronized void putFileStatus(String namespace, String user,
+      String path, HdfsFileStatus status, long generation) {
+    if (generation != getGeneration(namespace)) {
+      return;
+    }
+    getOrCreateEntry(namespace, path).statuses.put(user,
+        new StatusEntry(PBHelperClient.convert(status), timer.monotonicNow()));
+  }
+
+  /**
+   * Get the cached block locations of a range of a file.
+   *
+   * @param namespace the namespace of the file
+   * @param user the user who looks the file up
+   * @param path the absolute path of the file
+   * @param start the offset of the range
+   * @param length the length of the range
+   * @return a copy of the block locations cached for exactly this range, or
+   *         null if none are cached
+   */
+  public synchronized LocatedBlocks getLocatedBlocks(String namespace,
+      String user, String path, long start, long length) {
+    PathEntry entry = entries.get(key(namespace, path));
+    if (entry == null) {
+      return null;
+    }
+    BlocksEntry blocks = entry.blocks.get(user);
+    if (blocks == null || blocks.start != start || blocks.length != length) {
+      return null;
+    }
+    if (isExpired(blocks.cachedMs)) {
+      entry.blocks.remove(user);
+      return null;
+    }
+    return PBHelperClient.convert(blocks.blocks);
+  }
+
+  /**
+   * Cache the block locations of a range of a file, unless the file is being
+   * written to or the namespace was invalidated since the given generation.
+   */
+  public synchronized void putLocatedBlocks(String namespace, String user,
+      String path, long start, long length, LocatedBlocks blocks,
+      long generation) {
+    if (blocks.isUnderConstruction() || !blocks.isLastBlockComplete()
+        || generation != getGeneration(namespace)) {
+      return;
+    }
+    getOrCreateEntry(namespace, path).blocks.put(user, new BlocksEntry(
+        start, length, PBHelperClient.convert(blocks), timer.monotonicNow()));
+  }
+
+  /**
+   * Remove the cached metadata of a path.
+   */
+  public synchronized void invalidate(String namespace, String path) {
+    generations.put(namespace, getGeneration(namespace) + 1);
+    PathEntry entry = entries.remove(key(namespace, path));
+    if (entry != null) {
+      removeFromNamespace(entry);
+    }
+  }
+
+  /**
+   * Remove the cached metadata of a path and of all the paths below it.
+   */
+  public synchronized void invalidateRecursively(String namespace,
+      String path) {
+    invalidate(namespace, path);
+    TreeMap<String, PathEntry> paths = namespaces.get(namespace);
+    if (paths == null) {
+      return;
+    }
+    String prefix = path.endsWith(Path.SEPARATOR) ?
+        path : path + Path.SEPARATOR;
+    SortedMap<String, PathEntry> below =
+        paths.subMap(prefix, prefix + Character.MAX_VALUE);
+    for (String p : below.keySet()) {
+      entries.remove(key(namespace, p));
+    }
+    below.clear();
+    if (paths.isEmpty()) {
+      namespaces.remove(namespace);
+    }
+  }
+
+  /**
+   * Remove the cached metadata of a file which was created, which has no
+   * paths below it, and of its parent directory, whose modification time
+   * changed.
+   */
+  public synchronized void invalidateFileWithParent(String namespace,
+      String path) {
+    invalidate(namespace, path);
+    invalidateParent(namespace, path);
+  }
+
+  /**
+   * Remove the cached metadata of a path which was created, renamed or
+   * deleted, of all the paths below it, and of its parent directory, whose
+   * modification time changed.
+   */
+  public synchronized void invalidateWithParent(String namespace,
+      String path) {
+    invalidateRecursively(namespace, path);
+    invalidateParent(namespace, path);
+  }
+
+  private void invalidateParent(String namespace, String path) {
+    Path parent = new Path(path).getParent();
+    if (parent != null) {
+      invalidate(namespace, parent.toUri().getPath());
+    }
+  }
+
+  /**
+   * Remove the cached metadata of all the paths of a namespace.
+   */
+  public synchronized void invalidateAll(String namespace) {
+    invalidateRecursively(namespace, Path.SEPARATOR);
+  }
+
+  @VisibleForTesting
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private PathEntry getOrCreateEntry(String namespace, String path) {
+    String key = key(namespace, path);
+    PathEntry entry = entries.get(key);
+    if (entry == null) {
+      entry = new PathEntry(namespace, path);
+      TreeMap<String, PathEntry> paths = namespaces.get(namespace);
+      if (paths == null) {
+        paths = new TreeMap<>();
+        namespaces.put(namespace, paths);
+      }
+      paths.put(path, entry);
+      entries.put(key, entry);
+    }
+    return entry;
+  }
+
+  private void removeFromNamespace(PathEntry entry) {
+    TreeMap<String, PathEntry> paths = namespaces.get(entry.namespace);
+    if (paths != null) {
+      paths.remove(entry.path);
+      if (paths.isEmpty()) {
+        namespaces.remove(entry.namespace);
+      }
+    }
+  }
+
+  private boolean isExpired(long cachedMs) {
+    return timer.monotonicNow() - cachedMs > ttlMs;
+  }
+
+  private static String key(String namespace, String path) {
+    return namespace + path;
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hdfs.inotify.Event;
+import org.apache.hadoop.hdfs.inotify.EventBatch;
+import org.apache.hadoop.hdfs.inotify.MissingEventsException;
+import org.apache.hadoop.ipc.RemoteException;
+import org.apache.hadoop.security.AccessControlException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MetadataCacheInvalidator reads the inotify events of the namespace of a
+ * DFSClient and removes the paths which they change from the
+ * {@link MetadataCache}, so the cache does not return metadata which other
+ * clients changed until it expires.
+ * <p>
+ * Reading the inotify events requires superuser privilege. Without it the
+ * invalidator stops, and the cached metadata only expires.
+ */
+class MetadataCacheInvalidator implements Runnable {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(MetadataCacheInvalidator.class);
+
+  private static final long POLL_INTERVAL_MS = 1000;
+
+  private final DFSClient client;
+  private final MetadataCache cache;
+  private final String namespace;
+
+  MetadataCacheInvalidator(DFSClient client, MetadataCache cache,
+      String namespace) {
+    this.client = client;
+    this.cache = cache;
+    this.namespace = namespace;
+  }
+
+  @Override
+  public void run() {
+    DFSInotifyEventInputStream stream = null;
+    while (client.isClientRunning()) {
+      try {
+        if (stream == null) {
+          stream = client.getInotifyEventStream();
+          // the changes made before the stream was opened are not read
+          cache.invalidateAll(namespace);
+        }
+        EventBatch batch =
+            stream.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (batch != null) {
+          for (Event event : batch.getEvents()) {
+            invalidate(event);
+          }
+        }
+      } catch (InterruptedException e) {
+        LOG.debug("Interrupted while reading the inotify events of {}",
+            namespace);
+        return;
+      } catch (MissingEventsException e) {
+        LOG.warn("Missed inotify events of {}, reopening the stream: {}",
+            namespace, e.getMessage());
+        stream = null;
+      } catch (IOException e) {
+        IOException ioe = e instanceof RemoteException ?
+            ((RemoteException) e).unwrapRemoteException() : e;
+        if (ioe instanceof AccessControlException) {
+          LOG.warn("Cannot read the inotify events of {}, the cached " +
+              "metadata of its paths will only expire: {}", namespace,
+              ioe.getMessage());
+          return;
+        }
+        LOG.warn("Failed to read the inotify events of {}", namespace, ioe);
+        stream = null;
+        try {
+          Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException ie) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void invalidate(Event event) {
+    switch (event.getEventType()) {
+    case CREATE:
+      Event.CreateEvent create = (Event.CreateEvent) event;
+      if (create.getiNodeType() == Event.CreateEvent.INodeType.DIRECTORY) {
+        cache.invalidateWithParent(namespace, create.getPath());
+      } else {
+        // nothing is cached below a file
+        cache.invalidateFileWithParent(namespace, create.getPath());
+      }
+      break;
+    case CLOSE:
+      cache.invalidate(namespace, ((Event.CloseEvent) event).getPath());
+      break;
+    case APPEND:
+      cache.invalidate(namespace, ((Event.AppendEvent) event).getPath());
+      break;
+    case TRUNCATE:
+      cache.invalidate(namespace, ((Event.TruncateEvent) event).getPath());
+      break;
+    case METADATA:
+      // permissions, ACLs and policies of a directory apply below it
+      cache.invalidateRecursively(namespace,
+          ((Event.MetadataUpdateEvent) event).getPath());
+      break;
+    case RENAME:
+      Event.RenameEvent rename = (Event.RenameEvent) event;
+      cache.invalidateWithParent(namespace, rename.getSrcPath());
+      cache.invalidateWithParent(namespace, rename.getDstPath());
+      break;
+    case UNLINK:
+      cache.invalidateWithParent(namespace,
+          ((Event.UnlinkEvent) event).getPath());
+      break;
+    default:
+      cache.invalidateAll(namespace);
+      break;
+    }
+  }
+}
@@ -467,6 +467,70 @@ interface StripedRead {
     int     THREADPOOL_SIZE_DEFAULT = 18;
   }
 
+  /** dfs.client.read.vectored configuration properties */
+  interface VectoredRead {
+    String PREFIX = Read.PREFIX + "vectored.";
+
+    /**
+     * Number of threads shared by the clients of a JVM to read the ranges of
+     * vectored reads concurrently. Zero reads them in the calling thread.
+     */
+    String  THREADPOOL_SIZE_KEY = PREFIX + "threadpool.size";
+    int     THREADPOOL_SIZE_DEFAULT = 16;
+    String  MIN_SEEK_SIZE_KEY = PREFIX + "min.seek.size";
+    int     MIN_SEEK_SIZE_DEFAULT = 4 * 1024;
+    String  MAX_MERGED_SIZE_KEY = PREFIX + "max.merged.size";
+    int     MAX_MERGED_SIZE_DEFAULT = 1024 * 1024;
+  }
+
+  /** dfs.client.block.checksum configuration properties */
+  interface BlockChecksum {
+    String PREFIX = HdfsClientConfigKeys.PREFIX + "block.checksum.";
+
+    /**
+     * Number of threads shared by the clients of a JVM to request the block
+     * checksums of a file from the datanodes concurrently when computing a
+     * file checksum. Zero requests them one block after the other.
+     */
+    String  THREADPOOL_SIZE_KEY = PREFIX + "threadpool.size";
+    int     THREADPOOL_SIZE_DEFAULT = 0;
+  }
+
+  /** dfs.client.metadata.cache configuration properties */
+  interface MetadataCache {
+    String PREFIX = HdfsClientConfigKeys.PREFIX + "metadata.cache.";
+
+    /**
+     * Whether to cache the file status and the block locations of the files
+     * which the clients of a client context look up.
+     */
+    String  ENABLED_KEY = PREFIX + "enabled";
+    boolean ENABLED_DEFAULT = false;
+    String  MAX_ENTRIES_KEY = PREFIX + "max.entries";
+    int     MAX_ENTRIES_DEFAULT = 10000;
+    String  TTL_MS_KEY = PREFIX + "ttl.ms";
+    long    TTL_MS_DEFAULT = 60 * 1000;
+    /**
+     * Whether to remove the paths which the inotify events of the namespace
+     * report as changed from the cache. Requires superuser privilege.
+     */
+    String  INOTIFY_ENABLED_KEY = PREFIX + "inotify.enabled";
+    boolean INOTIFY_ENABLED_DEFAULT = false;
+  }
+
+  /** dfs.client.listing configuration properties */
+  interface Listing {
+    String PREFIX = HdfsClientConfigKeys.PREFIX + "listing.";
+
+    /**
+     * Number of threads shared by the clients of a JVM to fetch the next
+     * batch of a large directory listing while the current one is consumed.
+     * Zero disables the prefetch.
+     */
+    String  PREFETCH_THREADPOOL_SIZE_KEY = PREFIX + "prefetch.threadpool.size";
+    int     PREFETCH_THREADPOOL_SIZE_DEFAULT = 0;
+  }
+
   /** dfs.http.client configuration properties */
   interface HttpClient {
     String  PREFIX = "dfs.http.client.";
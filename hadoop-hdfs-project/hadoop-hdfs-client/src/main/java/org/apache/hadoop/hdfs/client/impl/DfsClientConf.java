@@ -144,6 +144,15 @@ public class DfsClientConf {
       replicaAccessorBuilderClasses;
 
   private final int stripedReadThreadpoolSize;
+  private final int listingPrefetchThreadpoolSize;
+  private final int vectoredReadThreadpoolSize;
+  private final int vectoredReadMinSeekSize;
+  private final int vectoredReadMaxMergedSize;
+  private final int blockChecksumThreadpoolSize;
+  private final boolean metadataCacheEnabled;
+  private final int metadataCacheMaxEntries;
+  private final long metadataCacheTtlMs;
+  private final boolean metadataCacheInotifyEnabled;
 
   private final boolean dataTransferTcpNoDelay;
 
@@ -276,6 +285,33 @@ public DfsClientConf(Configuration conf) {
     Preconditions.checkArgument(stripedReadThreadpoolSize > 0, "The value of " +
         HdfsClientConfigKeys.StripedRead.THREADPOOL_SIZE_KEY +
         " must be greater than 0.");
+    listingPrefetchThreadpoolSize = conf.getInt(
+        HdfsClientConfigKeys.Listing.PREFETCH_THREADPOOL_SIZE_KEY,
+        HdfsClientConfigKeys.Listing.PREFETCH_THREADPOOL_SIZE_DEFAULT);
+    vectoredReadThreadpoolSize = conf.getInt(
+        HdfsClientConfigKeys.VectoredRead.THREADPOOL_SIZE_KEY,
+        HdfsClientConfigKeys.VectoredRead.THREADPOOL_SIZE_DEFAULT);
+    vectoredReadMinSeekSize = conf.getInt(
+        HdfsClientConfigKeys.VectoredRead.MIN_SEEK_SIZE_KEY,
+        HdfsClientConfigKeys.VectoredRead.MIN_SEEK_SIZE_DEFAULT);
+    vectoredReadMaxMergedSize = conf.getInt(
+        HdfsClientConfigKeys.VectoredRead.MAX_MERGED_SIZE_KEY,
+        HdfsClientConfigKeys.VectoredRead.MAX_MERGED_SIZE_DEFAULT);
+    blockChecksumThreadpoolSize = conf.getInt(
+        HdfsClientConfigKeys.BlockChecksum.THREADPOOL_SIZE_KEY,
+        HdfsClientConfigKeys.BlockChecksum.THREADPOOL_SIZE_DEFAULT);
+    metadataCacheEnabled = conf.getBoolean(
+        HdfsClientConfigKeys.MetadataCache.ENABLED_KEY,
+        HdfsClientConfigKeys.MetadataCache.ENABLED_DEFAULT);
+    metadataCacheMaxEntries = conf.getInt(
+        HdfsClientConfigKeys.MetadataCache.MAX_ENTRIES_KEY,
+        HdfsClientConfigKeys.MetadataCache.MAX_ENTRIES_DEFAULT);
+    metadataCacheTtlMs = conf.getLong(
+        HdfsClientConfigKeys.MetadataCache.TTL_MS_KEY,
+        HdfsClientConfigKeys.MetadataCache.TTL_MS_DEFAULT);
+    metadataCacheInotifyEnabled = conf.getBoolean(
+        HdfsClientConfigKeys.MetadataCache.INOTIFY_ENABLED_KEY,
+        HdfsClientConfigKeys.MetadataCache.INOTIFY_ENABLED_DEFAULT);
     replicaAccessorBuilderClasses = loadReplicaAccessorBuilderClasses(conf);
   }
 
@@ -603,6 +639,69 @@ public int getStripedReadThreadpoolSize() {
     return stripedReadThreadpoolSize;
   }
 
+  /**
+   * @return the listingPrefetchThreadpoolSize
+   */
+  public int getListingPrefetchThreadpoolSize() {
+    return listingPrefetchThreadpoolSize;
+  }
+
+  /**
+   * @return the vectoredReadThreadpoolSize
+   */
+  public int getVectoredReadThreadpoolSize() {
+    return vectoredReadThreadpoolSize;
+  }
+
+  /**
+   * @return the vectoredReadMinSeekSize
+   */
+  public int getVectoredReadMinSeekSize() {
+    return vectoredReadMinSeekSize;
+  }
+
+  /**
+   * @return the vectoredReadMaxMergedSize
+   */
+  public int getVectoredReadMaxMergedSize() {
+    return vectoredReadMaxMergedSize;
+  }
+
+  /**
+   * @return the blockChecksumThreadpoolSize
+   */
+  public int getBlockChecksumThreadpoolSize() {
+    return blockChecksumThreadpoolSize;
+  }
+
+  /**
+   * @return the metadataCacheEnabled
+   */
+  public boolean isMetadataCacheEnabled() {
+    return metadataCacheEnabled;
+  }
+
+  /**
+   * @return the metadataCacheMaxEntries
+   */
+  public int getMetadataCacheMaxEntries() {
+    return metadataCacheMaxEntries;
+  }
+
+  /**
+   * @return the metadataCacheTtlMs
+   */
+  public long getMetadataCacheTtlMs() {
+    return metadataCacheTtlMs;
+  }
+
+  /**
+   * @return the metadataCacheInotifyEnabled
+   */
+  public boolean isMetadataCacheInotifyEnabled() {
+    return metadataCacheInotifyEnabled;
+  }
+
   /**
    * @return the deadNodeDetectionEnabled
    */
@@ -28,6 +28,7 @@
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -109,6 +110,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CreateSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CreateSymlinkRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DisallowSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.FinalizeUpgradeRequestProto;
@@ -159,6 +161,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ListOpenFilesResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MetaSaveRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MkdirsRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MkdirsResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ModifyCacheDirectiveRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.ModifyCachePoolRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.MsyncRequestProto;
@@ -465,6 +468,27 @@ public boolean isDone() {
     AsyncCallHandler.setLowerLayerAsyncReturn(asyncGet);
   }
 
+  /**
+   * Set the async return value of a call, converting its response message
+   * to the return value.
+   */
+  private <T> void setAsyncReturnValue(final Function<Message, T> convert) {
+    final AsyncGet<Message, Exception> asyncReturnMessage
+        = ProtobufRpcEngine.getAsyncReturnMessage();
+    final AsyncGet<T, Exception> asyncGet = new AsyncGet<T, Exception>() {
+      @Override
+      public T get(long timeout, TimeUnit unit) throws Exception {
+        return convert.apply(asyncReturnMessage.get(timeout, unit));
+      }
+
+      @Override
+      public boolean isDone() {
+        return asyncReturnMessage.isDone();
+      }
+    };
+    AsyncCallHandler.setLowerLayerAsyncReturn(asyncGet);
+  }
+
   @Override
   public void setOwner(String src, String username, String groupname)
       throws IOException {
@@ -643,7 +667,14 @@ public boolean delete(String src, boolean recursive) throws IOException {
     DeleteRequestProto req = DeleteRequestProto.newBuilder().setSrc(src)
         .setRecursive(recursive).build();
     try {
-      return rpcProxy.delete(null, req).getResult();
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.delete(null, req);
+        setAsyncReturnValue(
+            response -> ((DeleteResponseProto) response).getResult());
+        return false;
+      } else {
+        return rpcProxy.delete(null, req).getResult();
+      }
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
     }
@@ -662,7 +693,14 @@ public boolean mkdirs(String src, FsPermission masked, boolean createParent)
     }
     MkdirsRequestProto req = builder.build();
     try {
-      return rpcProxy.mkdirs(null, req).getResult();
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.mkdirs(null, req);
+        setAsyncReturnValue(
+            response -> ((MkdirsResponseProto) response).getResult());
+        return false;
+      } else {
+        return rpcProxy.mkdirs(null, req).getResult();
+      }
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
     }
@@ -909,8 +947,17 @@ public HdfsFileStatus getFileInfo(String src) throws IOException {
         .setSrc(src)
         .build();
     try {
-      GetFileInfoResponseProto res = rpcProxy.getFileInfo(null, req);
-      return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.getFileInfo(null, req);
+        setAsyncReturnValue(response -> {
+          GetFileInfoResponseProto res = (GetFileInfoResponseProto) response;
+          return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
+        });
+        return null;
+      } else {
+        GetFileInfoResponseProto res = rpcProxy.getFileInfo(null, req);
+        return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
+      }
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
     }
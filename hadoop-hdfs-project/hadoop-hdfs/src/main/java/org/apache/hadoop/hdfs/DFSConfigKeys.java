@@ -110,6 +110,16 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final Class<DefaultSyncServiceFileFilterImpl> DFS_PROVIDED_BACKUP_INODEFILTER_DEFAULT = DefaultSyncServiceFileFilterImpl.class;
   public static final String DFS_PROVIDED_HEARTBEAT_BACKUP_NUM = "dfs.provided.heartbeat.backup.num";
   public static final int DFS_PROVIDED_HEARTBEAT_BACKUP_NUM_DEFAULT = 10;
+  public static final String DFS_PROVIDED_SYNC_THREADS_PER_VOLUME_KEY = "dfs.provided.sync.threads.per.volume";
+  public static final int DFS_PROVIDED_SYNC_THREADS_PER_VOLUME_DEFAULT = 4;
+  public static final String DFS_PROVIDED_SYNC_READAHEAD_BUFFERS_KEY = "dfs.provided.sync.readahead.buffers";
+  public static final int DFS_PROVIDED_SYNC_READAHEAD_BUFFERS_DEFAULT = 4;
+  public static final String DFS_PROVIDED_SYNC_READAHEAD_BUFFER_SIZE_KEY = "dfs.provided.sync.readahead.buffer.size";
+  public static final int DFS_PROVIDED_SYNC_READAHEAD_BUFFER_SIZE_DEFAULT = 1024 * 1024;
+  public static final String DFS_PROVIDED_SYNC_NAMENODE_THREADS_KEY = "dfs.provided.sync.namenode.threads";
+  public static final int DFS_PROVIDED_SYNC_NAMENODE_THREADS_DEFAULT = 1;
+  public static final String DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_KEY = "dfs.provided.sync.create.files.batch.size";
+  public static final int DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_DEFAULT = 10000;
 
   public static final String DFS_SNAPSHOT_UPDATE_TRACKER = "dfs.provided.update.tracker";
   public static final String DFS_SNAPSHOT_UPDATE_TRACKER_RETRY_STRATEGY = "dfs.provided.update.tracker.retry.strategy";
@@ -146,6 +156,14 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final boolean DFS_DATANODE_SYNC_BEHIND_WRITES_IN_BACKGROUND_DEFAULT = false;
   public static final String  DFS_DATANODE_DROP_CACHE_BEHIND_READS_KEY = "dfs.datanode.drop.cache.behind.reads";
   public static final boolean DFS_DATANODE_DROP_CACHE_BEHIND_READS_DEFAULT = false;
+  public static final String  DFS_DATANODE_ADAPTIVE_READAHEAD_ENABLED_KEY =
+      "dfs.datanode.adaptive.readahead.enabled";
+  public static final boolean DFS_DATANODE_ADAPTIVE_READAHEAD_ENABLED_DEFAULT =
+      false;
+  public static final String  DFS_DATANODE_ADAPTIVE_READAHEAD_TRACKED_BLOCKS_KEY =
+      "dfs.datanode.adaptive.readahead.tracked.blocks";
+  public static final int     DFS_DATANODE_ADAPTIVE_READAHEAD_TRACKED_BLOCKS_DEFAULT =
+      10000;
   public static final String  DFS_DATANODE_USE_DN_HOSTNAME = "dfs.datanode.use.datanode.hostname";
   public static final boolean DFS_DATANODE_USE_DN_HOSTNAME_DEFAULT = false;
   public static final String  DFS_DATANODE_MAX_LOCKED_MEMORY_KEY = "dfs.datanode.max.locked.memory";
@@ -194,6 +212,16 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_NAMENODE_MAX_OBJECTS_KEY =
       HdfsClientConfigKeys.DeprecatedKeys.DFS_NAMENODE_MAX_OBJECTS_KEY;
   public static final long    DFS_NAMENODE_MAX_OBJECTS_DEFAULT = 0;
+  // Percentage of the NameNode heap used to size the INodeMap and BlocksMap
+  // hash tables
+  public static final String  DFS_NAMENODE_INODE_MAP_CAPACITY_PERCENT_KEY =
+      "dfs.namenode.inode-map.capacity-percent";
+  public static final double  DFS_NAMENODE_INODE_MAP_CAPACITY_PERCENT_DEFAULT =
+      1.0;
+  public static final String  DFS_NAMENODE_BLOCKS_MAP_CAPACITY_PERCENT_KEY =
+      "dfs.namenode.blocks-map.capacity-percent";
+  public static final double  DFS_NAMENODE_BLOCKS_MAP_CAPACITY_PERCENT_DEFAULT =
+      2.0;
   public static final String  DFS_NAMENODE_SAFEMODE_EXTENSION_KEY =
       HdfsClientConfigKeys.DeprecatedKeys.DFS_NAMENODE_SAFEMODE_EXTENSION_KEY;
   public static final int     DFS_NAMENODE_SAFEMODE_EXTENSION_DEFAULT = 30000;
@@ -266,6 +294,11 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       "dfs.namenode.reconstruction.pending.timeout-sec";
   public static final int
       DFS_NAMENODE_RECONSTRUCTION_PENDING_TIMEOUT_SEC_DEFAULT = 300;
+  public static final String
+      DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_KEY =
+      "dfs.namenode.reconstruction.choose-target.threads";
+  public static final int
+      DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_DEFAULT = 1;
 
   public static final String  DFS_NAMENODE_MAINTENANCE_REPLICATION_MIN_KEY =
       "dfs.namenode.maintenance.replication.min";
@@ -296,6 +329,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       = "dfs.namenode.blockreport.queue.size";
   public static final int    DFS_NAMENODE_BLOCKREPORT_QUEUE_SIZE_DEFAULT
       = 1024;
+  public static final String DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_KEY
+      = "dfs.namenode.blockreport.lookup.threads";
+  public static final int    DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_DEFAULT
+      = 1;
   @Deprecated
   public static final String  DFS_WEBHDFS_USER_PATTERN_KEY =
       HdfsClientConfigKeys.DFS_WEBHDFS_USER_PATTERN_KEY;
@@ -365,6 +402,9 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_NAMENODE_EDITS_ASYNC_LOGGING =
       "dfs.namenode.edits.asynclogging";
   public static final boolean DFS_NAMENODE_EDITS_ASYNC_LOGGING_DEFAULT = true;
+  public static final String  DFS_NAMENODE_EDITS_REPLAY_PREFETCH_OPS_KEY =
+      "dfs.namenode.edits.replay.prefetch.ops";
+  public static final int     DFS_NAMENODE_EDITS_REPLAY_PREFETCH_OPS_DEFAULT = 0;
 
   public static final String DFS_NAMENODE_PROVIDED_ENABLED = "dfs.namenode.provided.enabled";
   public static final boolean DFS_NAMENODE_PROVIDED_ENABLED_DEFAULT = false;
@@ -395,6 +435,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final int     DFS_CONTENT_SUMMARY_LIMIT_DEFAULT = 5000;
   public static final String  DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_KEY = "dfs.content-summary.sleep-microsec";
   public static final long    DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_DEFAULT = 500;
+  public static final String  DFS_CONTENT_SUMMARY_QUOTA_CACHE_ENABLED_KEY =
+      "dfs.content-summary.quota-cache.enabled";
+  public static final boolean DFS_CONTENT_SUMMARY_QUOTA_CACHE_ENABLED_DEFAULT =
+      false;
   public static final String  DFS_DATANODE_FAILED_VOLUMES_TOLERATED_KEY = "dfs.datanode.failed.volumes.tolerated";
   public static final int     DFS_DATANODE_FAILED_VOLUMES_TOLERATED_DEFAULT = 0;
   public static final String
@@ -546,6 +590,15 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String DFS_NAMENODE_FSLOCK_FAIR_KEY =
       "dfs.namenode.fslock.fair";
   public static final boolean DFS_NAMENODE_FSLOCK_FAIR_DEFAULT = true;
+  public static final String DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_KEY =
+      "dfs.namenode.mkdirs.existing-dir.read-lock.enabled";
+  public static final boolean DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_DEFAULT =
+      false;
+  public static final String
+      DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY =
+      "dfs.namenode.fslock.read-barging.max-writer-wait-ms";
+  public static final long
+      DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_DEFAULT = -1;
 
   public static final String  DFS_NAMENODE_LOCK_DETAILED_METRICS_KEY =
       "dfs.namenode.lock.detailed-metrics.enabled";
@@ -618,6 +671,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final boolean DFS_NAMENODE_AUDIT_LOG_TOKEN_TRACKING_ID_DEFAULT = false;
   public static final String  DFS_NAMENODE_AUDIT_LOG_ASYNC_KEY = "dfs.namenode.audit.log.async";
   public static final boolean DFS_NAMENODE_AUDIT_LOG_ASYNC_DEFAULT = false;
+  public static final String  DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_KEY = "dfs.namenode.audit.log.async.queue.size";
+  public static final int     DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_DEFAULT = 0;
+  public static final String  DFS_NAMENODE_AUDIT_LOG_ASYNC_BLOCKING_KEY = "dfs.namenode.audit.log.async.blocking";
+  public static final boolean DFS_NAMENODE_AUDIT_LOG_ASYNC_BLOCKING_DEFAULT = true;
   public static final String  DFS_NAMENODE_AUDIT_LOG_DEBUG_CMDLIST = "dfs.namenode.audit.log.debug.cmdlist";
   public static final String  DFS_NAMENODE_METRICS_LOGGER_PERIOD_SECONDS_KEY =
       "dfs.namenode.metrics.logger.period.seconds";
@@ -772,6 +829,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       "dfs.datanode.directoryscan.throttle.limit.ms.per.sec";
   public static final int
       DFS_DATANODE_DIRECTORYSCAN_THROTTLE_LIMIT_MS_PER_SEC_DEFAULT = -1;
+  public static final String  DFS_DATANODE_DIRECTORYSCAN_FULL_INTERVAL_KEY =
+      "dfs.datanode.directoryscan.full.interval";
+  public static final int     DFS_DATANODE_DIRECTORYSCAN_FULL_INTERVAL_DEFAULT =
+      0;
   public static final String  DFS_DATANODE_DNS_INTERFACE_KEY = "dfs.datanode.dns.interface";
   public static final String  DFS_DATANODE_DNS_INTERFACE_DEFAULT = "default";
   public static final String  DFS_DATANODE_DNS_NAMESERVER_KEY = "dfs.datanode.dns.nameserver";
@@ -796,12 +857,23 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_DATANODE_MAX_RECEIVER_THREADS_KEY =
       HdfsClientConfigKeys.DeprecatedKeys.DFS_DATANODE_MAX_RECEIVER_THREADS_KEY;
   public static final int     DFS_DATANODE_MAX_RECEIVER_THREADS_DEFAULT = 4096;
+  public static final String  DFS_DATANODE_XCEIVER_POOL_ENABLED_KEY =
+      "dfs.datanode.xceiver.pool.enabled";
+  public static final boolean DFS_DATANODE_XCEIVER_POOL_ENABLED_DEFAULT = false;
+  public static final String  DFS_DATANODE_XCEIVER_POOL_KEEPALIVE_KEY =
+      "dfs.datanode.xceiver.pool.keepalive";
+  public static final long    DFS_DATANODE_XCEIVER_POOL_KEEPALIVE_DEFAULT =
+      60000;
   public static final String  DFS_DATANODE_SCAN_PERIOD_HOURS_KEY = "dfs.datanode.scan.period.hours";
   public static final int     DFS_DATANODE_SCAN_PERIOD_HOURS_DEFAULT = 21 * 24;  // 3 weeks.
   public static final String  DFS_BLOCK_SCANNER_VOLUME_BYTES_PER_SECOND = "dfs.block.scanner.volume.bytes.per.second";
   public static final long    DFS_BLOCK_SCANNER_VOLUME_BYTES_PER_SECOND_DEFAULT = 1048576L;
   public static final String  DFS_DATANODE_TRANSFERTO_ALLOWED_KEY = "dfs.datanode.transferTo.allowed";
   public static final boolean DFS_DATANODE_TRANSFERTO_ALLOWED_DEFAULT = true;
+  public static final String  DFS_DATANODE_TRANSFERTO_PACKET_SIZE_KEY =
+      "dfs.datanode.transferTo.packet.size";
+  public static final int     DFS_DATANODE_TRANSFERTO_PACKET_SIZE_DEFAULT =
+      64 * 1024;
   public static final String  DFS_HEARTBEAT_INTERVAL_KEY = "dfs.heartbeat.interval";
   public static final long    DFS_HEARTBEAT_INTERVAL_DEFAULT = 3;
   public static final String  DFS_DATANODE_LIFELINE_INTERVAL_SECONDS_KEY =
@@ -874,6 +946,9 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final int     DFS_BLOCKREPORT_INITIAL_DELAY_DEFAULT = 0;
   public static final String  DFS_BLOCKREPORT_SPLIT_THRESHOLD_KEY = "dfs.blockreport.split.threshold";
   public static final long    DFS_BLOCKREPORT_SPLIT_THRESHOLD_DEFAULT = 1000 * 1000;
+  public static final String  DFS_DATANODE_BLOCK_REPORT_THREADS_KEY =
+      "dfs.datanode.block.report.threads";
+  public static final int     DFS_DATANODE_BLOCK_REPORT_THREADS_DEFAULT = 1;
   public static final String  DFS_NAMENODE_MAX_FULL_BLOCK_REPORT_LEASES = "dfs.namenode.max.full.block.report.leases";
   public static final int     DFS_NAMENODE_MAX_FULL_BLOCK_REPORT_LEASES_DEFAULT = 6;
   public static final String  DFS_NAMENODE_FULL_BLOCK_REPORT_LEASE_LENGTH_MS = "dfs.namenode.full.block.report.lease.length.ms";
@@ -934,6 +1009,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       "dfs.image.parallel.threads";
   public static final int DFS_IMAGE_PARALLEL_THREADS_DEFAULT = 4;
 
+  public static final String DFS_IMAGE_PARALLEL_SAVE_KEY =
+      "dfs.image.parallel.save";
+  public static final boolean DFS_IMAGE_PARALLEL_SAVE_DEFAULT = false;
+
   // Edit Log segment transfer timeout
   public static final String DFS_EDIT_LOG_TRANSFER_TIMEOUT_KEY =
       "dfs.edit.log.transfer.timeout";
@@ -958,6 +1037,25 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
       "dfs.datanode.fileio.profiling.sampling.percentage";
   public static final int
       DFS_DATANODE_FILEIO_PROFILING_SAMPLING_PERCENTAGE_DEFAULT = 0;
+  public static final String DFS_DATANODE_LOCK_FAIR_KEY =
+      "dfs.datanode.lock.fair";
+  public static final boolean DFS_DATANODE_LOCK_FAIR_DEFAULT = true;
+  public static final String DFS_DATANODE_LOCK_READ_WRITE_ENABLED_KEY =
+      "dfs.datanode.lock.read.write.enabled";
+  public static final boolean DFS_DATANODE_LOCK_READ_WRITE_ENABLED_DEFAULT =
+      true;
+  public static final String DFS_DATANODE_REPLICAMAP_DEFRAGMENT_INTERVAL_MS_KEY
+      = "dfs.datanode.replicamap.defragment.interval.ms";
+  public static final long
+      DFS_DATANODE_REPLICAMAP_DEFRAGMENT_INTERVAL_MS_DEFAULT = 10 * 60 * 1000;
+  public static final String DFS_DATANODE_REPLICAMAP_DEFRAGMENT_TIMEOUT_MS_KEY
+      = "dfs.datanode.replicamap.defragment.timeout.ms";
+  public static final long
+      DFS_DATANODE_REPLICAMAP_DEFRAGMENT_TIMEOUT_MS_DEFAULT = 4;
+  public static final String DFS_DATANODE_REPLICAMAP_DEFRAGMENT_RATIO_KEY
+      = "dfs.datanode.replicamap.defragment.ratio";
+  public static final double
+      DFS_DATANODE_REPLICAMAP_DEFRAGMENT_RATIO_DEFAULT = 0.75;
 
   //Keys with no defaults
   public static final String  DFS_DATANODE_PLUGINS_KEY = "dfs.datanode.plugins";
@@ -43,6 +43,9 @@
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -127,6 +130,9 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -387,6 +393,22 @@ public long getTotalECBlockGroups() {
   final float blocksInvalidateWorkPct;
   private int blocksReplWorkMultiplier;
 
+  /**
+   * Chooses the targets of reconstruction work in parallel batches, null if
+   * they are chosen by the RedundancyMonitor thread.
+   */
+  private final ExecutorService chooseTargetExecutor;
+  private final int chooseTargetThreads;
+
+  /** Minimum number of blocks looked up by a thread of a first report. */
+  static final int MIN_BLOCKS_PER_LOOKUP_BATCH = 1024;
+  /**
+   * Looks up the blocks of large first block reports in parallel batches,
+   * null if they are looked up by the block report processing thread.
+   */
+  private final ExecutorService blockReportLookupExecutor;
+  private final int blockReportLookupThreads;
+
   // whether or not to issue block encryption keys.
   final boolean encryptDataTransfer;
   
@@ -466,9 +488,11 @@ public BlockManager(final Namesystem namesystem, boolean haEnabled,
         startupDelayBlockDeletionInMs,
         blockIdManager);
 
-    // Compute the map capacity by allocating 2% of total memory
-    blocksMap = new BlocksMap(
-        LightWeightGSet.computeCapacity(2.0, "BlocksMap"));
+    // Compute the map capacity by allocating a percentage of total memory
+    blocksMap = new BlocksMap(LightWeightGSet.computeCapacity(conf.getDouble(
+        DFSConfigKeys.DFS_NAMENODE_BLOCKS_MAP_CAPACITY_PERCENT_KEY,
+        DFSConfigKeys.DFS_NAMENODE_BLOCKS_MAP_CAPACITY_PERCENT_DEFAULT),
+        "BlocksMap"));
     placementPolicies = new BlockPlacementPolicies(
       conf, datanodeManager.getFSClusterStats(),
       datanodeManager.getNetworkTopology(),
@@ -530,6 +554,26 @@ public BlockManager(final Namesystem namesystem, boolean haEnabled,
             DFSConfigKeys.DFS_NAMENODE_REPLICATION_STREAMS_HARD_LIMIT_DEFAULT);
     this.blocksInvalidateWorkPct = DFSUtil.getInvalidateWorkPctPerIteration(conf);
     this.blocksReplWorkMultiplier = DFSUtil.getReplWorkMultiplier(conf);
+    this.chooseTargetThreads = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_KEY,
+        DFSConfigKeys.DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_DEFAULT);
+    Preconditions.checkArgument(chooseTargetThreads > 0,
+        DFSConfigKeys.DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_KEY +
+        " must be positive");
+    this.chooseTargetExecutor = chooseTargetThreads == 1 ? null :
+        Executors.newFixedThreadPool(chooseTargetThreads,
+            new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("ReconstructionChooseTarget-%d").build());
+    this.blockReportLookupThreads = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_KEY,
+        DFSConfigKeys.DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_DEFAULT);
+    Preconditions.checkArgument(blockReportLookupThreads > 0,
+        DFSConfigKeys.DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_KEY +
+        " must be positive");
+    this.blockReportLookupExecutor = blockReportLookupThreads == 1 ? null :
+        Executors.newFixedThreadPool(blockReportLookupThreads,
+            new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("BlockReportLookup-%d").build());
 
     this.redundancyRecheckIntervalMs = conf.getTimeDuration(
         DFSConfigKeys.DFS_NAMENODE_REDUNDANCY_INTERVAL_SECONDS_KEY,
@@ -742,6 +786,12 @@ public void close() {
       blockReportThread.join(3000);
     } catch (InterruptedException ie) {
     }
+    if (chooseTargetExecutor != null) {
+      chooseTargetExecutor.shutdownNow();
+    }
+    if (blockReportLookupExecutor != null) {
+      blockReportLookupExecutor.shutdownNow();
+    }
     datanodeManager.close();
     pendingReconstruction.stop();
     blocksMap.close();
@@ -1984,16 +2034,8 @@ int computeReconstructionWorkForBlocks(
     }
 
     // Step 2: choose target nodes for each reconstruction task
-    for (BlockReconstructionWork rw : reconWork) {
-      // Exclude all of the containing nodes from being targets.
-      // This list includes decommissioning or corrupt nodes.
-      final Set<Node> excludedNodes = new HashSet<>(rw.getContainingNodes());
-
-      // choose replication targets: NOT HOLDING THE GLOBAL LOCK
-      final BlockPlacementPolicy placementPolicy =
-          placementPolicies.getPolicy(rw.getBlock().getBlockType());
-      rw.chooseTargets(placementPolicy, storagePolicySuite, excludedNodes);
-    }
+    final long chooseTargetsStart = Time.monotonicNow();
+    chooseTargets(reconWork);
 
     // Step 3: add tasks to the DN
     namesystem.writeLock();
@@ -2014,6 +2056,11 @@ int computeReconstructionWorkForBlocks(
     } finally {
       namesystem.writeUnlock();
     }
+    final NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+    if (metrics != null) {
+      metrics.addReconstructionScheduled(scheduledWork,
+          Time.monotonicNow() - chooseTargetsStart);
+    }
 
     if (blockLog.isDebugEnabled()) {
       // log which blocks have been scheduled for reconstruction
@@ -2037,6 +2084,66 @@ int computeReconstructionWorkForBlocks(
     return scheduledWork;
   }
 
+  /**
+   * Choose the targets of the given reconstruction work, without holding the
+   * namesystem lock. The choices are validated again under the lock by
+   * {@link #validateReconstructionWork}. With
+   * {@link DFSConfigKeys#DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_KEY}
+   * set, the work is split into one batch per thread.
+   */
+  private void chooseTargets(List<BlockReconstructionWork> reconWork) {
+    if (chooseTargetExecutor == null || reconWork.size() < 2) {
+      for (BlockReconstructionWork rw : reconWork) {
+        chooseTargets(rw);
+      }
+      return;
+    }
+    final int batchSize =
+        (reconWork.size() + chooseTargetThreads - 1) / chooseTargetThreads;
+    final List<Future<?>> futures = new ArrayList<>(chooseTargetThreads);
+    for (List<BlockReconstructionWork> batch :
+        Lists.partition(reconWork, batchSize)) {
+      futures.add(chooseTargetExecutor.submit(() -> {
+        for (BlockReconstructionWork rw : batch) {
+          chooseTargets(rw);
+        }
+      }));
+    }
+    // Wait for every batch, the targets are read once all are done.
+    waitForAll(futures);
+  }
+
+  /**
+   * Wait for all the given tasks, even if interrupted, as their results are
+   * read once they are done. Rethrows the failure of a task.
+   */
+  private static void waitForAll(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+  }
+
+  private void chooseTargets(BlockReconstructionWork rw) {
+    // Exclude all of the containing nodes from being targets.
+    // This list includes decommissioning or corrupt nodes.
+    final Set<Node> excludedNodes = new HashSet<>(rw.getContainingNodes());
+
+    // choose replication targets: NOT HOLDING THE GLOBAL LOCK
+    final BlockPlacementPolicy placementPolicy =
+        placementPolicies.getPolicy(rw.getBlock().getBlockType());
+    rw.chooseTargets(placementPolicy, storagePolicySuite, excludedNodes);
+  }
+
   // Check if the number of live + pending replicas satisfies
   // the expected redundancy.
   boolean hasEnoughEffectiveReplicas(BlockInfo block,
@@ -2970,7 +3077,10 @@ void processFirstBlockReport(
     assert (namesystem.hasWriteLock());
     assert (storageInfo.getBlockReportCount() == 0);
 
+    final BlockInfo[] storedBlocks = lookupStoredBlocks(report);
+    int index = 0;
     for (BlockReportReplica iblk : report) {
+      final int i = index++;
       ReplicaState reportedState = iblk.getState();
 
       if (LOG.isDebugEnabled()) {
@@ -2984,7 +3094,8 @@ void processFirstBlockReport(
         continue;
       }
 
-      BlockInfo storedBlock = getStoredBlock(iblk);
+      BlockInfo storedBlock =
+          storedBlocks != null ? storedBlocks[i] : getStoredBlock(iblk);
 
       // If block does not belong to any file, we check if it violates
       // an integrity assumption of Name node
@@ -3031,6 +3142,47 @@ void processFirstBlockReport(
     }
   }
 
+  /**
+   * Look up the stored blocks of a large first block report in parallel
+   * batches, with
+   * {@link DFSConfigKeys#DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_KEY} set.
+   * The batches only read the blocks map, which does not change while the
+   * caller holds the write lock. The updates are then applied by the caller.
+   *
+   * @return the stored block of each reported replica in report order, or
+   *         null if the report is small enough to be looked up serially
+   */
+  private BlockInfo[] lookupStoredBlocks(final BlockListAsLongs report) {
+    final int numBlocks = report.getNumberOfBlocks();
+    final int numBatches = Math.min(blockReportLookupThreads,
+        numBlocks / MIN_BLOCKS_PER_LOOKUP_BATCH);
+    if (blockReportLookupExecutor == null || numBatches < 2) {
+      return null;
+    }
+    // the report is decoded sequentially, the lookups are parallel
+    final long[] blockIds = new long[numBlocks];
+    int n = 0;
+    for (BlockReportReplica iblk : report) {
+      blockIds[n++] = iblk.getBlockId();
+    }
+    final BlockInfo[] storedBlocks = new BlockInfo[numBlocks];
+    final int batchSize = (numBlocks + numBatches - 1) / numBatches;
+    final List<Future<?>> futures = new ArrayList<>(numBatches);
+    for (int start = 0; start < numBlocks; start += batchSize) {
+      final int from = start;
+      final int to = Math.min(start + batchSize, numBlocks);
+      futures.add(blockReportLookupExecutor.submit(() -> {
+        final Block key = new Block();
+        for (int i = from; i < to; i++) {
+          key.setBlockId(blockIds[i]);
+          storedBlocks[i] = getStoredBlock(key);
+        }
+      }));
+    }
+    waitForAll(futures);
+    return storedBlocks;
+  }
+
   private void reportDiffSorted(DatanodeStorageInfo storageInfo,
       Iterable<BlockReportReplica> newReport,
       Collection<BlockInfoToAdd> toAdd,     // add to DatanodeDescriptor
@@ -230,7 +230,8 @@ public Type getType() {
    */
   private boolean disallowed = false;
 
-  // The number of replication work pending before targets are determined
+  // The number of replication work pending before targets are determined.
+  // Targets may be chosen by several threads, so updates are synchronized.
   private int pendingReplicationWithoutTargets = 0;
 
   // HB processing can use it to tell if it is the first HB since DN restarted
@@ -677,11 +678,11 @@ Iterator<BlockInfo> getBlockIterator(final int startBlock) {
   }
 
   @VisibleForTesting
-  public void incrementPendingReplicationWithoutTargets() {
+  public synchronized void incrementPendingReplicationWithoutTargets() {
     pendingReplicationWithoutTargets++;
   }
 
-  void decrementPendingReplicationWithoutTargets() {
+  synchronized void decrementPendingReplicationWithoutTargets() {
     pendingReplicationWithoutTargets--;
   }
 
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.datanode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
+import org.apache.hadoop.util.Timer;
+
+/**
+ * BlockReadTracker remembers the byte ranges of the recent reads of the most
+ * recently read blocks.
+ * <p>
+ * BlockSender uses it to tell a client which reads a block sequentially, in
+ * one request or in several requests which continue each other, from one
+ * which reads at random offsets. It also tells a block which is streamed
+ * once from a block which is read again while its data is likely to still be
+ * in the page cache.
+ */
+class BlockReadTracker {
+  /** Reads of a block further apart than this are not related. */
+  static final long EXPIRY_MS = 60 * 1000;
+
+  /** What the earlier reads of a block tell about a new read of it. */
+  static class ReadHistory {
+    static final ReadHistory NONE = new ReadHistory(0, false);
+
+    private final long sequentialBytes;
+    private final boolean reread;
+
+    ReadHistory(long sequentialBytes, boolean reread) {
+      this.sequentialBytes = sequentialBytes;
+      this.reread = reread;
+    }
+
+    /**
+     * @return the number of bytes read sequentially by the earlier reads
+     *         which the new read continues, 0 if it continues none
+     */
+    long getSequentialBytes() {
+      return sequentialBytes;
+    }
+
+    /**
+     * @return true if the earlier reads read data of the block again, or
+     *         read data which the new read reads again
+     */
+    boolean isReread() {
+      return reread;
+    }
+  }
+
+  /** The recent reads of a block. */
+  private static class Reads {
+    private long minStart;
+    private long maxEnd;
+    private long lastEnd;
+    private long sequentialBytes;
+    private boolean reread;
+    private long lastReadMs;
+  }
+
+  private final Timer timer;
+  private final Map<ExtendedBlock, Reads> blocks;
+
+  BlockReadTracker(final int maxBlocks, Timer timer) {
+    this.timer = timer;
+    this.blocks = new LinkedHashMap<ExtendedBlock, Reads>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          Map.Entry<ExtendedBlock, Reads> eldest) {
+        return size() > maxBlocks;
+      }
+    };
+  }
+
+  /**
+   * Get what the recent reads of a block tell about a new read of it.
+   *
+   * @param block the block
+   * @param start the offset of the first byte of the new read
+   * @param end the offset after the last byte of the new read
+   * @return the history of the block for the new read
+   */
+  synchronized ReadHistory getHistory(ExtendedBlock block, long start,
+      long end) {
+    Reads reads = getReads(block);
+    if (reads == null) {
+      return ReadHistory.NONE;
+    }
+    return new ReadHistory(start == reads.lastEnd ? reads.sequentialBytes : 0,
+        reads.reread || overlaps(reads, start, end));
+  }
+
+  /**
+   * Record a read of a block.
+   *
+   * @param block the block
+   * @param start the offset of the first byte read
+   * @param end the offset after the last byte read
+   */
+  synchronized void addRead(ExtendedBlock block, long start, long end) {
+    if (end <= start) {
+      return;
+    }
+    Reads reads = getReads(block);
+    if (reads == null) {
+      reads = new Reads();
+      reads.minStart = start;
+      reads.maxEnd = end;
+      blocks.put(new ExtendedBlock(block.getBlockPoolId(), block.getBlockId()),
+          reads);
+    } else {
+      if (start != reads.lastEnd) {
+        reads.sequentialBytes = 0;
+      }
+      reads.reread |= overlaps(reads, start, end);
+      reads.minStart = Math.min(reads.minStart, start);
+      reads.maxEnd = Math.max(reads.maxEnd, end);
+    }
+    reads.sequentialBytes += end - start;
+    reads.lastEnd = end;
+    reads.lastReadMs = timer.monotonicNow();
+  }
+
+  synchronized int size() {
+    return blocks.size();
+  }
+
+  private Reads getReads(ExtendedBlock block) {
+    ExtendedBlock key =
+        new ExtendedBlock(block.getBlockPoolId(), block.getBlockId());
+    Reads reads = blocks.get(key);
+    if (reads != null &&
+        timer.monotonicNow() - reads.lastReadMs > EXPIRY_MS) {
+      blocks.remove(key);
+      return null;
+    }
+    return reads;
+  }
+
+  private static boolean overlaps(Reads reads, long start, long end) {
+    return start < reads.maxEnd && end > reads.minStart;
+  }
+}
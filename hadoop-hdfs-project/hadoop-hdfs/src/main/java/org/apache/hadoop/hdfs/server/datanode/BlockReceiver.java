@@ -285,6 +285,7 @@ class BlockReceiver implements Closeable {
       }
       IOUtils.closeStream(this);
       cleanupBlock();
+      releaseWriter();
       
       // check if there is a disk error
       IOException cause = DatanodeUtil.getCauseIfDiskError(ioe);
@@ -307,6 +308,17 @@ Replica getReplica() {
     return replicaInfo;
   }
 
+  /**
+   * Stop being the writer of the replica once the xceiver is done with it.
+   * A pooled xceiver thread lives on and serves other requests, so a
+   * recovery of the replica must not wait for it or interrupt it.
+   */
+  void releaseWriter() {
+    if (replicaInfo != null) {
+      replicaInfo.attemptToSetWriter(Thread.currentThread(), null);
+    }
+  }
+
   /**
    * close files and release volume reference.
    */
@@ -39,6 +39,7 @@
 import org.apache.hadoop.hdfs.protocol.Block;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
 import org.apache.hadoop.hdfs.protocol.datatransfer.PacketHeader;
+import org.apache.hadoop.hdfs.protocol.datatransfer.PacketReceiver;
 import org.apache.hadoop.hdfs.server.common.HdfsServerConstants.ReplicaState;
 import org.apache.hadoop.hdfs.server.datanode.fsdataset.FsVolumeReference;
 import org.apache.hadoop.hdfs.server.datanode.fsdataset.LengthInputStream;
@@ -104,19 +105,11 @@ class BlockSender implements java.io.Closeable {
   static final Log ClientTraceLog = DataNode.ClientTraceLog;
   private static final boolean is32Bit = 
       System.getProperty("sun.arch.data.model").equals("32");
-  /**
-   * Minimum buffer used while sending data to clients. Used only if
-   * transferTo() is enabled. 64KB is not that large. It could be larger, but
-   * not sure if there will be much more improvement.
-   */
-  private static final int MIN_BUFFER_WITH_TRANSFERTO = 64*1024;
   private static final int IO_FILE_BUFFER_SIZE;
   static {
     HdfsConfiguration conf = new HdfsConfiguration();
     IO_FILE_BUFFER_SIZE = DFSUtilClient.getIoFileBufferSize(conf);
   }
-  private static final int TRANSFERTO_BUFFER_SIZE = Math.max(
-      IO_FILE_BUFFER_SIZE, MIN_BUFFER_WITH_TRANSFERTO);
   
   /** the block to read from */
   private final ExtendedBlock block;
@@ -143,6 +136,12 @@ class BlockSender implements java.io.Closeable {
   private long seqno;
   /** Set to true if transferTo is allowed for sending data to the client */
   private final boolean transferToAllowed;
+  /**
+   * Data bytes per packet when transferTo() is used. Every packet costs a
+   * write of its header and checksums and a transferTo() of its data, so
+   * larger packets need fewer system calls per byte sent.
+   */
+  private final int transferToPacketSize;
   /** Set to true once entire requested byte range has been sent to the client */
   private boolean sentEntireByteRange;
   /** When true, verify checksum while reading from checksum file */
@@ -168,6 +167,15 @@ class BlockSender implements java.io.Closeable {
   
   private long lastCacheDropOffset;
   private final FileIoProvider fileIoProvider;
+
+  /** The requested byte range, before it is aligned to whole chunks. */
+  private long requestedOffset;
+  private long requestedEndOffset;
+  /**
+   * What the recent reads of the block tell about this read, null unless
+   * adaptive readahead is enabled.
+   */
+  private BlockReadTracker.ReadHistory readHistory;
   
   @VisibleForTesting
   static long CACHE_DROP_INTERVAL_BYTES = 1024 * 1024; // 1MB
@@ -255,7 +263,7 @@ class BlockSender implements java.io.Closeable {
       // the append write.
       ChunkChecksum chunkChecksum = null;
       final long replicaVisibleLength;
-      try(AutoCloseableLock lock = datanode.data.acquireDatasetLock()) {
+      try(AutoCloseableLock lock = datanode.data.acquireDatasetReadLock()) {
         replica = getReplica(block, datanode);
         replicaVisibleLength = replica.getVisibleLength();
       }
@@ -292,6 +300,8 @@ class BlockSender implements java.io.Closeable {
       // use normal transfer in those cases
       this.transferToAllowed = datanode.getDnConf().transferToAllowed &&
         (!is32Bit || length <= Integer.MAX_VALUE);
+      this.transferToPacketSize = Math.max(IO_FILE_BUFFER_SIZE,
+          datanode.getDnConf().getTransferToPacketSize());
 
       // Obtain a reference before reading data
       volumeRef = datanode.data.getVolume(block).obtainReference();
@@ -412,6 +422,12 @@ class BlockSender implements java.io.Closeable {
         }
       }
       endOffset = end;
+      requestedOffset = startOffset;
+      requestedEndOffset = length >= 0 ? startOffset + length : end;
+      if (datanode.blockReadTracker != null) {
+        readHistory = datanode.blockReadTracker.getHistory(block,
+            requestedOffset, requestedEndOffset);
+      }
 
       // seek to the right offsets
       if (offset > 0 && checksumIn != null) {
@@ -474,9 +490,11 @@ private ChunkChecksum getPartialChunkChecksumForFinalized(
    */
   @Override
   public void close() throws IOException {
-    if (ris.getDataInFd() != null &&
-        ((dropCacheBehindAllReads) ||
-         (dropCacheBehindLargeReads && isLongRead()))) {
+    if (readHistory != null) {
+      datanode.blockReadTracker.addRead(block, requestedOffset,
+          Math.min(offset, requestedEndOffset));
+    }
+    if (ris.getDataInFd() != null && isDropCacheBehindRead()) {
       try {
         ris.dropCacheBehindReads(block.getBlockName(), lastCacheDropOffset,
             offset - lastCacheDropOffset, POSIX_FADV_DONTNEED);
@@ -767,7 +785,18 @@ private long doSendBlock(DataOutputStream out, OutputStream baseStream,
     
     lastCacheDropOffset = initialOffset;
 
-    if (isLongRead() && ris.getDataInFd() != null) {
+    if (readHistory != null) {
+      if (isSequentialRead()) {
+        datanode.metrics.incrSequentialBlockReads();
+      } else {
+        datanode.metrics.incrRandomBlockReads();
+      }
+      if (readHistory.isReread()) {
+        datanode.metrics.incrBlockRereads();
+      }
+    }
+
+    if (isSequentialRead() && ris.getDataInFd() != null) {
       // Advise that this file descriptor will be accessed sequentially.
       ris.dropCacheBehindReads(block.getBlockName(), 0, 0,
           POSIX_FADV_SEQUENTIAL);
@@ -788,7 +817,11 @@ private long doSendBlock(DataOutputStream out, OutputStream baseStream,
             ((FileInputStream)ris.getDataIn()).getChannel();
         blockInPosition = fileChannel.position();
         streamForSendChunks = baseStream;
-        maxChunksPerPacket = numberOfChunks(TRANSFERTO_BUFFER_SIZE);
+        // the receiver rejects packets larger than MAX_PACKET_SIZE
+        maxChunksPerPacket = Math.max(1, Math.min(
+            numberOfChunks(transferToPacketSize),
+            (PacketReceiver.MAX_PACKET_SIZE - PacketHeader.PKT_MAX_HEADER_LEN)
+                / (chunkSize + checksumSize)));
         
         // Smaller packet size to only hold checksum when doing transferTo
         pktBufSize += checksumSize * maxChunksPerPacket;
@@ -846,16 +879,15 @@ private void manageOsCache() throws IOException {
 
     // Perform readahead if necessary
     if ((readaheadLength > 0) && (datanode.readaheadPool != null) &&
-          (alwaysReadahead || isLongRead())) {
+          (alwaysReadahead || isSequentialRead())) {
       curReadahead = datanode.readaheadPool.readaheadStream(
-          clientTraceFmt, ris.getDataInFd(), offset, readaheadLength,
+          clientTraceFmt, ris.getDataInFd(), offset, getReadaheadLength(),
           Long.MAX_VALUE, curReadahead);
     }
 
     // Drop what we've just read from cache, since we aren't
     // likely to need it again
-    if (dropCacheBehindAllReads ||
-        (dropCacheBehindLargeReads && isLongRead())) {
+    if (isDropCacheBehindRead()) {
       long nextCacheDropOffset = lastCacheDropOffset + CACHE_DROP_INTERVAL_BYTES;
       if (offset >= nextCacheDropOffset) {
         long dropLength = offset - lastCacheDropOffset;
@@ -882,6 +914,51 @@ private boolean isLongRead() {
     return (endOffset - initialOffset) > LONG_READ_THRESHOLD_BYTES;
   }
 
+  /**
+   * Returns true if this read is a long read, or, with adaptive readahead,
+   * continues where an earlier read of the block ended. A client which
+   * streams a block in several short requests is thus treated like one
+   * which reads it in a single request.
+   */
+  private boolean isSequentialRead() {
+    return isLongRead() ||
+        (readHistory != null && readHistory.getSequentialBytes() > 0);
+  }
+
+  /**
+   * Returns the number of bytes to read ahead of the current offset. With
+   * adaptive readahead the window starts small and grows with the number of
+   * bytes the stream has read sequentially, up to the configured length,
+   * unless the client asked for a readahead length itself.
+   */
+  private long getReadaheadLength() {
+    if (readHistory == null || alwaysReadahead) {
+      return readaheadLength;
+    }
+    long streamed = readHistory.getSequentialBytes() + offset - initialOffset;
+    return Math.min(readaheadLength,
+        Math.max(LONG_READ_THRESHOLD_BYTES, streamed));
+  }
+
+  /**
+   * Returns true if the data of this read should be dropped from the cache
+   * once it is sent. With adaptive readahead the DataNode default only
+   * drops the cache behind sequential reads of blocks which are streamed
+   * once, and keeps the blocks which are read again.
+   */
+  private boolean isDropCacheBehindRead() {
+    if (dropCacheBehindAllReads) {
+      return true;
+    }
+    if (!dropCacheBehindLargeReads) {
+      return false;
+    }
+    if (readHistory == null) {
+      return isLongRead();
+    }
+    return isSequentialRead() && !readHistory.isReread();
+  }
+
   /**
    * Write packet header into {@code pkt},
    * return the length of the header written.
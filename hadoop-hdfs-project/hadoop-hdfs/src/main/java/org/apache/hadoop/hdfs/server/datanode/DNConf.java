@@ -85,6 +85,7 @@ public class DNConf {
   private final boolean tcpNoDelay;
 
   final boolean transferToAllowed;
+  private final int transferToPacketSize;
   final boolean dropCacheBehindWrites;
   final boolean syncBehindWrites;
   final boolean syncBehindWritesInBackground;
@@ -153,6 +154,9 @@ public DNConf(final Configurable dn) {
     transferToAllowed = getConf().getBoolean(
         DFS_DATANODE_TRANSFERTO_ALLOWED_KEY,
         DFS_DATANODE_TRANSFERTO_ALLOWED_DEFAULT);
+    transferToPacketSize = getConf().getInt(
+        DFSConfigKeys.DFS_DATANODE_TRANSFERTO_PACKET_SIZE_KEY,
+        DFSConfigKeys.DFS_DATANODE_TRANSFERTO_PACKET_SIZE_DEFAULT);
 
     readaheadLength = getConf().getLong(
         HdfsClientConfigKeys.DFS_DATANODE_READAHEAD_BYTES_KEY,
@@ -402,6 +406,16 @@ public boolean getDataTransferServerTcpNoDelay() {
     return tcpNoDelay;
   }
 
+  /**
+   * Returns the number of data bytes which BlockSender sends per packet when
+   * it uses transferTo.
+   *
+   * @return the transferTo packet size in bytes
+   */
+  public int getTransferToPacketSize() {
+    return transferToPacketSize;
+  }
+
   public long getBpReadyTimeout() {
     return bpReadyTimeout;
   }
@@ -384,6 +384,7 @@ public static InetSocketAddress createSocketAddr(String target) {
   private final List<String> usersWithLocalPathAccess;
   private final boolean connectToDnViaHostname;
   ReadaheadPool readaheadPool;
+  BlockReadTracker blockReadTracker;
   SaslDataTransferClient saslClient;
   SaslDataTransferServer saslServer;
   private ObjectName dataNodeInfoBeanName;
@@ -1467,6 +1468,14 @@ void startDataNode(List<StorageLocation> dataDirectories,
     // Create the ReadaheadPool from the DataNode context so we can
     // exit without having to explicitly shutdown its thread pool.
     readaheadPool = ReadaheadPool.getInstance();
+    if (getConf().getBoolean(
+        DFSConfigKeys.DFS_DATANODE_ADAPTIVE_READAHEAD_ENABLED_KEY,
+        DFSConfigKeys.DFS_DATANODE_ADAPTIVE_READAHEAD_ENABLED_DEFAULT)) {
+      blockReadTracker = new BlockReadTracker(getConf().getInt(
+          DFSConfigKeys.DFS_DATANODE_ADAPTIVE_READAHEAD_TRACKED_BLOCKS_KEY,
+          DFSConfigKeys.DFS_DATANODE_ADAPTIVE_READAHEAD_TRACKED_BLOCKS_DEFAULT),
+          new Timer());
+    }
     saslClient = new SaslDataTransferClient(dnConf.getConf(),
         dnConf.saslPropsResolver, dnConf.trustedChannelResolver);
     saslServer = new SaslDataTransferServer(dnConf, blockPoolTokenSecretManager);
@@ -2255,7 +2264,16 @@ private void handleDiskError(String failedVolumes) {
   /** Number of concurrent xceivers per node. */
   @Override // DataNodeMXBean
   public int getXceiverCount() {
-    return threadGroup == null ? 0 : threadGroup.activeCount();
+    if (threadGroup == null) {
+      return 0;
+    }
+    // the idle threads of the xceiver pools are not xceivers
+    int idle = xserver == null ? 0 : xserver.getNumIdleXceiverThreads();
+    if (localDataXceiverServer != null) {
+      idle += ((DataXceiverServer) localDataXceiverServer.getRunnable())
+          .getNumIdleXceiverThreads();
+    }
+    return Math.max(0, threadGroup.activeCount() - idle);
   }
 
   @Override // DataNodeMXBean
@@ -3054,7 +3072,7 @@ void transferReplicaForPipelineRecovery(final ExtendedBlock b,
     final BlockConstructionStage stage;
 
     //get replica information
-    try(AutoCloseableLock lock = data.acquireDatasetLock()) {
+    try(AutoCloseableLock lock = data.acquireDatasetReadLock()) {
       Block storedBlock = data.getStoredBlock(b.getBlockPoolId(),
           b.getBlockId());
       if (null == storedBlock) {
@@ -947,6 +947,9 @@ public void writeBlock(final ExtendedBlock block,
       IOUtils.closeStream(replyOut);
       IOUtils.closeSocket(mirrorSock);
       IOUtils.closeStream(blockReceiver);
+      if (blockReceiver != null) {
+        blockReceiver.releaseWriter();
+      }
       setCurrentBlockReceiver(null);
     }
 
@@ -1284,6 +1287,9 @@ public void replaceBlock(final ExtendedBlock block,
       }
       IOUtils.closeStream(proxyOut);
       IOUtils.closeStream(blockReceiver);
+      if (blockReceiver != null) {
+        blockReceiver.releaseWriter();
+      }
       IOUtils.closeStream(proxyReply);
       IOUtils.closeStream(replyOut);
     }
@@ -21,7 +21,10 @@
 import java.net.SocketTimeoutException;
 import java.nio.channels.AsynchronousCloseException;
 import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -37,6 +40,7 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.slf4j.Logger;
 
@@ -180,6 +184,12 @@ void release() {
    */
   final long estimateBlockSize;
 
+  /**
+   * The threads which run the DataXceivers, or null if every DataXceiver
+   * runs on a thread of its own.
+   */
+  private final ThreadPoolExecutor xceiverPool;
+
   DataXceiverServer(PeerServer peerServer, Configuration conf,
       DataNode datanode) {
     this.peerServer = peerServer;
@@ -216,6 +226,25 @@ void release() {
     } else {
       this.writeThrottler = null;
     }
+
+    if (conf.getBoolean(DFSConfigKeys.DFS_DATANODE_XCEIVER_POOL_ENABLED_KEY,
+        DFSConfigKeys.DFS_DATANODE_XCEIVER_POOL_ENABLED_DEFAULT)) {
+      long keepAlive = conf.getTimeDuration(
+          DFSConfigKeys.DFS_DATANODE_XCEIVER_POOL_KEEPALIVE_KEY,
+          DFSConfigKeys.DFS_DATANODE_XCEIVER_POOL_KEEPALIVE_DEFAULT,
+          TimeUnit.MILLISECONDS);
+      // The connections are handed over to an idle thread or a new one, they
+      // are never queued: a write pipeline whose downstream connection waits
+      // behind busy xceivers could wait forever.
+      this.xceiverPool = new ThreadPoolExecutor(0, maxXceiverCount,
+          keepAlive, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+          new ThreadFactoryBuilder()
+              .setThreadFactory(r -> new Daemon(datanode.threadGroup, r))
+              .setNameFormat("DataXceiver-%d")
+              .build());
+    } else {
+      this.xceiverPool = null;
+    }
   }
 
   @Override
@@ -228,14 +257,18 @@ public void run() {
         // Make sure the xceiver count is not exceeded
         int curXceiverCount = datanode.getXceiverCount();
         if (curXceiverCount > maxXceiverCount) {
+          datanode.metrics.incrDataNodeRejectedXceivers();
           throw new IOException("Xceiver count " + curXceiverCount
               + " exceeds the limit of concurrent xcievers: "
               + maxXceiverCount);
         }
 
-        new Daemon(datanode.threadGroup,
-            DataXceiver.create(peer, datanode, this))
-            .start();
+        DataXceiver xceiver = DataXceiver.create(peer, datanode, this);
+        if (xceiverPool != null) {
+          runOnPool(xceiver);
+        } else {
+          new Daemon(datanode.threadGroup, xceiver).start();
+        }
       } catch (SocketTimeoutException ignored) {
         // wake up to see if should continue to run
       } catch (AsynchronousCloseException ace) {
@@ -291,6 +324,40 @@ public void run() {
     }
 
     closeAllPeers();
+    if (xceiverPool != null) {
+      xceiverPool.shutdownNow();
+    }
+  }
+
+  private void runOnPool(DataXceiver xceiver) throws IOException {
+    try {
+      xceiverPool.execute(() -> {
+        // DataXceiver names the thread after the op it runs
+        String name = Thread.currentThread().getName();
+        try {
+          xceiver.run();
+        } finally {
+          Thread.currentThread().setName(name);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      datanode.metrics.incrDataNodeRejectedXceivers();
+      throw new IOException("All " + maxXceiverCount
+          + " xceiver threads are busy", e);
+    }
+  }
+
+  /**
+   * Return the number of idle threads kept by the xceiver pool.
+   *
+   * @return the number of idle xceiver threads
+   */
+  int getNumIdleXceiverThreads() {
+    if (xceiverPool == null) {
+      return 0;
+    }
+    return Math.max(0,
+        xceiverPool.getPoolSize() - xceiverPool.getActiveCount());
   }
 
   void kill() {
@@ -455,8 +455,8 @@ private void scan() {
     // Pre-sort the reports outside of the lock
     blockPoolReport.sortBlocks();
 
-    // Hold FSDataset lock to prevent further changes to the block map
-    try (AutoCloseableLock lock = dataset.acquireDatasetLock()) {
+    // Hold FSDataset read lock to prevent further changes to the block map
+    try (AutoCloseableLock lock = dataset.acquireDatasetReadLock()) {
       for (final String bpid : blockPoolReport.getBlockPoolIds()) {
         List<ScanInfo> blockpoolReport = blockPoolReport.getScanInfo(bpid);
 
@@ -36,6 +36,7 @@
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.util.DataChecksum;
 import org.apache.hadoop.util.StringUtils;
+import org.apache.hadoop.util.Time;
 
 /**
  * This class defines a replica in a pipeline, which
@@ -55,6 +56,8 @@ public class LocalReplicaInPipeline extends LocalReplica
   private long bytesOnDisk;
   private byte[] lastChecksum;
   private AtomicReference<Thread> writer = new AtomicReference<Thread>();
+  /** How often stopWriter checks whether the writer released the replica. */
+  private static final long WRITER_RELEASE_CHECK_MS = 100;
 
   /**
    * Bytes reserved for this replica on the containing volume.
@@ -220,7 +223,9 @@ public void waitForMinLength(long minLength, long time, TimeUnit unit)
 
   @Override // ReplicaInPipeline
   public void setWriter(Thread writer) {
-    this.writer.set(writer);
+    synchronized (this.writer) {
+      this.writer.set(writer);
+    }
   }
 
   @Override
@@ -228,7 +233,23 @@ public void interruptThread() {
     Thread thread = writer.get();
     if (thread != null && thread != Thread.currentThread()
         && thread.isAlive()) {
+      interruptWriter(thread);
+    }
+  }
+
+  /**
+   * Interrupt the given thread if it is still the writer. A pooled xceiver
+   * thread goes on to serve other requests once it is no longer the writer,
+   * so it must not be interrupted afterwards.
+   * @return whether the thread was interrupted
+   */
+  private boolean interruptWriter(Thread thread) {
+    synchronized (writer) {
+      if (writer.get() != thread) {
+        return false;
+      }
       thread.interrupt();
+      return true;
     }
   }
 
@@ -242,7 +263,9 @@ public boolean equals(Object o) {
    */
   @Override // ReplicaInPipeline
   public boolean attemptToSetWriter(Thread prevWriter, Thread newWriter) {
-    return writer.compareAndSet(prevWriter, newWriter);
+    synchronized (writer) {
+      return writer.compareAndSet(prevWriter, newWriter);
+    }
   }
 
   /**
@@ -262,10 +285,25 @@ public void stopWriter(long xceiverStopTimeout) throws IOException {
         // stop the new writer.
         continue;
       }
-      thread.interrupt();
+      if (!interruptWriter(thread)) {
+        // The writer changed.
+        continue;
+      }
       try {
-        thread.join(xceiverStopTimeout);
-        if (thread.isAlive()) {
+        // A pooled xceiver thread does not exit after the write, it stops
+        // being the writer instead.
+        final long deadline = Time.monotonicNow() + xceiverStopTimeout;
+        long remaining = xceiverStopTimeout;
+        while (thread.isAlive() && writer.get() == thread) {
+          if (xceiverStopTimeout > 0 && remaining <= 0) {
+            break;
+          }
+          thread.join(xceiverStopTimeout > 0 ?
+              Math.min(remaining, WRITER_RELEASE_CHECK_MS) :
+              WRITER_RELEASE_CHECK_MS);
+          remaining = deadline - Time.monotonicNow();
+        }
+        if (thread.isAlive() && writer.get() == thread) {
           // Our thread join timed out.
           final String msg = "Join on writer thread " + thread + " timed out";
           DataNode.LOG.warn(msg + "\n" + StringUtils.getStackTrace(thread));
@@ -16,33 +16,65 @@
  */
 package org.apache.hadoop.hdfs.server.datanode;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.server.datanode.fsdataset.FsDatasetSpi;
+import org.apache.hadoop.hdfs.server.datanode.metrics.DataNodeMetrics;
 import org.apache.hadoop.hdfs.server.datanode.syncservice.SyncTaskExecutionFeedbackCollector;
 import org.apache.hadoop.hdfs.server.datanode.syncservice.executor.BlockSyncOperationExecutor;
 import org.apache.hadoop.hdfs.server.datanode.syncservice.executor.BlockSyncReaderFactory;
 import org.apache.hadoop.hdfs.server.datanode.syncservice.executor.BlockSyncTaskRunner;
 import org.apache.hadoop.hdfs.server.protocol.BlockSyncTask;
+import org.apache.hadoop.hdfs.server.protocol.BlockSyncTaskExecutionFeedback;
+import org.apache.hadoop.hdfs.server.protocol.SyncTaskExecutionOutcome;
 import org.apache.hadoop.util.concurrent.HadoopExecutors;
+import org.apache.hadoop.util.concurrent.HadoopThreadPoolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Runs the block sync tasks sent by the NameNode, which upload the parts of
+ * the files of a sync mount to its remote endpoint.
+ * <p>
+ * The tasks run on a pool of
+ * {@link DFSConfigKeys#DFS_PROVIDED_SYNC_THREADS_PER_VOLUME_KEY} threads per
+ * data volume, resized as volumes are added or removed. Each task reads its
+ * blocks on a separate read ahead thread while uploading them.
+ */
 public class SyncServiceSatisfierDatanodeWorker {
   private static final Logger LOG = LoggerFactory
       .getLogger(SyncServiceSatisfierDatanodeWorker.class);
 
-  private ExecutorService executorService;
+  private final DataNode dataNode;
+  private final int threadsPerVolume;
+  private ThreadPoolExecutor executorService;
+  private ExecutorService readAheadExecutor;
   private BlockSyncOperationExecutor syncOperationExecutor;
   private SyncTaskExecutionFeedbackCollector syncTaskExecutionFeedbackCollector;
 
   public SyncServiceSatisfierDatanodeWorker(Configuration conf, DataNode dataNode) throws IOException {
-    // TODO: start executor service in #start method
-    this.executorService = HadoopExecutors.newFixedThreadPool(4);
+    this.dataNode = dataNode;
+    this.threadsPerVolume = conf.getInt(
+        DFSConfigKeys.DFS_PROVIDED_SYNC_THREADS_PER_VOLUME_KEY,
+        DFSConfigKeys.DFS_PROVIDED_SYNC_THREADS_PER_VOLUME_DEFAULT);
+    if (threadsPerVolume <= 0) {
+      throw new IllegalArgumentException(
+          DFSConfigKeys.DFS_PROVIDED_SYNC_THREADS_PER_VOLUME_KEY
+              + " must be positive: " + threadsPerVolume);
+    }
+    this.readAheadExecutor = HadoopExecutors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("BlockSyncReadAhead-%d").build());
     this.syncOperationExecutor =
         BlockSyncOperationExecutor.createOnDataNode(conf,
           (locatedBlock, config) -> {
@@ -51,18 +83,24 @@ public SyncServiceSatisfierDatanodeWorker(Configuration conf, DataNode dataNode)
               } catch (IOException e) {
                 throw new RuntimeException(e);
               }
-            }
+            },
+          readAheadExecutor
           );
     this.syncTaskExecutionFeedbackCollector = new SyncTaskExecutionFeedbackCollector();
   }
 
 
   public void start() {
-    this.executorService = HadoopExecutors.newFixedThreadPool(4);
+    this.executorService = new HadoopThreadPoolExecutor(threadsPerVolume,
+        threadsPerVolume, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("BlockSyncUpload-%d").build());
+    this.executorService.allowCoreThreadTimeOut(true);
   }
 
   public void stop() {
     this.executorService.shutdown();
+    this.readAheadExecutor.shutdown();
   }
 
   public void waitToFinishWorkerThread() {
@@ -77,13 +115,25 @@ public void waitToFinishWorkerThread() {
   public void processSyncTasks(Collection<BlockSyncTask> blockSyncTasks) {
 
     LOG.debug("Received SyncTasks: {}", blockSyncTasks);
+    resizeExecutor();
+    final DataNodeMetrics metrics = dataNode.getMetrics();
     for (BlockSyncTask blockSyncTask : blockSyncTasks) {
+      // count the task before a fast runner can finish it
+      if (metrics != null) {
+        metrics.incrBlockSyncPendingTasks();
+      }
       try {
         executorService.submit(new BlockSyncTaskRunner(blockSyncTask,
             syncOperationExecutor,
-            syncTaskExecutionFeedback -> syncTaskExecutionFeedbackCollector
-                .addFeedback(syncTaskExecutionFeedback)));
+            syncTaskExecutionFeedback -> {
+              updateMetrics(metrics, syncTaskExecutionFeedback);
+              syncTaskExecutionFeedbackCollector
+                  .addFeedback(syncTaskExecutionFeedback);
+            }));
       } catch (RejectedExecutionException e) {
+        if (metrics != null) {
+          metrics.decrBlockSyncPendingTasks();
+        }
         LOG.warn("BlockSyncTask {} for {} was rejected: {}",
             blockSyncTask.getSyncTaskId(), blockSyncTask.getRemoteURI(),
             e.getCause());
@@ -91,6 +141,54 @@ public void processSyncTasks(Collection<BlockSyncTask> blockSyncTasks) {
     }
   }
 
+  private static void updateMetrics(DataNodeMetrics metrics,
+      BlockSyncTaskExecutionFeedback feedback) {
+    if (metrics == null) {
+      return;
+    }
+    metrics.decrBlockSyncPendingTasks();
+    if (feedback.getOutcome() == SyncTaskExecutionOutcome.FINISHED_SUCCESSFULLY) {
+      metrics.incrBlockSyncTasks();
+      metrics.incrBlockSyncBytes(feedback.getResult().getNumberOfBytes());
+    } else {
+      metrics.incrBlockSyncFailedTasks();
+    }
+  }
+
+  /**
+   * Size the upload pool to the number of volumes of the DataNode, which are
+   * only known once it has registered with the NameNode.
+   */
+  private void resizeExecutor() {
+    int poolSize = threadsPerVolume * Math.max(1, getNumVolumes());
+    if (poolSize > executorService.getMaximumPoolSize()) {
+      executorService.setMaximumPoolSize(poolSize);
+      executorService.setCorePoolSize(poolSize);
+    } else if (poolSize < executorService.getMaximumPoolSize()) {
+      executorService.setCorePoolSize(poolSize);
+      executorService.setMaximumPoolSize(poolSize);
+    }
+  }
+
+  private int getNumVolumes() {
+    FsDatasetSpi<?> dataset = dataNode.getFSDataset();
+    if (dataset == null) {
+      return 0;
+    }
+    try (FsDatasetSpi.FsVolumeReferences volumes =
+             dataset.getFsVolumeReferences()) {
+      return volumes.size();
+    } catch (IOException e) {
+      LOG.warn("Failed to count the volumes of the DataNode", e);
+      return 0;
+    }
+  }
+
+  @VisibleForTesting
+  int getPoolSize() {
+    return executorService.getMaximumPoolSize();
+  }
+
   public SyncTaskExecutionFeedbackCollector getSyncTaskExecutionFeedbackCollector() {
     return syncTaskExecutionFeedbackCollector;
   }
@@ -240,7 +240,7 @@ StorageReport[] getStorageReports(String bpid)
    * Gets a list of references to the finalized blocks for the given block pool.
    * <p>
    * Callers of this function should call
-   * {@link FsDatasetSpi#acquireDatasetLock} to avoid blocks' status being
+   * {@link FsDatasetSpi#acquireDatasetReadLock} to avoid blocks' status being
    * changed during list iteration.
    * </p>
    * @return a list of references to the finalized blocks for the given block
@@ -661,6 +661,14 @@ ReplicaInfo moveBlockAcrossVolumes(final ExtendedBlock block,
    */
   AutoCloseableLock acquireDatasetLock();
 
+  /**
+   * Acquire the read lock of the data set. It is shared by the operations
+   * which only look up replicas, and excludes the holders of
+   * {@link #acquireDatasetLock()}. A holder of the read lock must not call
+   * an operation which changes the data set.
+   */
+  AutoCloseableLock acquireDatasetReadLock();
+
   /**
    * Deep copy the replica info belonging to given block pool.
    * @param bpid Specified block pool id.
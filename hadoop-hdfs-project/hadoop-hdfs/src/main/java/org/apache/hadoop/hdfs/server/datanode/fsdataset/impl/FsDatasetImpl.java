@@ -39,9 +39,13 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.TimeUnit;
 
 import javax.management.NotCompliantMBeanException;
@@ -76,6 +80,7 @@
 import org.apache.hadoop.hdfs.server.datanode.BlockMetadataHeader;
 import org.apache.hadoop.hdfs.server.datanode.DataNode;
 import org.apache.hadoop.hdfs.server.datanode.metrics.DataNodeMetricHelper;
+import org.apache.hadoop.hdfs.server.datanode.metrics.DataNodeMetrics;
 import org.apache.hadoop.hdfs.server.datanode.DataStorage;
 import org.apache.hadoop.hdfs.server.datanode.DatanodeUtil;
 import org.apache.hadoop.hdfs.server.datanode.Replica;
@@ -115,7 +120,8 @@
 import org.apache.hadoop.util.DataChecksum;
 import org.apache.hadoop.util.DiskChecker.DiskErrorException;
 import org.apache.hadoop.util.DiskChecker.DiskOutOfSpaceException;
-import org.apache.hadoop.util.InstrumentedLock;
+import org.apache.hadoop.util.InstrumentedReadLock;
+import org.apache.hadoop.util.InstrumentedWriteLock;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.Time;
 import org.apache.hadoop.util.Timer;
@@ -123,6 +129,7 @@
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -182,7 +189,7 @@ public StorageReport[] getStorageReports(String bpid)
 
   @Override
   public FsVolumeImpl getVolume(final ExtendedBlock b) {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       final ReplicaInfo r =
           volumeMap.get(b.getBlockPoolId(), b.getLocalBlock());
       return r != null ? (FsVolumeImpl) r.getVolume() : null;
@@ -192,7 +199,7 @@ public FsVolumeImpl getVolume(final ExtendedBlock b) {
   @Override // FsDatasetSpi
   public Block getStoredBlock(String bpid, long blkid)
       throws IOException {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       ReplicaInfo r = volumeMap.get(bpid, blkid);
       if (r == null) {
         return null;
@@ -205,7 +212,7 @@ public Block getStoredBlock(String bpid, long blkid)
   public Set<? extends Replica> deepCopyReplica(String bpid)
       throws IOException {
     Set<? extends Replica> replicas = null;
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       replicas = new HashSet<>(volumeMap.replicas(bpid) == null ? Collections.
           EMPTY_SET : volumeMap.replicas(bpid));
     }
@@ -248,6 +255,7 @@ public LengthInputStream getMetaDataInputStream(ExtendedBlock b)
   final Map<String, DatanodeStorage> storageMap;
   final FsDatasetAsyncDiskService asyncDiskService;
   final Daemon lazyWriter;
+  private final Daemon replicaMapDefragmenter;
   final FsDatasetCache cacheManager;
   private final Configuration conf;
   private final int volFailuresTolerated;
@@ -267,9 +275,14 @@ public LengthInputStream getMetaDataInputStream(ExtendedBlock b)
 
   private boolean blockPinningEnabled;
   private final int maxDataLength;
+  private final int blockReportThreads;
+  /** Builds the block reports of the volumes, if there is more than one. */
+  private final ThreadPoolExecutor blockReportExecutor;
 
   @VisibleForTesting
   final AutoCloseableLock datasetLock;
+  @VisibleForTesting
+  final AutoCloseableLock datasetReadLock;
   private final Condition datasetLockCondition;
   
   /**
@@ -282,14 +295,38 @@ public LengthInputStream getMetaDataInputStream(ExtendedBlock b)
     this.dataStorage = storage;
     this.conf = conf;
     this.smallBufferSize = DFSUtilClient.getSmallBufferSize(conf);
+    final ReentrantReadWriteLock datasetRWLock = new ReentrantReadWriteLock(
+        conf.getBoolean(DFSConfigKeys.DFS_DATANODE_LOCK_FAIR_KEY,
+            DFSConfigKeys.DFS_DATANODE_LOCK_FAIR_DEFAULT));
+    final long lockWarningInterval = conf.getTimeDuration(
+        DFSConfigKeys.DFS_LOCK_SUPPRESS_WARNING_INTERVAL_KEY,
+        DFSConfigKeys.DFS_LOCK_SUPPRESS_WARNING_INTERVAL_DEFAULT,
+        TimeUnit.MILLISECONDS);
     this.datasetLock = new AutoCloseableLock(
-        new InstrumentedLock(getClass().getName(), LOG,
-          new ReentrantLock(true),
-          conf.getTimeDuration(
-            DFSConfigKeys.DFS_LOCK_SUPPRESS_WARNING_INTERVAL_KEY,
-            DFSConfigKeys.DFS_LOCK_SUPPRESS_WARNING_INTERVAL_DEFAULT,
-            TimeUnit.MILLISECONDS),
-          300));
+        new InstrumentedWriteLock(getClass().getName(), LOG, datasetRWLock,
+            lockWarningInterval, 300) {
+          @Override
+          protected void check(long acquireTime, long releaseTime) {
+            super.check(acquireTime, releaseTime);
+            addLockHeldTime(true, releaseTime - acquireTime);
+          }
+        });
+    // With the read lock disabled, lookups take the write lock like updates.
+    if (conf.getBoolean(
+        DFSConfigKeys.DFS_DATANODE_LOCK_READ_WRITE_ENABLED_KEY,
+        DFSConfigKeys.DFS_DATANODE_LOCK_READ_WRITE_ENABLED_DEFAULT)) {
+      this.datasetReadLock = new AutoCloseableLock(
+          new InstrumentedReadLock(getClass().getName(), LOG, datasetRWLock,
+              lockWarningInterval, 300) {
+            @Override
+            protected void check(long acquireTime, long releaseTime) {
+              super.check(acquireTime, releaseTime);
+              addLockHeldTime(false, releaseTime - acquireTime);
+            }
+          });
+    } else {
+      this.datasetReadLock = datasetLock;
+    }
     this.datasetLockCondition = datasetLock.newCondition();
 
     // The number of volumes required for operation is the total number
@@ -329,7 +366,7 @@ public LengthInputStream getMetaDataInputStream(ExtendedBlock b)
     }
 
     storageMap = new ConcurrentHashMap<String, DatanodeStorage>();
-    volumeMap = new ReplicaMap(datasetLock);
+    volumeMap = new ReplicaMap(datasetReadLock, datasetLock);
     ramDiskReplicaTracker = RamDiskReplicaTracker.getInstance(conf, this);
 
     @SuppressWarnings("unchecked")
@@ -364,6 +401,17 @@ public LengthInputStream getMetaDataInputStream(ExtendedBlock b)
       lazyWriter = null;
     }
 
+    if (conf.getTimeDuration(
+        DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_INTERVAL_MS_KEY,
+        DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_INTERVAL_MS_DEFAULT,
+        TimeUnit.MILLISECONDS) > 0) {
+      replicaMapDefragmenter = new Daemon(new ReplicaMapDefragmenter(conf));
+      replicaMapDefragmenter.setName("ReplicaMapDefragmenter");
+      replicaMapDefragmenter.start();
+    } else {
+      replicaMapDefragmenter = null;
+    }
+
     registerMBean(datanode.getDatanodeUuid());
 
     // Add a Metrics2 Source Interface. This is same
@@ -379,6 +427,20 @@ public LengthInputStream getMetaDataInputStream(ExtendedBlock b)
     maxDataLength = conf.getInt(
         CommonConfigurationKeys.IPC_MAXIMUM_DATA_LENGTH,
         CommonConfigurationKeys.IPC_MAXIMUM_DATA_LENGTH_DEFAULT);
+    blockReportThreads = conf.getInt(
+        DFSConfigKeys.DFS_DATANODE_BLOCK_REPORT_THREADS_KEY,
+        DFSConfigKeys.DFS_DATANODE_BLOCK_REPORT_THREADS_DEFAULT);
+    if (blockReportThreads > 1) {
+      // the threads are only alive while the block reports are built
+      blockReportExecutor = new ThreadPoolExecutor(blockReportThreads,
+          blockReportThreads, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setDaemon(true)
+              .setNameFormat("BlockReportBuilder-%d").build());
+      blockReportExecutor.allowCoreThreadTimeOut(true);
+    } else {
+      blockReportExecutor = null;
+    }
   }
 
   @Override
@@ -386,6 +448,23 @@ public AutoCloseableLock acquireDatasetLock() {
     return datasetLock.acquire();
   }
 
+  @Override
+  public AutoCloseableLock acquireDatasetReadLock() {
+    return datasetReadLock.acquire();
+  }
+
+  private void addLockHeldTime(boolean write, long heldTime) {
+    DataNodeMetrics metrics = datanode.getMetrics();
+    if (metrics == null) {
+      return;
+    }
+    if (write) {
+      metrics.addDatasetWriteLockHeldTime(heldTime);
+    } else {
+      metrics.addDatasetReadLockHeldTime(heldTime);
+    }
+  }
+
   /**
    * Gets initial volume failure information for all volumes that failed
    * immediately at startup.  The method works by determining the set difference
@@ -457,7 +536,7 @@ private void addVolume(Storage.StorageDirectory sd) throws IOException {
                               .setConf(this.conf)
                               .build();
     FsVolumeReference ref = fsVolume.obtainReference();
-    ReplicaMap tempVolumeMap = new ReplicaMap(datasetLock);
+    ReplicaMap tempVolumeMap = new ReplicaMap(datasetReadLock, datasetLock);
     fsVolume.getVolumeMap(tempVolumeMap, ramDiskReplicaTracker);
 
     activateVolume(tempVolumeMap, sd, storageLocation.getStorageType(), ref);
@@ -792,7 +871,7 @@ public InputStream getBlockInputStream(ExtendedBlock b,
       long seekOffset) throws IOException {
 
     ReplicaInfo info;
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       info = volumeMap.get(b.getBlockPoolId(), b.getLocalBlock());
     }
 
@@ -880,7 +959,7 @@ ReplicaInfo getReplicaInfo(String bpid, long blkid)
   @Override // FsDatasetSpi
   public ReplicaInputStreams getTmpInputStreams(ExtendedBlock b,
       long blkOffset, long metaOffset) throws IOException {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       ReplicaInfo info = getReplicaInfo(b);
       FsVolumeReference ref = info.getVolume().obtainReference();
       try {
@@ -1873,42 +1952,18 @@ public Map<DatanodeStorage, BlockListAsLongs> getBlockReports(String bpid) {
         new HashMap<String, BlockListAsLongs.Builder>();
 
     List<FsVolumeImpl> curVolumes = null;
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       curVolumes = volumes.getVolumes();
       for (FsVolumeSpi v : curVolumes) {
         builders.put(v.getStorageID(), BlockListAsLongs.builder(maxDataLength));
       }
 
-      Set<String> missingVolumesReported = new HashSet<>();
-      for (ReplicaInfo b : volumeMap.replicas(bpid)) {
-        // skip PROVIDED replicas.
-        if (b.getVolume().getStorageType() == StorageType.PROVIDED) {
-          continue;
-        }
-        String volStorageID = b.getVolume().getStorageID();
-        if (!builders.containsKey(volStorageID)) {
-          if (!missingVolumesReported.contains(volStorageID)) {
-            LOG.warn("Storage volume: " + volStorageID + " missing for the"
-                + " replica block: " + b + ". Probably being removed!");
-            missingVolumesReported.add(volStorageID);
-          }
-          continue;
-        }
-        switch(b.getState()) {
-        case FINALIZED:
-        case RBW:
-        case RWR:
-          builders.get(volStorageID).add(b);
-          break;
-        case RUR:
-          ReplicaInfo orig = b.getOriginalReplica();
-          builders.get(volStorageID).add(orig);
-          break;
-        case TEMPORARY:
-          break;
-        default:
-          assert false : "Illegal ReplicaInfo state.";
-        }
+      Collection<ReplicaInfo> replicas = volumeMap.replicas(bpid);
+      int numThreads = Math.min(blockReportThreads, curVolumes.size());
+      if (numThreads > 1) {
+        addToBlockReportsInParallel(replicas, builders);
+      } else {
+        addToBlockReports(replicas, builders);
       }
     }
 
@@ -1920,11 +1975,117 @@ public Map<DatanodeStorage, BlockListAsLongs> getBlockReports(String bpid) {
     return blockReportsMap;
   }
 
+  /**
+   * Add replicas to the block report builders of their volumes.
+   *
+   * @param replicas the replicas of the block pool
+   * @param builders the builders by storage ID
+   */
+  private void addToBlockReports(Iterable<ReplicaInfo> replicas,
+      Map<String, BlockListAsLongs.Builder> builders) {
+    Set<String> missingVolumesReported = new HashSet<>();
+    for (ReplicaInfo b : replicas) {
+      ReplicaInfo reported = getReportedReplica(b, builders.keySet(),
+          missingVolumesReported);
+      if (reported != null) {
+        builders.get(b.getVolume().getStorageID()).add(reported);
+      }
+    }
+  }
+
+  /**
+   * Get the replica to report for a replica of the block pool.
+   *
+   * @return the replica, its original replica if it is under recovery, or
+   *         null if it is not reported
+   */
+  private static ReplicaInfo getReportedReplica(ReplicaInfo b,
+      Set<String> storageIDs, Set<String> missingVolumesReported) {
+    // skip PROVIDED replicas.
+    if (b.getVolume().getStorageType() == StorageType.PROVIDED) {
+      return null;
+    }
+    String volStorageID = b.getVolume().getStorageID();
+    if (!storageIDs.contains(volStorageID)) {
+      if (missingVolumesReported.add(volStorageID)) {
+        LOG.warn("Storage volume: " + volStorageID + " missing for the"
+            + " replica block: " + b + ". Probably being removed!");
+      }
+      return null;
+    }
+    switch(b.getState()) {
+    case FINALIZED:
+    case RBW:
+    case RWR:
+      return b;
+    case RUR:
+      return b.getOriginalReplica();
+    case TEMPORARY:
+      return null;
+    default:
+      assert false : "Illegal ReplicaInfo state.";
+      return null;
+    }
+  }
+
+  /**
+   * Build the block reports of the volumes on the block report threads. The
+   * replicas of the block pool are split by volume in one pass, keeping the
+   * sorted order of the replica map, and the threads encode the replicas of
+   * every volume into a builder no other thread touches. The caller holds the
+   * dataset read lock until all of them are built, which keeps the replicas
+   * from changing meanwhile.
+   */
+  private void addToBlockReportsInParallel(Iterable<ReplicaInfo> replicas,
+      final Map<String, BlockListAsLongs.Builder> builders) {
+    Map<String, List<ReplicaInfo>> replicasByVolume = new HashMap<>();
+    for (String storageID : builders.keySet()) {
+      replicasByVolume.put(storageID, new ArrayList<ReplicaInfo>());
+    }
+    Set<String> missingVolumesReported = new HashSet<>();
+    for (ReplicaInfo b : replicas) {
+      ReplicaInfo reported = getReportedReplica(b, builders.keySet(),
+          missingVolumesReported);
+      if (reported != null) {
+        replicasByVolume.get(b.getVolume().getStorageID()).add(reported);
+      }
+    }
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (final Map.Entry<String, List<ReplicaInfo>> e :
+        replicasByVolume.entrySet()) {
+      if (e.getValue().isEmpty()) {
+        continue;
+      }
+      final BlockListAsLongs.Builder builder = builders.get(e.getKey());
+      futures.add(blockReportExecutor.submit(() -> {
+        for (ReplicaInfo r : e.getValue()) {
+          builder.add(r);
+        }
+      }));
+    }
+    try {
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      for (Future<?> f : futures) {
+        f.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(
+          "Interrupted while building the block reports", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to build the block reports",
+          e.getCause());
+    }
+  }
+
   /**
    * Gets a list of references to the finalized blocks for the given block pool.
    * <p>
    * Callers of this function should call
-   * {@link FsDatasetSpi#acquireDatasetLock} to avoid blocks' status being
+   * {@link FsDatasetSpi#acquireDatasetReadLock} to avoid blocks' status being
    * changed during list iteration.
    * </p>
    * @return a list of references to the finalized blocks for the given block
@@ -1932,7 +2093,7 @@ public Map<DatanodeStorage, BlockListAsLongs> getBlockReports(String bpid) {
    */
   @Override
   public List<ReplicaInfo> getFinalizedBlocks(String bpid) {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       final List<ReplicaInfo> finalized = new ArrayList<ReplicaInfo>(
           volumeMap.size(bpid));
       for (ReplicaInfo b : volumeMap.replicas(bpid)) {
@@ -2025,7 +2186,7 @@ private boolean isValid(final ExtendedBlock b, final ReplicaState state) {
   ReplicaInfo validateBlockFile(String bpid, long blockId) {
     //Should we check for metadata file too?
     final ReplicaInfo r;
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       r = volumeMap.get(bpid, blockId);
     }
     if (r != null) {
@@ -2270,7 +2431,7 @@ public boolean isCached(String bpid, long blockId) {
 
   @Override // FsDatasetSpi
   public boolean contains(final ExtendedBlock block) {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       final long blockId = block.getLocalBlock().getBlockId();
       final String bpid = block.getBlockPoolId();
       final ReplicaInfo r = volumeMap.get(bpid, blockId);
@@ -2325,6 +2486,10 @@ public void shutdown() {
       lazyWriter.interrupt();
     }
 
+    if (replicaMapDefragmenter != null) {
+      replicaMapDefragmenter.interrupt();
+    }
+
     if (mbeanName != null) {
       MBeans.unregister(mbeanName);
     }
@@ -2350,6 +2515,19 @@ public void shutdown() {
       }
     }
 
+    if (replicaMapDefragmenter != null) {
+      try {
+        replicaMapDefragmenter.join();
+      } catch (InterruptedException ie) {
+        LOG.warn("FsDatasetImpl.shutdown ignoring InterruptedException " +
+                     "from ReplicaMapDefragmenter.join");
+      }
+    }
+
+    if (blockReportExecutor != null) {
+      blockReportExecutor.shutdownNow();
+    }
+
     cacheManager.shutdown();
   }
 
@@ -2591,7 +2769,7 @@ public ReplicaInfo getReplica(String bpid, long blockId) {
 
   @Override 
   public String getReplicaString(String bpid, long blockId) {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       final Replica r = volumeMap.get(bpid, blockId);
       return r == null ? "null" : r.toString();
     }
@@ -2811,7 +2989,7 @@ private ReplicaInfo updateReplicaUnderRecovery(
   @Override // FsDatasetSpi
   public long getReplicaVisibleLength(final ExtendedBlock block)
   throws IOException {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       final Replica replica = getReplicaInfo(block.getBlockPoolId(),
           block.getBlockId());
       if (replica.getGenerationStamp() < block.getGenerationStamp()) {
@@ -2951,7 +3129,7 @@ public void deleteBlockPool(String bpid, boolean force)
   @Override // FsDatasetSpi
   public BlockLocalPathInfo getBlockLocalPathInfo(ExtendedBlock block)
       throws IOException {
-    try (AutoCloseableLock lock = datasetLock.acquire()) {
+    try (AutoCloseableLock lock = datasetReadLock.acquire()) {
       final Replica replica = volumeMap.get(block.getBlockPoolId(),
           block.getBlockId());
       if (replica == null) {
@@ -3263,6 +3441,63 @@ public void stop() {
     }
   }
   
+  /**
+   * Compacts the replica sets of the block pools whose fill ratio falls under
+   * a threshold, the DataNode side of the NameNode's StorageInfoDefragmenter.
+   */
+  class ReplicaMapDefragmenter implements Runnable {
+    private final long interval;
+    private final long timeout;
+    private final double ratio;
+
+    ReplicaMapDefragmenter(Configuration conf) {
+      this.interval = conf.getTimeDuration(
+          DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_INTERVAL_MS_KEY,
+          DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_INTERVAL_MS_DEFAULT,
+          TimeUnit.MILLISECONDS);
+      this.timeout = conf.getTimeDuration(
+          DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_TIMEOUT_MS_KEY,
+          DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_TIMEOUT_MS_DEFAULT,
+          TimeUnit.MILLISECONDS);
+      this.ratio = conf.getDouble(
+          DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_RATIO_KEY,
+          DFSConfigKeys.DFS_DATANODE_REPLICAMAP_DEFRAGMENT_RATIO_DEFAULT);
+    }
+
+    @Override
+    public void run() {
+      while (fsRunning) {
+        try {
+          Thread.sleep(interval);
+          compactBlockPools();
+        } catch (InterruptedException e) {
+          LOG.info("ReplicaMapDefragmenter was interrupted, exiting");
+          break;
+        } catch (Exception e) {
+          LOG.warn("Ignoring exception in ReplicaMapDefragmenter:", e);
+        }
+      }
+    }
+
+    @VisibleForTesting
+    void compactBlockPools() throws InterruptedException {
+      for (String bpid : volumeMap.getBlockPoolList()) {
+        double fillRatio = volumeMap.fillRatio(bpid);
+        LOG.debug("ReplicaMap fill ratio {} : {}", bpid, fillRatio);
+        if (fillRatio >= ratio) {
+          continue;
+        }
+        // Compact in short rounds, so that the dataset lock is not held for
+        // long on a DataNode with millions of replicas.
+        while (fsRunning && !volumeMap.compact(bpid, timeout)) {
+          Thread.sleep(1000);
+        }
+        LOG.info("ReplicaMap defragmented {} : {} -> {}", bpid, fillRatio,
+            volumeMap.fillRatio(bpid));
+      }
+    }
+  }
+
   @Override
   public void setPinning(ExtendedBlock block) throws IOException {
     if (!blockPinningEnabled) {
@@ -28,6 +28,7 @@
 import java.nio.channels.ClosedChannelException;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -141,6 +142,15 @@ public class FsVolumeImpl implements FsVolumeSpi {
    */
   protected ThreadPoolExecutor cacheExecutor;
 
+  /**
+   * A directory is only listed again by the directory scanner if it was
+   * modified since the last scan, except on every
+   * directoryScanFullInterval-th scan of a block pool. 0 disables this.
+   */
+  private final int directoryScanFullInterval;
+  private final Map<String, ScannedDirs> scannedDirs =
+      new ConcurrentHashMap<>();
+
   FsVolumeImpl(FsDatasetImpl dataset, String storageID, StorageDirectory sd,
       FileIoProvider fileIoProvider, Configuration conf) throws IOException {
     // outside tests, usage created in ReservedSpaceCalculator.Builder
@@ -180,6 +190,9 @@ public class FsVolumeImpl implements FsVolumeSpi {
     }
     this.conf = conf;
     this.fileIoProvider = fileIoProvider;
+    this.directoryScanFullInterval = conf == null ? 0 : conf.getInt(
+        DFSConfigKeys.DFS_DATANODE_DIRECTORYSCAN_FULL_INTERVAL_KEY,
+        DFSConfigKeys.DFS_DATANODE_DIRECTORYSCAN_FULL_INTERVAL_DEFAULT);
   }
 
   protected ThreadPoolExecutor initializeCacheExecutor(File parent) {
@@ -1044,6 +1057,7 @@ void shutdownBlockPool(String bpid, BlockListAsLongs blocksListsAsLongs) {
       bp.shutdown(blocksListsAsLongs);
     }
     bpSlices.remove(bpid);
+    scannedDirs.remove(bpid);
   }
 
   boolean isBPDirEmpty(String bpid) throws IOException {
@@ -1307,8 +1321,17 @@ private File[] copyReplicaWithNewBlockIdAndGS(
   @Override
   public void compileReport(String bpid, Collection<ScanInfo> report,
       ReportCompiler reportCompiler) throws InterruptedException, IOException {
+    ScannedDirs scanned = null;
+    if (directoryScanFullInterval > 0) {
+      scanned = scannedDirs.computeIfAbsent(bpid, b -> new ScannedDirs());
+      if (scanned.scans++ % directoryScanFullInterval == 0) {
+        // A full scan also notices the block files whose length changed
+        // without their directory being modified.
+        scanned.dirs.clear();
+      }
+    }
     compileReport(getFinalizedDir(bpid), getFinalizedDir(bpid), report,
-        reportCompiler);
+        reportCompiler, scanned);
   }
 
   @Override
@@ -1336,11 +1359,37 @@ public boolean accept(File dir, String name) {
   }
 
   private void compileReport(File bpFinalizedDir, File dir,
-      Collection<ScanInfo> report, ReportCompiler reportCompiler)
-      throws InterruptedException {
+      Collection<ScanInfo> report, ReportCompiler reportCompiler,
+      ScannedDirs scanned) throws InterruptedException {
 
     reportCompiler.throttle();
 
+    long mtime = 0;
+    ScannedDir dirInfo = null;
+    if (scanned != null) {
+      mtime = dir.lastModified();
+      ScannedDir last = scanned.dirs.get(dir);
+      if (last != null && last.mtime == mtime) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        // The entries of the directory did not change since the last scan
+        last.addTo(dir, report, this);
+        for (String subdir : last.subdirs) {
+          compileReport(bpFinalizedDir, new File(dir, subdir), report,
+              reportCompiler, scanned);
+        }
+        return;
+      }
+      // Directories modified too recently may be modified again without
+      // their mtime changing, they are listed again by the next scan.
+      if (mtime > 0 &&
+          mtime < Time.now() - DIRECTORY_SCAN_MTIME_MARGIN_MS) {
+        dirInfo = new ScannedDir(mtime);
+      }
+      scanned.dirs.remove(dir);
+    }
+
     List <String> fileNames;
     try {
       fileNames =
@@ -1368,7 +1417,10 @@ private void compileReport(File bpFinalizedDir, File dir,
 
       File file = new File(dir, fileNames.get(i));
       if (file.isDirectory()) {
-        compileReport(bpFinalizedDir, file, report, reportCompiler);
+        if (dirInfo != null) {
+          dirInfo.addSubdir(file.getName());
+        }
+        compileReport(bpFinalizedDir, file, report, reportCompiler, scanned);
         continue;
       }
       if (!Block.isBlockFilename(file)) {
@@ -1376,7 +1428,11 @@ private void compileReport(File bpFinalizedDir, File dir,
           long blockId = Block.getBlockId(file.getName());
           verifyFileLocation(file, bpFinalizedDir,
               blockId);
-          report.add(new ScanInfo(blockId, null, file, this));
+          ScanInfo info = new ScanInfo(blockId, null, file, this);
+          report.add(info);
+          if (dirInfo != null && !dirInfo.add(info, null, file)) {
+            dirInfo = null;
+          }
         }
         continue;
       }
@@ -1399,7 +1455,97 @@ private void compileReport(File bpFinalizedDir, File dir,
         }
       }
       verifyFileLocation(blockFile, bpFinalizedDir, blockId);
-      report.add(new ScanInfo(blockId, blockFile, metaFile, this));
+      ScanInfo info = new ScanInfo(blockId, blockFile, metaFile, this);
+      report.add(info);
+      if (dirInfo != null && !dirInfo.add(info, blockFile, metaFile)) {
+        dirInfo = null;
+      }
+    }
+    if (dirInfo != null) {
+      dirInfo.trim();
+      scanned.dirs.put(dir, dirInfo);
+    }
+  }
+
+  /** How long a directory must be unmodified to reuse its last listing. */
+  private static final long DIRECTORY_SCAN_MTIME_MARGIN_MS = 60 * 1000;
+
+  /** The directories of a block pool listed by the last scans. */
+  private static class ScannedDirs {
+    private final Map<File, ScannedDir> dirs = new ConcurrentHashMap<>();
+    private int scans;
+  }
+
+  /**
+   * The entries of a directory found by a scan, stored as primitive arrays
+   * as there is one ScannedDir for every directory of the volume. The names
+   * of the block and meta files are rebuilt from the block id and
+   * generation stamp.
+   */
+  private static class ScannedDir {
+    private static final long NO_BLOCK_FILE = -1;
+    private static final long NO_META_FILE = -1;
+
+    private final long mtime;
+    private String[] subdirs = new String[0];
+    private long[] blockIds = new long[0];
+    private long[] blockLengths = new long[0];
+    private long[] genStamps = new long[0];
+    private int size;
+
+    ScannedDir(long mtime) {
+      this.mtime = mtime;
+    }
+
+    void addSubdir(String name) {
+      subdirs = Arrays.copyOf(subdirs, subdirs.length + 1);
+      subdirs[subdirs.length - 1] = name;
+    }
+
+    /**
+     * @return false if the file names cannot be rebuilt from the block id
+     *         and generation stamp, and the directory must be listed again
+     */
+    boolean add(ScanInfo info, File blockFile, File metaFile) {
+      long genStamp = NO_META_FILE;
+      if (metaFile != null) {
+        genStamp = Block.getGenerationStamp(metaFile.getName());
+        if (!metaFile.getName().equals(
+            DatanodeUtil.getMetaName(Block.BLOCK_FILE_PREFIX +
+                info.getBlockId(), genStamp))) {
+          return false;
+        }
+      }
+      if (size == blockIds.length) {
+        int capacity = Math.max(8, size * 2);
+        blockIds = Arrays.copyOf(blockIds, capacity);
+        blockLengths = Arrays.copyOf(blockLengths, capacity);
+        genStamps = Arrays.copyOf(genStamps, capacity);
+      }
+      blockIds[size] = info.getBlockId();
+      blockLengths[size] =
+          blockFile == null ? NO_BLOCK_FILE : info.getBlockLength();
+      genStamps[size] = genStamp;
+      size++;
+      return true;
+    }
+
+    void trim() {
+      blockIds = Arrays.copyOf(blockIds, size);
+      blockLengths = Arrays.copyOf(blockLengths, size);
+      genStamps = Arrays.copyOf(genStamps, size);
+    }
+
+    void addTo(File dir, Collection<ScanInfo> report, FsVolumeSpi vol) {
+      for (int i = 0; i < size; i++) {
+        String blockName = Block.BLOCK_FILE_PREFIX + blockIds[i];
+        File blockFile = blockLengths[i] == NO_BLOCK_FILE ? null :
+            new File(dir, blockName);
+        File metaFile = genStamps[i] == NO_META_FILE ? null :
+            new File(dir, DatanodeUtil.getMetaName(blockName, genStamps[i]));
+        report.add(new ScanInfo(blockIds[i], blockFile, metaFile, vol,
+            Math.max(0, blockLengths[i])));
+      }
     }
   }
 
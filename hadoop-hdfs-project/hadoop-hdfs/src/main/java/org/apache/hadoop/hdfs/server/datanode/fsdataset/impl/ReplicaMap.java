@@ -32,8 +32,10 @@
  * Maintains the replica map. 
  */
 class ReplicaMap {
-  // Lock object to synchronize this instance.
-  private final AutoCloseableLock lock;
+  // Lock objects to synchronize this instance. Lookups take the read lock,
+  // updates take the write lock. Both may be the same exclusive lock.
+  private final AutoCloseableLock readLock;
+  private final AutoCloseableLock writeLock;
   
   // Map of block pool Id to a set of ReplicaInfo.
   private final Map<String, FoldedTreeSet<ReplicaInfo>> map = new HashMap<>();
@@ -51,15 +53,20 @@ public int compare(Object o1, Object o2) {
       };
 
   ReplicaMap(AutoCloseableLock lock) {
-    if (lock == null) {
+    this(lock, lock);
+  }
+
+  ReplicaMap(AutoCloseableLock readLock, AutoCloseableLock writeLock) {
+    if (readLock == null || writeLock == null) {
       throw new HadoopIllegalArgumentException(
           "Lock to synchronize on cannot be null");
     }
-    this.lock = lock;
+    this.readLock = readLock;
+    this.writeLock = writeLock;
   }
   
   String[] getBlockPoolList() {
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = readLock.acquire()) {
       return map.keySet().toArray(new String[map.keySet().size()]);   
     }
   }
@@ -104,7 +111,7 @@ ReplicaInfo get(String bpid, Block block) {
    */
   ReplicaInfo get(String bpid, long blockId) {
     checkBlockPool(bpid);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = readLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       if (set == null) {
         return null;
@@ -124,7 +131,7 @@ ReplicaInfo get(String bpid, long blockId) {
   ReplicaInfo add(String bpid, ReplicaInfo replicaInfo) {
     checkBlockPool(bpid);
     checkBlock(replicaInfo);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = writeLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       if (set == null) {
         // Add an entry for block pool if it does not exist already
@@ -142,7 +149,7 @@ ReplicaInfo add(String bpid, ReplicaInfo replicaInfo) {
   ReplicaInfo addAndGet(String bpid, ReplicaInfo replicaInfo) {
     checkBlockPool(bpid);
     checkBlock(replicaInfo);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = writeLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       if (set == null) {
         // Add an entry for block pool if it does not exist already
@@ -192,7 +199,7 @@ void mergeAll(ReplicaMap other) {
   ReplicaInfo remove(String bpid, Block block) {
     checkBlockPool(bpid);
     checkBlock(block);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = writeLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       if (set != null) {
         ReplicaInfo replicaInfo =
@@ -215,7 +222,7 @@ ReplicaInfo remove(String bpid, Block block) {
    */
   ReplicaInfo remove(String bpid, long blockId) {
     checkBlockPool(bpid);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = writeLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       if (set != null) {
         return set.removeAndGet(blockId, LONG_AND_BLOCK_COMPARATOR);
@@ -230,7 +237,7 @@ ReplicaInfo remove(String bpid, long blockId) {
    * @return the number of replicas in the map
    */
   int size(String bpid) {
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = readLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       return set != null ? set.size() : 0;
     }
@@ -241,7 +248,7 @@ int size(String bpid) {
    * This method is <b>not synchronized</b>. It needs to be synchronized
    * externally using the lock, both for getting the replicas
    * values from the map and iterating over it. Mutex can be accessed using
-   * {@link #getLock()} method.
+   * {@link #getReadLock()} method.
    * 
    * @param bpid block pool id
    * @return a collection of the replicas belonging to the block pool
@@ -250,9 +257,38 @@ Collection<ReplicaInfo> replicas(String bpid) {
     return map.get(bpid);
   }
 
+  /**
+   * Get how full the nodes of the set holding the replicas of a block pool
+   * are.
+   * @param bpid block pool id
+   * @return the fill ratio, 1.0 if the block pool has no replicas
+   */
+  double fillRatio(String bpid) {
+    checkBlockPool(bpid);
+    try (AutoCloseableLock l = readLock.acquire()) {
+      FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
+      return set != null ? set.fillRatio() : 1.0;
+    }
+  }
+
+  /**
+   * Compact the set holding the replicas of a block pool, to free the memory
+   * of the nodes left partly empty by removed replicas.
+   * @param bpid block pool id
+   * @param timeout maximum time to spend compacting in milliseconds
+   * @return true if the compaction completed, false if it was aborted
+   */
+  boolean compact(String bpid, long timeout) {
+    checkBlockPool(bpid);
+    try (AutoCloseableLock l = writeLock.acquire()) {
+      FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
+      return set == null || set.compact(timeout);
+    }
+  }
+
   void initBlockPool(String bpid) {
     checkBlockPool(bpid);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = writeLock.acquire()) {
       FoldedTreeSet<ReplicaInfo> set = map.get(bpid);
       if (set == null) {
         // Add an entry for block pool if it does not exist already
@@ -264,16 +300,24 @@ void initBlockPool(String bpid) {
   
   void cleanUpBlockPool(String bpid) {
     checkBlockPool(bpid);
-    try (AutoCloseableLock l = lock.acquire()) {
+    try (AutoCloseableLock l = writeLock.acquire()) {
       map.remove(bpid);
     }
   }
   
   /**
-   * Get the lock object used for synchronizing ReplicasMap
+   * Get the lock object used for synchronizing updates of the ReplicasMap
    * @return lock object
    */
   AutoCloseableLock getLock() {
-    return lock;
+    return writeLock;
+  }
+
+  /**
+   * Get the lock object used for synchronizing lookups in the ReplicasMap
+   * @return lock object
+   */
+  AutoCloseableLock getReadLock() {
+    return readLock;
   }
 }
@@ -109,6 +109,16 @@ public class DataNodeMetrics {
   @Metric("Count of active dataNode xceivers")
   private MutableGaugeInt dataNodeActiveXceiversCount;
 
+  @Metric("Count of connections refused because of the xceiver limit")
+  private MutableCounterLong dataNodeRejectedXceivers;
+
+  @Metric("Count of block reads detected as sequential")
+  private MutableCounterLong sequentialBlockReads;
+  @Metric("Count of block reads detected as random")
+  private MutableCounterLong randomBlockReads;
+  @Metric("Count of block reads of recently read data")
+  private MutableCounterLong blockRereads;
+
   @Metric MutableRate readBlockOp;
   @Metric MutableRate writeBlockOp;
   @Metric MutableRate blockChecksumOp;
@@ -160,6 +170,18 @@ public class DataNodeMetrics {
   private MutableCounterLong ecReconstructionDecodingTimeMillis;
   @Metric("Milliseconds spent on write by erasure coding worker")
   private MutableCounterLong ecReconstructionWriteTimeMillis;
+  @Metric("Count of block sync tasks")
+  private MutableCounterLong blockSyncTasks;
+  @Metric("Count of failed block sync tasks")
+  private MutableCounterLong blockSyncFailedTasks;
+  @Metric("Bytes written by block sync tasks")
+  private MutableCounterLong blockSyncBytes;
+  @Metric("Count of block sync tasks queued or running")
+  private MutableGaugeInt blockSyncPendingTasks;
+  @Metric("Milliseconds the FsDataset read lock was held")
+  private MutableRate datasetReadLockHeldMs;
+  @Metric("Milliseconds the FsDataset write lock was held")
+  private MutableRate datasetWriteLockHeldMs;
 
   final MetricsRegistry registry = new MetricsRegistry("datanode");
   @Metric("Milliseconds spent on calling NN rpc")
@@ -519,6 +541,22 @@ public void setDataNodeActiveXceiversCount(int value) {
     dataNodeActiveXceiversCount.set(value);
   }
 
+  public void incrDataNodeRejectedXceivers() {
+    dataNodeRejectedXceivers.incr();
+  }
+
+  public void incrSequentialBlockReads() {
+    sequentialBlockReads.incr();
+  }
+
+  public void incrRandomBlockReads() {
+    randomBlockReads.incr();
+  }
+
+  public void incrBlockRereads() {
+    blockRereads.incr();
+  }
+
   public void incrECDecodingTime(long decodingTimeNanos) {
     ecDecodingTimeNanos.incr(decodingTimeNanos);
   }
@@ -547,6 +585,34 @@ public void incrECReconstructionDecodingTime(long millis) {
     ecReconstructionDecodingTimeMillis.incr(millis);
   }
 
+  public void incrBlockSyncTasks() {
+    blockSyncTasks.incr();
+  }
+
+  public void incrBlockSyncFailedTasks() {
+    blockSyncFailedTasks.incr();
+  }
+
+  public void incrBlockSyncBytes(long bytes) {
+    blockSyncBytes.incr(bytes);
+  }
+
+  public void incrBlockSyncPendingTasks() {
+    blockSyncPendingTasks.incr();
+  }
+
+  public void decrBlockSyncPendingTasks() {
+    blockSyncPendingTasks.decr();
+  }
+
+  public void addDatasetReadLockHeldTime(long millis) {
+    datasetReadLockHeldMs.add(millis);
+  }
+
+  public void addDatasetWriteLockHeldTime(long millis) {
+    datasetWriteLockHeldMs.add(millis);
+  }
+
   public DataNodeUsageReport getDNUsageReport(long timeSinceLastReport) {
     return dnUsageReportUtil.getUsageReport(bytesWritten.value(), bytesRead
             .value(), totalWriteTime.value(), totalReadTime.value(),
@@ -26,9 +26,11 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hdfs.BlockInputStream;
 import org.apache.hadoop.hdfs.BlockReader;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.hdfs.protocol.LocatedBlock;
 import org.apache.hadoop.hdfs.server.protocol.BlockSyncTask;
 import org.apache.hadoop.hdfs.server.protocol.SyncTaskExecutionResult;
+import org.apache.hadoop.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +42,7 @@
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -56,18 +59,41 @@ public class BlockSyncOperationExecutor  {
   private BiFunction<LocatedBlock, Configuration, BlockReader>
       createBlockReader;
   private Function<FileSystem, MultipartUploader> multipartUploaderSupplier;
+  private ExecutorService readAheadExecutor;
+  private final int readAheadBuffers;
+  private final int readAheadBufferSize;
 
   @VisibleForTesting
   BlockSyncOperationExecutor(Configuration conf,
       BiFunction<LocatedBlock, Configuration, BlockReader> createBlockReader,
       Function<FileSystem, MultipartUploader> multipartUploaderSupplier) {
+    this(conf, createBlockReader, multipartUploaderSupplier, null);
+  }
+
+  @VisibleForTesting
+  BlockSyncOperationExecutor(Configuration conf,
+      BiFunction<LocatedBlock, Configuration, BlockReader> createBlockReader,
+      Function<FileSystem, MultipartUploader> multipartUploaderSupplier,
+      ExecutorService readAheadExecutor) {
     this.conf = conf;
     this.createBlockReader = createBlockReader;
     this.multipartUploaderSupplier = multipartUploaderSupplier;
+    this.readAheadExecutor = readAheadExecutor;
+    this.readAheadBuffers = conf.getInt(
+        DFSConfigKeys.DFS_PROVIDED_SYNC_READAHEAD_BUFFERS_KEY,
+        DFSConfigKeys.DFS_PROVIDED_SYNC_READAHEAD_BUFFERS_DEFAULT);
+    this.readAheadBufferSize = conf.getInt(
+        DFSConfigKeys.DFS_PROVIDED_SYNC_READAHEAD_BUFFER_SIZE_KEY,
+        DFSConfigKeys.DFS_PROVIDED_SYNC_READAHEAD_BUFFER_SIZE_DEFAULT);
   }
 
+  /**
+   * @param readAheadExecutor runs the threads reading the blocks ahead of
+   *                          their upload, see {@link ReadAheadInputStream}
+   */
   public static BlockSyncOperationExecutor createOnDataNode(Configuration conf,
-      BiFunction<LocatedBlock, Configuration, BlockReader> createBlockReader) {
+      BiFunction<LocatedBlock, Configuration, BlockReader> createBlockReader,
+      ExecutorService readAheadExecutor) {
     return new BlockSyncOperationExecutor(conf,
         createBlockReader,
         fs -> {
@@ -76,7 +102,8 @@ public static BlockSyncOperationExecutor createOnDataNode(Configuration conf,
           } catch (IOException e) {
             throw new RuntimeException(e);
           }
-        });
+        },
+        readAheadExecutor);
   }
 
   public SyncTaskExecutionResult execute(BlockSyncTask blockSyncTask)
@@ -100,27 +127,39 @@ private SyncTaskExecutionResult doMultiPartPart(URI uri,
     FileSystem fs = FileSystem.get(uri, conf);
     Path filePath = new Path(uri);
     Vector<InputStream> inputStreams = new Vector<>(locatedBlocks.size());
-    for (int i = 0; i < locatedBlocks.size(); ++i) {
-      LocatedBlock locatedBlock = locatedBlocks.get(i);
-      BlockReader reader = createBlockReader.apply(locatedBlock, conf);
-      if (i == 0) {
-        reader.skip(offset);
+    InputStream inputStream = null;
+    try {
+      for (int i = 0; i < locatedBlocks.size(); ++i) {
+        LocatedBlock locatedBlock = locatedBlocks.get(i);
+        BlockReader reader = createBlockReader.apply(locatedBlock, conf);
+        inputStreams.add(new BlockInputStream(reader));
+        if (i == 0) {
+          reader.skip(offset);
+        }
+      }
+      Enumeration<InputStream> streamEnumeration = inputStreams.elements();
+      inputStream = new SequenceInputStream(streamEnumeration);
+      if (readAheadExecutor != null && readAheadBuffers > 0) {
+        inputStream = new ReadAheadInputStream(inputStream, readAheadBuffers,
+            readAheadBufferSize, readAheadExecutor);
+      }
+      MultipartUploader mpu = multipartUploaderSupplier.apply(fs);
+      ByteBuffer uploadHandleCopy =
+          ByteBuffer.allocate(uploadHandle.capacity());
+      uploadHandle.rewind();
+      uploadHandleCopy.put(uploadHandle);
+      uploadHandle.rewind();
+      uploadHandleCopy.flip();
+      PartHandle partHandle = mpu.putPart(filePath, inputStream,
+          partNumber, BBUploadHandle.from(uploadHandleCopy), length);
+      return new SyncTaskExecutionResult(partHandle.bytes(), length);
+    } finally {
+      if (inputStream != null) {
+        IOUtils.cleanupWithLogger(LOG, inputStream);
+      } else {
+        IOUtils.cleanupWithLogger(LOG,
+            inputStreams.toArray(new InputStream[0]));
       }
-      BlockInputStream inputStream = new BlockInputStream(reader);
-      inputStreams.add(inputStream);
     }
-    Enumeration<InputStream> streamEnumeration = inputStreams.elements();
-    SequenceInputStream inputStream =
-        new SequenceInputStream(streamEnumeration);
-    MultipartUploader mpu = multipartUploaderSupplier.apply(fs);
-    ByteBuffer uploadHandleCopy = ByteBuffer.allocate(uploadHandle.capacity());
-    uploadHandle.rewind();
-    uploadHandleCopy.put(uploadHandle);
-    uploadHandle.rewind();
-    uploadHandleCopy.flip();
-    PartHandle partHandle = mpu.putPart(filePath, inputStream,
-        partNumber, BBUploadHandle.from(uploadHandleCopy), length);
-    return new SyncTaskExecutionResult(partHandle.bytes(), length);
   }
 }
-
@@ -35,7 +35,6 @@
 import org.apache.hadoop.security.token.Token;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.EnumSet;
 
@@ -56,11 +55,6 @@ public static BlockReader createBlockReader(DataNode dataNode,
 
     DatanodeInfo datanodeInfo = locatedBlock.getLocations()[0];
 
-    Socket socked = NetUtils.getDefaultSocketFactory(conf).createSocket();
-    InetSocketAddress resolvedAddress =
-        datanodeInfo.getResolvedAddress();
-    socked.connect(resolvedAddress);
-
     return new BlockReaderFactory(new DfsClientConf(conf))
         .setConfiguration(conf)
         .setBlock(locatedBlock.getBlock())
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.datanode.syncservice.executor;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReadAheadInputStream reads its source on a separate thread, up to a fixed
+ * number of buffers ahead of the consumer, so that reading the blocks of a
+ * sync task overlaps with uploading them to the remote endpoint.
+ * <p>
+ * The buffers are allocated once and recycled, so a stream never holds more
+ * than numBuffers * bufferSize bytes.
+ */
+class ReadAheadInputStream extends InputStream {
+
+  /** Marks the end of the source, or a failure to read it. */
+  private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+  private final InputStream in;
+  private final BlockingQueue<ByteBuffer> free;
+  private final BlockingQueue<ByteBuffer> filled;
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private final Future<?> reader;
+  private volatile IOException error;
+  private ByteBuffer current;
+  private boolean closed;
+
+  ReadAheadInputStream(InputStream in, int numBuffers, int bufferSize,
+      ExecutorService executor) {
+    Preconditions.checkArgument(numBuffers > 0,
+        "numBuffers must be positive: %s", numBuffers);
+    Preconditions.checkArgument(bufferSize > 0,
+        "bufferSize must be positive: %s", bufferSize);
+    this.in = in;
+    this.free = new ArrayBlockingQueue<>(numBuffers);
+    this.filled = new ArrayBlockingQueue<>(numBuffers + 1);
+    for (int i = 0; i < numBuffers; i++) {
+      free.add(ByteBuffer.allocate(bufferSize));
+    }
+    this.reader = executor.submit(this::readAhead);
+  }
+
+  private void readAhead() {
+    if (!started.compareAndSet(false, true)) {
+      // closed before the reader ran
+      return;
+    }
+    try {
+      boolean eof = false;
+      while (!eof) {
+        ByteBuffer buf = free.take();
+        buf.clear();
+        while (buf.hasRemaining()) {
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+          int n = in.read(buf.array(), buf.position(), buf.remaining());
+          if (n < 0) {
+            eof = true;
+            break;
+          }
+          buf.position(buf.position() + n);
+        }
+        buf.flip();
+        if (buf.hasRemaining()) {
+          filled.put(buf);
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed by the consumer
+      return;
+    } catch (IOException e) {
+      error = e;
+    } catch (Throwable t) {
+      // the consumer must not take a failure for the end of the source
+      error = new IOException("Failed to read ahead", t);
+    } finally {
+      // there is always room for the marker, as it takes no buffer
+      filled.offer(EOF);
+      finished.countDown();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n = read(b, 0, 1);
+    return n > 0 ? b[0] & 0xff : -1;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (current == null || !current.hasRemaining()) {
+      if (current != null && current != EOF) {
+        free.add(current);
+      }
+      if (current != EOF) {
+        try {
+          current = filled.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException(
+              "Interrupted while waiting for read ahead");
+        }
+      }
+      if (current == EOF) {
+        if (error != null) {
+          throw error;
+        }
+        return -1;
+      }
+    }
+    int n = Math.min(len, current.remaining());
+    current.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return current != null ? current.remaining() : 0;
+  }
+
+  /**
+   * Stop reading ahead and close the source.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (started.compareAndSet(false, true)) {
+      reader.cancel(false);
+    } else {
+      reader.cancel(true);
+      Uninterruptibles.awaitUninterruptibly(finished);
+    }
+    in.close();
+  }
+}
@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.hdfs.security.token.delegation.DelegationTokenSecretManager;
+import org.apache.hadoop.ipc.CallerContext;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.util.Daemon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * Hands audit events over to a background thread, which formats and writes
+ * them in batches, so that RPC handlers do not wait on the audit log.
+ * <p>
+ * Events are held in a fixed number of slots, allocated up front and reused
+ * once written, so that the audit path does not allocate per call. When all
+ * slots are in use, the handler either waits for one to be freed or drops
+ * the event, depending on the configured policy. Everything an event needs
+ * is captured on the handler thread, as the RPC thread-locals are not
+ * available to the dispatcher thread.
+ */
+class AsyncAuditDispatcher implements Runnable {
+  static final Logger LOG = LoggerFactory.getLogger(AsyncAuditDispatcher.class);
+
+  /** Maximum number of events written per wake-up of the dispatcher. */
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final long POLL_INTERVAL_MS = 100;
+
+  /**
+   * An audit event, with the context of the RPC call which triggered it.
+   * Instances are reused, so the sink must not keep a reference to them.
+   */
+  static final class AuditEvent {
+    boolean succeeded;
+    String userName;
+    InetAddress addr;
+    String cmd;
+    String src;
+    String dst;
+    FileStatus status;
+    CallerContext callerContext;
+    UserGroupInformation ugi;
+    DelegationTokenSecretManager dtSecretManager;
+    String protocol;
+
+    private void set(boolean succeeded, String userName, InetAddress addr,
+        String cmd, String src, String dst, FileStatus status,
+        CallerContext callerContext, UserGroupInformation ugi,
+        DelegationTokenSecretManager dtSecretManager, String protocol) {
+      this.succeeded = succeeded;
+      this.userName = userName;
+      this.addr = addr;
+      this.cmd = cmd;
+      this.src = src;
+      this.dst = dst;
+      this.status = status;
+      this.callerContext = callerContext;
+      this.ugi = ugi;
+      this.dtSecretManager = dtSecretManager;
+      this.protocol = protocol;
+    }
+
+    /** Drop the references held by a written event. */
+    private void clear() {
+      set(false, null, null, null, null, null, null, null, null, null, null);
+    }
+  }
+
+  /** Slots ready to be filled by the handlers. */
+  private final BlockingQueue<AuditEvent> freeSlots;
+  /** Filled slots, in the order they are to be written. */
+  private final BlockingQueue<AuditEvent> queue;
+  private final int queueSize;
+  private final boolean blocking;
+  private final Consumer<AuditEvent> sink;
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private final Daemon thread;
+  private volatile boolean running = true;
+
+  /**
+   * @param queueSize maximum number of events waiting to be written
+   * @param blocking whether to wait for a free slot when all are in use,
+   *                 rather than to drop the event
+   * @param sink writes an event, called on the dispatcher thread only
+   */
+  AsyncAuditDispatcher(int queueSize, boolean blocking,
+      Consumer<AuditEvent> sink) {
+    Preconditions.checkArgument(queueSize > 0,
+        "queueSize must be positive: %s", queueSize);
+    this.queueSize = queueSize;
+    this.freeSlots = new ArrayBlockingQueue<>(queueSize);
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    for (int i = 0; i < queueSize; i++) {
+      freeSlots.add(new AuditEvent());
+    }
+    this.blocking = blocking;
+    this.sink = sink;
+    this.thread = new Daemon(this);
+    this.thread.setName("AsyncAuditDispatcher");
+    this.thread.start();
+  }
+
+  /**
+   * Queue an event to be written by the dispatcher thread.
+   */
+  void dispatch(boolean succeeded, String userName, InetAddress addr,
+      String cmd, String src, String dst, FileStatus status,
+      CallerContext callerContext, UserGroupInformation ugi,
+      DelegationTokenSecretManager dtSecretManager, String protocol) {
+    AuditEvent slot = null;
+    if (running) {
+      if (blocking) {
+        try {
+          while (running && (slot = freeSlots.poll(POLL_INTERVAL_MS,
+              TimeUnit.MILLISECONDS)) == null) {
+            // wait for the dispatcher to free a slot
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          droppedEvents.incrementAndGet();
+          return;
+        }
+      } else if ((slot = freeSlots.poll()) == null) {
+        droppedEvents.incrementAndGet();
+        return;
+      }
+    }
+    if (slot == null) {
+      // stopped, no more slots are handed out
+      AuditEvent event = new AuditEvent();
+      event.set(succeeded, userName, addr, cmd, src, dst, status,
+          callerContext, ugi, dtSecretManager, protocol);
+      sink.accept(event);
+      return;
+    }
+    slot.set(succeeded, userName, addr, cmd, src, dst, status,
+        callerContext, ugi, dtSecretManager, protocol);
+    // never full, there are no more slots than it can hold
+    queue.add(slot);
+    if (!thread.isAlive()) {
+      // stop() raced with this call, the dispatcher will not see the event
+      writeRemaining();
+    }
+  }
+
+  @Override
+  public void run() {
+    final List<AuditEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (running || !queue.isEmpty()) {
+      try {
+        AuditEvent event = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (event == null) {
+          continue;
+        }
+        batch.add(event);
+        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        for (AuditEvent e : batch) {
+          sink.accept(e);
+        }
+      } catch (InterruptedException e) {
+        // stop() waits for the queue to be drained
+      } catch (Throwable t) {
+        LOG.error("Failed to write audit events", t);
+      } finally {
+        for (AuditEvent e : batch) {
+          e.clear();
+          freeSlots.add(e);
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Write the queued events and stop the dispatcher thread. Events
+   * dispatched afterwards are written by the calling thread.
+   */
+  void stop() {
+    running = false;
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    writeRemaining();
+  }
+
+  /**
+   * Write the events queued by handlers which took a slot before the
+   * dispatcher was stopped, but queued it after the dispatcher thread
+   * had drained the queue for the last time.
+   */
+  private synchronized void writeRemaining() {
+    AuditEvent event;
+    while ((event = queue.poll()) != null) {
+      try {
+        sink.accept(event);
+      } catch (Throwable t) {
+        LOG.error("Failed to write audit event", t);
+      } finally {
+        event.clear();
+        freeSlots.add(event);
+      }
+    }
+  }
+
+  /** @return the number of events waiting or being written. */
+  int getQueueLength() {
+    return queueSize - freeSlots.size();
+  }
+
+  /** @return the number of events dropped because no slot was free. */
+  long getDroppedEvents() {
+    return droppedEvents.get();
+  }
+
+  @VisibleForTesting
+  boolean isRunning() {
+    return thread.isAlive();
+  }
+}
@@ -136,6 +136,17 @@ public void addContents(ContentCounts that) {
     types.add(that.types);
   }
 
+  public void subtractContents(ContentCounts that) {
+    contents.subtract(that.contents);
+    types.subtract(that.types);
+  }
+
+  /** @return a copy of these counts. */
+  public ContentCounts copy() {
+    return new ContentCounts(contents.deepCopyEnumCounter(),
+        types.deepCopyEnumCounter());
+  }
+
   public void addTypeSpace(StorageType t, long val) {
     types.add(t, val);
   }
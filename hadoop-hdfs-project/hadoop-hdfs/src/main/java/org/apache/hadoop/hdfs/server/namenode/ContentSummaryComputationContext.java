@@ -46,6 +46,7 @@ public class ContentSummaryComputationContext {
   private long yieldCount = 0;
   private long sleepMilliSec = 0;
   private int sleepNanoSec = 0;
+  private long underConstructionFileCount = 0;
 
   public static final String REPLICATED = "Replicated";
   public static final Logger LOG = LoggerFactory
@@ -154,6 +155,37 @@ public ContentCounts getSnapshotCounts() {
     return snapshotCounts;
   }
 
+  /** Count a file under construction found by the computation. */
+  void addUnderConstructionFile() {
+    underConstructionFileCount++;
+  }
+
+  /** @return the number of files under construction found so far. */
+  long getUnderConstructionFileCount() {
+    return underConstructionFileCount;
+  }
+
+  /**
+   * @return the generation of content counts cached by directories with
+   * quota, or -1 if the computation must not cache content counts.
+   */
+  long getCachedCountsGeneration() {
+    return dir == null ? -1 : dir.getContentSummaryCacheGeneration();
+  }
+
+  /**
+   * @return whether the computation may use content counts cached by
+   * directories with quota. Cached counts skip the traversal of the
+   * subtree, so they are not used when its access needs to be checked.
+   * With permissions enabled, this is the case for every non-superuser
+   * unless dfs.permissions.ContentSummary.subAccess is set, which checks
+   * the access to the whole subtree before the computation starts.
+   */
+  boolean canUseCachedCounts() {
+    return dir != null && (!dir.isPermissionEnabled() || pc == null
+        || pc.isSuperUser());
+  }
+
   public BlockStoragePolicySuite getBlockStoragePolicySuite() {
     Preconditions.checkState((bsps != null || fsn != null),
         "BlockStoragePolicySuite must be either initialized or available via" +
@@ -27,6 +27,8 @@
 import org.apache.hadoop.hdfs.util.EnumCounters;
 import org.apache.hadoop.security.AccessControlException;
 
+import com.google.common.annotations.VisibleForTesting;
+
 /**
  * Quota feature for {@link INodeDirectory}. 
  */
@@ -36,6 +38,25 @@ public final class DirectoryWithQuotaFeature implements INode.Feature {
 
   private QuotaCounts quota;
   private QuotaCounts usage;
+  /**
+   * Content counts of the subtree kept for later content summaries, or null.
+   * Readers holding the read lock may set it concurrently.
+   */
+  private volatile CachedContentCounts cachedCounts;
+
+  /** Content counts of the subtree computed for a content summary. */
+  private static final class CachedContentCounts {
+    private final ContentCounts counts;
+    private final long generation;
+    private final byte storagePolicyId;
+
+    CachedContentCounts(ContentCounts counts, long generation,
+        byte storagePolicyId) {
+      this.counts = counts;
+      this.generation = generation;
+      this.storagePolicyId = storagePolicyId;
+    }
+  }
 
   public static class Builder {
     private QuotaCounts quota;
@@ -128,12 +149,39 @@ QuotaCounts AddCurrentSpaceUsage(QuotaCounts counts) {
   ContentSummaryComputationContext computeContentSummary(final INodeDirectory dir,
       final ContentSummaryComputationContext summary)
       throws AccessControlException {
+    final long generation = summary.getCachedCountsGeneration();
+    // The storage type usage of the subtree depends on the storage policy
+    // inherited from the ancestors, which changes when the directory is
+    // renamed.
+    final byte storagePolicyId = generation < 0 ?
+        HdfsConstants.BLOCK_STORAGE_POLICY_ID_UNSPECIFIED :
+        dir.getStoragePolicyID();
+    final CachedContentCounts cached = cachedCounts;
+    if (cached != null && cached.generation == generation
+        && cached.storagePolicyId == storagePolicyId && isQuotaSet()
+        && summary.canUseCachedCounts()) {
+      summary.getCounts().addContents(cached.counts);
+      return summary;
+    }
+
+    final ContentCounts before = generation < 0 ?
+        null : summary.getCounts().copy();
     final long original = summary.getCounts().getStoragespace();
+    final long oldUnderConstruction = summary.getUnderConstructionFileCount();
     long oldYieldCount = summary.getYieldCount();
     dir.computeDirectoryContentSummary(summary, Snapshot.CURRENT_STATE_ID);
     // Check only when the content has not changed in the middle.
     if (oldYieldCount == summary.getYieldCount()) {
       checkStoragespace(dir, summary.getCounts().getStoragespace() - original);
+      // The length of files under construction changes without a quota
+      // update, so their subtrees are not cached.
+      if (before != null && isQuotaSet()
+          && oldUnderConstruction == summary.getUnderConstructionFileCount()) {
+        final ContentCounts counts = summary.getCounts().copy();
+        counts.subtractContents(before);
+        cachedCounts = new CachedContentCounts(counts, generation,
+            storagePolicyId);
+      }
     }
     return summary;
   }
@@ -152,6 +200,7 @@ private void checkStoragespace(final INodeDirectory dir, final long computed) {
    */
   public void addSpaceConsumed2Cache(QuotaCounts delta) {
     usage.add(delta);
+    cachedCounts = null;
   }
 
   /** 
@@ -168,12 +217,19 @@ void setSpaceConsumed(long namespace, long storagespace,
     usage.setNameSpace(namespace);
     usage.setStorageSpace(storagespace);
     usage.setTypeSpaces(typespaces);
+    cachedCounts = null;
   }
 
   void setSpaceConsumed(QuotaCounts c) {
     usage.setNameSpace(c.getNameSpace());
     usage.setStorageSpace(c.getStorageSpace());
     usage.setTypeSpaces(c.getTypeSpaces());
+    cachedCounts = null;
+  }
+
+  @VisibleForTesting
+  boolean hasCachedCounts() {
+    return cachedCounts != null;
   }
 
   /** @return the namespace and storagespace and typespace consumed. */
@@ -446,6 +446,8 @@ static void unprotectedSetStoragePolicy(FSDirectory fsd, BlockManager bm,
       throw new FileNotFoundException(iip.getPath()
           + " is not a file or directory");
     }
+    // the storage type usage of the subtree changes without a quota update
+    fsd.invalidateContentSummaryCache();
   }
 
   private static void setDirStoragePolicy(
@@ -88,6 +88,33 @@ static FileStatus mkdirs(FSNamesystem fsn, FSPermissionChecker pc, String src,
     }
   }
 
+  /**
+   * Resolve the target of a mkdirs call under the read lock.
+   *
+   * @return the audit file status if the path already exists as a directory,
+   *         in which case mkdirs has nothing to do; null if the caller has to
+   *         retry with {@link #mkdirs} under the write lock.
+   * @throws FileAlreadyExistsException if the path exists and is a file
+   */
+  static FileStatus getExistingDirectory(FSNamesystem fsn,
+      FSPermissionChecker pc, String src) throws IOException {
+    FSDirectory fsd = fsn.getFSDirectory();
+    fsd.readLock();
+    try {
+      INodesInPath iip = fsd.resolvePath(pc, src, DirOp.CREATE);
+      final INode lastINode = iip.getLastINode();
+      if (lastINode == null) {
+        return null;
+      }
+      if (lastINode.isFile()) {
+        throw new FileAlreadyExistsException("Path is not a directory: " + src);
+      }
+      return fsd.getAuditFileInfo(iip);
+    } finally {
+      fsd.readUnlock();
+    }
+  }
+
   /**
    * For a given absolute path, create all ancestors as directories along the
    * path. All ancestors inherit their parent's permission plus an implicit
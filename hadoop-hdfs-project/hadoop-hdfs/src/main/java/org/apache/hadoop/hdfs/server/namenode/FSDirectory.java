@@ -159,6 +159,10 @@ private static INodeDirectory createRoot(FSNamesystem namesystem) {
   private final int lsLimit;  // max list limit
   private final int contentCountLimit; // max content summary counts per run
   private final long contentSleepMicroSec;
+  private final boolean contentSummaryQuotaCacheEnabled;
+  // content counts cached by quota directories are only valid for this
+  // generation; protected by dirLock
+  private long contentSummaryCacheGeneration = 0;
   private final INodeMap inodeMap; // Synchronized by dirLock
   private long yieldCount = 0; // keep track of lock yield count.
   private int quotaInitThreads;
@@ -272,7 +276,9 @@ public enum DirOp {
     this.dirLock = new ReentrantReadWriteLock(true); // fair
     this.inodeId = new INodeId();
     rootDir = createRoot(ns);
-    inodeMap = INodeMap.newInstance(rootDir);
+    inodeMap = INodeMap.newInstance(rootDir, conf.getDouble(
+        DFSConfigKeys.DFS_NAMENODE_INODE_MAP_CAPACITY_PERCENT_KEY,
+        DFSConfigKeys.DFS_NAMENODE_INODE_MAP_CAPACITY_PERCENT_DEFAULT));
     this.isPermissionEnabled = conf.getBoolean(
       DFSConfigKeys.DFS_PERMISSIONS_ENABLED_KEY,
       DFSConfigKeys.DFS_PERMISSIONS_ENABLED_DEFAULT);
@@ -330,6 +336,9 @@ public enum DirOp {
     this.contentSleepMicroSec = conf.getLong(
         DFSConfigKeys.DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_KEY,
         DFSConfigKeys.DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_DEFAULT);
+    this.contentSummaryQuotaCacheEnabled = conf.getBoolean(
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_QUOTA_CACHE_ENABLED_KEY,
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_QUOTA_CACHE_ENABLED_DEFAULT);
     
     // filesystem limits
     this.maxComponentLength = (int) conf.getLongBytes(
@@ -588,6 +597,30 @@ long getContentSleepMicroSec() {
     return contentSleepMicroSec;
   }
 
+  /**
+   * @return the generation of the content counts cached by directories with
+   * quota which are currently valid, or -1 if content counts must not be
+   * cached, i.e. the cache is disabled or the namespace has snapshots.
+   */
+  long getContentSummaryCacheGeneration() {
+    assert hasReadLock();
+    if (!contentSummaryQuotaCacheEnabled
+        || namesystem.getSnapshotManager().getNumSnapshots() > 0) {
+      return -1;
+    }
+    return contentSummaryCacheGeneration;
+  }
+
+  /**
+   * Discard all the content counts cached by directories with quota. Needed
+   * by changes to the content summary of a subtree which do not update the
+   * quota usage of its ancestors.
+   */
+  public void invalidateContentSummaryCache() {
+    assert hasWriteLock();
+    contentSummaryCacheGeneration++;
+  }
+
   int getInodeXAttrsLimit() {
     return inodeXAttrsLimit;
   }
@@ -22,10 +22,14 @@
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -106,6 +110,7 @@
 import org.apache.hadoop.hdfs.server.namenode.INode.BlocksMapUpdateInfo;
 import org.apache.hadoop.hdfs.server.namenode.LeaseManager.Lease;
 import org.apache.hadoop.hdfs.server.namenode.NNStorage.NameNodeFile;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
 import org.apache.hadoop.hdfs.server.namenode.startupprogress.Phase;
 import org.apache.hadoop.hdfs.server.namenode.startupprogress.StartupProgress;
@@ -114,11 +119,13 @@
 import org.apache.hadoop.hdfs.util.Holder;
 import org.apache.hadoop.log.LogThrottlingHelper;
 import org.apache.hadoop.util.ChunkedArrayList;
+import org.apache.hadoop.util.Daemon;
 import org.apache.hadoop.util.Timer;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 
 import static org.apache.hadoop.log.LogThrottlingHelper.LogAction;
 
@@ -141,6 +148,8 @@ public class FSEditLogLoader {
   private long lastAppliedTxId;
   /** Total number of end transactions loaded. */
   private int totalEdits = 0;
+  /** Number of ops to decode ahead of the op being applied. */
+  private int prefetchOps = 0;
   
   public FSEditLogLoader(FSNamesystem fsNamesys, long lastAppliedTxId) {
     this(fsNamesys, lastAppliedTxId, new Timer());
@@ -153,6 +162,17 @@ public FSEditLogLoader(FSNamesystem fsNamesys, long lastAppliedTxId) {
     this.lastAppliedTxId = lastAppliedTxId;
     this.timer = timer;
   }
+
+  /**
+   * Set the number of ops decoded ahead of the op being applied. Decoding
+   * then happens on a separate thread; ops are still applied one at a time
+   * in transaction id order. 0 disables prefetching.
+   */
+  void setPrefetchOps(int prefetchOps) {
+    Preconditions.checkArgument(prefetchOps >= 0,
+        "Invalid number of ops to prefetch: %s", prefetchOps);
+    this.prefetchOps = prefetchOps;
+  }
   
   long loadFSEdits(EditLogInputStream edits, long expectedStartingTxId)
       throws IOException {
@@ -232,15 +252,24 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
     Step step = createStartupProgressStep(in);
     prog.setTotal(Phase.LOADING_EDITS, step, numTxns);
     Counter counter = prog.getCounter(Phase.LOADING_EDITS, step);
-    long lastLogTime = timer.monotonicNow();
+    long startTime = timer.monotonicNow();
+    long lastLogTime = startTime;
     long lastInodeId = fsNamesys.dir.getLastInodeId();
+    // Prefetching reads past the ops applied, so it is only used when the
+    // whole stream is replayed and nothing needs to reposition the stream.
+    OpPrefetcher prefetcher = null;
+    if (prefetchOps > 0 && maxTxnsToRead == Long.MAX_VALUE
+        && recovery == null) {
+      prefetcher = new OpPrefetcher(in, prefetchOps);
+      prefetcher.start();
+    }
     
     try {
       while (true) {
         try {
           FSEditLogOp op;
           try {
-            op = in.readOp();
+            op = prefetcher != null ? prefetcher.next() : in.readOp();
             if (op == null) {
               break;
             }
@@ -262,7 +291,7 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
             continue;
           }
           recentOpcodeOffsets[(int)(numEdits % recentOpcodeOffsets.length)] =
-            in.getPosition();
+            prefetcher != null ? prefetcher.getPosition() : in.getPosition();
           if (op.hasTransactionId()) {
             if (op.getTransactionId() > expectedTxId) { 
               MetaRecoveryContext.editLogLoaderPrompt("There appears " +
@@ -285,7 +314,8 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
                   + ", numEdits=" + numEdits + ", totalEdits=" + totalEdits);
             }
             long inodeId = applyEditLogOp(op, fsDir, startOpt,
-                in.getVersion(true), lastInodeId);
+                prefetcher != null ? prefetcher.getVersion() :
+                    in.getVersion(true), lastInodeId);
             if (lastInodeId < inodeId) {
               lastInodeId = inodeId;
             }
@@ -336,6 +366,9 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
         }
       }
     } finally {
+      if (prefetcher != null) {
+        prefetcher.stop();
+      }
       fsNamesys.dir.resetLastInodeId(lastInodeId);
       if(closeOnExit) {
         in.close();
@@ -343,6 +376,11 @@ long loadEditRecords(EditLogInputStream in, boolean closeOnExit,
       fsDir.writeUnlock();
       fsNamesys.writeUnlock("loadEditRecords");
 
+      NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+      if (metrics != null) {
+        metrics.addEditLogReplay(numEdits, timer.monotonicNow() - startTime);
+      }
+
       if (LOG.isTraceEnabled()) {
         LOG.trace("replaying edit log finished");
       }
@@ -1307,6 +1345,131 @@ static EditLogValidation scanEditLog(EditLogInputStream in,
     return new EditLogValidation(lastPos, lastTxId, false);
   }
 
+  /**
+   * Decodes the ops of an {@link EditLogInputStream} on a separate thread,
+   * ahead of the thread applying them, so that reading and deserializing
+   * the next ops overlaps with applying the current one.
+   */
+  private static class OpPrefetcher implements Runnable {
+    /** An op decoded by the prefetch thread, or the error decoding it. */
+    private static class PrefetchedOp {
+      private final FSEditLogOp op;
+      private final long position;
+      private final int logVersion;
+      private final Throwable error;
+
+      PrefetchedOp(FSEditLogOp op, long position, int logVersion,
+          Throwable error) {
+        this.op = op;
+        this.position = position;
+        this.logVersion = logVersion;
+        this.error = error;
+      }
+    }
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final EditLogInputStream in;
+    private final BlockingQueue<PrefetchedOp> queue;
+    private final Thread thread;
+    private volatile boolean stopped = false;
+    /** The op most recently returned by {@link #next()}. */
+    private PrefetchedOp current;
+
+    OpPrefetcher(EditLogInputStream in, int capacity) {
+      this.in = in;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.thread = new Daemon(this);
+      thread.setName("Edit log prefetcher for " + in.getName());
+    }
+
+    void start() {
+      thread.start();
+    }
+
+    @Override
+    public void run() {
+      // The ops are handed to the applying thread, so they must not be
+      // reused for the following ops read by this thread.
+      FSEditLogOp.OpInstanceCache.disableCacheForCurrentThread();
+      try {
+        while (!stopped) {
+          FSEditLogOp op = in.readOp();
+          if (op == null) {
+            put(new PrefetchedOp(null, in.getPosition(), 0, null));
+            return;
+          }
+          put(new PrefetchedOp(op, in.getPosition(), in.getVersion(true),
+              null));
+        }
+      } catch (Throwable t) {
+        put(new PrefetchedOp(null, in.getPosition(), 0, t));
+      }
+    }
+
+    private void put(PrefetchedOp prefetched) {
+      try {
+        while (!stopped) {
+          if (queue.offer(prefetched, POLL_INTERVAL_MS,
+              TimeUnit.MILLISECONDS)) {
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        stopped = true;
+      }
+    }
+
+    /**
+     * @return the next op of the stream, or null at the end of the stream.
+     * @throws IOException if the op could not be read.
+     */
+    FSEditLogOp next() throws IOException {
+      try {
+        PrefetchedOp prefetched;
+        while ((prefetched = queue.poll(POLL_INTERVAL_MS,
+            TimeUnit.MILLISECONDS)) == null) {
+          if (!thread.isAlive() && queue.isEmpty()) {
+            throw new IOException(thread.getName() + " exited unexpectedly");
+          }
+        }
+        current = prefetched;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(
+            "Interrupted waiting for the next op of " + in.getName());
+      }
+      if (current.error != null) {
+        Throwables.propagateIfPossible(current.error, IOException.class);
+        throw new IOException(current.error);
+      }
+      return current.op;
+    }
+
+    /** @return the stream position after the op last returned. */
+    long getPosition() {
+      return current.position;
+    }
+
+    /** @return the log version of the op last returned. */
+    int getVersion() {
+      return current.logVersion;
+    }
+
+    /** Stop prefetching and wait for the prefetch thread to exit. */
+    void stop() {
+      stopped = true;
+      queue.clear();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        LOG.warn("Interrupted waiting for {} to exit", thread.getName());
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   static class EditLogValidation {
     private final long validLength;
     private final long endTxId;
@@ -182,13 +182,23 @@ void disableCache() {
       useCache = false;
     }
 
+    /**
+     * Stop reusing op instances for every reader used by the current thread,
+     * so that the ops it decodes can be handed to another thread.
+     */
+    static void disableCacheForCurrentThread() {
+      CACHE.set(null);
+    }
+
     public OpInstanceCache get() {
       return this;
     }
 
     @SuppressWarnings("unchecked")
     public <T extends FSEditLogOp> T get(FSEditLogOpCodes opCode) {
-      return useCache ? (T)CACHE.get().get(opCode) : (T)newInstance(opCode);
+      OpInstanceCacheMap instances = useCache ? CACHE.get() : null;
+      return instances != null ?
+          (T)instances.get(opCode) : (T)newInstance(opCode);
     }
 
     private static FSEditLogOp newInstance(FSEditLogOpCodes opCode) {
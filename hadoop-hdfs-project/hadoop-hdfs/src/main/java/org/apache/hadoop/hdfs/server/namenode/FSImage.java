@@ -897,6 +897,9 @@ public long loadEdits(Iterable<EditLogInputStream> editStreams,
     long remainingReadTxns = maxTxnsToRead;
     try {    
       FSEditLogLoader loader = new FSEditLogLoader(target, lastAppliedTxId);
+      loader.setPrefetchOps(conf.getInt(
+          DFSConfigKeys.DFS_NAMENODE_EDITS_REPLAY_PREFETCH_OPS_KEY,
+          DFSConfigKeys.DFS_NAMENODE_EDITS_REPLAY_PREFETCH_OPS_DEFAULT));
       
       // Load latest edits
       for (EditLogInputStream editIn : editStreams) {
@@ -18,16 +18,22 @@
 
 package org.apache.hadoop.hdfs.server.namenode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -752,6 +758,7 @@ void serializeINodeDirectorySection(OutputStream out) throws IOException {
           outputInodes = 0;
           parent.commitSubSection(summary,
               FSImageFormatProtobuf.SectionName.INODE_DIR_SUB);
+          out = parent.getSectionOutputStream();
         }
       }
       parent.commitSectionAndSubSection(summary,
@@ -759,12 +766,19 @@ void serializeINodeDirectorySection(OutputStream out) throws IOException {
           FSImageFormatProtobuf.SectionName.INODE_DIR_SUB);
     }
 
-    void serializeINodeSection(OutputStream out) throws IOException {
+    void serializeINodeSection() throws IOException {
       INodeMap inodesMap = fsn.dir.getINodeMap();
 
       INodeSection.Builder b = INodeSection.newBuilder()
           .setLastInodeId(fsn.dir.getLastInodeId()).setNumInodes(inodesMap.size());
       INodeSection s = b.build();
+      if (parent.getParallelSaveService() != null) {
+        // The sub-sections are written directly, the section stream must
+        // not be opened.
+        serializeINodeSectionInParallel(s, inodesMap);
+        return;
+      }
+      OutputStream out = parent.getSectionOutputStream();
       s.writeDelimitedTo(out);
 
       int i = 0;
@@ -779,6 +793,7 @@ void serializeINodeSection(OutputStream out) throws IOException {
         if (i % parent.getInodesPerSubSection() == 0) {
           parent.commitSubSection(summary,
               FSImageFormatProtobuf.SectionName.INODE_SUB);
+          out = parent.getSectionOutputStream();
         }
       }
       parent.commitSectionAndSubSection(summary,
@@ -786,6 +801,88 @@ void serializeINodeSection(OutputStream out) throws IOException {
           FSImageFormatProtobuf.SectionName.INODE_SUB);
     }
 
+    /**
+     * Serialize the INode section as sub-sections built concurrently. The
+     * saving thread walks the inode map and hands batches of inodes to the
+     * parallel save executor, where each batch is serialized and compressed
+     * into its own buffer. The buffers are appended to the image in the
+     * order of the inode map, so the result is the same as a serial save.
+     */
+    private void serializeINodeSectionInParallel(INodeSection header,
+        INodeMap inodesMap) throws IOException {
+      final ExecutorService service = parent.getParallelSaveService();
+      final int inodesPerSubSection = parent.getInodesPerSubSection();
+      final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+      try {
+        List<INodeWithAdditionalFields> batch = new ArrayList<>();
+        // The first sub-section carries the section header
+        INodeSection batchHeader = header;
+        int i = 0;
+        Iterator<INodeWithAdditionalFields> iter = inodesMap.getMapIterator();
+        while (iter.hasNext()) {
+          batch.add(iter.next());
+          ++i;
+          if (i % FSImageFormatProtobuf.Saver.CHECK_CANCEL_INTERVAL == 0) {
+            context.checkCancelled();
+          }
+          if (batch.size() == inodesPerSubSection) {
+            pending.add(submitINodeBatch(service, batchHeader, batch));
+            batchHeader = null;
+            batch = new ArrayList<>();
+            if (pending.size() >= parent.getMaxPendingSubSections()) {
+              writeINodeSubSection(pending.poll());
+            }
+          }
+        }
+        if (batchHeader != null || !batch.isEmpty()) {
+          pending.add(submitINodeBatch(service, batchHeader, batch));
+        }
+        while (!pending.isEmpty()) {
+          writeINodeSubSection(pending.poll());
+        }
+      } finally {
+        for (Future<byte[]> f : pending) {
+          f.cancel(true);
+        }
+      }
+      parent.commitSection(summary, FSImageFormatProtobuf.SectionName.INODE);
+    }
+
+    private Future<byte[]> submitINodeBatch(ExecutorService service,
+        final INodeSection header,
+        final List<INodeWithAdditionalFields> inodes) {
+      return service.submit(() -> {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = parent.createSubSectionStream(buffer)) {
+          if (header != null) {
+            header.writeDelimitedTo(out);
+          }
+          for (INodeWithAdditionalFields n : inodes) {
+            save(out, n);
+          }
+        }
+        return buffer.toByteArray();
+      });
+    }
+
+    private void writeINodeSubSection(Future<byte[]> future)
+        throws IOException {
+      byte[] data;
+      try {
+        data = future.get();
+      } catch (InterruptedException e) {
+        InterruptedIOException iioe = new InterruptedIOException(
+            "Interrupted while serializing the INode section");
+        iioe.initCause(e);
+        throw iioe;
+      } catch (ExecutionException e) {
+        throw new IOException("Failed to serialize an INode sub-section",
+            e.getCause());
+      }
+      parent.writeSubSection(summary,
+          FSImageFormatProtobuf.SectionName.INODE_SUB, data);
+    }
+
     void serializeFilesUCSection(OutputStream out) throws IOException {
       Collection<Long> filesWithUC = fsn.getLeaseManager()
               .getINodeIdWithLeases();
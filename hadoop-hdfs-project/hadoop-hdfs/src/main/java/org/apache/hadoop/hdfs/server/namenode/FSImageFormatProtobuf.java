@@ -76,8 +76,10 @@
 import org.apache.hadoop.util.LimitInputStream;
 import org.apache.hadoop.util.Time;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.CodedOutputStream;
 
 /**
@@ -575,28 +577,23 @@ private void loadErasureCodingSection(InputStream in)
   }
 
   private static boolean enableParallelSaveAndLoad(Configuration conf) {
-    boolean loadInParallel =
-        conf.getBoolean(DFSConfigKeys.DFS_IMAGE_PARALLEL_LOAD_KEY,
-            DFSConfigKeys.DFS_IMAGE_PARALLEL_LOAD_DEFAULT);
-    boolean compressionEnabled = conf.getBoolean(
-        DFSConfigKeys.DFS_IMAGE_COMPRESS_KEY,
-        DFSConfigKeys.DFS_IMAGE_COMPRESS_DEFAULT);
-
-    if (loadInParallel) {
-      if (compressionEnabled) {
-        LOG.warn("Parallel Image loading and saving is not supported when {}" +
-                " is set to true. Parallel will be disabled.",
-            DFSConfigKeys.DFS_IMAGE_COMPRESS_KEY);
-        loadInParallel = false;
-      }
-    }
-    return loadInParallel;
+    // Every sub-section is written as a separate compressed stream, so
+    // sub-sections can be used with and without image compression.
+    return conf.getBoolean(DFSConfigKeys.DFS_IMAGE_PARALLEL_LOAD_KEY,
+        DFSConfigKeys.DFS_IMAGE_PARALLEL_LOAD_DEFAULT);
   }
 
   public static final class Saver {
     public static final int CHECK_CANCEL_INTERVAL = 4096;
+    /**
+     * Upper bound of inodes in a sub-section which is serialized in memory
+     * by a worker thread, keeping each buffer at a few tens of MB.
+     */
+    static final int PARALLEL_SAVE_MAX_INODES_PER_SUB_SECTION = 1 << 18;
     private boolean writeSubSections = false;
     private int inodesPerSubSection = Integer.MAX_VALUE;
+    private ExecutorService parallelSaveService;
+    private int parallelSaveThreads;
 
     private final SaveNamespaceContext context;
     private final SaverContext saverContext;
@@ -605,7 +602,8 @@ public static final class Saver {
     private MD5Hash savedDigest;
 
     private FileChannel fileChannel;
-    // OutputStream for the section data
+    // OutputStream for the section data, created on first use after each
+    // section or sub-section is committed
     private OutputStream sectionOutputStream;
     private CompressionCodec codec;
     private OutputStream underlyingOutputStream;
@@ -637,6 +635,69 @@ public boolean shouldWriteSubSections() {
       return writeSubSections;
     }
 
+    /**
+     * @return the executor used to serialize sub-sections concurrently, or
+     *         null if sub-sections are serialized by the saving thread.
+     */
+    ExecutorService getParallelSaveService() {
+      return parallelSaveService;
+    }
+
+    /**
+     * @return the number of serialized sub-sections which may be waiting to
+     *         be written to the image at any time.
+     */
+    int getMaxPendingSubSections() {
+      return 2 * parallelSaveThreads;
+    }
+
+    /**
+     * @return the stream the data of the current section or sub-section is
+     *         written to.
+     */
+    public OutputStream getSectionOutputStream() throws IOException {
+      if (sectionOutputStream == null) {
+        if (codec != null) {
+          sectionOutputStream =
+              codec.createOutputStream(underlyingOutputStream);
+        } else {
+          sectionOutputStream = underlyingOutputStream;
+        }
+      }
+      return sectionOutputStream;
+    }
+
+    /**
+     * Wrap a buffer so a sub-section can be serialized, and compressed with
+     * the image codec, independently from the section output stream. The
+     * returned stream must be closed before the buffer is passed to
+     * {@link #writeSubSection}.
+     */
+    OutputStream createSubSectionStream(OutputStream buffer)
+        throws IOException {
+      return codec != null ? codec.createOutputStream(buffer) : buffer;
+    }
+
+    /**
+     * Append a sub-section serialized through
+     * {@link #createSubSectionStream} to the image and commit it to the
+     * summary index. The enclosing section must only consist of such
+     * sub-sections and be committed with {@link #commitSection}.
+     */
+    void writeSubSection(FileSummary.Builder summary, SectionName name,
+        byte[] data) throws IOException {
+      Preconditions.checkState(sectionOutputStream == null,
+          "Cannot write sub-section %s while the section stream is in use",
+          name);
+      if (data.length == 0) {
+        return;
+      }
+      underlyingOutputStream.write(data);
+      summary.addSections(FileSummary.Section.newBuilder().setName(name.name)
+          .setLength(data.length).setOffset(subSectionOffset));
+      subSectionOffset += data.length;
+    }
+
     /**
      * Commit the length and offset of a fsimage section to the summary index,
      * including the sub section, which will be committed before the section is
@@ -655,13 +716,17 @@ public void commitSectionAndSubSection(FileSummary.Builder summary,
     public void commitSection(FileSummary.Builder summary, SectionName name)
         throws IOException {
       long oldOffset = currentOffset;
-      flushSectionOutputStream();
-
-      if (codec != null) {
-        sectionOutputStream = codec.createOutputStream(underlyingOutputStream);
+      if (sectionOutputStream == null && subSectionOffset != oldOffset) {
+        // The section ends with a committed sub-section, nothing is left in
+        // the section stream.
+        underlyingOutputStream.flush();
       } else {
-        sectionOutputStream = underlyingOutputStream;
+        // Create the stream even for an empty section, so a compressed
+        // section is always a valid compressed stream.
+        getSectionOutputStream();
+        flushSectionOutputStream();
       }
+      sectionOutputStream = null;
       long length = fileChannel.position() - oldOffset;
       summary.addSections(FileSummary.Section.newBuilder().setName(name.name)
           .setLength(length).setOffset(currentOffset));
@@ -683,9 +748,16 @@ public void commitSubSection(FileSummary.Builder summary, SectionName name)
       }
 
       LOG.debug("Saving a subsection for {}", name.toString());
+      if (sectionOutputStream == null) {
+        LOG.warn("The requested section for {} is empty. It will not be " +
+            "output to the image", name.toString());
+        return;
+      }
       // The output stream must be flushed before the length is obtained
-      // as the flush can move the length forward.
-      sectionOutputStream.flush();
+      // as the flush can move the length forward. A compressed stream is
+      // finished so that every sub-section can be decompressed on its own.
+      flushSectionOutputStream();
+      sectionOutputStream = null;
       long length = fileChannel.position() - subSectionOffset;
       if (length == 0) {
         LOG.warn("The requested section for {} is empty. It will not be " +
@@ -698,6 +770,9 @@ public void commitSubSection(FileSummary.Builder summary, SectionName name)
     }
 
     private void flushSectionOutputStream() throws IOException {
+      if (sectionOutputStream == null) {
+        return;
+      }
       if (codec != null) {
         ((CompressionOutputStream) sectionOutputStream).finish();
       }
@@ -722,10 +797,35 @@ long save(File file, FSImageCompression compression) throws IOException {
             (numErrors > 0 ? (" with" + numErrors + " errors") : ""));
         return numErrors;
       } finally {
+        if (parallelSaveService != null) {
+          parallelSaveService.shutdownNow();
+          parallelSaveService = null;
+        }
         fout.close();
       }
     }
 
+    /**
+     * Create the executor used to serialize sub-sections concurrently with
+     * the number of threads configured for parallel loading.
+     */
+    private void startParallelSaveService() {
+      int threads = conf.getInt(DFSConfigKeys.DFS_IMAGE_PARALLEL_THREADS_KEY,
+          DFSConfigKeys.DFS_IMAGE_PARALLEL_THREADS_DEFAULT);
+      if (threads < 1) {
+        LOG.warn("Parallel is enabled and {} is set to {}. Setting to the " +
+            "default value {}", DFSConfigKeys.DFS_IMAGE_PARALLEL_THREADS_KEY,
+            threads, DFSConfigKeys.DFS_IMAGE_PARALLEL_THREADS_DEFAULT);
+        threads = DFSConfigKeys.DFS_IMAGE_PARALLEL_THREADS_DEFAULT;
+      }
+      parallelSaveThreads = threads;
+      parallelSaveService = Executors.newFixedThreadPool(threads,
+          new ThreadFactoryBuilder().setDaemon(true)
+              .setNameFormat("FSImageSaver-%d").build());
+      LOG.info("The fsimage sub-sections will be serialized in parallel " +
+          "using {} threads", threads);
+    }
+
     private void enableSubSectionsIfRequired() {
       boolean parallelEnabled = enableParallelSaveAndLoad(conf);
       int inodeThreshold = conf.getInt(
@@ -761,6 +861,12 @@ private void enableSubSectionsIfRequired() {
           // Calculate the inodes per section rounded up to the nearest int
           inodesPerSubSection = (inodeCount + targetSections - 1) /
               targetSections;
+          if (conf.getBoolean(DFSConfigKeys.DFS_IMAGE_PARALLEL_SAVE_KEY,
+              DFSConfigKeys.DFS_IMAGE_PARALLEL_SAVE_DEFAULT)) {
+            inodesPerSubSection = Math.min(inodesPerSubSection,
+                PARALLEL_SAVE_MAX_INODES_PER_SUB_SECTION);
+            startParallelSaveService();
+          }
         }
       } else {
         writeSubSections = false;
@@ -780,9 +886,9 @@ private long saveInodes(FileSummary.Builder summary) throws IOException {
       FSImageFormatPBINode.Saver saver = new FSImageFormatPBINode.Saver(this,
           summary);
 
-      saver.serializeINodeSection(sectionOutputStream);
-      saver.serializeINodeDirectorySection(sectionOutputStream);
-      saver.serializeFilesUCSection(sectionOutputStream);
+      saver.serializeINodeSection();
+      saver.serializeINodeDirectorySection(getSectionOutputStream());
+      saver.serializeFilesUCSection(getSectionOutputStream());
 
       return saver.getNumImageErrors();
     }
@@ -795,13 +901,13 @@ private long saveSnapshots(FileSummary.Builder summary) throws IOException {
       FSImageFormatPBSnapshot.Saver snapshotSaver = new FSImageFormatPBSnapshot.Saver(
           this, summary, context, context.getSourceNamesystem());
 
-      snapshotSaver.serializeSnapshotSection(sectionOutputStream);
+      snapshotSaver.serializeSnapshotSection(getSectionOutputStream());
       // Skip snapshot-related sections when there is no snapshot.
       if (context.getSourceNamesystem().getSnapshotManager()
           .getNumSnapshots() > 0) {
-        snapshotSaver.serializeSnapshotDiffSection(sectionOutputStream);
+        snapshotSaver.serializeSnapshotDiffSection(getSectionOutputStream());
       }
-      snapshotSaver.serializeINodeReferenceSection(sectionOutputStream);
+      snapshotSaver.serializeINodeReferenceSection(getSectionOutputStream());
       return snapshotSaver.getNumImageErrors();
     }
 
@@ -830,10 +936,8 @@ private long saveInternal(FileOutputStream fout,
       codec = compression.getImageCodec();
       if (codec != null) {
         b.setCodec(codec.getClass().getCanonicalName());
-        sectionOutputStream = codec.createOutputStream(underlyingOutputStream);
-      } else {
-        sectionOutputStream = underlyingOutputStream;
       }
+      sectionOutputStream = null;
 
       saveNameSystemSection(b);
       // Check for cancellation right after serializing the name system section.
@@ -887,12 +991,13 @@ private void saveSecretManagerSection(FileSummary.Builder summary)
       final FSNamesystem fsn = context.getSourceNamesystem();
       DelegationTokenSecretManager.SecretManagerState state = fsn
           .saveSecretManagerState();
-      state.section.writeDelimitedTo(sectionOutputStream);
+      OutputStream out = getSectionOutputStream();
+      state.section.writeDelimitedTo(out);
       for (SecretManagerSection.DelegationKey k : state.keys)
-        k.writeDelimitedTo(sectionOutputStream);
+        k.writeDelimitedTo(out);
 
       for (SecretManagerSection.PersistToken t : state.tokens)
-        t.writeDelimitedTo(sectionOutputStream);
+        t.writeDelimitedTo(out);
 
       commitSection(summary, SectionName.SECRET_MANAGER);
     }
@@ -901,13 +1006,14 @@ private void saveCacheManagerSection(FileSummary.Builder summary)
         throws IOException {
       final FSNamesystem fsn = context.getSourceNamesystem();
       CacheManager.PersistState state = fsn.getCacheManager().saveState();
-      state.section.writeDelimitedTo(sectionOutputStream);
+      OutputStream out = getSectionOutputStream();
+      state.section.writeDelimitedTo(out);
 
       for (CachePoolInfoProto p : state.pools)
-        p.writeDelimitedTo(sectionOutputStream);
+        p.writeDelimitedTo(out);
 
       for (CacheDirectiveInfoProto p : state.directives)
-        p.writeDelimitedTo(sectionOutputStream);
+        p.writeDelimitedTo(out);
 
       commitSection(summary, SectionName.CACHE_MANAGER);
     }
@@ -925,14 +1031,14 @@ private void saveErasureCodingSection(
 
       ErasureCodingSection section = ErasureCodingSection.newBuilder().
           addAllPolicies(ecPolicyProtoes).build();
-      section.writeDelimitedTo(sectionOutputStream);
+      section.writeDelimitedTo(getSectionOutputStream());
       commitSection(summary, SectionName.ERASURE_CODING);
     }
 
     private void saveNameSystemSection(FileSummary.Builder summary)
         throws IOException {
       final FSNamesystem fsn = context.getSourceNamesystem();
-      OutputStream out = sectionOutputStream;
+      OutputStream out = getSectionOutputStream();
       BlockIdManager blockIdManager = fsn.getBlockManager().getBlockIdManager();
       NameSystemSection.Builder b = NameSystemSection.newBuilder()
           .setGenstampV1(blockIdManager.getLegacyGenerationStamp())
@@ -959,7 +1065,7 @@ private void saveNameSystemSection(FileSummary.Builder summary)
 
     private void saveStringTableSection(FileSummary.Builder summary)
         throws IOException {
-      OutputStream out = sectionOutputStream;
+      OutputStream out = getSectionOutputStream();
 
       SerialNumberManager.StringTable stringTable =
           SerialNumberManager.getStringTable();
@@ -43,6 +43,8 @@
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOGGERS_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_DEFAULT;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_TOKEN_TRACKING_ID_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_TOKEN_TRACKING_ID_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_CHECKPOINT_TXNS_DEFAULT;
@@ -69,6 +71,8 @@
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_LAZY_PERSIST_FILE_SCRUB_INTERVAL_SEC_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MAX_OBJECTS_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MAX_OBJECTS_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_DEFAULT;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_NAME_DIR_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_RESOURCE_CHECK_INTERVAL_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_RESOURCE_CHECK_INTERVAL_KEY;
@@ -444,6 +448,8 @@ private void logAuditEvent(boolean succeeded,
   private final boolean standbyShouldCheckpoint;
   private final int snapshotDiffReportLimit;
   private final int blockDeletionIncrement;
+  /** Whether mkdirs on an existing directory only takes the read lock. */
+  private final boolean mkdirsReadLockEnabled;
 
   /** Interval between each check of lease to release. */
   private final long leaseRecheckIntervalMs;
@@ -778,8 +784,15 @@ static FSNamesystem loadFromDisk(Configuration conf) throws IOException {
     LOG.info("KeyProvider: " + provider);
     if (conf.getBoolean(DFS_NAMENODE_AUDIT_LOG_ASYNC_KEY,
                         DFS_NAMENODE_AUDIT_LOG_ASYNC_DEFAULT)) {
-      LOG.info("Enabling async auditlog");
-      enableAsyncAuditLog();
+      if (conf.getInt(DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_KEY,
+          DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_DEFAULT) > 0) {
+        LOG.info("Not enabling async auditlog, audit events are already "
+            + "written in the background as "
+            + DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_KEY + " is set");
+      } else {
+        LOG.info("Enabling async auditlog");
+        enableAsyncAuditLog();
+      }
     }
     fsLock = new FSNamesystemLock(conf, detailedLockHoldTimeMetrics);
     cond = fsLock.newWriteLockCondition();
@@ -799,6 +812,9 @@ static FSNamesystem loadFromDisk(Configuration conf) throws IOException {
       this.snapshotDiffReportLimit =
           conf.getInt(DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_LIMIT,
               DFS_NAMENODE_SNAPSHOT_DIFF_LISTING_LIMIT_DEFAULT);
+      this.mkdirsReadLockEnabled = conf.getBoolean(
+          DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_KEY,
+          DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_DEFAULT);
 
       LOG.info("fsOwner             = " + fsOwner);
       LOG.info("supergroup          = " + supergroup);
@@ -1639,6 +1655,13 @@ public static List<URI> getSharedEditsDirs(Configuration conf) {
   public void readLock() {
     this.fsLock.readLock();
   }
+  /**
+   * Acquire the read lock ahead of queued writers, see
+   * {@link FSNamesystemLock#readLockBarging()}.
+   */
+  void readLockBarging() {
+    this.fsLock.readLockBarging();
+  }
   @Override
   public void readLockInterruptibly() throws InterruptedException {
     this.fsLock.readLockInterruptibly();
@@ -1751,6 +1774,13 @@ void close() {
       } finally {
         IOUtils.cleanupWithLogger(LOG, dir);
         IOUtils.cleanupWithLogger(LOG, fsImage);
+        if (auditLoggers != null) {
+          for (AuditLogger logger : auditLoggers) {
+            if (logger instanceof FSNamesystemAuditLogger) {
+              ((FSNamesystemAuditLogger) logger).close();
+            }
+          }
+        }
       }
     }
   }
@@ -2000,7 +2030,7 @@ LocatedBlocks getBlockLocations(String clientMachine, String srcArg,
     final FSPermissionChecker pc = getPermissionChecker();
     final INode inode;
     try {
-      readLock();
+      readLockBarging();
       try {
         checkOperation(OperationCategory.READ);
         res = FSDirStatAndListingOp.getBlockLocations(
@@ -3306,7 +3336,7 @@ HdfsFileStatus getFileInfo(final String src, boolean resolveLink,
     HdfsFileStatus stat = null;
     final FSPermissionChecker pc = getPermissionChecker();
     try {
-      readLock();
+      readLockBarging();
       try {
         checkOperation(OperationCategory.READ);
         stat = FSDirStatAndListingOp.getFileInfo(
@@ -3358,14 +3388,28 @@ boolean mkdirs(String src, PermissionStatus permissions,
     checkOperation(OperationCategory.WRITE);
     final FSPermissionChecker pc = getPermissionChecker();
     try {
-      writeLock();
-      try {
-        checkOperation(OperationCategory.WRITE);
-        checkNameNodeSafeMode("Cannot create directory " + src);
-        auditStat = FSDirMkdirOp.mkdirs(this, pc, src, permissions,
-            createParent);
-      } finally {
-        writeUnlock(operationName);
+      if (mkdirsReadLockEnabled) {
+        // Most mkdirs calls from job frameworks target directories that
+        // already exist, answer those without queueing for the write lock.
+        readLock();
+        try {
+          checkOperation(OperationCategory.WRITE);
+          checkNameNodeSafeMode("Cannot create directory " + src);
+          auditStat = FSDirMkdirOp.getExistingDirectory(this, pc, src);
+        } finally {
+          readUnlock(operationName);
+        }
+      }
+      if (auditStat == null) {
+        writeLock();
+        try {
+          checkOperation(OperationCategory.WRITE);
+          checkNameNodeSafeMode("Cannot create directory " + src);
+          auditStat = FSDirMkdirOp.mkdirs(this, pc, src, permissions,
+              createParent);
+        } finally {
+          writeUnlock(operationName);
+        }
       }
     } catch (AccessControlException e) {
       logAuditEvent(false, operationName, src);
@@ -4381,6 +4425,29 @@ public int getExpiredHeartbeats() {
     return datanodeStatistics.getExpiredHeartbeats();
   }
   
+  @Metric({"AuditLogQueueLength",
+      "Number of audit events waiting or being written"})
+  public int getAuditLogQueueLength() {
+    AsyncAuditDispatcher dispatcher = getAuditDispatcher();
+    return dispatcher == null ? 0 : dispatcher.getQueueLength();
+  }
+
+  @Metric({"AuditEventsDropped",
+      "Number of audit events dropped as no audit event slot was free"})
+  public long getAuditEventsDropped() {
+    AsyncAuditDispatcher dispatcher = getAuditDispatcher();
+    return dispatcher == null ? 0 : dispatcher.getDroppedEvents();
+  }
+
+  private AsyncAuditDispatcher getAuditDispatcher() {
+    for (AuditLogger logger : auditLoggers) {
+      if (logger instanceof FSNamesystemAuditLogger) {
+        return ((FSNamesystemAuditLogger) logger).getDispatcher();
+      }
+    }
+    return null;
+  }
+
   @Metric({"TransactionsSinceLastCheckpoint",
       "Number of transactions since last checkpoint"})
   public long getTransactionsSinceLastCheckpoint() {
@@ -8116,6 +8183,8 @@ void checkAccess(String src, FsAction mode) throws IOException {
    */
   @VisibleForTesting
   static class FSNamesystemAuditLogger extends DefaultAuditLogger {
+    /** Writes the events in the background, null if disabled. */
+    private AsyncAuditDispatcher dispatcher;
 
     @Override
     public void initialize(Configuration conf) {
@@ -8134,6 +8203,21 @@ public void initialize(Configuration conf) {
 
       debugCmdSet.addAll(Arrays.asList(conf.getTrimmedStrings(
           DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_DEBUG_CMDLIST)));
+
+      final int queueSize = conf.getInt(
+          DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_KEY,
+          DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_DEFAULT);
+      if (queueSize > 0 && dispatcher == null) {
+        final boolean blocking = conf.getBoolean(
+            DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_BLOCKING_KEY,
+            DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_BLOCKING_DEFAULT);
+        LOG.info("Writing audit events in the background, queue size {}, "
+            + "blocking {}", queueSize, blocking);
+        dispatcher = new AsyncAuditDispatcher(queueSize, blocking,
+            e -> logAuditMessage(formatAuditEvent(e.succeeded, e.userName,
+                e.addr, e.cmd, e.src, e.dst, e.status, e.callerContext, e.ugi,
+                e.dtSecretManager, e.protocol)));
+      }
     }
 
     @Override
@@ -8144,62 +8228,77 @@ public void logAuditEvent(boolean succeeded, String userName,
 
       if (auditLog.isDebugEnabled() ||
           (auditLog.isInfoEnabled() && !debugCmdSet.contains(cmd))) {
-        final StringBuilder sb = STRING_BUILDER.get();
-        src = escapeJava(src);
-        dst = escapeJava(dst);
-        sb.setLength(0);
-        sb.append("allowed=").append(succeeded).append("\t")
-            .append("ugi=").append(userName).append("\t")
-            .append("ip=").append(addr).append("\t")
-            .append("cmd=").append(cmd).append("\t")
-            .append("src=").append(src).append("\t")
-            .append("dst=").append(dst).append("\t");
-        if (null == status) {
-          sb.append("perm=null");
+        if (dispatcher != null) {
+          dispatcher.dispatch(succeeded, userName, addr, cmd, src, dst,
+              status, callerContext, ugi, dtSecretManager,
+              Server.getProtocol());
         } else {
-          sb.append("perm=")
-              .append(status.getOwner()).append(":")
-              .append(status.getGroup()).append(":")
-              .append(status.getPermission());
+          logAuditMessage(formatAuditEvent(succeeded, userName, addr, cmd,
+              src, dst, status, callerContext, ugi, dtSecretManager,
+              Server.getProtocol()));
         }
-        if (logTokenTrackingId) {
-          sb.append("\t").append("trackingId=");
-          String trackingId = null;
-          if (ugi != null && dtSecretManager != null
-              && ugi.getAuthenticationMethod() == AuthenticationMethod.TOKEN) {
-            for (TokenIdentifier tid: ugi.getTokenIdentifiers()) {
-              if (tid instanceof DelegationTokenIdentifier) {
-                DelegationTokenIdentifier dtid =
-                    (DelegationTokenIdentifier)tid;
-                trackingId = dtSecretManager.getTokenTrackingId(dtid);
-                break;
-              }
+      }
+    }
+
+    private String formatAuditEvent(boolean succeeded, String userName,
+        InetAddress addr, String cmd, String src, String dst,
+        FileStatus status, CallerContext callerContext, UserGroupInformation ugi,
+        DelegationTokenSecretManager dtSecretManager, String protocol) {
+      final StringBuilder sb = STRING_BUILDER.get();
+      src = escapeJava(src);
+      dst = escapeJava(dst);
+      sb.setLength(0);
+      sb.append("allowed=").append(succeeded).append("\t")
+          .append("ugi=").append(userName).append("\t")
+          .append("ip=").append(addr).append("\t")
+          .append("cmd=").append(cmd).append("\t")
+          .append("src=").append(src).append("\t")
+          .append("dst=").append(dst).append("\t");
+      if (null == status) {
+        sb.append("perm=null");
+      } else {
+        sb.append("perm=")
+            .append(status.getOwner()).append(":")
+            .append(status.getGroup()).append(":")
+            .append(status.getPermission());
+      }
+      if (logTokenTrackingId) {
+        sb.append("\t").append("trackingId=");
+        String trackingId = null;
+        if (ugi != null && dtSecretManager != null
+            && ugi.getAuthenticationMethod() == AuthenticationMethod.TOKEN) {
+          for (TokenIdentifier tid: ugi.getTokenIdentifiers()) {
+            if (tid instanceof DelegationTokenIdentifier) {
+              DelegationTokenIdentifier dtid =
+                  (DelegationTokenIdentifier)tid;
+              trackingId = dtSecretManager.getTokenTrackingId(dtid);
+              break;
             }
           }
-          sb.append(trackingId);
         }
-        sb.append("\t").append("proto=")
-            .append(Server.getProtocol());
-        if (isCallerContextEnabled &&
-            callerContext != null &&
-            callerContext.isContextValid()) {
-          sb.append("\t").append("callerContext=");
-          if (callerContext.getContext().length() > callerContextMaxLen) {
-            sb.append(callerContext.getContext().substring(0,
-                callerContextMaxLen));
-          } else {
-            sb.append(callerContext.getContext());
-          }
-          if (callerContext.getSignature() != null &&
-              callerContext.getSignature().length > 0 &&
-              callerContext.getSignature().length <= callerSignatureMaxLen) {
-            sb.append(":")
-                .append(new String(callerContext.getSignature(),
-                CallerContext.SIGNATURE_ENCODING));
-          }
+        sb.append(trackingId);
+      }
+      sb.append("\t").append("proto=")
+          .append(protocol);
+      if (isCallerContextEnabled &&
+          callerContext != null &&
+          callerContext.isContextValid()) {
+        sb.append("\t").append("callerContext=");
+        if (callerContext.getContext().length() > callerContextMaxLen) {
+          sb.append(callerContext.getContext().substring(0,
+              callerContextMaxLen));
+        } else {
+          sb.append(callerContext.getContext());
+        }
+        if (callerContext.getSignature() != null &&
+            callerContext.getSignature().length > 0 &&
+            callerContext.getSignature().length <= callerSignatureMaxLen) {
+          sb.append(":")
+              .append(new String(callerContext.getSignature(),
+              CallerContext.SIGNATURE_ENCODING));
         }
-        logAuditMessage(sb.toString());
       }
+      return sb.toString();
     }
 
     @Override
@@ -8214,6 +8313,18 @@ public void logAuditEvent(boolean succeeded, String userName,
     public void logAuditMessage(String message) {
       auditLog.info(message);
     }
+
+    /** Write the queued events and stop the background writer, if any. */
+    void close() {
+      if (dispatcher != null) {
+        dispatcher.stop();
+      }
+    }
+
+    /** @return the background writer, null if disabled. */
+    AsyncAuditDispatcher getDispatcher() {
+      return dispatcher;
+    }
   }
 
   private static void enableAsyncAuditLog() {
@@ -38,6 +38,8 @@
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_LOCK_SUPPRESS_WARNING_INTERVAL_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_FSLOCK_FAIR_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_FSLOCK_FAIR_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_DEFAULT;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_LOCK_DETAILED_METRICS_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_LOCK_DETAILED_METRICS_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_READ_LOCK_REPORTING_THRESHOLD_MS_DEFAULT;
@@ -109,6 +111,16 @@ public Long initialValue() {
       new AtomicReference<>(new LockHeldInfo(0, 0, null));
   private LockHeldInfo longestWriteLockHeldInfo = new LockHeldInfo(0, 0, null);
 
+  /**
+   * Time (ns) a writer may wait before {@link #readLockBarging()} stops
+   * acquiring the read lock ahead of it. Negative if barging is disabled.
+   */
+  private final long readBargingMaxWriterWaitNanos;
+  /** Number of threads waiting for the write lock, if barging is enabled. */
+  private final AtomicInteger numWaitingWriters = new AtomicInteger(0);
+  /** Time stamp (ns) since when threads have been waiting for the write lock. */
+  private volatile long writersWaitingSinceNanos;
+
   @VisibleForTesting
   static final String OP_NAME_OTHER = "OTHER";
   private static final String READ_LOCK_METRIC_PREFIX = "FSNReadLock";
@@ -148,12 +160,37 @@ public Long initialValue() {
     FSNamesystem.LOG.info("Detailed lock hold time metrics enabled: " +
         this.metricsEnabled);
     this.detailedHoldTimeMetrics = detailedHoldTimeMetrics;
+    long readBargingMaxWriterWaitMs = conf.getLong(
+        DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY,
+        DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_DEFAULT);
+    this.readBargingMaxWriterWaitNanos = readBargingMaxWriterWaitMs < 0 ? -1 :
+        TimeUnit.MILLISECONDS.toNanos(readBargingMaxWriterWaitMs);
   }
 
   public void readLock() {
     doLock(false);
   }
 
+  /**
+   * Acquire the read lock ahead of the threads waiting for the write lock,
+   * even if the lock is fair, unless a writer has been waiting for longer
+   * than {@link org.apache.hadoop.hdfs.DFSConfigKeys
+   * #DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY}. Falls back to
+   * {@link #readLock()} if barging is disabled or the write lock is held.
+   */
+  public void readLockBarging() {
+    if (readBargingMaxWriterWaitNanos >= 0) {
+      final long startNanos = timer.monotonicNowNanos();
+      if ((numWaitingWriters.get() == 0 || startNanos
+          - writersWaitingSinceNanos <= readBargingMaxWriterWaitNanos)
+          && coarseLock.readLock().tryLock()) {
+        updateLockWait(startNanos, false);
+        return;
+      }
+    }
+    doLock(false);
+  }
+
   public void readLockInterruptibly() throws InterruptedException {
     doLockInterruptibly(false);
   }
@@ -336,7 +373,11 @@ private void addMetric(String operationName, long value, boolean isWrite) {
   private void doLock(boolean isWrite) {
     long startNanos = timer.monotonicNowNanos();
     if (isWrite) {
+      final boolean waiting = beginWriterWait(startNanos);
       coarseLock.writeLock().lock();
+      if (waiting) {
+        endWriterWait();
+      }
     } else {
       coarseLock.readLock().lock();
     }
@@ -347,13 +388,43 @@ private void doLockInterruptibly(boolean isWrite)
       throws InterruptedException {
     long startNanos = timer.monotonicNowNanos();
     if (isWrite) {
-      coarseLock.writeLock().lockInterruptibly();
+      final boolean waiting = beginWriterWait(startNanos);
+      try {
+        coarseLock.writeLock().lockInterruptibly();
+      } finally {
+        if (waiting) {
+          endWriterWait();
+        }
+      }
     } else {
       coarseLock.readLock().lockInterruptibly();
     }
     updateLockWait(startNanos, isWrite);
   }
 
+  /**
+   * Track a thread about to wait for the write lock, so that barging readers
+   * can tell for how long writers have been waiting.
+   * @return whether the thread was counted as a waiting writer.
+   */
+  private boolean beginWriterWait(long startNanos) {
+    if (readBargingMaxWriterWaitNanos < 0
+        || coarseLock.isWriteLockedByCurrentThread()) {
+      return false;
+    }
+    if (numWaitingWriters.getAndIncrement() == 0) {
+      writersWaitingSinceNanos = startNanos;
+    }
+    return true;
+  }
+
+  private void endWriterWait() {
+    if (numWaitingWriters.decrementAndGet() > 0) {
+      // A writer got the lock; give the remaining ones a fresh allowance.
+      writersWaitingSinceNanos = timer.monotonicNowNanos();
+    }
+  }
+
   private void updateLockWait(long startNanos, boolean isWrite) {
     long now = timer.monotonicNowNanos();
     updateProcessingDetails(Timing.LOCKWAIT, now - startNanos);
@@ -30,6 +30,7 @@
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableCounterLong;
 import org.apache.hadoop.metrics2.lib.MutableGaugeInt;
+import org.apache.hadoop.metrics2.lib.MutableGaugeLong;
 import org.apache.hadoop.metrics2.lib.MutableQuantiles;
 import org.apache.hadoop.metrics2.lib.MutableRate;
 import org.apache.hadoop.metrics2.lib.MutableStat;
@@ -65,6 +66,11 @@ public class NameNodeMetrics {
   MutableCounterLong numTimesReReplicationNotScheduled;
   @Metric("Number of timed out block re-replications")
   MutableCounterLong timeoutReReplications;
+  @Metric("Number of blocks scheduled for reconstruction")
+  MutableCounterLong reconstructionBlocksScheduled;
+  @Metric("Blocks scheduled for reconstruction per second by the last " +
+      "iteration of the redundancy monitor")
+  MutableGaugeLong reconstructionScheduleRate;
   @Metric("Number of allowSnapshot operations")
   MutableCounterLong allowSnapshotOps;
   @Metric("Number of disallowSnapshot operations")
@@ -129,6 +135,9 @@ public long totalFileOps(){
   private final MutableQuantiles[] warmUpEDEKTimeQuantiles;
   @Metric("Resource check time") private MutableRate resourceCheckTime;
   private final MutableQuantiles[] resourceCheckTimeQuantiles;
+  @Metric("Metadata sync task time")
+  private MutableRate metadataSyncTaskTime;
+  private final MutableQuantiles[] metadataSyncTaskTimeQuantiles;
 
   @Metric("Duration in SafeMode at startup in msec")
   MutableGaugeInt safeModeTime;
@@ -146,6 +155,10 @@ public long totalFileOps(){
   @Metric("Time between edit log tailing in msec")
   MutableRate editLogTailInterval;
   private final MutableQuantiles[] editLogTailIntervalQuantiles;
+  @Metric("Number of edit log ops replayed")
+  MutableCounterLong editLogOpsReplayed;
+  @Metric("Edit log ops replayed per second by the last replay")
+  MutableGaugeLong editLogReplayRate;
 
   @Metric("GetImageServlet getEdit")
   MutableRate getEdit;
@@ -171,6 +184,7 @@ public long totalFileOps(){
     generateEDEKTimeQuantiles = new MutableQuantiles[len];
     warmUpEDEKTimeQuantiles = new MutableQuantiles[len];
     resourceCheckTimeQuantiles = new MutableQuantiles[len];
+    metadataSyncTaskTimeQuantiles = new MutableQuantiles[len];
     editLogTailTimeQuantiles = new MutableQuantiles[len];
     editLogFetchTimeQuantiles = new MutableQuantiles[len];
     numEditLogLoadedQuantiles = new MutableQuantiles[len];
@@ -200,6 +214,9 @@ public long totalFileOps(){
       resourceCheckTimeQuantiles[i] = registry.newQuantiles(
           "resourceCheckTime" + interval + "s",
           "resource check time", "ops", "latency", interval);
+      metadataSyncTaskTimeQuantiles[i] = registry.newQuantiles(
+          "metadataSyncTaskTime" + interval + "s",
+          "Metadata sync task time", "ops", "latency", interval);
       editLogTailTimeQuantiles[i] = registry.newQuantiles(
           "editLogTailTime" + interval + "s",
           "Edit log tailing time", "ops", "latency", interval);
@@ -355,6 +372,13 @@ public void incNumTimesReReplicationNotScheduled() {
     numTimesReReplicationNotScheduled.incr();
   }
 
+  public void addReconstructionScheduled(long numBlocks, long elapsed) {
+    reconstructionBlocksScheduled.incr(numBlocks);
+    if (numBlocks > 0) {
+      reconstructionScheduleRate.set(numBlocks * 1000 / Math.max(elapsed, 1));
+    }
+  }
+
   public void incTimeoutReReplications() {
     timeoutReReplications.incr();
   }
@@ -425,6 +449,13 @@ public void addResourceCheckTime(long latency) {
     }
   }
 
+  public void addMetadataSyncTaskTime(long latency) {
+    metadataSyncTaskTime.add(latency);
+    for (MutableQuantiles q : metadataSyncTaskTimeQuantiles) {
+      q.add(latency);
+    }
+  }
+
   public void addEditLogTailTime(long elapsed) {
     editLogTailTime.add(elapsed);
     for (MutableQuantiles q : editLogTailTimeQuantiles) {
@@ -439,6 +470,18 @@ public void addEditLogFetchTime(long elapsed) {
     }
   }
 
+  /**
+   * Record a replay of edit log ops at startup or by edit log tailing.
+   * @param numOps the number of ops replayed
+   * @param elapsed the time in msec taken to replay them
+   */
+  public void addEditLogReplay(long numOps, long elapsed) {
+    editLogOpsReplayed.incr(numOps);
+    if (numOps > 0) {
+      editLogReplayRate.set(numOps * 1000 / Math.max(elapsed, 1));
+    }
+  }
+
   public void addNumEditLogLoaded(long loaded) {
     numEditLogLoaded.add(loaded);
     for (MutableQuantiles q : numEditLogLoadedQuantiles) {
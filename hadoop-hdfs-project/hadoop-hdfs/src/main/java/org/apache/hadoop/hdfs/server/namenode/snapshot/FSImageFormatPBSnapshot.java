@@ -532,6 +532,7 @@ public void serializeSnapshotDiffSection(OutputStream out)
         if (i % parent.getInodesPerSubSection() == 0) {
           parent.commitSubSection(headers,
               FSImageFormatProtobuf.SectionName.SNAPSHOT_DIFF_SUB);
+          out = parent.getSectionOutputStream();
         }
       }
       parent.commitSectionAndSubSection(headers,
@@ -200,6 +200,8 @@ public void setSnapshottable(final String path, boolean checkNestedSnapshottable
       d.addSnapshottableFeature();
     }
     addSnapshottable(d);
+    // the subtree now counts a snapshottable directory
+    fsdir.invalidateContentSummaryCache();
   }
   
   /** Add the given snapshottable directory to {@link #snapshottables}. */
@@ -246,6 +248,8 @@ public void resetSnapshottable(final String path) throws IOException {
       d.removeSnapshottableFeature();
     }
     removeSnapshottable(d);
+    // the subtree no longer counts a snapshottable directory
+    fsdir.invalidateContentSummaryCache();
   }
 
   /**
@@ -340,6 +344,8 @@ public String createSnapshot(final LeaseManager leaseManager,
     //create success, update id
     snapshotCounter++;
     numSnapshots.getAndIncrement();
+    // deletions no longer update the quota usage of the snapshotted tree
+    fsdir.invalidateContentSummaryCache();
     return Snapshot.getSnapshotPath(snapshotRoot, snapshotName);
   }
   
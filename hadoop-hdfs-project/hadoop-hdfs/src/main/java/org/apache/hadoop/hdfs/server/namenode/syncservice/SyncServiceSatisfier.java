@@ -58,6 +58,7 @@ public class SyncServiceSatisfier implements Runnable {
   private BlockManager blockManager;
 
   private SyncMonitor syncMonitor;
+  private SyncTaskScheduler syncTaskScheduler;
   private Queue<String> resyncQueue;
 
   public SyncServiceSatisfier(Namesystem namesystem, BlockManager blockManager, Configuration conf) {
@@ -87,7 +88,7 @@ public synchronized void start(boolean reconfigStart) {
         createAliasMapWriter(blockManager, conf);
 
     final MountManager mountManager = namesystem.getMountManager();
-    SyncTaskScheduler syncTaskScheduler = new SyncTaskSchedulerImpl(this,
+    this.syncTaskScheduler = new SyncTaskSchedulerImpl(this,
         blockManager, mountManager::updateStats, conf);
 
     this.syncMonitor = new SyncMonitor(namesystem,
@@ -109,6 +110,9 @@ public synchronized void stop() {
     if (syncServiceSatisfierThread != null) {
       syncServiceSatisfierThread.interrupt();
     }
+    if (syncTaskScheduler != null) {
+      syncTaskScheduler.shutdown();
+    }
   }
 
   /**
@@ -147,11 +147,10 @@ private FileAndDirsSyncTasks createPlanForINode(
     } else if (node.isFile()) {
       switch (diffEntry.getType()) {
       case CREATE: {
-        SyncTask createdFile =
-            filePlanner.createCreatedFileSyncTasks(snapshotId, node.asFile(),
-                syncMount, targetName);
         FileAndDirsSyncTasks createFileAndDirs = new FileAndDirsSyncTasks();
-        createFileAndDirs.addFileSync(createdFile);
+        createFileAndDirs.addDeferredFileSync(
+            filePlanner.deferCreatedFileSyncTask(snapshotId, node.asFile(),
+                syncMount, targetName));
         return createFileAndDirs;
       }
       case DELETE: {
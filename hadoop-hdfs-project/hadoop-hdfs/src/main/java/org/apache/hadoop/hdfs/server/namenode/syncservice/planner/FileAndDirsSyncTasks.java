@@ -21,21 +21,31 @@
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class FileAndDirsSyncTasks {
 
   List<SyncTask> fileTasks;
   List<SyncTask> dirTasks;
+  List<Supplier<SyncTask>> deferredFileTasks;
 
   public FileAndDirsSyncTasks() {
     this.fileTasks = Lists.newArrayList();
     this.dirTasks = Lists.newArrayList();
+    this.deferredFileTasks = Lists.newArrayList();
   }
 
   public void addFileSync(SyncTask fileCreate) {
     this.fileTasks.add(fileCreate);
   }
 
+  /**
+   * Add a file sync which is only planned when the supplier is called.
+   */
+  public void addDeferredFileSync(Supplier<SyncTask> fileCreate) {
+    this.deferredFileTasks.add(fileCreate);
+  }
+
   public void addDirSync(SyncTask dirCreate) {
     this.dirTasks.add(dirCreate);
   }
@@ -44,6 +54,10 @@ public void addAllFileSync(List<SyncTask> fileCreates) {
     this.fileTasks.addAll(fileCreates);
   }
 
+  public void addAllDeferredFileSync(List<Supplier<SyncTask>> fileCreates) {
+    this.deferredFileTasks.addAll(fileCreates);
+  }
+
   public void addAllDirTasks(List<SyncTask> dirCreates) {
     this.dirTasks.addAll(dirCreates);
   }
@@ -56,6 +70,10 @@ public List<SyncTask> getFileTasks() {
     return fileTasks;
   }
 
+  public List<Supplier<SyncTask>> getDeferredFileTasks() {
+    return deferredFileTasks;
+  }
+
   public List<SyncTask> getAllTasks() {
     List<SyncTask> allTasks = Lists.newArrayList();
     allTasks.addAll(dirTasks);
@@ -75,5 +93,6 @@ public List<SyncTask> getAllTasksForDelete() {
   public void append(FileAndDirsSyncTasks add) {
     this.fileTasks.addAll(add.fileTasks);
     this.dirTasks.addAll(add.dirTasks);
+    this.deferredFileTasks.addAll(add.deferredFileTasks);
   }
 }
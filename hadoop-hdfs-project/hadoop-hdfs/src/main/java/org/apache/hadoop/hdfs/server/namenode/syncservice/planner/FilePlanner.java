@@ -35,8 +35,10 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.apache.hadoop.hdfs.server.namenode.syncservice.RemoteSyncURICreator.createRemotePath;
@@ -62,12 +64,12 @@ private static byte[] getNodePath(SnapshotDiffReport.DiffReportEntry dre) {
     }
   }
 
-  public SyncTask createPlanTreeNodeForCreatedFile(SyncMount syncMount,
+  public Supplier<SyncTask> deferCreatedFileSyncTask(SyncMount syncMount,
       int targetSnapshotId, SnapshotDiffReport.DiffReportEntry entry,
       String targetName) throws IOException {
     INodeFile iNodeFile = getINodeFile(syncMount, entry);
-    return createCreatedFileSyncTasks(targetSnapshotId,
-          iNodeFile, syncMount, targetName);
+    return deferCreatedFileSyncTask(targetSnapshotId, iNodeFile, syncMount,
+        targetName);
   }
 
   INodeFile getINodeFile4Snapshot(SyncMount syncMount, String snapshot,
@@ -124,37 +126,39 @@ public SyncTask createCreatedFileSyncTasks(int targetSnapshotId,
     return createFileSyncTask;
   }
 
-  public SyncTask createModifiedFileSyncTasks(int targetSnapshotId,
-      byte[] sourcePath, String targetName, SyncMount syncMount) throws IOException {
+  /**
+   * Resolve the INode of the file now, but only look up the locations of its
+   * blocks when the supplier is called. The located blocks of a file are
+   * much larger than the INode reference, so the plan for a sync mount keeps
+   * the suppliers and only asks for a batch of tasks at a time.
+   */
+  public Supplier<SyncTask> deferCreatedFileSyncTask(int targetSnapshotId,
+      INodeFile nodeFile, SyncMount syncMount, String targetName) {
+    return () -> {
+      try {
+        return createCreatedFileSyncTasks(targetSnapshotId, nodeFile,
+            syncMount, targetName);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Error creating CreateFileSyncTask " +
+            "for " + targetName, e);
+      }
+    };
+  }
+
+  public Supplier<SyncTask> deferModifiedFileSyncTask(int targetSnapshotId,
+      byte[] sourcePath, String targetName, SyncMount syncMount)
+      throws IOException {
     File source = convertPathToAbsoluteFile(sourcePath, syncMount.getLocalPath());
     INodeFile nodeFile = namesystem.getFSDirectory().getINode(
         source.getAbsolutePath()).asFile();
-    while (nodeFile.isUnderConstruction()) {
-      try {
-        //TODO wait until file is not under construction
-        // If file is under construction, we may miss syncing blocks which are under construction
-        Thread.sleep(10);
-      } catch (InterruptedException e) {
-        LOG.error("Thread interrupted while waiting file under construction");
-      }
-    }
-    URI remotePath = createRemotePath(syncMount, targetName);
-    BlockInfo[] nodeFileBlocks = nodeFile.getBlocks(targetSnapshotId);
-    long blockCollectionId = nodeFile.getId();
-    if (nodeFileBlocks == null || nodeFileBlocks.length == 0) {
-      return createTouchFileSyncTasks(remotePath, syncMount, blockCollectionId);
-    }
-    LocatedBlocks locatedBlocks = getLocatedBlocks(targetSnapshotId, nodeFile);
 
     /*
      * We translate MODIFY_FILE To CREATE_FILE here because we only
      * rewrite files. This is because append is not idempotent so it's
      * inadequate for a system that may need to retry writes.
      */
-    SyncTask createFile =
-        SyncTask.createFile(remotePath, syncMount.getName(),
-            locatedBlocks.getLocatedBlocks(), blockCollectionId);
-    return createFile;
+    return deferCreatedFileSyncTask(targetSnapshotId, nodeFile, syncMount,
+        targetName);
   }
 
   public SyncTask createDeletedFileSyncTasks(int targetSnapshotId,
@@ -22,8 +22,11 @@
 import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTask;
 import org.apache.hadoop.hdfs.server.protocol.SyncTask;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.apache.hadoop.hdfs.server.namenode.syncservice.planner.PhasedPlan.Phases.CREATE_DIRS;
@@ -31,7 +34,17 @@
 import static org.apache.hadoop.hdfs.server.namenode.syncservice.planner.PhasedPlan.Phases.DELETES;
 import static org.apache.hadoop.hdfs.server.namenode.syncservice.planner.PhasedPlan.Phases.FINISHED;
 import static org.apache.hadoop.hdfs.server.namenode.syncservice.planner.PhasedPlan.Phases.RENAMES_TO_FINAL;
+import static org.apache.hadoop.hdfs.server.namenode.syncservice.planner.PhasedPlan.Phases.RENAMES_TO_TEMP;
 
+/**
+ * The phases of the sync of a SyncMount snapshot diff.
+ * <p>
+ * The file creations are handed out in batches of at most
+ * createFilesBatchSize tasks. Most of them are deferred: they are only
+ * planned, which looks up the locations of their blocks, once their batch is
+ * popped, so the plan does not hold the located blocks of every file of the
+ * diff at the same time.
+ */
 public class PhasedPlan {
 
   private List<SyncTask> renameToTemporaryName;
@@ -39,17 +52,34 @@ public class PhasedPlan {
   private List<SyncTask> renameToFinalName;
   private List<SyncTask> createDirSyncTasks;
   private List<SyncTask> createFileSyncTasks;
+  private Queue<Supplier<SyncTask>> deferredCreateFileSyncTasks;
+  private final int createFilesBatchSize;
 
   public PhasedPlan(List<SyncTask> renameToTemporaryName,
       List<SyncTask> deleteMetadataSyncTasks,
       List<SyncTask> renameToFinalName,
       List<SyncTask> createDirSyncTasks,
       List<SyncTask> createFileSyncTasks) {
+    this(renameToTemporaryName, deleteMetadataSyncTasks, renameToFinalName,
+        createDirSyncTasks, createFileSyncTasks, Collections.emptyList(),
+        Integer.MAX_VALUE);
+  }
+
+  public PhasedPlan(List<SyncTask> renameToTemporaryName,
+      List<SyncTask> deleteMetadataSyncTasks,
+      List<SyncTask> renameToFinalName,
+      List<SyncTask> createDirSyncTasks,
+      List<SyncTask> createFileSyncTasks,
+      List<Supplier<SyncTask>> deferredCreateFileSyncTasks,
+      int createFilesBatchSize) {
     this.renameToTemporaryName = renameToTemporaryName;
     this.deleteMetadataSyncTasks = deleteMetadataSyncTasks;
     this.renameToFinalName = renameToFinalName;
     this.createDirSyncTasks = createDirSyncTasks;
     this.createFileSyncTasks = createFileSyncTasks;
+    this.deferredCreateFileSyncTasks =
+        new ArrayDeque<>(deferredCreateFileSyncTasks);
+    this.createFilesBatchSize = createFilesBatchSize;
   }
 
   public static PhasedPlan empty() {
@@ -84,11 +114,42 @@ List<SyncTask> peekCreateDirSyncTasks() {
     return createDirSyncTasks;
   }
 
+  /**
+   * Plans all the deferred file creations.
+   */
   @VisibleForTesting
   List<SyncTask> peekCreateFileSyncTasks() {
+    planDeferredCreateFileSyncTasks();
     return createFileSyncTasks;
   }
 
+  private void planDeferredCreateFileSyncTasks() {
+    if (deferredCreateFileSyncTasks.isEmpty()) {
+      return;
+    }
+    List<SyncTask> planned = Lists.newArrayList(createFileSyncTasks);
+    while (!deferredCreateFileSyncTasks.isEmpty()) {
+      planned.add(deferredCreateFileSyncTasks.poll().get());
+    }
+    this.createFileSyncTasks = planned;
+  }
+
+  /**
+   * Pop at most createFilesBatchSize file creations, planning the deferred
+   * ones when the planned ones run out.
+   */
+  private List<SyncTask> popCreateFileBatch() {
+    List<SyncTask> head = createFileSyncTasks.subList(0,
+        Math.min(createFilesBatchSize, createFileSyncTasks.size()));
+    List<SyncTask> batch = Lists.newArrayList(head);
+    head.clear();
+    while (batch.size() < createFilesBatchSize &&
+        !deferredCreateFileSyncTasks.isEmpty()) {
+      batch.add(deferredCreateFileSyncTasks.poll().get());
+    }
+    return batch;
+  }
+
 
   /**
    * TODO Popping the lists might make our phases enum useless, in hindsight.
@@ -102,7 +163,7 @@ public List<SyncTask> popNextSchedulableWork(Phases currentPhase) {
     case CREATE_DIRS:
       return popList(this.createDirSyncTasks);
     case CREATE_FILES:
-      return popList(this.createFileSyncTasks);
+      return popCreateFileBatch();
     case RENAMES_TO_FINAL:
       return popList(this.renameToFinalName);
     case DELETES:
@@ -114,6 +175,7 @@ public List<SyncTask> popNextSchedulableWork(Phases currentPhase) {
 
   public boolean isEmpty() {
     return this.createFileSyncTasks.isEmpty() &&
+        this.deferredCreateFileSyncTasks.isEmpty() &&
         this.createDirSyncTasks.isEmpty() &&
         this.deleteMetadataSyncTasks.isEmpty() &&
         this.renameToFinalName.isEmpty() &&
@@ -122,6 +184,8 @@ public boolean isEmpty() {
 
   public boolean hasNoDownstreamTasksLeft(Phases currentPhase) {
     switch (currentPhase) {
+    case NOT_STARTED:
+      return hasNoDownstreamTasksLeft(RENAMES_TO_TEMP);
     case RENAMES_TO_TEMP:
       return this.renameToTemporaryName.isEmpty() && hasNoDownstreamTasksLeft(DELETES);
     case DELETES:
@@ -131,7 +195,9 @@ public boolean hasNoDownstreamTasksLeft(Phases currentPhase) {
     case CREATE_DIRS:
       return this.createDirSyncTasks.isEmpty() && hasNoDownstreamTasksLeft(CREATE_FILES);
     case CREATE_FILES:
-      return this.createFileSyncTasks.isEmpty() && hasNoDownstreamTasksLeft(FINISHED);
+      return this.createFileSyncTasks.isEmpty() &&
+          this.deferredCreateFileSyncTasks.isEmpty() &&
+          hasNoDownstreamTasksLeft(FINISHED);
     case FINISHED:
       return true;
     default:
@@ -140,6 +206,7 @@ public boolean hasNoDownstreamTasksLeft(Phases currentPhase) {
   }
 
   public void filter(Path pathInAliasMap) {
+    planDeferredCreateFileSyncTasks();
     this.createFileSyncTasks =
         this.createFileSyncTasks
             .stream()
@@ -155,6 +222,8 @@ public String toString() {
         ", renameToFinalName=" + renameToFinalName +
         ", createDirSyncTasks=" + createDirSyncTasks +
         ", createFileSyncTasks=" + createFileSyncTasks +
+        ", deferredCreateFileSyncTasks=" +
+        deferredCreateFileSyncTasks.size() +
         '}';
   }
 
@@ -17,6 +17,7 @@
 package org.apache.hadoop.hdfs.server.namenode.syncservice.planner;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hdfs.DFSUtil;
 import org.apache.hadoop.hdfs.protocol.Block;
@@ -35,9 +36,12 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_DEFAULT;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_KEY;
 import static org.apache.hadoop.hdfs.protocol.SnapshotDiffReport.DiffType.CREATE;
 import static org.apache.hadoop.hdfs.server.namenode.syncservice.RemoteSyncURICreator.createRemotePath;
 
@@ -48,12 +52,19 @@ public class PhasedPlanFactory {
 
   private FilePlanner filePlanner;
   private DirectoryPlanner directoryPlanner;
+  private final int createFilesBatchSize;
 
   public PhasedPlanFactory(FilePlanner filePlanner,
       DirectoryPlanner directoryPlanner, Configuration conf) {
 
     this.filePlanner = filePlanner;
     this.directoryPlanner = directoryPlanner;
+    this.createFilesBatchSize = conf.getInt(
+        DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_KEY,
+        DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_DEFAULT);
+    Preconditions.checkArgument(createFilesBatchSize > 0,
+        "%s must be positive: %s",
+        DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_KEY, createFilesBatchSize);
   }
 
   public PhasedPlan createFromPartitionedDiffReport(PartitionedDiffReport
@@ -86,7 +97,7 @@ public PhasedPlan createFromPartitionedDiffReport(PartitionedDiffReport
     createsSyncTasks.append(createCreateSyncTasks(
         partitionedDiffReport.getCreates(), syncMount, targetSnapshotId));
 
-    List<SyncTask> modifiedSyncTasks = createModifiedSyncTasks(
+    List<Supplier<SyncTask>> modifiedSyncTasks = createModifiedSyncTasks(
         partitionedDiffReport.getModifies(), syncMount, targetSnapshotId);
 
     /**
@@ -94,11 +105,12 @@ public PhasedPlan createFromPartitionedDiffReport(PartitionedDiffReport
      * idempotency's sake.
      */
 
-    createsSyncTasks.addAllFileSync(modifiedSyncTasks);
+    createsSyncTasks.addAllDeferredFileSync(modifiedSyncTasks);
 
     return new PhasedPlan(renameToTemporaryName, deleteSyncTasks.getAllTasksForDelete(),
         renameToFinalName, createsSyncTasks.getDirTasks(),
-        createsSyncTasks.getFileTasks());
+        createsSyncTasks.getFileTasks(),
+        createsSyncTasks.getDeferredFileTasks(), createFilesBatchSize);
   }
 
   private List<SyncTask> createRenameToTemporaryNameSyncTasks(
@@ -244,9 +256,8 @@ FileAndDirsSyncTasks createCreateSyncTaskTree(TranslatedEntry createEntry,
     } else if (diffEntry.getInodeType() == SnapshotDiffReport.INodeType.FILE) {
       try {
         FileAndDirsSyncTasks plan = new FileAndDirsSyncTasks();
-        SyncTask createFile = filePlanner.createPlanTreeNodeForCreatedFile(syncMount,
-            targetSnapshotId, diffEntry, createEntry.getTranslatedName());
-        plan.addFileSync(createFile);
+        plan.addDeferredFileSync(filePlanner.deferCreatedFileSyncTask(syncMount,
+            targetSnapshotId, diffEntry, createEntry.getTranslatedName()));
         return plan;
       } catch (IOException e) {
         //TODO Handle errors
@@ -279,9 +290,8 @@ private FileAndDirsSyncTasks createCreatesFromRenamesSyncTasks(
           plan.append(planForCreatedDirectory);
         } else if (createEntry.getInodeType() == SnapshotDiffReport.INodeType.FILE) {
           String targetName = DFSUtil.bytes2String(createEntry.getSourcePath());
-          SyncTask metadataSyncTask = filePlanner.createPlanTreeNodeForCreatedFile(syncMount,
-              targetSnapshotId, createEntry, targetName);
-          plan.addFileSync(metadataSyncTask);
+          plan.addDeferredFileSync(filePlanner.deferCreatedFileSyncTask(
+              syncMount, targetSnapshotId, createEntry, targetName));
         } else {
           LOG.info("Unsupported INode type: {}", createEntry.getInodeType());
           return null;
@@ -294,7 +304,8 @@ private FileAndDirsSyncTasks createCreatesFromRenamesSyncTasks(
 
   }
 
-  private List<SyncTask> createModifiedSyncTasks(List<TranslatedEntry> modifies,
+  private List<Supplier<SyncTask>> createModifiedSyncTasks(
+      List<TranslatedEntry> modifies,
       SyncMount syncMount, int targetSnapshotId) {
 
     return modifies.stream()
@@ -314,7 +325,8 @@ private List<SyncTask> createModifiedSyncTasks(List<TranslatedEntry> modifies,
    */
 
   @VisibleForTesting
-  Optional<SyncTask> createModifiedSyncTask(TranslatedEntry modifiedEntry,
+  Optional<Supplier<SyncTask>> createModifiedSyncTask(
+      TranslatedEntry modifiedEntry,
       SyncMount syncMount, int targetSnapshotId) {
     DiffReportEntry diffEntry = modifiedEntry.getEntry();
     if (diffEntry.getInodeType() == SnapshotDiffReport.INodeType.DIRECTORY) {
@@ -322,11 +334,10 @@ Optional<SyncTask> createModifiedSyncTask(TranslatedEntry modifiedEntry,
       return Optional.empty();
     } else if (diffEntry.getInodeType() == SnapshotDiffReport.INodeType.FILE) {
       try {
-        SyncTask modifyFile =
-            filePlanner.createModifiedFileSyncTasks(targetSnapshotId,
+        return Optional.of(
+            filePlanner.deferModifiedFileSyncTask(targetSnapshotId,
                 diffEntry.getSourcePath(), modifiedEntry.getTranslatedName(),
-                syncMount);
-        return Optional.of(modifyFile);
+                syncMount));
       } catch (IOException e) {
         //TODO Handle errors
         throw new RuntimeException("Error creating ModifiedSyncTask for " + modifiedEntry.getTranslatedName());
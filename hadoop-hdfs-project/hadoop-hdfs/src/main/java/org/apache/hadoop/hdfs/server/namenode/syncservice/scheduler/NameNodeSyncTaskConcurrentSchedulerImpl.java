@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode.syncservice.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.hdfs.protocol.MetadataSyncTaskOperation;
+import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTask;
+import org.apache.hadoop.hdfs.server.protocol.SyncTaskExecutionResult;
+import org.apache.hadoop.util.concurrent.HadoopExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the metadata sync tasks of a phase on a pool of threads, so that the
+ * round trips to the remote endpoint overlap.
+ * <p>
+ * Tasks on unrelated paths run concurrently. A task waits for the earlier
+ * tasks of its phase on the same path, or on one of its ancestors or
+ * descendants, which keeps the order the planner chose for parents and
+ * children and for the two sides of a rename. A delete below a directory
+ * which the same phase deletes recursively is not sent to the remote
+ * endpoint at all, it is reported as done once the directory is deleted.
+ */
+public class NameNodeSyncTaskConcurrentSchedulerImpl
+    implements NameNodeSyncTaskScheduler {
+  public static final Logger LOG =
+      LoggerFactory.getLogger(NameNodeSyncTaskConcurrentSchedulerImpl.class);
+
+  private final NameNodeSyncTaskSequentialSchedulerImpl taskRunner;
+  private final ExecutorService executor;
+
+  public NameNodeSyncTaskConcurrentSchedulerImpl(
+      NameNodeSyncTaskSequentialSchedulerImpl taskRunner, int threads) {
+    this.taskRunner = taskRunner;
+    this.executor = HadoopExecutors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("MetadataSyncTask-%d").build());
+  }
+
+  @Override
+  public void scheduleOnNameNode(MetadataSyncTask metadataSyncTask) {
+    scheduleOnNameNode(Collections.singletonList(metadataSyncTask));
+  }
+
+  @Override
+  public void scheduleOnNameNode(List<MetadataSyncTask> metadataSyncTasks) {
+    if (executor.isShutdown()) {
+      LOG.warn("Not scheduling {} MetadataSyncTasks, the scheduler is shut " +
+          "down", metadataSyncTasks.size());
+      return;
+    }
+    // the tasks of the phase exactly on a path
+    final Map<String, CompletableFuture<?>> onPath = new HashMap<>();
+    // the tasks of the phase on a path or below it
+    final Map<String, CompletableFuture<?>> underPath = new HashMap<>();
+    // the recursive deletes of the phase
+    final Map<String, CompletableFuture<Boolean>> deletedDirs =
+        new HashMap<>();
+
+    for (MetadataSyncTask task : metadataSyncTasks) {
+      List<String> paths = getPaths(task);
+      List<CompletableFuture<?>> dependencies = Lists.newArrayList();
+      for (String path : paths) {
+        for (String p = getParent(path); p != null; p = getParent(p)) {
+          CompletableFuture<?> f = onPath.get(p);
+          if (f != null) {
+            dependencies.add(f);
+          }
+        }
+        CompletableFuture<?> f = underPath.get(path);
+        if (f != null) {
+          dependencies.add(f);
+        }
+      }
+
+      final CompletableFuture<Boolean> deletedAncestor =
+          isDelete(task) ? getDeletedAncestor(paths.get(0), deletedDirs) : null;
+      // a task which could not run must not hold up the later ones
+      CompletableFuture<Boolean> done = CompletableFuture
+          .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+          .thenApplyAsync(v -> {
+            if (deletedAncestor != null && deletedAncestor.join()) {
+              return skip(task);
+            }
+            return taskRunner.run(task);
+          }, executor)
+          .exceptionally(t -> {
+            LOG.error("Could not run MetadataSyncTask {}", task, t);
+            return false;
+          });
+
+      for (String path : paths) {
+        onPath.merge(path, done, CompletableFuture::allOf);
+        for (String p = path; p != null; p = getParent(p)) {
+          underPath.merge(p, done, CompletableFuture::allOf);
+        }
+      }
+      if (task.getOperation() == MetadataSyncTaskOperation.DELETE_DIRECTORY) {
+        deletedDirs.putIfAbsent(paths.get(0), done);
+      }
+    }
+  }
+
+  private boolean skip(MetadataSyncTask task) {
+    LOG.debug("Skipping {}, which was deleted with its parent", task);
+    try {
+      taskRunner.finishedSuccessfully(task,
+          SyncTaskExecutionResult.emptyResult());
+      return true;
+    } catch (Exception e) {
+      LOG.error("Error finishing task: {} on Namenode: ", task, e);
+      return false;
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static boolean isDelete(MetadataSyncTask task) {
+    return task.getOperation() == MetadataSyncTaskOperation.DELETE_FILE ||
+        task.getOperation() == MetadataSyncTaskOperation.DELETE_DIRECTORY;
+  }
+
+  private static CompletableFuture<Boolean> getDeletedAncestor(String path,
+      Map<String, CompletableFuture<Boolean>> deletedDirs) {
+    for (String p = getParent(path); p != null; p = getParent(p)) {
+      CompletableFuture<Boolean> f = deletedDirs.get(p);
+      if (f != null) {
+        return f;
+      }
+    }
+    return null;
+  }
+
+  private static List<String> getPaths(MetadataSyncTask task) {
+    URI renamedTo = null;
+    if (task instanceof MetadataSyncTask.RenameFileMetadataSyncTask) {
+      renamedTo = ((MetadataSyncTask.RenameFileMetadataSyncTask) task)
+          .renamedTo;
+    } else if (task instanceof
+        MetadataSyncTask.RenameDirectoryMetadataSyncTask) {
+      renamedTo = ((MetadataSyncTask.RenameDirectoryMetadataSyncTask) task)
+          .renamedTo;
+    }
+    String path = normalize(task.getUri());
+    return renamedTo == null ? Collections.singletonList(path) :
+        Lists.newArrayList(path, normalize(renamedTo));
+  }
+
+  @VisibleForTesting
+  static String normalize(URI uri) {
+    String path = uri.getPath();
+    if (path == null || path.isEmpty()) {
+      return "/";
+    }
+    if (path.length() > 1 && path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    return path.startsWith("/") ? path : "/" + path;
+  }
+
+  @VisibleForTesting
+  static String getParent(String path) {
+    if (path.equals("/")) {
+      return null;
+    }
+    int i = path.lastIndexOf('/');
+    return i <= 0 ? "/" : path.substring(0, i);
+  }
+}
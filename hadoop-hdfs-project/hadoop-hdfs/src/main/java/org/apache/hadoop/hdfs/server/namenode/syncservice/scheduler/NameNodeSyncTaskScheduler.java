@@ -18,7 +18,26 @@
 
 import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTask;
 
+import java.util.List;
+
 public interface NameNodeSyncTaskScheduler {
 
   void scheduleOnNameNode(MetadataSyncTask metadataSyncTask);
+
+  /**
+   * Schedule the tasks of a phase. A task on a path must not overtake an
+   * earlier task of the list on the same path or on one of its ancestors or
+   * descendants.
+   */
+  default void scheduleOnNameNode(List<MetadataSyncTask> metadataSyncTasks) {
+    for (MetadataSyncTask metadataSyncTask : metadataSyncTasks) {
+      scheduleOnNameNode(metadataSyncTask);
+    }
+  }
+
+  /**
+   * Stop running tasks scheduled afterwards.
+   */
+  default void shutdown() {
+  }
 }
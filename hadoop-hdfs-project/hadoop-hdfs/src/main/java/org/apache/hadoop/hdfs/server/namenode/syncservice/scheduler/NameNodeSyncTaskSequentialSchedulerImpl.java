@@ -23,11 +23,14 @@
 import org.apache.hadoop.hdfs.server.blockmanagement.BlockInfo;
 import org.apache.hadoop.hdfs.server.blockmanagement.BlockInfoContiguous;
 import org.apache.hadoop.hdfs.server.blockmanagement.BlockManager;
+import org.apache.hadoop.hdfs.server.namenode.NameNode;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.hdfs.server.namenode.syncservice.SyncServiceSatisfier;
 import org.apache.hadoop.hdfs.server.namenode.syncservice.executor.MetadataSyncOperationExecutor;
 import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTask;
 import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTaskExecutionFeedback;
 import org.apache.hadoop.hdfs.server.protocol.SyncTaskExecutionResult;
+import org.apache.hadoop.util.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,17 +62,21 @@ public NameNodeSyncTaskSequentialSchedulerImpl(
 
   @Override
   public void scheduleOnNameNode(MetadataSyncTask metadataSyncTask) {
+    run(metadataSyncTask);
+  }
+
+  /**
+   * Run a task on the remote endpoint and report its outcome.
+   *
+   * @return whether the task succeeded
+   */
+  boolean run(MetadataSyncTask metadataSyncTask) {
+    final long start = Time.monotonicNow();
     try {
       SyncTaskExecutionResult syncTaskExecutionResult =
           syncOperationExecutor.execute(metadataSyncTask);
-      MetadataSyncTaskExecutionFeedback success = MetadataSyncTaskExecutionFeedback.finishedSuccessfully(
-          metadataSyncTask.getSyncTaskId(),
-          metadataSyncTask.getSyncMountId(),
-          syncTaskExecutionResult,
-          metadataSyncTask.getOperation());
-      handleBlockReportUpdate(metadataSyncTask);
-      syncServiceSatisfier.handleExecutionFeedback(success);
-      updateStats.accept(success);
+      finishedSuccessfully(metadataSyncTask, syncTaskExecutionResult);
+      return true;
     } catch (Exception e) {
       LOG.error("Error running task: {} on Namenode: ", metadataSyncTask, e);
       MetadataSyncTaskExecutionFeedback failure =
@@ -80,9 +87,31 @@ public void scheduleOnNameNode(MetadataSyncTask metadataSyncTask) {
               metadataSyncTask.getOperation());
       syncServiceSatisfier.handleExecutionFeedback(failure);
       updateStats.accept(failure);
+      return false;
+    } finally {
+      NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+      if (metrics != null) {
+        metrics.addMetadataSyncTaskTime(Time.monotonicNow() - start);
+      }
     }
   }
 
+  /**
+   * Report a task as done, without running it on the remote endpoint when
+   * the caller knows its effect has already been applied.
+   */
+  void finishedSuccessfully(MetadataSyncTask metadataSyncTask,
+      SyncTaskExecutionResult syncTaskExecutionResult) throws IOException {
+    MetadataSyncTaskExecutionFeedback success = MetadataSyncTaskExecutionFeedback.finishedSuccessfully(
+        metadataSyncTask.getSyncTaskId(),
+        metadataSyncTask.getSyncMountId(),
+        syncTaskExecutionResult,
+        metadataSyncTask.getOperation());
+    handleBlockReportUpdate(metadataSyncTask);
+    syncServiceSatisfier.handleExecutionFeedback(success);
+    updateStats.accept(success);
+  }
+
   private void handleBlockReportUpdate(MetadataSyncTask metadataSyncTask) throws IOException {
     if (metadataSyncTask.getOperation() == MetadataSyncTaskOperation.MULTIPART_COMPLETE) {
       MetadataSyncTask.MultipartCompleteMetadataSyncTask completeMetadataSyncTask =
@@ -20,4 +20,10 @@
 
 public interface SyncTaskScheduler {
   void schedule(SchedulableSyncPhase syncTasks);
+
+  /**
+   * Stop running tasks scheduled afterwards.
+   */
+  default void shutdown() {
+  }
 }
@@ -17,11 +17,11 @@
 package org.apache.hadoop.hdfs.server.namenode.syncservice.scheduler;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.hdfs.server.blockmanagement.BlockManager;
 import org.apache.hadoop.hdfs.server.namenode.syncservice.SyncServiceSatisfier;
 import org.apache.hadoop.hdfs.server.namenode.syncservice.updatetracker.SchedulableSyncPhase;
 import org.apache.hadoop.hdfs.server.protocol.BlockSyncTask;
-import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTask;
 import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTaskExecutionFeedback;
 
 import java.util.function.Consumer;
@@ -35,23 +35,33 @@ public SyncTaskSchedulerImpl(SyncServiceSatisfier syncServiceSatisfier,
       BlockManager blockManager,
       Consumer<MetadataSyncTaskExecutionFeedback> updateStats,
       Configuration conf) {
-    this.nameNodeSyncTaskScheduler =
+    NameNodeSyncTaskSequentialSchedulerImpl sequentialScheduler =
         new NameNodeSyncTaskSequentialSchedulerImpl(syncServiceSatisfier,
             blockManager, updateStats, conf);
+    int threads = conf.getInt(
+        DFSConfigKeys.DFS_PROVIDED_SYNC_NAMENODE_THREADS_KEY,
+        DFSConfigKeys.DFS_PROVIDED_SYNC_NAMENODE_THREADS_DEFAULT);
+    this.nameNodeSyncTaskScheduler = threads > 1 ?
+        new NameNodeSyncTaskConcurrentSchedulerImpl(sequentialScheduler,
+            threads) :
+        sequentialScheduler;
     this.dataNodeSyncTaskScheduler =
         new DataNodeSyncTaskSchedulerImpl(blockManager);
   }
 
   @Override
   public void schedule(SchedulableSyncPhase schedulableSyncPhase) {
-    for (MetadataSyncTask metadataSyncTask :
-        schedulableSyncPhase.getMetadataSyncTaskList()) {
-      nameNodeSyncTaskScheduler.scheduleOnNameNode(metadataSyncTask);
-    }
+    nameNodeSyncTaskScheduler.scheduleOnNameNode(
+        schedulableSyncPhase.getMetadataSyncTaskList());
     for (BlockSyncTask blockSyncTask :
         schedulableSyncPhase.getBlockSyncTaskList()) {
       dataNodeSyncTaskScheduler.scheduleOnDataNode(blockSyncTask);
     }
   }
 
+  @Override
+  public void shutdown() {
+    nameNodeSyncTaskScheduler.shutdown();
+  }
+
 }
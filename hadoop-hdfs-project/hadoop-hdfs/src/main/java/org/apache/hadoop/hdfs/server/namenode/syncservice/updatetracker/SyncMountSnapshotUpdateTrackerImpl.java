@@ -125,7 +125,7 @@ private boolean canBeCancelled() {
   @Override
   public boolean isFinished() {
     return (multipartTrackerFinished || !this.multipartPlanOpt.isPresent()) &&
-        phasedPlan.hasNoDownstreamTasksLeft(currentPhase.next())
+        phasedPlan.hasNoDownstreamTasksLeft(currentPhase)
         && currentTasks.isFinished();
   }
 
@@ -145,7 +145,12 @@ private SchedulableSyncPhase handlePhase() {
       List<SyncTask> tasksToDo = this.currentTasks.getTasksToDo();
       return createNonMultipartSchedulableTasks(tasksToDo);
     } else {
-      this.currentPhase = this.currentPhase.next();
+      // the file creations are handed out in batches, stay in the phase
+      // until the last batch is done
+      if (this.currentPhase != PhasedPlan.Phases.CREATE_FILES ||
+          phasedPlan.hasNoDownstreamTasksLeft(this.currentPhase)) {
+        this.currentPhase = this.currentPhase.next();
+      }
       List<SyncTask> nextSchedulableWork
           = phasedPlan.popNextSchedulableWork(this.currentPhase);
 
@@ -234,6 +239,7 @@ private SchedulableSyncPhase startMultipartPlan(List<CreateFileSyncTask> nextSch
         currentTaskFactory,
         t -> r -> this.finalizeTask(t, r));
     this.multipartPlanOpt = Optional.of(multipartPlan);
+    this.multipartTrackerFinished = false;
     return multipartPlan.getInitPhase();
   }
 
@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Options.Rename;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the CompletableFuture based metadata operations of
+ * {@link AsyncDistributedFileSystem}.
+ */
+public class TestAsyncDistributedFileSystem {
+  private static final int MAX_IN_FLIGHT = 10;
+  private static final int NUM_DIRS = 100;
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+  private AsyncDistributedFileSystem adfs;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_KEY,
+        MAX_IN_FLIGHT);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(0).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+    adfs = fs.getAsyncDistributedFileSystem();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private static Path dir(int i) {
+    return new Path("/async/dir" + i);
+  }
+
+  @Test(timeout = 120000)
+  public void testMetadataOperations() throws Exception {
+    // more calls than may be in flight, from a single thread
+    List<CompletableFuture<Boolean>> mkdirs = new ArrayList<>();
+    for (int i = 0; i < NUM_DIRS; i++) {
+      mkdirs.add(adfs.mkdirs(dir(i), null));
+    }
+    for (CompletableFuture<Boolean> f : mkdirs) {
+      assertTrue(f.get());
+    }
+
+    List<CompletableFuture<FileStatus>> statuses = new ArrayList<>();
+    for (int i = 0; i < NUM_DIRS; i++) {
+      statuses.add(adfs.getFileStatus(dir(i)));
+    }
+    for (int i = 0; i < NUM_DIRS; i++) {
+      FileStatus status = statuses.get(i).get();
+      assertTrue(status.isDirectory());
+      assertEquals(fs.makeQualified(dir(i)), status.getPath());
+    }
+
+    List<CompletableFuture<Void>> renames = new ArrayList<>();
+    for (int i = 0; i < NUM_DIRS; i++) {
+      renames.add(adfs.rename(dir(i), new Path("/async/renamed" + i),
+          Rename.NONE));
+    }
+    CompletableFuture.allOf(renames.toArray(new CompletableFuture<?>[0]))
+        .get();
+    for (int i = 0; i < NUM_DIRS; i++) {
+      assertFalse(fs.exists(dir(i)));
+      assertTrue(fs.exists(new Path("/async/renamed" + i)));
+    }
+
+    FsPermission permission = new FsPermission((short) 0700);
+    adfs.setPermission(new Path("/async/renamed0"), permission).get();
+    assertEquals(permission,
+        fs.getFileStatus(new Path("/async/renamed0")).getPermission());
+    adfs.setOwner(new Path("/async/renamed0"), "user1", "group1").get();
+    assertEquals("user1",
+        fs.getFileStatus(new Path("/async/renamed0")).getOwner());
+
+    assertTrue(adfs.delete(new Path("/async"), true).get());
+    assertFalse(fs.exists(new Path("/async")));
+    assertFalse(adfs.delete(new Path("/async"), true).get());
+  }
+
+  @Test(timeout = 60000)
+  public void testFailures() throws Exception {
+    try {
+      adfs.getFileStatus(new Path("/missing")).get();
+      fail("Expected a FileNotFoundException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof FileNotFoundException);
+    }
+
+    // the remote exception is unwrapped
+    try {
+      adfs.rename(new Path("/missing"), new Path("/other")).get();
+      fail("Expected a FileNotFoundException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause().toString(),
+          e.getCause() instanceof FileNotFoundException);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testWithMetadataCache() throws Exception {
+    Configuration conf = new Configuration(fs.getConf());
+    conf.set(HdfsClientConfigKeys.DFS_CLIENT_CONTEXT,
+        "TestAsyncDistributedFileSystem-cache");
+    conf.setBoolean(HdfsClientConfigKeys.MetadataCache.ENABLED_KEY, true);
+    try (DistributedFileSystem cachingFs = (DistributedFileSystem)
+        FileSystem.newInstance(cluster.getURI(), conf)) {
+      AsyncDistributedFileSystem cachingAdfs =
+          cachingFs.getAsyncDistributedFileSystem();
+      Path path = new Path("/cached");
+      Path renamed = new Path("/renamed");
+      assertTrue(cachingFs.mkdirs(path));
+
+      // cached status, looked up asynchronously
+      assertTrue(cachingFs.getFileStatus(path).isDirectory());
+      assertTrue(cachingAdfs.getFileStatus(path).get().isDirectory());
+
+      // the asynchronous changes invalidate the cached status
+      FsPermission permission = new FsPermission((short) 0700);
+      cachingAdfs.setPermission(path, permission).get();
+      assertEquals(permission, cachingFs.getFileStatus(path).getPermission());
+      cachingAdfs.rename(path, renamed, Rename.NONE).get();
+      assertFalse(cachingFs.exists(path));
+      assertTrue(cachingFs.exists(renamed));
+      assertTrue(cachingAdfs.delete(renamed, true).get());
+      assertFalse(cachingFs.exists(renamed));
+      assertTrue(cachingAdfs.mkdirs(path, null).get());
+      assertTrue(cachingFs.exists(path));
+    }
+  }
+}
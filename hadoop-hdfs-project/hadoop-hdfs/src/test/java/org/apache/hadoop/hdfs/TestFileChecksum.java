@@ -248,6 +248,26 @@ public void testDifferentBlockSizeReplicatedFileChecksum() throws Exception {
     }
   }
 
+  @Test(timeout = 90000)
+  public void testFileChecksumWithParallelBlockChecksums() throws Exception {
+    prepareTestFiles(fileSize, new String[] {stripedFile1, replicatedFile});
+    Configuration parallelConf = new Configuration(conf);
+    parallelConf.setInt(
+        HdfsClientConfigKeys.BlockChecksum.THREADPOOL_SIZE_KEY, 4);
+    try (DistributedFileSystem parallelFs = (DistributedFileSystem)
+        FileSystem.newInstance(cluster.getURI(), parallelConf)) {
+      Assert.assertNotNull(parallelFs.getClient().getBlockChecksumThreadPool());
+      for (String file : new String[] {stripedFile1, replicatedFile}) {
+        Path path = new Path(file);
+        Assert.assertEquals(fs.getFileChecksum(path),
+            parallelFs.getFileChecksum(path));
+        int range = blockGroupSize + blockSize + 10;
+        Assert.assertEquals(fs.getFileChecksum(path, range),
+            parallelFs.getFileChecksum(path, range));
+      }
+    }
+  }
+
   @Test(timeout = 90000)
   public void testStripedFileChecksumWithMissedDataBlocks1() throws Exception {
     prepareTestFiles(fileSize, new String[] {stripedFile1});
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests listing directories larger than {@link DFSConfigKeys#DFS_LIST_LIMIT}
+ * with {@link HdfsClientConfigKeys.Listing#PREFETCH_THREADPOOL_SIZE_KEY} set,
+ * where the next batch is fetched while the current one is consumed.
+ */
+public class TestListingPrefetch {
+  private static final int LS_LIMIT = 4;
+  private static final int NUM_FILES = 25;
+  private static final Path DIR = new Path("/prefetch");
+
+  private static MiniDFSCluster cluster;
+  private static DistributedFileSystem fs;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(DFSConfigKeys.DFS_LIST_LIMIT, LS_LIMIT);
+    conf.setInt(HdfsClientConfigKeys.Listing.PREFETCH_THREADPOOL_SIZE_KEY, 2);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+    for (int i = 0; i < NUM_FILES; i++) {
+      DFSTestUtil.createFile(fs, new Path(DIR, String.format("f%03d", i)),
+          i, (short) 1, i);
+    }
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private static void verifyListing(List<? extends FileStatus> listing) {
+    assertEquals(NUM_FILES, listing.size());
+    for (int i = 0; i < NUM_FILES; i++) {
+      FileStatus stat = listing.get(i);
+      assertEquals(String.format("f%03d", i), stat.getPath().getName());
+      assertEquals(i, stat.getLen());
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testListStatus() throws Exception {
+    List<FileStatus> listing = new ArrayList<>();
+    for (FileStatus stat : fs.listStatus(DIR)) {
+      listing.add(stat);
+    }
+    verifyListing(listing);
+  }
+
+  @Test(timeout = 60000)
+  public void testListStatusIterator() throws Exception {
+    List<FileStatus> listing = new ArrayList<>();
+    RemoteIterator<FileStatus> it = fs.listStatusIterator(DIR);
+    while (it.hasNext()) {
+      listing.add(it.next());
+    }
+    verifyListing(listing);
+  }
+
+  @Test(timeout = 60000)
+  public void testListLocatedStatus() throws Exception {
+    List<LocatedFileStatus> listing = new ArrayList<>();
+    RemoteIterator<LocatedFileStatus> it = fs.listLocatedStatus(DIR);
+    while (it.hasNext()) {
+      LocatedFileStatus stat = it.next();
+      assertNotNull(stat.getBlockLocations());
+      listing.add(stat);
+    }
+    verifyListing(listing);
+  }
+}
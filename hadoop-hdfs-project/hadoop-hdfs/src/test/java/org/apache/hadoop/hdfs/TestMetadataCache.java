@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.server.protocol.NamenodeProtocols;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.util.FakeTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+/**
+ * Test the client side cache of file status and block locations.
+ */
+public class TestMetadataCache {
+  private static final String NN_METRICS = "NameNodeActivity";
+  private static final int FILE_LEN = 8192;
+  private static final long SEED = 0xDEADL;
+
+  @Rule
+  public TestName name = new TestName();
+
+  private Configuration conf;
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+
+  @Before
+  public void setUp() throws Exception {
+    conf = new HdfsConfiguration();
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    cluster.waitActive();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (fs != null) {
+      fs.close();
+    }
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private DistributedFileSystem newCachingFileSystem(boolean inotify)
+      throws Exception {
+    return (DistributedFileSystem) FileSystem.newInstance(cluster.getURI(),
+        newCachingConf(inotify));
+  }
+
+  private Configuration newCachingConf(boolean inotify) {
+    Configuration cacheConf = new Configuration(conf);
+    // do not share the cache with the clients of the other tests
+    cacheConf.set(HdfsClientConfigKeys.DFS_CLIENT_CONTEXT,
+        "TestMetadataCache-" + name.getMethodName());
+    cacheConf.setBoolean(HdfsClientConfigKeys.MetadataCache.ENABLED_KEY,
+        true);
+    cacheConf.setBoolean(
+        HdfsClientConfigKeys.MetadataCache.INOTIFY_ENABLED_KEY, inotify);
+    return cacheConf;
+  }
+
+  private static long getCounter(String counter) {
+    return getLongCounter(counter, getMetrics(NN_METRICS));
+  }
+
+  @Test(timeout = 60000)
+  public void testFileStatusIsCached() throws Exception {
+    fs = newCachingFileSystem(false);
+    Path file = new Path("/file");
+    DFSTestUtil.createFile(fs, file, FILE_LEN, (short) 1, SEED);
+
+    DFSOpsCountStatistics stats = fs.getDFSOpsCountStatistics();
+    long hits = stats.getLong(OpType.METADATA_CACHE_HIT.getSymbol());
+    long misses = stats.getLong(OpType.METADATA_CACHE_MISS.getSymbol());
+
+    assertEquals(FILE_LEN, fs.getFileStatus(file).getLen());
+    long fileInfoOps = getCounter("FileInfoOps");
+    for (int i = 0; i < 3; i++) {
+      assertEquals(FILE_LEN, fs.getFileStatus(file).getLen());
+      assertEquals(file.makeQualified(fs.getUri(), null),
+          fs.getFileStatus(file).getPath());
+    }
+    assertEquals(fileInfoOps, getCounter("FileInfoOps"));
+    assertEquals(hits + 6,
+        (long) stats.getLong(OpType.METADATA_CACHE_HIT.getSymbol()));
+    assertEquals(misses + 1,
+        (long) stats.getLong(OpType.METADATA_CACHE_MISS.getSymbol()));
+
+    // changes made through the client invalidate the cached status
+    fs.setPermission(file, new FsPermission((short) 0600));
+    assertEquals(new FsPermission((short) 0600),
+        fs.getFileStatus(file).getPermission());
+    Path renamed = new Path("/renamed");
+    assertTrue(fs.rename(file, renamed));
+    assertFalse(fs.exists(file));
+    assertEquals(FILE_LEN, fs.getFileStatus(renamed).getLen());
+  }
+
+  @Test(timeout = 60000)
+  public void testBlockLocationsAreCached() throws Exception {
+    fs = newCachingFileSystem(false);
+    Path file = new Path("/file");
+    DFSTestUtil.createFile(fs, file, FILE_LEN, (short) 1, SEED);
+    byte[] expected = DFSTestUtil.calculateFileContentsFromSeed(SEED,
+        FILE_LEN);
+
+    assertArrayEquals(expected, DFSTestUtil.readFileAsBytes(fs, file));
+    long blockLocationOps = getCounter("GetBlockLocations");
+    for (int i = 0; i < 3; i++) {
+      assertArrayEquals(expected, DFSTestUtil.readFileAsBytes(fs, file));
+    }
+    assertEquals(blockLocationOps, getCounter("GetBlockLocations"));
+
+    // appending through the client invalidates the cached locations
+    DFSTestUtil.appendFile(fs, file, FILE_LEN);
+    assertEquals(2 * FILE_LEN, DFSTestUtil.readFileAsBytes(fs, file).length);
+  }
+
+  @Test(timeout = 60000)
+  public void testInvalidationByInotify() throws Exception {
+    fs = newCachingFileSystem(true);
+    Path file = new Path("/file");
+    DFSTestUtil.createFile(fs, file, FILE_LEN, (short) 1, SEED);
+    assertEquals(FILE_LEN, fs.getFileStatus(file).getLen());
+    assertEquals(FILE_LEN, DFSTestUtil.readFileAsBytes(fs, file).length);
+
+    // another client, which does not share the cache, changes the file
+    DistributedFileSystem other = cluster.getFileSystem();
+    DFSTestUtil.appendFile(other, file, FILE_LEN);
+    GenericTestUtils.waitFor(() -> {
+      try {
+        return fs.getFileStatus(file).getLen() == 2 * FILE_LEN;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }, 100, 30000);
+    assertEquals(2 * FILE_LEN, DFSTestUtil.readFileAsBytes(fs, file).length);
+
+    other.delete(file, false);
+    GenericTestUtils.waitFor(() -> {
+      try {
+        return !fs.exists(file);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }, 100, 30000);
+  }
+
+  @Test
+  public void testInvalidation() {
+    MetadataCache cache = new MetadataCache(5, 1000, new FakeTimer());
+    HdfsFileStatus status = new HdfsFileStatus.Builder()
+        .perm(new FsPermission((short) 0644))
+        .owner("user")
+        .group("group")
+        .build();
+    String[] paths = {"/a", "/a/b", "/a/b/c", "/ab", "/a/bc"};
+    for (String path : paths) {
+      cache.putFileStatus("ns", "user", path, status,
+          cache.getGeneration("ns"));
+    }
+    cache.putFileStatus("other", "user", "/a/b", status,
+        cache.getGeneration("other"));
+    // the least recently used path was evicted
+    assertEquals(5, cache.size());
+    assertNull(cache.getFileStatus("ns", "user", "/a"));
+
+    // a created file and its parent, not the paths below it
+    cache.invalidateFileWithParent("ns", "/a/b/c");
+    assertNull(cache.getFileStatus("ns", "user", "/a/b/c"));
+    assertNull(cache.getFileStatus("ns", "user", "/a/b"));
+    assertNotNull(cache.getFileStatus("ns", "user", "/a/bc"));
+    cache.putFileStatus("ns", "user", "/a/b", status,
+        cache.getGeneration("ns"));
+    cache.putFileStatus("ns", "user", "/a/b/c", status,
+        cache.getGeneration("ns"));
+
+    // the paths below /a/b, not its siblings with the same prefix
+    cache.invalidateRecursively("ns", "/a/b");
+    assertNull(cache.getFileStatus("ns", "user", "/a/b"));
+    assertNull(cache.getFileStatus("ns", "user", "/a/b/c"));
+    assertNotNull(cache.getFileStatus("ns", "user", "/a/bc"));
+    assertNotNull(cache.getFileStatus("ns", "user", "/ab"));
+    assertNotNull(cache.getFileStatus("other", "user", "/a/b"));
+
+    cache.invalidateAll("ns");
+    assertEquals(1, cache.size());
+    assertNotNull(cache.getFileStatus("other", "user", "/a/b"));
+
+    // a status looked up before an invalidation is not cached
+    long generation = cache.getGeneration("ns");
+    cache.invalidate("ns", "/x");
+    cache.putFileStatus("ns", "user", "/a", status, generation);
+    assertNull(cache.getFileStatus("ns", "user", "/a"));
+  }
+
+  @Test(timeout = 60000)
+  public void testLookupConcurrentWithDelete() throws Exception {
+    final String file = "/race";
+    DFSTestUtil.createFile(cluster.getFileSystem(), new Path(file), FILE_LEN,
+        (short) 1, SEED);
+
+    // hold the status returned by the namenode until the file is deleted
+    final CountDownLatch lookedUp = new CountDownLatch(1);
+    final CountDownLatch deleted = new CountDownLatch(1);
+    NamenodeProtocols spyNN = spy(cluster.getNameNodeRpc());
+    doAnswer(invocation -> {
+      Object status = invocation.callRealMethod();
+      if (deleted.getCount() > 0) {
+        lookedUp.countDown();
+        deleted.await();
+      }
+      return status;
+    }).when(spyNN).getFileInfo(file);
+
+    DFSClient client = new DFSClient(null, spyNN, newCachingConf(false), null);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<HdfsFileStatus> lookup =
+          executor.submit(() -> client.getFileInfo(file));
+      lookedUp.await();
+      assertTrue(client.delete(file, false));
+      deleted.countDown();
+      assertNotNull(lookup.get());
+
+      // the status looked up before the delete was not cached
+      assertNull(client.getFileInfo(file));
+    } finally {
+      executor.shutdownNow();
+      client.close();
+    }
+  }
+}
@@ -22,8 +22,10 @@
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Callable;
@@ -34,11 +36,13 @@
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.ChecksumException;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
@@ -275,6 +279,59 @@ public void testPreadDFS() throws IOException {
                                     // transferTo.
   }
   
+  /**
+   * Tests vectored reads of ranges within blocks, across block boundaries
+   * and close enough to be combined, into heap and direct buffers.
+   */
+  @Test(timeout = 60000)
+  public void testVectoredReadDFS() throws Exception {
+    Configuration conf = new Configuration();
+    MiniDFSCluster cluster =
+        new MiniDFSCluster.Builder(conf).numDataNodes(3).build();
+    try {
+      FileSystem fileSys = cluster.getFileSystem();
+      Path file = new Path("/vectoredRead.dat");
+      DFSTestUtil.createFile(fileSys, file, fileSize, fileSize,
+          blockSize, (short) 3, seed);
+      byte[] expected =
+          DFSTestUtil.calculateFileContentsFromSeed(seed, fileSize);
+
+      List<FileRange> ranges = Arrays.asList(
+          FileRange.createFileRange(3 * blockSize - 100, 300),
+          FileRange.createFileRange(200, 100),
+          FileRange.createFileRange(0, 100),
+          FileRange.createFileRange(fileSize - 10, 10),
+          FileRange.createFileRange(5 * blockSize, blockSize));
+      List<IntFunction<ByteBuffer>> allocators =
+          Arrays.asList(ByteBuffer::allocate, ByteBuffer::allocateDirect);
+      for (IntFunction<ByteBuffer> allocate : allocators) {
+        try (FSDataInputStream in = fileSys.open(file)) {
+          in.readVectored(ranges, allocate);
+          for (FileRange range : ranges) {
+            ByteBuffer data = range.getData().get(30, TimeUnit.SECONDS);
+            byte[] actual = new byte[data.remaining()];
+            data.get(actual);
+            int offset = (int) range.getOffset();
+            Assert.assertArrayEquals("Wrong data for " + range,
+                Arrays.copyOfRange(expected, offset,
+                    offset + range.getLength()), actual);
+          }
+
+          FileRange pastEof = FileRange.createFileRange(fileSize - 10, 20);
+          in.readVectored(Collections.singletonList(pastEof), allocate);
+          try {
+            pastEof.getData().get(30, TimeUnit.SECONDS);
+            Assert.fail("Reading past the end of the file should fail");
+          } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EOFException);
+          }
+        }
+      }
+    } finally {
+      cluster.shutdown();
+    }
+  }
+
   @Test
   public void testPreadDFSNoChecksum() throws IOException {
     Configuration conf = new Configuration();
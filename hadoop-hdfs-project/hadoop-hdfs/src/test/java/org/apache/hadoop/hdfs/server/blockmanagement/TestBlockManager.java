@@ -1065,6 +1065,48 @@ public void testFullBR() throws Exception {
     }
   }
 
+  @Test
+  public void testFirstFullBRWithParallelLookup() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_BLOCKREPORT_LOOKUP_THREADS_KEY, 4);
+    bm = new BlockManager(fsn, false, conf);
+    doReturn(true).when(fsn).isRunning();
+
+    DatanodeDescriptor node = nodes.get(0);
+    DatanodeStorageInfo ds = node.getStorageInfos()[0];
+    node.setAlive(true);
+    DatanodeRegistration nodeReg =
+        new DatanodeRegistration(node, null, null, "");
+    bm.getDatanodeManager().registerDatanode(nodeReg);
+    bm.getDatanodeManager().addDatanode(node);
+
+    // enough blocks for several lookup batches, and some unknown ones
+    final int numBlocks = 3 * BlockManager.MIN_BLOCKS_PER_LOOKUP_BATCH;
+    List<BlockInfo> blocks = new ArrayList<>();
+    List<BlockInfo> reported = new ArrayList<>();
+    for (int id = 1; id <= numBlocks; id++) {
+      if (id % 100 == 0) {
+        reported.add(new BlockInfoContiguous(new Block(id), (short) 3));
+      } else {
+        BlockInfo block = addBlockToBM(id);
+        blocks.add(block);
+        reported.add(block);
+      }
+    }
+
+    bm.processReport(node, new DatanodeStorage(ds.getStorageID()),
+        generateReport(reported),
+        new BlockReportContext(1, 0, System.nanoTime(), 0, true));
+    assertEquals(1, ds.getBlockReportCount());
+    assertEquals(blocks.size(), ds.numBlocks());
+    for (BlockInfo block : blocks) {
+      assertTrue(bm.getStoredBlock(block).findStorageInfo(ds) >= 0);
+    }
+    for (int id = 100; id <= numBlocks; id += 100) {
+      assertNull(bm.getStoredBlock(new Block(id)));
+    }
+  }
+
   private BlockListAsLongs generateReport(List<BlockInfo> blocks) {
     BlockListAsLongs.Builder builder = BlockListAsLongs.builder();
     for (BlockInfo block : blocks) {
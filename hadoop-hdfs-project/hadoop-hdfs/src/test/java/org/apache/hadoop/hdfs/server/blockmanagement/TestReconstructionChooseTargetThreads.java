@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.blockmanagement;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.protocol.HdfsConstants.DatanodeReportType;
+import org.apache.hadoop.hdfs.server.datanode.DataNode;
+import org.apache.hadoop.hdfs.server.namenode.FSNamesystem;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests re-replication with
+ * {@link DFSConfigKeys#DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_KEY}
+ * set, where the targets of the blocks to reconstruct are chosen in parallel.
+ */
+public class TestReconstructionChooseTargetThreads {
+  private static final int NUM_FILES = 50;
+  private static final short REPLICATION = 2;
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(
+        DFSConfigKeys.DFS_NAMENODE_RECONSTRUCTION_CHOOSE_TARGET_THREADS_KEY, 4);
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_REPLICATION_MAX_STREAMS_KEY, 100);
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_REPLICATION_STREAMS_HARD_LIMIT_KEY,
+        100);
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_REDUNDANCY_INTERVAL_SECONDS_KEY, 1);
+    conf.setInt(DFSConfigKeys.DFS_HEARTBEAT_INTERVAL_KEY, 1);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(4).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test(timeout = 120000)
+  public void testReplicationAfterDatanodeLoss() throws Exception {
+    for (int i = 0; i < NUM_FILES; i++) {
+      DFSTestUtil.createFile(fs, new Path("/file" + i), 1024, REPLICATION, i);
+    }
+
+    DataNode dn = cluster.getDataNodes().get(0);
+    String dnAddr = dn.getDatanodeId().getXferAddr();
+    cluster.stopDataNode(0);
+    BlockManagerTestUtil.noticeDeadDatanode(cluster.getNameNode(), dnAddr);
+
+    for (int i = 0; i < NUM_FILES; i++) {
+      DFSTestUtil.waitReplication(fs, new Path("/file" + i), REPLICATION);
+    }
+    assertTrue(getLongCounter("ReconstructionBlocksScheduled",
+        getMetrics("NameNodeActivity")) > 0);
+
+    // the work pending target selection is accounted back on every node
+    FSNamesystem fsn = cluster.getNamesystem();
+    for (DatanodeDescriptor dnd : fsn.getBlockManager().getDatanodeManager()
+        .getDatanodeListForReport(DatanodeReportType.LIVE)) {
+      GenericTestUtils.waitFor(
+          () -> dnd.getNumberOfBlocksToBeReplicated() == 0, 100, 30000);
+    }
+  }
+}
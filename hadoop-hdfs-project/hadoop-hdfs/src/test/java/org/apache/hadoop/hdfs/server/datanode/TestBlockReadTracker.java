@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.datanode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
+import org.apache.hadoop.util.FakeTimer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link BlockReadTracker}.
+ */
+public class TestBlockReadTracker {
+  private static final String BPID = "BP-1";
+
+  private FakeTimer timer;
+  private BlockReadTracker tracker;
+
+  @Before
+  public void setUp() {
+    timer = new FakeTimer();
+    tracker = new BlockReadTracker(2, timer);
+  }
+
+  private static ExtendedBlock block(long id) {
+    return new ExtendedBlock(BPID, id, 1024 * 1024, 1001);
+  }
+
+  @Test
+  public void testUnknownBlock() {
+    BlockReadTracker.ReadHistory history =
+        tracker.getHistory(block(1), 0, 4096);
+    assertEquals(0, history.getSequentialBytes());
+    assertFalse(history.isReread());
+  }
+
+  @Test
+  public void testSequentialReads() {
+    tracker.addRead(block(1), 0, 4096);
+    tracker.addRead(block(1), 4096, 8192);
+
+    BlockReadTracker.ReadHistory history =
+        tracker.getHistory(block(1), 8192, 12288);
+    assertEquals(8192, history.getSequentialBytes());
+    assertFalse(history.isReread());
+
+    // a read elsewhere in the block does not continue the stream
+    history = tracker.getHistory(block(1), 65536, 69632);
+    assertEquals(0, history.getSequentialBytes());
+    assertFalse(history.isReread());
+  }
+
+  @Test
+  public void testRereads() {
+    tracker.addRead(block(1), 0, 4096);
+    assertTrue(tracker.getHistory(block(1), 1024, 2048).isReread());
+
+    // a block which was read again stays a reread block
+    tracker.addRead(block(1), 0, 4096);
+    tracker.addRead(block(1), 4096, 8192);
+    BlockReadTracker.ReadHistory history =
+        tracker.getHistory(block(1), 8192, 12288);
+    assertTrue(history.isReread());
+    assertEquals(8192, history.getSequentialBytes());
+  }
+
+  @Test
+  public void testExpiry() {
+    tracker.addRead(block(1), 0, 4096);
+    timer.advance(BlockReadTracker.EXPIRY_MS + 1);
+    BlockReadTracker.ReadHistory history =
+        tracker.getHistory(block(1), 4096, 8192);
+    assertEquals(0, history.getSequentialBytes());
+    assertFalse(history.isReread());
+    assertEquals(0, tracker.size());
+  }
+
+  @Test
+  public void testLeastRecentlyReadBlockIsEvicted() {
+    tracker.addRead(block(1), 0, 4096);
+    tracker.addRead(block(2), 0, 4096);
+    tracker.addRead(block(3), 0, 4096);
+    assertEquals(2, tracker.size());
+    assertEquals(0, tracker.getHistory(block(1), 4096, 8192)
+        .getSequentialBytes());
+    assertEquals(4096, tracker.getHistory(block(3), 4096, 8192)
+        .getSequentialBytes());
+  }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.datanode;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSOutputStream;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the DataXceiverServer running its DataXceivers on a thread pool.
+ */
+public class TestDataXceiverPool {
+  private static final int FILE_LEN = 64 * 1024;
+
+  private Configuration conf;
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+
+  @Before
+  public void setUp() throws Exception {
+    conf = new HdfsConfiguration();
+    conf.setBoolean(DFSConfigKeys.DFS_DATANODE_XCEIVER_POOL_ENABLED_KEY, true);
+    // fail fast if a recovery waits for an idle pool thread
+    conf.setLong(DFSConfigKeys.DFS_DATANODE_XCEIVER_STOP_TIMEOUT_MILLIS_KEY,
+        10000);
+  }
+
+  private void startCluster(int numDataNodes) throws Exception {
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(numDataNodes)
+        .build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testReadsAndWritesOnPool() throws Exception {
+    startCluster(1);
+    final DataNode dn = cluster.getDataNodes().get(0);
+    for (int i = 0; i < 5; i++) {
+      Path file = new Path("/file" + i);
+      DFSTestUtil.createFile(fs, file, FILE_LEN, (short) 1, i);
+      assertEquals(FILE_LEN, DFSTestUtil.readFileAsBytes(fs, file).length);
+    }
+
+    // the finished xceivers leave idle threads behind, which are not counted
+    GenericTestUtils.waitFor(
+        () -> dn.getXferServer().getNumPeers() == 0, 100, 10000);
+    GenericTestUtils.waitFor(
+        () -> dn.getXferServer().getNumIdleXceiverThreads() > 0, 100, 10000);
+    // only the DataXceiverServer thread itself is left
+    GenericTestUtils.waitFor(() -> dn.getXceiverCount() == 1, 100, 10000);
+    assertTrue(dn.threadGroup.activeCount() > dn.getXceiverCount());
+  }
+
+  /**
+   * The writer of an RBW replica returns to the pool once the write stops.
+   * Pipeline recovery must not wait for that thread to exit.
+   */
+  @Test(timeout = 120000)
+  public void testPipelineRecoveryOnPool() throws Exception {
+    conf.setBoolean(
+        HdfsClientConfigKeys.BlockWrite.ReplaceDatanodeOnFailure.ENABLE_KEY,
+        false);
+    startCluster(2);
+    final Path file = new Path("/pipeline");
+    final byte[] data = new byte[FILE_LEN];
+    FSDataOutputStream out = fs.create(file, (short) 2);
+    try {
+      out.write(data, 0, FILE_LEN / 2);
+      out.hflush();
+      // the surviving datanode recovers the RBW replica written so far
+      cluster.stopDataNode(1);
+      out.write(data, FILE_LEN / 2, FILE_LEN / 2);
+      out.hflush();
+    } finally {
+      out.close();
+    }
+    assertEquals(FILE_LEN, DFSTestUtil.readFileAsBytes(fs, file).length);
+  }
+
+  /**
+   * Lease recovery stops the writer of the RBW replica, whose xceiver has
+   * already returned its thread to the pool, and the file can be appended
+   * to afterwards.
+   */
+  @Test(timeout = 120000)
+  public void testLeaseRecoveryAndAppendOnPool() throws Exception {
+    startCluster(1);
+    final DataNode dn = cluster.getDataNodes().get(0);
+    final Path file = new Path("/append");
+    FSDataOutputStream out = fs.create(file, (short) 1);
+    out.write(new byte[FILE_LEN]);
+    out.hflush();
+    DFSTestUtil.abortStream((DFSOutputStream) out.getWrappedStream());
+    GenericTestUtils.waitFor(
+        () -> dn.getXferServer().getNumPeers() == 0, 100, 10000);
+
+    GenericTestUtils.waitFor(() -> {
+      try {
+        return fs.recoverLease(file);
+      } catch (IOException e) {
+        return false;
+      }
+    }, 100, 60000);
+    assertEquals(FILE_LEN, fs.getFileStatus(file).getLen());
+
+    for (int i = 0; i < 3; i++) {
+      DFSTestUtil.appendFile(fs, file, FILE_LEN);
+    }
+    assertEquals(4 * FILE_LEN, DFSTestUtil.readFileAsBytes(fs, file).length);
+  }
+}
@@ -46,6 +46,7 @@
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.DF;
 import org.apache.hadoop.fs.FileSystem;
@@ -1117,6 +1118,68 @@ public void testExceptionHandlingWhileDirectoryScan() throws Exception {
     }
   }
 
+  @Test(timeout = 60000)
+  public void testReuseUnchangedDirectoryListings() throws Exception {
+    HdfsConfiguration conf = new HdfsConfiguration(CONF);
+    conf.setInt(DFSConfigKeys.DFS_DATANODE_DIRECTORYSCAN_FULL_INTERVAL_KEY, 2);
+    try (MiniDFSCluster cluster = new MiniDFSCluster.Builder(conf)
+        .numDataNodes(1).build()) {
+      cluster.waitActive();
+      bpid = cluster.getNamesystem().getBlockPoolId();
+      fds = DataNodeTestUtils.getFSDataset(cluster.getDataNodes().get(0));
+      writeFile(cluster.getFileSystem(), 5);
+      scanner = new DirectoryScanner(fds, conf);
+
+      try (FsVolumeReferences volumes = fds.getFsVolumeReferences()) {
+        // Only directories which were not modified recently are reused
+        final long oldMtime = Time.now() - TimeUnit.MINUTES.toMillis(10);
+        for (FsVolumeSpi vol : volumes) {
+          File finalizedDir = ((FsVolumeImpl) vol).getFinalizedDir(bpid);
+          for (File dir : FileUtils.listFilesAndDirs(finalizedDir,
+              FileFilterUtils.falseFileFilter(),
+              FileFilterUtils.trueFileFilter())) {
+            assertTrue(dir.setLastModified(oldMtime));
+          }
+        }
+
+        // the first scan is a full scan
+        List<FsVolumeSpi.ScanInfo> fullReport = compileReport(volumes);
+        assertEquals(5, fullReport.size());
+
+        // a block file added without changing the directory's mtime is only
+        // noticed by the next full scan
+        File dir = fullReport.get(0).getBlockFile().getParentFile();
+        long strayId = getFreeBlockId();
+        assertTrue(new File(dir, BLOCK_FILE_PREFIX + strayId).createNewFile());
+        assertTrue(dir.setLastModified(oldMtime));
+        List<FsVolumeSpi.ScanInfo> report = compileReport(volumes);
+        assertEquals(fullReport.size(), report.size());
+        for (FsVolumeSpi.ScanInfo info : report) {
+          assertTrue(fullReport.contains(info));
+          assertEquals(1, info.getBlockLength());
+          assertNotNull(info.getMetaFile());
+        }
+
+        report = compileReport(volumes);
+        assertEquals(fullReport.size() + 1, report.size());
+      }
+    } finally {
+      if (scanner != null) {
+        scanner.shutdown();
+        scanner = null;
+      }
+    }
+  }
+
+  private List<FsVolumeSpi.ScanInfo> compileReport(FsVolumeReferences volumes)
+      throws Exception {
+    List<FsVolumeSpi.ScanInfo> report = new ArrayList<>();
+    for (FsVolumeSpi vol : volumes) {
+      vol.compileReport(bpid, report, scanner.new ReportCompiler(vol));
+    }
+    return report;
+  }
+
   @Test
   public void testDirectoryScannerInFederatedCluster() throws Exception {
     HdfsConfiguration conf = new HdfsConfiguration(CONF);
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.datanode;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.junit.Test;
+
+/**
+ * Test reading blocks which the DataNode sends with transferTo in packets
+ * of different sizes.
+ */
+public class TestTransferToPacketSize {
+  private static final int FILE_LEN = 3 * 1024 * 1024;
+  private static final long SEED = 0xBEEF;
+
+  private void testRead(int packetSize) throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(DFSConfigKeys.DFS_DATANODE_TRANSFERTO_PACKET_SIZE_KEY,
+        packetSize);
+    MiniDFSCluster cluster =
+        new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    try {
+      cluster.waitActive();
+      FileSystem fs = cluster.getFileSystem();
+      Path file = new Path("/file");
+      DFSTestUtil.createFile(fs, file, FILE_LEN, (short) 1, SEED);
+      byte[] expected =
+          DFSTestUtil.calculateFileContentsFromSeed(SEED, FILE_LEN);
+
+      assertArrayEquals(expected, DFSTestUtil.readFileAsBytes(fs, file));
+
+      // a read which starts and ends within packets
+      int offset = 1024 * 1024 + 17;
+      byte[] buf = new byte[Math.min(packetSize + 1000, FILE_LEN - offset)];
+      try (FSDataInputStream in = fs.open(file)) {
+        in.readFully(offset, buf);
+      }
+      assertArrayEquals(
+          Arrays.copyOfRange(expected, offset, offset + buf.length), buf);
+    } finally {
+      cluster.shutdown();
+    }
+  }
+
+  @Test(timeout = 120000)
+  public void testLargePackets() throws Exception {
+    testRead(1024 * 1024);
+  }
+
+  @Test(timeout = 120000)
+  public void testPacketsCappedAtMaxPacketSize() throws Exception {
+    testRead(32 * 1024 * 1024);
+  }
+}
@@ -39,6 +39,8 @@
 import org.apache.hadoop.hdfs.MiniDFSCluster;
 import org.apache.hadoop.hdfs.client.impl.BlockReaderTestUtil;
 import org.apache.hadoop.hdfs.protocol.Block;
+import org.apache.hadoop.hdfs.protocol.BlockListAsLongs;
+import org.apache.hadoop.hdfs.protocol.BlockListAsLongs.BlockReportReplica;
 import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
 import org.apache.hadoop.hdfs.protocol.LocatedBlock;
@@ -60,10 +62,12 @@
 import org.apache.hadoop.hdfs.server.datanode.fsdataset.FsDatasetSpi;
 import org.apache.hadoop.hdfs.server.datanode.fsdataset.FsDatasetSpi.FsVolumeReferences;
 import org.apache.hadoop.hdfs.server.datanode.fsdataset.FsVolumeSpi;
+import org.apache.hadoop.hdfs.server.protocol.DatanodeStorage;
 import org.apache.hadoop.hdfs.server.protocol.NamespaceInfo;
 import org.apache.hadoop.io.MultipleIOException;
 import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.test.LambdaTestUtils;
+import org.apache.hadoop.util.AutoCloseableLock;
 import org.apache.hadoop.util.FakeTimer;
 import org.apache.hadoop.util.StringUtils;
 import org.junit.Assert;
@@ -81,6 +85,7 @@
 import java.util.concurrent.CountDownLatch;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -192,6 +197,87 @@ public void setUp() throws IOException {
     assertEquals(0, dataset.getNumFailedVolumes());
   }
 
+  @Test(timeout = 30000)
+  public void testReadLockIsShared() throws Exception {
+    final CountDownLatch acquired = new CountDownLatch(1);
+    try (AutoCloseableLock l = dataset.acquireDatasetReadLock()) {
+      Thread reader = new Thread(() -> {
+        try (AutoCloseableLock l2 = dataset.acquireDatasetReadLock()) {
+          acquired.countDown();
+        }
+      });
+      reader.start();
+      // a second reader gets in while the first one holds the lock
+      assertTrue(acquired.await(10, TimeUnit.SECONDS));
+      reader.join();
+    }
+
+    final CountDownLatch readerAcquired = new CountDownLatch(1);
+    Thread reader;
+    try (AutoCloseableLock l = dataset.acquireDatasetLock()) {
+      reader = new Thread(() -> {
+        try (AutoCloseableLock l2 = dataset.acquireDatasetReadLock()) {
+          readerAcquired.countDown();
+        }
+      });
+      reader.start();
+      // but not while the write lock is held
+      assertFalse(readerAcquired.await(500, TimeUnit.MILLISECONDS));
+    }
+    assertTrue(readerAcquired.await(10, TimeUnit.SECONDS));
+    reader.join();
+  }
+
+  @Test(timeout = 30000)
+  public void testParallelBlockReports() throws IOException {
+    conf.setInt(DFSConfigKeys.DFS_DATANODE_BLOCK_REPORT_THREADS_KEY, 4);
+    FsDatasetImpl fsDataset = new FsDatasetImpl(datanode, storage, conf);
+    try {
+      String bpid = BLOCK_POOL_IDS[0];
+      fsDataset.addBlockPool(bpid, conf);
+      List<FsVolumeImpl> vols = new ArrayList<>();
+      try (FsVolumeReferences refs = fsDataset.getFsVolumeReferences()) {
+        for (FsVolumeSpi vol : refs) {
+          vols.add((FsVolumeImpl) vol);
+        }
+      }
+      final int numBlocks = 100;
+      for (int i = 0; i < numBlocks; i++) {
+        fsDataset.volumeMap.add(bpid, new FinalizedReplica(
+            new Block(i, i, 1), vols.get(i % vols.size()), null));
+      }
+
+      Map<DatanodeStorage, BlockListAsLongs> reports =
+          fsDataset.getBlockReports(bpid);
+      assertEquals(vols.size(), reports.size());
+      for (int v = 0; v < vols.size(); v++) {
+        BlockListAsLongs report = reports.get(vols.get(v).toDatanodeStorage());
+        assertEquals(numBlocks / vols.size(), report.getNumberOfBlocks());
+        // every volume reports its own replicas, still sorted by block id
+        long prevId = -1;
+        for (BlockReportReplica replica : report) {
+          assertEquals(v, replica.getBlockId() % vols.size());
+          assertTrue(replica.getBlockId() > prevId);
+          prevId = replica.getBlockId();
+        }
+      }
+    } finally {
+      fsDataset.shutdown();
+    }
+  }
+
+  @Test
+  public void testReadLockDisabled() throws IOException {
+    conf.setBoolean(DFSConfigKeys.DFS_DATANODE_LOCK_READ_WRITE_ENABLED_KEY,
+        false);
+    FsDatasetImpl fsDataset = new FsDatasetImpl(datanode, storage, conf);
+    try {
+      assertSame(fsDataset.datasetLock, fsDataset.datasetReadLock);
+    } finally {
+      fsDataset.shutdown();
+    }
+  }
+
   @Test
   public void testAddVolumes() throws IOException {
     final int numNewVolumes = 3;
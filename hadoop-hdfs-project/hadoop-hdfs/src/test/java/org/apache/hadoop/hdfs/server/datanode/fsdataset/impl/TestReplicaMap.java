@@ -17,8 +17,10 @@
  */
 package org.apache.hadoop.hdfs.server.datanode.fsdataset.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.apache.hadoop.hdfs.protocol.Block;
@@ -130,4 +132,30 @@ public void testAddAll() {
     assertNull(map.get(bpid, 1234));
     assertNotNull(map.get(bpid, 5678));
   }
+
+  @Test
+  public void testCompact() {
+    String compactBpid = "BP-COMPACT";
+    assertEquals(1.0, map.fillRatio(compactBpid), 0.0);
+    for (long id = 0; id < 10000; id++) {
+      map.add(compactBpid, new FinalizedReplica(new Block(id, 0, 1), null,
+          null));
+    }
+    // every other replica is removed, the nodes are left half empty
+    for (long id = 0; id < 10000; id += 2) {
+      assertNotNull(map.remove(compactBpid, id));
+    }
+    assertTrue(map.fillRatio(compactBpid) < 0.75);
+
+    assertTrue(map.compact(compactBpid, Long.MAX_VALUE));
+    assertTrue(map.fillRatio(compactBpid) > 0.99);
+    assertEquals(5000, map.size(compactBpid));
+    for (long id = 0; id < 10000; id++) {
+      if (id % 2 == 0) {
+        assertNull(map.get(compactBpid, id));
+      } else {
+        assertNotNull(map.get(compactBpid, id));
+      }
+    }
+  }
 }
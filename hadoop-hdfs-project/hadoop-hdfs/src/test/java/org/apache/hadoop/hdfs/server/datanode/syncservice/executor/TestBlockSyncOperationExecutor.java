@@ -17,11 +17,13 @@
 package org.apache.hadoop.hdfs.server.datanode.syncservice.executor;
 
 import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.BBPartHandle;
 import org.apache.hadoop.fs.MultipartUploader;
 import org.apache.hadoop.fs.PartHandle;
 import org.apache.hadoop.hdfs.BlockReader;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.hdfs.protocol.Block;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
 import org.apache.hadoop.hdfs.protocol.LocatedBlock;
@@ -32,15 +34,21 @@
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -90,4 +98,56 @@ public void executeMultipartPutFileSyncTask() throws Exception {
     assertThat(actualLength).isEqualTo(blockLength);
     assertThat(result.getResult()).isEqualTo(partHandle.bytes());
   }
-}
\ No newline at end of file
+
+  @Test(timeout = 60000)
+  public void executeWithReadAhead() throws Exception {
+    final byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    final ByteArrayInputStream blockData = new ByteArrayInputStream(data);
+    when(blockReaderMock.read(any(byte[].class), anyInt(), anyInt()))
+        .thenAnswer(invocation -> {
+          Object[] args = invocation.getArguments();
+          return blockData.read((byte[]) args[0], (int) args[1],
+              (int) args[2]);
+        });
+    final AtomicReference<byte[]> uploaded = new AtomicReference<>();
+    PartHandle partHandle =
+        BBPartHandle.from(ByteBuffer.wrap("partHandle".getBytes()));
+    doAnswer(invocation -> {
+      uploaded.set(IOUtils.toByteArray(
+          (InputStream) invocation.getArguments()[1]));
+      return partHandle;
+    }).when(multipartUploaderMock).putPart(any(), any(), anyInt(), any(),
+        anyLong());
+
+    Configuration conf = new Configuration();
+    conf.setInt(DFSConfigKeys.DFS_PROVIDED_SYNC_READAHEAD_BUFFERS_KEY, 2);
+    conf.setInt(DFSConfigKeys.DFS_PROVIDED_SYNC_READAHEAD_BUFFER_SIZE_KEY,
+        1024);
+    ExecutorService readAheadExecutor = Executors.newCachedThreadPool();
+    try {
+      BlockSyncOperationExecutor blockSyncOperationExecutor =
+          new BlockSyncOperationExecutor(conf,
+              (locatedBlock, config) -> blockReaderMock,
+              fs -> multipartUploaderMock, readAheadExecutor);
+      Block block = new Block(42L, data.length, 44L);
+      LocatedBlock locatedBlock =
+          new LocatedBlock(new ExtendedBlock("poolId", block), null);
+      BlockSyncTask blockSyncTask = new BlockSyncTask(UUID.randomUUID(),
+          new URI("remoteUri"), Lists.newArrayList(locatedBlock), 1,
+          ByteBuffer.wrap("uploadHandle".getBytes()), 0, data.length,
+          "syncMountId");
+
+      SyncTaskExecutionResult result =
+          blockSyncOperationExecutor.execute(blockSyncTask);
+
+      assertThat(result.getResult()).isEqualTo(partHandle.bytes());
+      assertThat(uploaded.get()).isEqualTo(data);
+      verify(blockReaderMock, times(1)).close();
+    } finally {
+      readAheadExecutor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.datanode.syncservice.executor;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestReadAheadInputStream {
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static byte[] randomBytes(int len) {
+    byte[] data = new byte[len];
+    new Random(len).nextBytes(data);
+    return data;
+  }
+
+  @Test(timeout = 60000)
+  public void readsAllBytesInOrder() throws Exception {
+    byte[] data = randomBytes(100 * 1000 + 7);
+    try (InputStream in = new ReadAheadInputStream(
+        new ByteArrayInputStream(data), 3, 4096, executor)) {
+      assertThat(IOUtils.toByteArray(in)).isEqualTo(data);
+      assertThat(in.read()).isEqualTo(-1);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void readsSingleBytesUnsigned() throws Exception {
+    byte[] data = {(byte) 0xff, 0, (byte) 0x80};
+    try (InputStream in = new ReadAheadInputStream(
+        new ByteArrayInputStream(data), 1, 2, executor)) {
+      assertThat(in.read()).isEqualTo(0xff);
+      assertThat(in.read()).isEqualTo(0);
+      assertThat(in.read()).isEqualTo(0x80);
+      assertThat(in.read()).isEqualTo(-1);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void rethrowsReadFailureAfterReadBytes() throws Exception {
+    byte[] data = randomBytes(1000);
+    InputStream failing = new FilterInputStream(
+        new ByteArrayInputStream(data)) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n < 0) {
+          throw new IOException("injected");
+        }
+        return n;
+      }
+    };
+    try (InputStream in = new ReadAheadInputStream(failing, 2, 64, executor)) {
+      byte[] buf = new byte[data.length];
+      IOUtils.readFully(in, buf);
+      assertThat(buf).isEqualTo(data);
+      try {
+        in.read();
+        fail("expected the read failure to be rethrown");
+      } catch (IOException e) {
+        assertThat(e).hasMessage("injected");
+      }
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void rethrowsUncheckedReadFailure() throws Exception {
+    byte[] data = randomBytes(1000);
+    InputStream failing = new FilterInputStream(
+        new ByteArrayInputStream(data)) {
+      private int read;
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (read >= data.length / 2) {
+          throw new IllegalStateException("injected");
+        }
+        int n = super.read(b, off, len);
+        read += n;
+        return n;
+      }
+    };
+    try (InputStream in = new ReadAheadInputStream(failing, 2, 64, executor)) {
+      try {
+        IOUtils.toByteArray(in);
+        fail("expected the read failure to be rethrown, not a truncated " +
+            "stream");
+      } catch (IOException e) {
+        assertThat(e).hasCauseInstanceOf(IllegalStateException.class);
+      }
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void closeStopsReaderAndClosesSource() throws Exception {
+    final AtomicBoolean sourceClosed = new AtomicBoolean();
+    InputStream endless = new InputStream() {
+      @Override
+      public int read() {
+        return 1;
+      }
+
+      @Override
+      public void close() {
+        sourceClosed.set(true);
+      }
+    };
+    InputStream in = new ReadAheadInputStream(endless, 2, 16, executor);
+    assertThat(in.read()).isEqualTo(1);
+    in.close();
+    assertThat(sourceClosed.get()).isTrue();
+  }
+}
@@ -628,10 +628,12 @@ class MkdirsStats extends OperationStatsBase {
     // Operation types
     static final String OP_MKDIRS_NAME = "mkdirs";
     static final String OP_MKDIRS_USAGE = "-op mkdirs [-threads T] [-dirs N] " +
-        "[-dirsPerDir P]";
+        "[-dirsPerDir P] [-existing]";
 
     protected FileNameGenerator nameGenerator;
     protected String[][] dirPaths;
+    // create the directories up front and time mkdirs of existing ones
+    private boolean existing;
 
     MkdirsStats(List<String> args) {
       super();
@@ -657,6 +659,8 @@ void parseArguments(List<String> args) {
         } else if(args.get(i).equals("-dirsPerDir")) {
           if(i+1 == args.size())  printUsage();
           nrDirsPerDir = Integer.parseInt(args.get(++i));
+        } else if(args.get(i).equals("-existing")) {
+          existing = true;
         } else if(!ignoreUnrelatedOptions)
           printUsage();
       }
@@ -677,6 +681,14 @@ void generateInputs(int[] opsPerThread) throws IOException {
           dirPaths[idx][jdx] = nameGenerator.
               getNextFileName("ThroughputBench");
       }
+      if(existing) {
+        LOG.info("Pre-creating " + numOpsRequired + " directories");
+        for(String[] threadPaths : dirPaths) {
+          for(String path : threadPaths) {
+            clientProto.mkdirs(path, FsPermission.getDefault(), true);
+          }
+        }
+      }
     }
 
     /**
@@ -706,6 +718,7 @@ void printResults() {
       LOG.info("nrDirs = " + numOpsRequired);
       LOG.info("nrThreads = " + numThreads);
       LOG.info("nrDirsPerDir = " + nameGenerator.getFilesPerDirectory());
+      LOG.info("existing = " + existing);
       printStats();
     }
   }
@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.server.namenode.AsyncAuditDispatcher.AuditEvent;
+import org.apache.hadoop.hdfs.server.namenode.FSNamesystem.FSNamesystemAuditLogger;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.Test;
+import org.slf4j.event.Level;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link AsyncAuditDispatcher}.
+ */
+public class TestAsyncAuditDispatcher {
+
+  private static void dispatch(AsyncAuditDispatcher dispatcher, String cmd) {
+    dispatcher.dispatch(true, "user", InetAddress.getLoopbackAddress(), cmd,
+        "/src", null, null, null, null, null, null);
+  }
+
+  /** A sink which waits for the test before writing the first event. */
+  private static class BlockingSink implements Consumer<AuditEvent> {
+    private final List<String> written =
+        Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void accept(AuditEvent event) {
+      entered.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      written.add(event.cmd);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testEventsWrittenInOrder() {
+    final List<String> written = new ArrayList<>();
+    final Set<AuditEvent> slots =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(16, true,
+        e -> {
+          written.add(e.cmd);
+          slots.add(e);
+        });
+    for (int i = 0; i < 1000; i++) {
+      dispatch(dispatcher, "cmd" + i);
+    }
+    dispatcher.stop();
+    assertFalse(dispatcher.isRunning());
+    assertEquals(1000, written.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("cmd" + i, written.get(i));
+    }
+    assertEquals(0, dispatcher.getDroppedEvents());
+    // the pre-allocated slots are reused
+    assertTrue(slots.toString(), slots.size() <= 16);
+
+    // written by the caller once stopped
+    dispatch(dispatcher, "last");
+    assertEquals("last", written.get(1000));
+  }
+
+  @Test(timeout = 60000)
+  public void testDropWhenFull() throws Exception {
+    BlockingSink sink = new BlockingSink();
+    AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(2, false, sink);
+    dispatch(dispatcher, "cmd0");
+    sink.entered.await();
+    for (int i = 1; i < 6; i++) {
+      dispatch(dispatcher, "cmd" + i);
+    }
+    // cmd0 still holds its slot while being written
+    assertEquals(2, dispatcher.getQueueLength());
+    assertEquals(4, dispatcher.getDroppedEvents());
+
+    sink.release.countDown();
+    dispatcher.stop();
+    assertEquals(0, dispatcher.getQueueLength());
+    assertEquals(2, sink.written.size());
+    assertEquals("cmd1", sink.written.get(1));
+  }
+
+  @Test(timeout = 60000)
+  public void testBlockWhenFull() throws Exception {
+    BlockingSink sink = new BlockingSink();
+    AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(2, true, sink);
+    dispatch(dispatcher, "cmd0");
+    sink.entered.await();
+    dispatch(dispatcher, "cmd1");
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> blocked =
+          executor.submit(() -> dispatch(dispatcher, "cmd2"));
+      Thread.sleep(500);
+      assertFalse(blocked.isDone());
+
+      sink.release.countDown();
+      blocked.get(30, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    dispatcher.stop();
+    assertEquals(3, sink.written.size());
+    assertEquals(0, dispatcher.getDroppedEvents());
+  }
+
+  @Test(timeout = 60000)
+  public void testNoEventLostOnStop() throws Exception {
+    final AtomicLong written = new AtomicLong();
+    AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(4, true,
+        e -> written.incrementAndGet());
+    final int numThreads = 8;
+    final int numEvents = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<?>> handlers = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        handlers.add(executor.submit(() -> {
+          for (int j = 0; j < numEvents; j++) {
+            dispatch(dispatcher, "cmd" + j);
+          }
+        }));
+      }
+      // stop while the handlers are still dispatching
+      GenericTestUtils.waitFor(() -> written.get() > 0, 10, 10000);
+      dispatcher.stop();
+      for (Future<?> handler : handlers) {
+        handler.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(0, dispatcher.getDroppedEvents());
+    assertEquals(numThreads * numEvents, written.get());
+    assertEquals(0, dispatcher.getQueueLength());
+  }
+
+  @Test(timeout = 60000)
+  public void testDefaultAuditLogger() {
+    final List<String> messages =
+        Collections.synchronizedList(new ArrayList<>());
+    FSNamesystemAuditLogger logger = new FSNamesystemAuditLogger() {
+      @Override
+      public void logAuditMessage(String message) {
+        messages.add(message);
+      }
+    };
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_AUDIT_LOG_ASYNC_QUEUE_SIZE_KEY, 4);
+    logger.initialize(conf);
+    GenericTestUtils.setLogLevel(FSNamesystem.auditLog, Level.INFO);
+    assertTrue(logger.getDispatcher().isRunning());
+
+    for (int i = 0; i < 10; i++) {
+      logger.logAuditEvent(true, "user", InetAddress.getLoopbackAddress(),
+          "cmd" + i, "/src", null, null, null, null, null);
+    }
+    logger.close();
+    assertFalse(logger.getDispatcher().isRunning());
+    assertEquals(10, messages.size());
+    for (int i = 0; i < 10; i++) {
+      assertTrue(messages.get(i), messages.get(i).contains("cmd=cmd" + i));
+    }
+  }
+}
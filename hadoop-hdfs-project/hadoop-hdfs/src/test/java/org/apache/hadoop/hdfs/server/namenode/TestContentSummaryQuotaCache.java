@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.protocol.HdfsConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests getContentSummary with
+ * {@link DFSConfigKeys#DFS_CONTENT_SUMMARY_QUOTA_CACHE_ENABLED_KEY} set, where
+ * directories with quota keep the content counts of their subtree.
+ */
+public class TestContentSummaryQuotaCache {
+  private static final short REPLICATION = 1;
+  private static final long BLOCKSIZE = 1024;
+  private static final long QUOTA = 1000000;
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem dfs;
+  private FSDirectory fsdir;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setLong(DFSConfigKeys.DFS_BLOCK_SIZE_KEY, BLOCKSIZE);
+    conf.setBoolean(DFSConfigKeys.DFS_CONTENT_SUMMARY_QUOTA_CACHE_ENABLED_KEY,
+        true);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(REPLICATION)
+        .build();
+    cluster.waitActive();
+    dfs = cluster.getFileSystem();
+    fsdir = cluster.getNamesystem().getFSDirectory();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private boolean hasCachedCounts(Path dir) throws Exception {
+    DirectoryWithQuotaFeature q = fsdir.getINode(dir.toString()).asDirectory()
+        .getDirectoryWithQuotaFeature();
+    return q != null && q.hasCachedCounts();
+  }
+
+  private static void verifySummary(ContentSummary summary, long dirCount,
+      long fileCount, long length) {
+    assertEquals(dirCount, summary.getDirectoryCount());
+    assertEquals(fileCount, summary.getFileCount());
+    assertEquals(length, summary.getLength());
+    assertEquals(length * REPLICATION, summary.getSpaceConsumed());
+  }
+
+  @Test(timeout = 60000)
+  public void testCountsUpdatedByChanges() throws Exception {
+    final Path table = new Path("/table");
+    final Path part = new Path(table, "part");
+    dfs.mkdirs(part);
+    dfs.setQuota(table, QUOTA, HdfsConstants.QUOTA_DONT_SET);
+    DFSTestUtil.createFile(dfs, new Path(part, "f1"), 100, REPLICATION, 0L);
+    assertFalse(hasCachedCounts(table));
+
+    verifySummary(dfs.getContentSummary(table), 2, 1, 100);
+    assertTrue(hasCachedCounts(table));
+    verifySummary(dfs.getContentSummary(table), 2, 1, 100);
+
+    DFSTestUtil.createFile(dfs, new Path(part, "f2"), 2000, REPLICATION, 0L);
+    assertFalse(hasCachedCounts(table));
+    verifySummary(dfs.getContentSummary(table), 2, 2, 2100);
+
+    DFSTestUtil.appendFile(dfs, new Path(part, "f1"), 50);
+    verifySummary(dfs.getContentSummary(table), 2, 2, 2150);
+
+    dfs.rename(new Path(part, "f2"), new Path("/f2"));
+    verifySummary(dfs.getContentSummary(table), 2, 1, 150);
+
+    dfs.mkdirs(new Path(table, "part2"));
+    verifySummary(dfs.getContentSummary(table), 3, 1, 150);
+
+    dfs.delete(part, true);
+    verifySummary(dfs.getContentSummary(table), 2, 0, 0);
+    assertTrue(hasCachedCounts(table));
+  }
+
+  @Test(timeout = 60000)
+  public void testNestedQuotaDirectories() throws Exception {
+    final Path table = new Path("/nested");
+    final Path part1 = new Path(table, "part1");
+    final Path part2 = new Path(table, "part2");
+    dfs.mkdirs(part1);
+    dfs.mkdirs(part2);
+    dfs.setQuota(part1, QUOTA, HdfsConstants.QUOTA_DONT_SET);
+    DFSTestUtil.createFile(dfs, new Path(part1, "f"), 10, REPLICATION, 0L);
+    DFSTestUtil.createFile(dfs, new Path(part2, "f"), 20, REPLICATION, 0L);
+
+    verifySummary(dfs.getContentSummary(part1), 1, 1, 10);
+    assertTrue(hasCachedCounts(part1));
+    // the parent has no quota, but reuses the counts cached by part1
+    verifySummary(dfs.getContentSummary(table), 3, 2, 30);
+
+    DFSTestUtil.createFile(dfs, new Path(part1, "g"), 5, REPLICATION, 0L);
+    assertFalse(hasCachedCounts(part1));
+    verifySummary(dfs.getContentSummary(table), 3, 3, 35);
+    assertTrue(hasCachedCounts(part1));
+  }
+
+  @Test(timeout = 60000)
+  public void testFilesUnderConstructionNotCached() throws Exception {
+    final Path dir = new Path("/uc");
+    dfs.mkdirs(dir);
+    dfs.setQuota(dir, QUOTA, HdfsConstants.QUOTA_DONT_SET);
+    final Path file = new Path(dir, "file");
+    FSDataOutputStream out = dfs.create(file, REPLICATION);
+    try {
+      out.write(new byte[100]);
+      out.hflush();
+      dfs.getContentSummary(dir);
+      assertFalse(hasCachedCounts(dir));
+    } finally {
+      out.close();
+    }
+    verifySummary(dfs.getContentSummary(dir), 1, 1, 100);
+    assertTrue(hasCachedCounts(dir));
+  }
+
+  @Test(timeout = 60000)
+  public void testAllowAndDisallowSnapshot() throws Exception {
+    final Path dir = new Path("/snapshottable");
+    final Path sub = new Path(dir, "sub");
+    dfs.mkdirs(sub);
+    dfs.setQuota(dir, QUOTA, HdfsConstants.QUOTA_DONT_SET);
+    assertEquals(0, dfs.getContentSummary(dir).getSnapshotDirectoryCount());
+    assertTrue(hasCachedCounts(dir));
+
+    // neither changes the quota usage of the directory
+    dfs.allowSnapshot(sub);
+    assertEquals(1, dfs.getContentSummary(dir).getSnapshotDirectoryCount());
+    assertTrue(hasCachedCounts(dir));
+
+    dfs.disallowSnapshot(sub);
+    assertEquals(0, dfs.getContentSummary(dir).getSnapshotDirectoryCount());
+  }
+
+  @Test(timeout = 60000)
+  public void testNotCachedWithSnapshots() throws Exception {
+    final Path dir = new Path("/snap");
+    final Path file = new Path(dir, "file");
+    dfs.mkdirs(dir);
+    dfs.setQuota(dir, QUOTA, HdfsConstants.QUOTA_DONT_SET);
+    DFSTestUtil.createFile(dfs, file, 10, REPLICATION, 0L);
+    verifySummary(dfs.getContentSummary(dir), 1, 1, 10);
+    assertTrue(hasCachedCounts(dir));
+
+    dfs.allowSnapshot(dir);
+    dfs.createSnapshot(dir, "s0");
+    // the deletion does not change the quota usage of the snapshotted tree
+    dfs.delete(file, false);
+    ContentSummary summary = dfs.getContentSummary(dir);
+    assertEquals(0, summary.getFileCount() - summary.getSnapshotFileCount());
+
+    dfs.deleteSnapshot(dir, "s0");
+    verifySummary(dfs.getContentSummary(dir), 1, 0, 0);
+  }
+}
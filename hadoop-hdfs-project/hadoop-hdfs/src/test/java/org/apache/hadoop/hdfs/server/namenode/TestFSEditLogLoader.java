@@ -18,6 +18,8 @@
 package org.apache.hadoop.hdfs.server.namenode;
 
 
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -113,8 +115,20 @@ private static Configuration getConf() {
 
   @Test
   public void testDisplayRecentEditLogOpCodes() throws IOException {
-    // start a cluster
+    checkDisplayRecentEditLogOpCodes(getConf());
+  }
+
+  @Test
+  public void testDisplayRecentEditLogOpCodesWithPrefetch()
+      throws IOException {
     Configuration conf = getConf();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_EDITS_REPLAY_PREFETCH_OPS_KEY, 4);
+    checkDisplayRecentEditLogOpCodes(conf);
+  }
+
+  private void checkDisplayRecentEditLogOpCodes(Configuration conf)
+      throws IOException {
+    // start a cluster
     MiniDFSCluster cluster = null;
     FileSystem fileSys = null;
     cluster = new MiniDFSCluster.Builder(conf).numDataNodes(NUM_DATA_NODES)
@@ -156,6 +170,56 @@ public void testDisplayRecentEditLogOpCodes() throws IOException {
     }
   }
   
+  /**
+   * Test that edits decoded ahead of being applied are replayed in order.
+   */
+  @Test
+  public void testReplayWithPrefetch() throws Exception {
+    Configuration conf = getConf();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_EDITS_REPLAY_PREFETCH_OPS_KEY, 8);
+    MiniDFSCluster cluster = null;
+    try {
+      cluster = new MiniDFSCluster.Builder(conf).numDataNodes(NUM_DATA_NODES)
+          .build();
+      cluster.waitActive();
+      DistributedFileSystem fs = cluster.getFileSystem();
+      for (int i = 0; i < 100; i++) {
+        Path dir = new Path("/dir" + i);
+        fs.mkdirs(dir);
+        DFSTestUtil.createFile(fs, new Path(dir, "file"), 0, (short) 1, 0L);
+        if (i % 3 == 0) {
+          fs.rename(dir, new Path("/renamed" + i));
+        } else if (i % 3 == 1) {
+          fs.delete(dir, true);
+        } else {
+          fs.setPermission(dir, new FsPermission((short) 0700));
+        }
+      }
+
+      cluster.restartNameNode();
+      fs = cluster.getFileSystem();
+      for (int i = 0; i < 100; i++) {
+        Path dir = new Path("/dir" + i);
+        if (i % 3 == 0) {
+          assertFalse(fs.exists(dir));
+          assertTrue(fs.exists(new Path("/renamed" + i, "file")));
+        } else if (i % 3 == 1) {
+          assertFalse(fs.exists(dir));
+        } else {
+          assertEquals(new FsPermission((short) 0700),
+              fs.getFileStatus(dir).getPermission());
+          assertTrue(fs.exists(new Path(dir, "file")));
+        }
+      }
+      assertTrue(getLongCounter("EditLogOpsReplayed",
+          getMetrics("NameNodeActivity")) > 0);
+    } finally {
+      if (cluster != null) {
+        cluster.shutdown();
+      }
+    }
+  }
+
   /**
    * Test that, if the NN restarts with a new minimum replication,
    * any files created with the old replication count will get
@@ -1063,8 +1063,39 @@ private MiniDFSCluster createAndLoadParallelFSImage(Configuration conf)
 
   @Test
   public void testParallelSaveAndLoad() throws IOException {
+    checkParallelSaveAndLoad(new Configuration());
+  }
+
+  @Test
+  public void testParallelSaveAndLoadWithCompression() throws IOException {
     Configuration conf = new Configuration();
+    conf.setBoolean(DFSConfigKeys.DFS_IMAGE_COMPRESS_KEY, true);
+    conf.set(DFSConfigKeys.DFS_IMAGE_COMPRESSION_CODEC_KEY,
+        "org.apache.hadoop.io.compress.GzipCodec");
+    // Each sub-section is a separate compressed stream, so the image is
+    // written with sub-sections and loaded in parallel.
+    checkParallelSaveAndLoad(conf);
+  }
 
+  @Test
+  public void testParallelSerialization() throws IOException {
+    Configuration conf = new Configuration();
+    conf.setBoolean(DFSConfigKeys.DFS_IMAGE_PARALLEL_SAVE_KEY, true);
+    checkParallelSaveAndLoad(conf);
+  }
+
+  @Test
+  public void testParallelSerializationWithCompression() throws IOException {
+    Configuration conf = new Configuration();
+    conf.setBoolean(DFSConfigKeys.DFS_IMAGE_PARALLEL_SAVE_KEY, true);
+    conf.setBoolean(DFSConfigKeys.DFS_IMAGE_COMPRESS_KEY, true);
+    conf.set(DFSConfigKeys.DFS_IMAGE_COMPRESSION_CODEC_KEY,
+        "org.apache.hadoop.io.compress.GzipCodec");
+    checkParallelSaveAndLoad(conf);
+  }
+
+  private void checkParallelSaveAndLoad(Configuration conf)
+      throws IOException {
     MiniDFSCluster cluster = null;
     try {
       cluster = createAndLoadParallelFSImage(conf);
@@ -1101,41 +1132,6 @@ public void testParallelSaveAndLoad() throws IOException {
     }
   }
 
-  @Test
-  public void testNoParallelSectionsWithCompressionEnabled()
-      throws IOException {
-    Configuration conf = new Configuration();
-    conf.setBoolean(DFSConfigKeys.DFS_IMAGE_COMPRESS_KEY, true);
-    conf.set(DFSConfigKeys.DFS_IMAGE_COMPRESSION_CODEC_KEY,
-        "org.apache.hadoop.io.compress.GzipCodec");
-
-    MiniDFSCluster cluster = null;
-    try {
-      cluster = createAndLoadParallelFSImage(conf);
-
-      // Obtain the image summary section to check the sub-sections
-      // are being correctly created when the image is saved.
-      FsImageProto.FileSummary summary = FSImageTestUtil.
-          getLatestImageSummary(cluster);
-      ArrayList<Section> sections = Lists.newArrayList(
-          summary.getSectionsList());
-
-      ArrayList<Section> inodeSubSections =
-          getSubSectionsOfName(sections, SectionName.INODE_SUB);
-      ArrayList<Section> dirSubSections =
-          getSubSectionsOfName(sections, SectionName.INODE_DIR_SUB);
-
-      // As compression is enabled, there should be no sub-sections in the
-      // image header
-      assertEquals(0, inodeSubSections.size());
-      assertEquals(0, dirSubSections.size());
-    } finally {
-      if (cluster != null) {
-        cluster.shutdown();
-      }
-    }
-  }
-
   private void ensureSubSectionsAlignWithParent(ArrayList<Section> subSec,
       Section parent) {
     // For each sub-section, check its offset + length == the next section
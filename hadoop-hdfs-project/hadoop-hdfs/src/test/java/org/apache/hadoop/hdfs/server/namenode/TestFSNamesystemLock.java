@@ -35,6 +35,7 @@
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
@@ -134,6 +135,77 @@ public Boolean get() {
     }
   }
 
+  @Test(timeout = 45000)
+  public void testReadLockBarging() throws Exception {
+    final long maxWriterWaitMs = 1000;
+    Configuration conf = new Configuration();
+    conf.setBoolean(DFS_NAMENODE_FSLOCK_FAIR_KEY, true);
+    conf.setLong(
+        DFSConfigKeys.DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY,
+        maxWriterWaitMs);
+    final FakeTimer timer = new FakeTimer();
+    final FSNamesystemLock fsnLock = new FSNamesystemLock(conf, null, timer);
+    final Runnable bargingReader = () -> {
+      fsnLock.readLockBarging();
+      fsnLock.readUnlock();
+    };
+    ExecutorService helper = Executors.newCachedThreadPool();
+    try {
+      fsnLock.readLock();
+      Future<?> writer = helper.submit(() -> {
+        fsnLock.writeLock();
+        fsnLock.writeUnlock();
+      });
+      GenericTestUtils.waitFor(() -> fsnLock.getQueueLength() == 1, 10, 10000);
+
+      // A barging reader is not blocked by the queued writer...
+      helper.submit(bargingReader).get(10, TimeUnit.SECONDS);
+      // ...while a plain reader queues behind it.
+      Future<?> reader = helper.submit(() -> {
+        fsnLock.readLock();
+        fsnLock.readUnlock();
+      });
+      GenericTestUtils.waitFor(() -> fsnLock.getQueueLength() == 2, 10, 10000);
+
+      // Once the writer has waited for too long, barging readers queue too.
+      timer.advance(maxWriterWaitMs + 1);
+      Future<?> lateReader = helper.submit(bargingReader);
+      GenericTestUtils.waitFor(() -> fsnLock.getQueueLength() == 3, 10, 10000);
+
+      fsnLock.readUnlock();
+      writer.get(10, TimeUnit.SECONDS);
+      reader.get(10, TimeUnit.SECONDS);
+      lateReader.get(10, TimeUnit.SECONDS);
+    } finally {
+      helper.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testReadLockBargingDisabled() throws Exception {
+    final FSNamesystemLock fsnLock =
+        new FSNamesystemLock(new Configuration(), null);
+    fsnLock.readLock();
+    ExecutorService helper = Executors.newCachedThreadPool();
+    try {
+      Future<?> writer = helper.submit(() -> {
+        fsnLock.writeLock();
+        fsnLock.writeUnlock();
+      });
+      GenericTestUtils.waitFor(() -> fsnLock.getQueueLength() == 1, 10, 10000);
+      Future<?> reader = helper.submit(() -> {
+        fsnLock.readLockBarging();
+        fsnLock.readUnlock();
+      });
+      GenericTestUtils.waitFor(() -> fsnLock.getQueueLength() == 2, 10, 10000);
+      fsnLock.readUnlock();
+      writer.get(10, TimeUnit.SECONDS);
+      reader.get(10, TimeUnit.SECONDS);
+    } finally {
+      helper.shutdownNow();
+    }
+  }
+
   /**
    * Test when FSNamesystem write lock is held for a long time,
    * logger will report it.
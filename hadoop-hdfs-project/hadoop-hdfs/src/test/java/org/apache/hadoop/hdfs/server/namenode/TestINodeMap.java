@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.fs.permission.PermissionStatus;
+import org.apache.hadoop.hdfs.DFSUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the lookup of inodes by id in {@link INodeMap}.
+ */
+public class TestINodeMap {
+  private static final PermissionStatus PERM = new PermissionStatus(
+      "user", "group", FsPermission.getDefault());
+
+  private static INodeDirectory newDir(long id) {
+    return new INodeDirectory(id, DFSUtil.string2Bytes("d" + id), PERM, 0L);
+  }
+
+  @Test
+  public void testGetById() {
+    INodeDirectory root = newDir(INodeId.ROOT_INODE_ID);
+    // A zero percentage gives a single bucket, so every lookup walks a
+    // chain of colliding inodes.
+    INodeMap map = INodeMap.newInstance(root, 0.0);
+    INodeDirectory[] dirs = new INodeDirectory[100];
+    for (int i = 0; i < dirs.length; i++) {
+      dirs[i] = newDir(INodeId.ROOT_INODE_ID + 1 + i);
+      map.put(dirs[i]);
+    }
+    assertEquals(dirs.length + 1, map.size());
+    assertSame(root, map.get(INodeId.ROOT_INODE_ID));
+    for (INodeDirectory dir : dirs) {
+      assertSame(dir, map.get(dir.getId()));
+    }
+
+    map.remove(dirs[42]);
+    assertNull(map.get(dirs[42].getId()));
+    assertSame(dirs[43], map.get(dirs[43].getId()));
+    assertNull(map.get(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testGetByIdAcrossBuckets() {
+    INodeMap map = INodeMap.newInstance(newDir(INodeId.ROOT_INODE_ID), 0.01);
+    // Ids differing only in their upper word hash to different buckets
+    INodeDirectory low = newDir(5L);
+    INodeDirectory high = newDir(5L | (1L << 40));
+    map.put(low);
+    map.put(high);
+    assertSame(low, map.get(5L));
+    assertSame(high, map.get(5L | (1L << 40)));
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hdfs.server.namenode;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.test.LambdaTestUtils;
+import org.apache.hadoop.test.MetricsAsserts;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.hadoop.test.MetricsAsserts.assertCounter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests mkdirs with
+ * {@link DFSConfigKeys#DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_KEY} set, where
+ * mkdirs of an existing directory is answered under the read lock.
+ */
+public class TestMkdirsReadLock {
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+  private FSNamesystem fsn;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setBoolean(DFSConfigKeys.DFS_NAMENODE_MKDIRS_READ_LOCK_ENABLED_KEY,
+        true);
+    conf.setBoolean(DFSConfigKeys.DFS_NAMENODE_LOCK_DETAILED_METRICS_KEY,
+        true);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(0).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+    fsn = cluster.getNamesystem();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testExistingDirectoryUsesReadLock() throws Exception {
+    Path dir = new Path("/data/table");
+    assertTrue(fs.mkdirs(dir));
+    long txid = fsn.getEditLog().getLastWrittenTxId();
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(fs.mkdirs(dir));
+    }
+    assertEquals(txid, fsn.getEditLog().getLastWrittenTxId());
+
+    MetricsRecordBuilder rb = MetricsAsserts.mockMetricsRecordBuilder();
+    fsn.detailedLockHoldTimeMetrics.snapshot(rb, true);
+    // Only the first mkdirs needed the write lock, every call took the
+    // read lock to look the directory up.
+    assertCounter("FSNWriteLockMkdirsNanosNumOps", 1L, rb);
+    assertCounter("FSNReadLockMkdirsNanosNumOps", 4L, rb);
+  }
+
+  @Test(timeout = 60000)
+  public void testMissingDirectoryFallsBackToWriteLock() throws Exception {
+    Path dir = new Path("/a/b/c");
+    assertTrue(fs.mkdirs(dir));
+    assertTrue(fs.getFileStatus(dir).isDirectory());
+    assertTrue(fs.getFileStatus(dir.getParent()).isDirectory());
+  }
+
+  @Test(timeout = 60000)
+  public void testExistingFile() throws Exception {
+    final Path file = new Path("/file");
+    DFSTestUtil.createFile(fs, file, 0, (short) 1, 0L);
+    LambdaTestUtils.intercept(FileAlreadyExistsException.class,
+        () -> fs.mkdirs(file));
+  }
+}
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.protocol.LocatedBlocks;
+import org.apache.hadoop.hdfs.server.protocol.NamenodeProtocols;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests getFileInfo and getBlockLocations with
+ * {@link DFSConfigKeys#DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY}
+ * set, while other clients rename and delete the files being read.
+ */
+public class TestReadLockBarging {
+  private static final int NUM_FILES = 10;
+  private static final int FILE_LEN = 1024;
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setLong(
+        DFSConfigKeys.DFS_NAMENODE_FSLOCK_READ_BARGING_MAX_WRITER_WAIT_MS_KEY,
+        10);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  /** Files being recreated are empty until they are closed. */
+  private static void assertValidLength(long len) {
+    assertTrue("Unexpected length " + len, len == 0 || len == FILE_LEN);
+  }
+
+  @Test(timeout = 120000)
+  public void testReadsWithConcurrentRenameAndDelete() throws Exception {
+    final Path dir1 = new Path("/dir1");
+    final Path dir2 = new Path("/dir2");
+    fs.mkdirs(dir2);
+    for (int i = 0; i < NUM_FILES; i++) {
+      DFSTestUtil.createFile(fs, new Path(dir1, "file" + i), FILE_LEN,
+          (short) 1, i);
+    }
+
+    final NamenodeProtocols rpc = cluster.getNameNodeRpc();
+    final AtomicBoolean stop = new AtomicBoolean(false);
+    final ExecutorService executor = Executors.newFixedThreadPool(6);
+    final List<Future<Long>> readers = new ArrayList<>();
+    final List<Future<Long>> writers = new ArrayList<>();
+    try {
+      for (int t = 0; t < 4; t++) {
+        readers.add(executor.submit(() -> {
+          long reads = 0;
+          while (!stop.get()) {
+            for (int i = 0; i < NUM_FILES; i++) {
+              for (Path dir : new Path[] {dir1, dir2}) {
+                String src = new Path(dir, "file" + i).toString();
+                HdfsFileStatus stat = rpc.getFileInfo(src);
+                if (stat != null) {
+                  assertValidLength(stat.getLen());
+                }
+                try {
+                  LocatedBlocks blocks =
+                      rpc.getBlockLocations(src, 0, FILE_LEN);
+                  if (blocks != null) {
+                    assertValidLength(blocks.getFileLength());
+                  }
+                } catch (FileNotFoundException e) {
+                  // renamed or deleted concurrently
+                }
+                reads++;
+              }
+            }
+          }
+          return reads;
+        }));
+      }
+      writers.add(executor.submit(() -> {
+        long renames = 0;
+        while (!stop.get()) {
+          for (int i = 0; i < NUM_FILES; i += 2) {
+            Path p1 = new Path(dir1, "file" + i);
+            Path p2 = new Path(dir2, "file" + i);
+            if (!fs.rename(p1, p2)) {
+              assertTrue(fs.rename(p2, p1));
+            }
+            renames++;
+          }
+        }
+        return renames;
+      }));
+      writers.add(executor.submit(() -> {
+        long deletes = 0;
+        while (!stop.get()) {
+          for (int i = 1; i < NUM_FILES; i += 2) {
+            Path p = new Path(dir1, "file" + i);
+            assertTrue(fs.delete(p, false));
+            DFSTestUtil.createFile(fs, p, FILE_LEN, (short) 1, i);
+            deletes++;
+          }
+        }
+        return deletes;
+      }));
+
+      Thread.sleep(5000);
+      stop.set(true);
+      for (Future<Long> f : writers) {
+        assertTrue(f.get(30, TimeUnit.SECONDS) > 0);
+      }
+      for (Future<Long> f : readers) {
+        assertTrue(f.get(30, TimeUnit.SECONDS) > 0);
+      }
+    } finally {
+      stop.set(true);
+      executor.shutdownNow();
+    }
+  }
+}
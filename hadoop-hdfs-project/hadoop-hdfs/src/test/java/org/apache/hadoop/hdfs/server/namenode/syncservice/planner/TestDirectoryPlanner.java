@@ -26,8 +26,12 @@
 import java.net.URI;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
@@ -84,12 +88,12 @@ public void createPlanForCreatedDirectory() throws Exception {
         Lists.newArrayList(),
         blockCollectionId);
     when(filePlannerMock
-        .createCreatedFileSyncTasks(
+        .deferCreatedFileSyncTask(
             targetSnapshotId,
             iNodeFile,
             syncMount,
             sourcePath + "/" + iNodeName))
-        .thenReturn(createdFile);
+        .thenReturn(() -> createdFile);
 
     File expectedINodePath = DirectoryPlanner.convertPathToAbsoluteFile(sourcePath.getBytes(),
         new Path(syncMountPath));
@@ -111,8 +115,17 @@ public void createPlanForCreatedDirectory() throws Exception {
     SyncTask syncTask = fileCreates.get(0);
     assertThat(syncTask.getOperation()).isEqualTo(SyncTaskOperation.CREATE_DIRECTORY);
 
+    // the blocks of the files are only looked up when they are scheduled
+    assertThat(planForCreatedDirectory.getFileTasks()).isEmpty();
+    List<Supplier<SyncTask>> deferredFileCreates =
+        planForCreatedDirectory.getDeferredFileTasks();
+    assertThat(deferredFileCreates).hasSize(1);
+    assertThat(deferredFileCreates.get(0).get()).isEqualTo(createdFile);
+
     Mockito.verify(filePlannerMock, times(1))
-        .createCreatedFileSyncTasks(targetSnapshotId, iNodeFile, syncMount, sourcePath + "/" + iNodeName);
+        .deferCreatedFileSyncTask(targetSnapshotId, iNodeFile, syncMount, sourcePath + "/" + iNodeName);
+    Mockito.verify(filePlannerMock, never())
+        .createCreatedFileSyncTasks(anyInt(), any(), any(), any());
   }
 
 }
\ No newline at end of file
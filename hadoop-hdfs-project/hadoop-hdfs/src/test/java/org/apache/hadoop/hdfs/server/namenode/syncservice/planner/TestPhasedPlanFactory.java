@@ -4,6 +4,7 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.fs.permission.PermissionStatus;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
 import org.apache.hadoop.hdfs.protocol.Block;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
 import org.apache.hadoop.hdfs.protocol.LocatedBlock;
@@ -33,6 +34,7 @@
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -259,8 +261,8 @@ public void createFromPartitionedDiffReportFile() throws URISyntaxException,
         syncMountName, Lists.newArrayList(), blockCollectionId);
 
     createFileAndDirs.addFileSync(fileCreate);
-    when(filePlannerMock.createPlanTreeNodeForCreatedFile(syncMount, targetSnapshotId, entry,
-        create.getTranslatedName())).thenReturn(fileCreate);
+    when(filePlannerMock.deferCreatedFileSyncTask(syncMount, targetSnapshotId, entry,
+        create.getTranslatedName())).thenReturn(() -> fileCreate);
 
     PhasedPlan phasedPlan = phasedPlanFactory.createFromPartitionedDiffReport(
         partitionedDiffReport, syncMount, snapshot, sourceSnapshotId,
@@ -274,7 +276,7 @@ public void createFromPartitionedDiffReportFile() throws URISyntaxException,
 
     assertThat(actual).isEqualTo(fileCreate);
     verify(filePlannerMock, times(1)).
-        createPlanTreeNodeForCreatedFile(syncMount, targetSnapshotId, entry,
+        deferCreatedFileSyncTask(syncMount, targetSnapshotId, entry,
             create.getTranslatedName());
     verifyZeroInteractions(directoryPlannerMock);
   }
@@ -348,8 +350,8 @@ public void createFromPartitionedDiffReportModifications()
 
     createFileAndDirs.addFileSync(fileCreate);
 
-    when(filePlannerMock.createModifiedFileSyncTasks(targetSnapshotId,
-        sourcePath.getBytes(), modification.getTranslatedName(), syncMount)).thenReturn(fileCreate);
+    when(filePlannerMock.deferModifiedFileSyncTask(targetSnapshotId,
+        sourcePath.getBytes(), modification.getTranslatedName(), syncMount)).thenReturn(() -> fileCreate);
 
     PhasedPlan phasedPlan = phasedPlanFactory.createFromPartitionedDiffReport(
         partitionedDiffReport, syncMount, snapshot, sourceSnapshotId,
@@ -361,7 +363,7 @@ public void createFromPartitionedDiffReportModifications()
     SyncTask metadataSyncTask = modifySyncTasks.get(0);
     assertThat(metadataSyncTask).isEqualTo(fileCreate);
     verify(filePlannerMock, times(1)).
-        createModifiedFileSyncTasks(targetSnapshotId, sourcePath.getBytes(),
+        deferModifiedFileSyncTask(targetSnapshotId, sourcePath.getBytes(),
             modification.getTranslatedName(), syncMount);
     verifyZeroInteractions(directoryPlannerMock);
   }
@@ -402,12 +404,12 @@ public void testCreateFromRename() throws IOException, URISyntaxException {
         DiffType.CREATE,
         targetPath.getBytes());
 
-    when(filePlannerMock.createPlanTreeNodeForCreatedFile(
+    when(filePlannerMock.deferCreatedFileSyncTask(
         syncMount,
         targetSnapshotId,
         dreamtUpDiffReportInsideFunction,
         targetPath))
-        .thenReturn(expected);
+        .thenReturn(() -> expected);
 
     PhasedPlan phasedPlan = phasedPlanFactory.createFromPartitionedDiffReport(partitionedDiffReport,
         syncMount, snapshot, sourceSnapshotId, targetSnapshotId);
@@ -420,4 +422,56 @@ public void testCreateFromRename() throws IOException, URISyntaxException {
     assertThat(phasedPlan.peekRenameToFinalName()).isEmpty();
     assertThat(phasedPlan.peekCreateDirSyncTasks()).isEmpty();
   }
+
+  @Test
+  public void createFilesArePlannedInBatches() throws URISyntaxException,
+      IOException {
+    Configuration conf = new Configuration();
+    conf.setInt(DFSConfigKeys.DFS_PROVIDED_SYNC_CREATE_FILES_BATCH_SIZE_KEY, 2);
+    PhasedPlanFactory batchingFactory = new PhasedPlanFactory(filePlannerMock,
+        directoryPlannerMock, conf);
+    URI remoteLocation = new URI("remoteLocation/");
+    String syncMountName = "syncMountName";
+    SyncMount syncMount = new SyncMount(syncMountName,
+        new Path("syncMountLocalPath"), remoteLocation);
+    int targetSnapshotId = 42;
+
+    AtomicInteger planned = new AtomicInteger();
+    List<TranslatedEntry> creates = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      DiffReportEntry entry = new DiffReportEntry(INodeType.FILE,
+          DiffType.CREATE, ("file" + i).getBytes());
+      TranslatedEntry create = TranslatedEntry.withNoRename(entry);
+      creates.add(create);
+      SyncTask fileCreate = new SyncTask.CreateFileSyncTask(UUID.randomUUID(),
+          remoteLocation, syncMountName, Lists.newArrayList(), i);
+      when(filePlannerMock.deferCreatedFileSyncTask(syncMount,
+          targetSnapshotId, entry, create.getTranslatedName()))
+          .thenReturn(() -> {
+            planned.incrementAndGet();
+            return fileCreate;
+          });
+    }
+    PartitionedDiffReport partitionedDiffReport = new PartitionedDiffReport(
+        Lists.emptyList(), Lists.emptyList(), Lists.emptyList(), creates,
+        Lists.emptyList());
+
+    PhasedPlan phasedPlan = batchingFactory.createFromPartitionedDiffReport(
+        partitionedDiffReport, syncMount, "snapshot-1", Optional.of(41),
+        targetSnapshotId);
+
+    assertThat(planned.get()).isEqualTo(0);
+    assertThat(phasedPlan.isEmpty()).isFalse();
+    assertThat(phasedPlan.popNextSchedulableWork(PhasedPlan.Phases.CREATE_FILES))
+        .hasSize(2);
+    assertThat(planned.get()).isEqualTo(2);
+    assertThat(phasedPlan.hasNoDownstreamTasksLeft(
+        PhasedPlan.Phases.CREATE_FILES)).isFalse();
+    assertThat(phasedPlan.popNextSchedulableWork(PhasedPlan.Phases.CREATE_FILES))
+        .hasSize(1);
+    assertThat(planned.get()).isEqualTo(3);
+    assertThat(phasedPlan.hasNoDownstreamTasksLeft(
+        PhasedPlan.Phases.CREATE_FILES)).isTrue();
+    assertThat(phasedPlan.isEmpty()).isTrue();
+  }
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode.syncservice.scheduler;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hdfs.server.protocol.MetadataSyncTask;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestNameNodeSyncTaskConcurrentScheduler {
+
+  private NameNodeSyncTaskSequentialSchedulerImpl taskRunner;
+  private NameNodeSyncTaskConcurrentSchedulerImpl scheduler;
+  private final List<String> started =
+      Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void setUp() {
+    taskRunner = mock(NameNodeSyncTaskSequentialSchedulerImpl.class);
+    scheduler = new NameNodeSyncTaskConcurrentSchedulerImpl(taskRunner, 4);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  private static MetadataSyncTask mkdir(String path) {
+    return new MetadataSyncTask.CreateDirectoryMetadataSyncTask(
+        UUID.randomUUID(), URI.create("s3a://bucket" + path), "mount");
+  }
+
+  @Test(timeout = 60000)
+  public void unrelatedPathsRunConcurrently() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    when(taskRunner.run(any())).thenAnswer(invocation -> {
+      MetadataSyncTask task = (MetadataSyncTask) invocation.getArguments()[0];
+      started.add(task.getUri().getPath());
+      if (task.getUri().getPath().equals("/a")) {
+        release.await();
+      }
+      return true;
+    });
+
+    scheduler.scheduleOnNameNode(
+        Lists.newArrayList(mkdir("/a"), mkdir("/a/b"), mkdir("/c")));
+
+    // /c does not wait for /a, but /a/b does
+    GenericTestUtils.waitFor(() -> started.contains("/c"), 10, 10000);
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(started).doesNotContain("/a/b");
+    release.countDown();
+    GenericTestUtils.waitFor(() -> started.size() == 3, 10, 10000);
+    assertThat(started.indexOf("/a")).isLessThan(started.indexOf("/a/b"));
+  }
+
+  @Test(timeout = 60000)
+  public void renameWaitsForBothSides() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    when(taskRunner.run(any())).thenAnswer(invocation -> {
+      MetadataSyncTask task = (MetadataSyncTask) invocation.getArguments()[0];
+      started.add(task.getUri().getPath());
+      if (task.getUri().getPath().equals("/dst/x")) {
+        release.await();
+      }
+      return true;
+    });
+
+    MetadataSyncTask rename = MetadataSyncTask.renameDirectory(
+        UUID.randomUUID(), URI.create("s3a://bucket/src"),
+        URI.create("s3a://bucket/dst"), "mount");
+    scheduler.scheduleOnNameNode(
+        Lists.newArrayList(mkdir("/dst/x"), rename));
+
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(started).containsExactly("/dst/x");
+    release.countDown();
+    GenericTestUtils.waitFor(() -> started.size() == 2, 10, 10000);
+    assertThat(started).containsExactly("/dst/x", "/src");
+  }
+
+  @Test(timeout = 60000)
+  public void deletesBelowDeletedDirectoryAreSkipped() throws Exception {
+    when(taskRunner.run(any())).thenReturn(true);
+    MetadataSyncTask deleteDir = MetadataSyncTask.deleteDirectory(
+        UUID.randomUUID(), URI.create("s3a://bucket/d"), "mount");
+    MetadataSyncTask deleteFile = MetadataSyncTask.deleteFile(
+        UUID.randomUUID(), URI.create("s3a://bucket/d/f"),
+        Collections.emptyList(), "mount");
+
+    scheduler.scheduleOnNameNode(Lists.newArrayList(deleteDir, deleteFile));
+
+    verify(taskRunner, timeout(10000))
+        .finishedSuccessfully(eq(deleteFile), any());
+    verify(taskRunner).run(deleteDir);
+    verify(taskRunner, never()).run(deleteFile);
+  }
+
+  @Test(timeout = 60000)
+  public void deletesBelowFailedDeleteAreRun() throws Exception {
+    MetadataSyncTask deleteDir = MetadataSyncTask.deleteDirectory(
+        UUID.randomUUID(), URI.create("s3a://bucket/d"), "mount");
+    MetadataSyncTask deleteFile = MetadataSyncTask.deleteFile(
+        UUID.randomUUID(), URI.create("s3a://bucket/d/f"),
+        Collections.emptyList(), "mount");
+    when(taskRunner.run(deleteDir)).thenReturn(false);
+    when(taskRunner.run(deleteFile)).thenReturn(true);
+
+    scheduler.scheduleOnNameNode(Lists.newArrayList(deleteDir, deleteFile));
+
+    verify(taskRunner, timeout(10000)).run(deleteFile);
+    verify(taskRunner, never()).finishedSuccessfully(any(), any());
+  }
+
+  @Test
+  public void paths() {
+    assertThat(NameNodeSyncTaskConcurrentSchedulerImpl
+        .normalize(URI.create("s3a://bucket"))).isEqualTo("/");
+    assertThat(NameNodeSyncTaskConcurrentSchedulerImpl
+        .normalize(URI.create("s3a://bucket/a/b/"))).isEqualTo("/a/b");
+    assertThat(NameNodeSyncTaskConcurrentSchedulerImpl.getParent("/a/b"))
+        .isEqualTo("/a");
+    assertThat(NameNodeSyncTaskConcurrentSchedulerImpl.getParent("/a"))
+        .isEqualTo("/");
+    assertThat(NameNodeSyncTaskConcurrentSchedulerImpl.getParent("/"))
+        .isNull();
+  }
+}
@@ -623,6 +623,63 @@ public void testMultipleMultipartCreates() throws URISyntaxException {
     assertThat(underTest.isFinished()).isTrue();
   }
 
+  @Test
+  public void testBatchedMultipartCreates() throws URISyntaxException {
+
+    SyncTask createFile1 = createFileSyncTask(new URI("test://host/path1"),
+        43L, 42L, 44L);
+    SyncTask createFile2 = createFileSyncTask(new URI("test://host/path2"),
+        44L, 43L, 45L);
+    SyncTask createFile3 = createFileSyncTask(new URI("test://host/path3"),
+        45L, 44L, 46L);
+
+    PhasedPlan phasedPlan = new PhasedPlan(
+        Collections.emptyList(),
+        Collections.emptyList(),
+        Collections.emptyList(),
+        Collections.emptyList(),
+        Collections.emptyList(),
+        Lists.newArrayList(() -> createFile1, () -> createFile2,
+            () -> createFile3),
+        2
+    );
+
+    SyncMountSnapshotUpdateTrackerImpl underTest =
+        new SyncMountSnapshotUpdateTrackerImpl(phasedPlan, dummyAliasMapWriter,
+            configuration);
+
+    for (int i = 0; i < 4; i++) {
+      underTest.getNextSchedulablePhase();
+    }
+    assertThat(underTest.currentPhase).isEqualTo(CREATE_DIRS);
+
+    for (int batchSize : new int[] {2, 1}) {
+      SchedulableSyncPhase initMultipartPhase =
+          underTest.getNextSchedulablePhase();
+      assertThat(initMultipartPhase.getMetadataSyncTaskList())
+          .hasSize(batchSize);
+      assertThat(underTest.currentPhase).isEqualTo(CREATE_FILES);
+      markPhaseSuccessful(initMultipartPhase, underTest);
+
+      SchedulableSyncPhase putPartPhase = underTest.getNextSchedulablePhase();
+      assertThat(putPartPhase.getBlockSyncTaskList()).hasSize(batchSize);
+      markPhaseSuccessful(putPartPhase, underTest);
+
+      SchedulableSyncPhase completeMultipartPhase =
+          underTest.getNextSchedulablePhase();
+      assertThat(completeMultipartPhase.getMetadataSyncTaskList())
+          .hasSize(batchSize);
+      assertThat(underTest.isFinished()).isFalse();
+      markPhaseSuccessful(completeMultipartPhase, underTest);
+    }
+    assertThat(underTest.isFinished()).isTrue();
+
+    SchedulableSyncPhase phase = underTest.getNextSchedulablePhase();
+    assertThat(phase).isEqualTo(SchedulableSyncPhase.empty());
+    assertThat(underTest.currentPhase).isEqualTo(FINISHED);
+    assertThat(underTest.isFinished()).isTrue();
+  }
+
   private SyncTask createFileSyncTask(URI uri, long fileLength, long blkid, long generationStamp) {
     long blockCollectionId = 42L;
     Block block1 = new Block(blkid, fileLength, generationStamp);